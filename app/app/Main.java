@@ -1,9 +1,43 @@
 package app;
 
+import app.cache.CambiosUsuariosListener;
+import app.config.AppConfig;
+import app.config.DbConnection;
+import app.config.EnrutadorLecturas;
+import app.http.ServidorHttp;
+import app.index.InstantaneaUsuarios;
+import app.metricas.Metricas;
+import app.metricas.RegistroMetricas;
+import app.metricas.RegistroMetricasMemoria;
+import app.model.ConteoPorDia;
+import app.model.ConteoPorDominio;
+import app.model.EstadisticasUsuarios;
+import app.model.FiltroUsuarios;
+import app.model.FormatoExportacion;
+import app.model.RechazoImportacion;
+import app.model.ResultadoExportacion;
+import app.model.ResultadoImportacion;
+import app.model.Rut;
 import app.model.Usuario;
+import app.repository.ResultadoEscritura;
+import app.service.EscrituraDiferidaActivo;
 import app.service.UsuarioService;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -12,14 +46,72 @@ import java.util.Scanner;
  */
 public class Main {
 
-    private static final UsuarioService usuarioService = new UsuarioService();
+    private static final UsuarioService usuarioService = UsuarioService.desdeConfig();
     private static final Scanner scanner = new Scanner(System.in);
 
+    private static final int TAMANO_PAGINA = 20;
+    private static final int RECHAZOS_A_MOSTRAR = 20;
+    private static final int IDS_MAX = 1_000_000;
+    private static final int DIAS_ESTADISTICAS = 14;
+    private static final int DOMINIOS_A_MOSTRAR = 10;
+
     public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--server")) {
+            iniciarServidor();
+            return;
+        }
+        int exportar = Arrays.asList(args).indexOf("--exportar");
+        if (exportar >= 0) {
+            if (exportar + 1 >= args.length) {
+                System.out.println("Uso: --exportar <archivo(.csv|.ndjson)[.gz]> [--copy]");
+                return;
+            }
+            exportarUsuarios(args[exportar + 1], Arrays.asList(args).contains("--copy"));
+            return;
+        }
+        int argInstantanea = Arrays.asList(args).indexOf("--instantanea");
+        if (argInstantanea >= 0) {
+            if (argInstantanea + 1 >= args.length) {
+                System.out.println("Uso: --instantanea <archivo>");
+                return;
+            }
+            abrirInstantanea(args[argInstantanea + 1]);
+            return;
+        }
+
         System.out.println("===========================================");
         System.out.println("  Sistema de Gestion de Usuarios");
         System.out.println("===========================================\n");
 
+        InstantaneaUsuarios instantanea = null;
+        String archivoInstantanea = AppConfig.get("instantanea.archivo", "").trim();
+        if (!archivoInstantanea.isEmpty()) {
+            instantanea = abrirInstantanea(archivoInstantanea);
+            System.out.println();
+        }
+
+        if (usuarioService.getVerificadorUnicidad() != null) {
+            long inicio = System.currentTimeMillis();
+            try {
+                long n = instantanea != null
+                        ? usuarioService.cargarVerificadorUnicidad(instantanea)
+                        : usuarioService.cargarVerificadorUnicidad();
+                System.out.println("Verificador de unicidad cargado: " + n + " usuarios en "
+                        + (System.currentTimeMillis() - inicio) + " ms\n");
+            } catch (Exception e) {
+                System.out.println("No se pudo cargar el verificador de unicidad (se consultara la BD): " + e.getMessage());
+            }
+            usuarioService.programarRecargaVerificador(AppConfig.getLong("unicidad.recargarCadaMs", 0L));
+        }
+
+        usuarioService.programarRecargaContadores(AppConfig.getLong("estadisticas.recargarCadaMs", 0L));
+
+        CambiosUsuariosListener listener = null;
+        if (AppConfig.getBoolean("cache.notificaciones.habilitado", false)) {
+            listener = usuarioService.iniciarListenerCambios(
+                    AppConfig.getBoolean("cache.notificaciones.refrescar", false));
+        }
+
         boolean salir = false;
 
         while (!salir) {
@@ -42,6 +134,24 @@ public class Main {
                 case 5:
                     activarDesactivarUsuario(); // único flujo, como pide el enunciado
                     break;
+                case 6:
+                    importarUsuarios();
+                    break;
+                case 7:
+                    cambiarEstadoMasivo();
+                    break;
+                case 8:
+                    buscarUsuariosPorTexto();
+                    break;
+                case 9:
+                    mostrarMetricas();
+                    break;
+                case 10:
+                    exportarUsuarios();
+                    break;
+                case 11:
+                    mostrarEstadisticas();
+                    break;
                 case 0:
                     salir = true;
                     System.out.println("Fin");
@@ -51,9 +161,41 @@ public class Main {
             }
         }
 
+        if (listener != null) {
+            listener.close();
+        }
+        EscrituraDiferidaActivo diferida = usuarioService.getEscrituraDiferida();
+        if (diferida != null) {
+            diferida.close(); // escribe los cambios de estado pendientes
+            System.out.println(diferida);
+        }
         scanner.close();
     }
 
+    /**
+     * Modo servidor: API HTTP/JSON (ver {@link ServidorHttp}) hasta que se detenga el proceso
+     * (Ctrl+C / SIGTERM); al detenerse se escriben los cambios de estado pendientes.
+     */
+    private static void iniciarServidor() {
+        ServidorHttp servidor;
+        try {
+            servidor = ServidorHttp.desdeConfig(usuarioService).iniciar();
+        } catch (IOException e) {
+            System.out.println("No se pudo iniciar el servidor HTTP: " + e.getMessage());
+            return;
+        }
+        System.out.println("Servidor HTTP escuchando en el puerto " + servidor.getPuerto() + " (/usuarios)");
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            servidor.close();
+            EscrituraDiferidaActivo diferida = usuarioService.getEscrituraDiferida();
+            if (diferida != null) {
+                diferida.close();
+            }
+            System.out.println(servidor);
+        }, "detener-servidor-http"));
+    }
+
     private static void mostrarMenu() {
         System.out.println("\n--- MENU PRINCIPAL ---");
         System.out.println("1) Listar usuarios");
@@ -61,6 +203,12 @@ public class Main {
         System.out.println("3) Crear usuario");
         System.out.println("4) Editar usuario");
         System.out.println("5) Activar / Desactivar usuario");
+        System.out.println("6) Importar usuarios desde CSV");
+        System.out.println("7) Activar / Desactivar masivo");
+        System.out.println("8) Buscar usuarios por nombre o email");
+        System.out.println("9) Ver metricas");
+        System.out.println("10) Exportar usuarios (CSV / NDJSON)");
+        System.out.println("11) Ver estadisticas");
         System.out.println("0) Salir");
         System.out.print("\nSeleccione una opcion: ");
     }
@@ -75,30 +223,42 @@ public class Main {
 
     /**
      * Listar: imprimir usuarios en formato tabular por consola.
+     * Se pagina por ID para que la memoria no dependa del tamaño de la tabla.
      */
     private static void listarUsuariosTabular() {
         System.out.println("\n--- LISTAR USUARIOS ---");
-        List<Usuario> usuarios = usuarioService.listarUsuarios();
 
-        if (usuarios.isEmpty()) {
-            System.out.println("No hay usuarios registrados.");
-            return;
-        }
+        long ultimoId = 0;
+        boolean hayUsuarios = false;
 
-        System.out.printf("%-5s %-12s %-25s %-30s %-8s %-20s%n",
-                "ID", "RUT-DV", "NOMBRE", "EMAIL", "ACTIVO", "FECHA_CREACION");
-        System.out.println("----------------------------------------------------------------------------------------------------------");
+        while (true) {
+            List<Usuario> pagina = usuarioService.listarUsuariosPagina(ultimoId, TAMANO_PAGINA);
 
-        for (Usuario u : usuarios) {
-            String rutDv = (u.getRut() != null ? u.getRut() : "") + "-" + (u.getDv() != null ? u.getDv() : "");
-            System.out.printf("%-5d %-12s %-25s %-30s %-8s %-20s%n",
-                    u.getId(),
-                    rutDv,
-                    recortar(u.getNombre(), 25),
-                    recortar(u.getEmail(), 30),
-                    Boolean.TRUE.equals(u.getActivo()) ? "SI" : "NO",
-                    u.getFechaCreacion()
-            );
+            if (pagina.isEmpty()) {
+                if (!hayUsuarios) {
+                    System.out.println("No hay usuarios registrados.");
+                }
+                return;
+            }
+
+            if (!hayUsuarios) {
+                imprimirEncabezadoTabla();
+                hayUsuarios = true;
+            }
+
+            for (Usuario u : pagina) {
+                imprimirFilaTabla(u);
+            }
+            ultimoId = pagina.get(pagina.size() - 1).getId();
+
+            if (pagina.size() < TAMANO_PAGINA) {
+                return;
+            }
+
+            System.out.print("-- Enter para ver mas, 'q' para volver: ");
+            if ("q".equalsIgnoreCase(scanner.nextLine().trim())) {
+                return;
+            }
         }
     }
 
@@ -125,6 +285,56 @@ public class Main {
         }
     }
 
+    /**
+     * Búsqueda por nombre o email, paginada igual que el listado.
+     */
+    private static void buscarUsuariosPorTexto() {
+        System.out.println("\n--- BUSCAR USUARIOS ---");
+        System.out.print("Texto (nombre o email; con 1-2 caracteres se buscan prefijos): ");
+        String texto = scanner.nextLine();
+
+        try {
+            long ultimoId = 0;
+            boolean hayResultados = false;
+
+            while (true) {
+                long inicio = System.nanoTime();
+                List<Usuario> pagina = usuarioService.buscarUsuarios(texto, ultimoId, TAMANO_PAGINA);
+
+                if (pagina.isEmpty()) {
+                    if (!hayResultados) {
+                        System.out.println("Sin resultados para: " + texto.trim());
+                    }
+                    return;
+                }
+
+                if (!hayResultados) {
+                    imprimirEncabezadoTabla();
+                    hayResultados = true;
+                }
+
+                for (Usuario u : pagina) {
+                    imprimirFilaTabla(u);
+                }
+                System.out.println("(" + pagina.size() + " resultados en " + msDesde(inicio) + " ms)");
+                ultimoId = pagina.get(pagina.size() - 1).getId();
+
+                if (pagina.size() < TAMANO_PAGINA) {
+                    return;
+                }
+
+                System.out.print("-- Enter para ver mas, 'q' para volver: ");
+                if ("q".equalsIgnoreCase(scanner.nextLine().trim())) {
+                    return;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("\nError de validacion: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("\nError al buscar usuarios: " + e.getMessage());
+        }
+    }
+
     private static void crearUsuario() {
         System.out.println("\n--- CREAR USUARIO ---");
 
@@ -158,6 +368,14 @@ public class Main {
         try {
             Long id = Long.parseLong(scanner.nextLine().trim());
 
+            // Se edita sobre la versión mostrada: si alguien la cambia mientras tanto, no se pisa
+            Usuario actual = usuarioService.buscarUsuarioPorId(id);
+            if (actual == null) {
+                System.out.println("\nNo se encontro usuario con ID: " + id);
+                return;
+            }
+            imprimirDetalle(actual);
+
             System.out.print("Ingrese el nuevo RUT (formato: 12345678-9): ");
             String rutCompleto = scanner.nextLine();
 
@@ -169,10 +387,14 @@ public class Main {
 
             RutDv rutDv = parseRut(rutCompleto);
 
-            boolean actualizado = usuarioService.actualizarUsuario(id, rutDv.rut, rutDv.dv, nombre, email);
+            ResultadoEscritura r = usuarioService.actualizarUsuarioSiVersion(id, actual.getVersion(),
+                    rutDv.rut, rutDv.dv, nombre, email);
 
-            if (actualizado) {
+            if (r.isExitoso()) {
                 System.out.println("\nUsuario actualizado exitosamente!");
+            } else if (r.isConflictoVersion()) {
+                System.out.println("\nEl usuario fue modificado por otra operacion mientras se editaba; "
+                        + "no se guardaron los cambios. Vuelva a intentarlo.");
             } else {
                 System.out.println("\nNo se encontro usuario con ID: " + id);
             }
@@ -210,6 +432,266 @@ public class Main {
         }
     }
 
+    /**
+     * Importación masiva desde un archivo CSV (rut,dv,nombre,email).
+     */
+    private static void importarUsuarios() {
+        System.out.println("\n--- IMPORTAR USUARIOS (CSV) ---");
+        System.out.print("Ruta del archivo (columnas: rut,dv,nombre,email): ");
+        String ruta = scanner.nextLine().trim();
+
+        try (Reader reader = new BufferedReader(Files.newBufferedReader(Paths.get(ruta), StandardCharsets.UTF_8))) {
+            ResultadoImportacion r = usuarioService.importarUsuariosCsv(reader);
+
+            System.out.println("\nImportacion finalizada:");
+            System.out.println("Filas leidas: " + r.getLeidas());
+            System.out.println("Insertadas: " + r.getInsertadas());
+            System.out.println("Rechazadas: " + r.getRechazos().size());
+            System.out.println("Tiempo: " + r.getDuracionMs() + " ms (" + r.getFilasPorSegundo() + " filas/s)");
+
+            List<RechazoImportacion> rechazos = r.getRechazos();
+            for (int i = 0; i < rechazos.size() && i < RECHAZOS_A_MOSTRAR; i++) {
+                System.out.println("  " + rechazos.get(i));
+            }
+            if (rechazos.size() > RECHAZOS_A_MOSTRAR) {
+                System.out.println("  ... y " + (rechazos.size() - RECHAZOS_A_MOSTRAR) + " rechazos mas");
+            }
+        } catch (NoSuchFileException e) {
+            System.out.println("\nError: no existe el archivo " + ruta);
+        } catch (IOException e) {
+            System.out.println("\nError al leer el archivo: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("\nError de validacion: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("\nError al importar usuarios: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exportación de todos los usuarios a un archivo; el formato sale de la extensión.
+     */
+    private static void exportarUsuarios() {
+        System.out.println("\n--- EXPORTAR USUARIOS ---");
+        System.out.print("Ruta del archivo (.csv o .ndjson, agregar .gz para comprimir): ");
+        String ruta = scanner.nextLine().trim();
+        System.out.print("Usar COPY del servidor (mas rapido)? (s/n): ");
+        boolean usarCopy = scanner.nextLine().trim().equalsIgnoreCase("s");
+        exportarUsuarios(ruta, usarCopy);
+    }
+
+    private static void exportarUsuarios(String ruta, boolean usarCopy) {
+        if (ruta.isEmpty()) {
+            System.out.println("\nError: debe indicar un archivo.");
+            return;
+        }
+        FormatoExportacion formato = FormatoExportacion.desdeArchivo(ruta);
+        boolean gzip = ruta.toLowerCase(Locale.ROOT).endsWith(".gz");
+
+        try {
+            ResultadoExportacion r = usuarioService.exportarUsuarios(Paths.get(ruta), formato, gzip, usarCopy);
+
+            System.out.println("\nExportacion finalizada (" + formato + (gzip ? ", gzip" : "")
+                    + (usarCopy ? ", COPY" : ", cursor") + "):");
+            System.out.println("Filas: " + r.getFilas());
+            System.out.println("Bytes escritos: " + r.getBytes());
+            System.out.println("Tiempo: " + r.getDuracionMs() + " ms (" + r.getFilasPorSegundo() + " filas/s)");
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n" + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("\nError al exportar usuarios: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Abre (o crea) la instantánea en disco, la pone al día con la BD e informa cuánto tardó.
+     *
+     * @return la instantánea, o null si no se pudo abrir
+     */
+    private static InstantaneaUsuarios abrirInstantanea(String ruta) {
+        long inicio = System.nanoTime();
+        try {
+            InstantaneaUsuarios inst = usuarioService.abrirInstantanea(Paths.get(ruta));
+            System.out.println("Instantanea lista en " + (System.nanoTime() - inicio) / 1_000_000 + " ms ("
+                    + (inst.isMapeada() ? "archivo mapeado" : "en memoria")
+                    + ", cambios incorporados: " + inst.getCambiosAplicados() + ")");
+            System.out.println("Usuarios: " + inst.getTamano() + " (activos: " + inst.contarActivos() + ")");
+            System.out.println("Bytes: " + inst.getBytes());
+            return inst;
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        } catch (Exception e) {
+            System.out.println("Error al abrir la instantanea: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Cambio de estado masivo: por lista de IDs (con rangos), por filtro o alternando una lista.
+     * Cada variante es una sola transacción en la BD.
+     */
+    private static void cambiarEstadoMasivo() {
+        System.out.println("\n--- ACTIVAR / DESACTIVAR MASIVO ---");
+        System.out.println("1) Por lista de IDs");
+        System.out.println("2) Por filtro (dominio de email, nombre, fecha de creacion)");
+        System.out.println("3) Alternar estado de una lista de IDs");
+        System.out.print("Seleccione: ");
+        int modo = leerOpcion();
+
+        try {
+            if (modo == 1 || modo == 3) {
+                System.out.print("IDs separados por coma, con rangos opcionales (ej: 1,5,10-20): ");
+                List<Long> ids = parseIds(scanner.nextLine());
+
+                if (modo == 3) {
+                    long inicio = System.nanoTime();
+                    Map<Long, Boolean> estados = usuarioService.alternarEstadoUsuarios(ids);
+                    long activos = estados.values().stream().filter(Boolean::booleanValue).count();
+                    System.out.println("\nEstados alternados: " + estados.size() + " (" + activos + " quedaron activos, "
+                            + (estados.size() - activos) + " inactivos) en " + msDesde(inicio) + " ms");
+                } else {
+                    Boolean activo = leerEstadoDestino();
+                    if (activo == null) return;
+                    long inicio = System.nanoTime();
+                    int cambiados = usuarioService.cambiarEstadoUsuarios(ids, activo);
+                    System.out.println("\nUsuarios que cambiaron de estado: " + cambiados + " de " + ids.size()
+                            + " IDs en " + msDesde(inicio) + " ms");
+                }
+            } else if (modo == 2) {
+                FiltroUsuarios filtro = leerFiltro();
+                Boolean activo = leerEstadoDestino();
+                if (activo == null) return;
+
+                long coinciden = usuarioService.contarUsuarios(filtro.conActivo(!activo));
+                System.out.print("Se " + (activo ? "activaran " : "desactivaran ") + coinciden
+                        + " usuarios. Confirmar (s/n): ");
+                if (!"s".equalsIgnoreCase(scanner.nextLine().trim())) {
+                    System.out.println("Operacion cancelada.");
+                    return;
+                }
+
+                long inicio = System.nanoTime();
+                int cambiados = usuarioService.cambiarEstadoUsuarios(filtro, activo);
+                System.out.println("\nUsuarios que cambiaron de estado: " + cambiados + " en " + msDesde(inicio) + " ms");
+            } else {
+                System.out.println("Opcion invalida.");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("\nError de validacion: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("\nError al cambiar estado: " + e.getMessage());
+        }
+    }
+
+    private static Boolean leerEstadoDestino() {
+        System.out.print("Activar (a) o desactivar (d): ");
+        String r = scanner.nextLine().trim();
+        if ("a".equalsIgnoreCase(r)) return true;
+        if ("d".equalsIgnoreCase(r)) return false;
+        System.out.println("Opcion invalida.");
+        return null;
+    }
+
+    private static FiltroUsuarios leerFiltro() {
+        System.out.println("(Enter para omitir un criterio)");
+        System.out.print("Dominio de email (ej: empresa.cl): ");
+        FiltroUsuarios filtro = FiltroUsuarios.todos().conDominioEmail(scanner.nextLine());
+        System.out.print("Nombre contiene: ");
+        filtro = filtro.conNombreContiene(scanner.nextLine());
+        System.out.print("Creado desde (yyyy-MM-dd): ");
+        Timestamp desde = parseFecha(scanner.nextLine(), false);
+        System.out.print("Creado hasta, inclusive (yyyy-MM-dd): ");
+        Timestamp hasta = parseFecha(scanner.nextLine(), true);
+        return filtro.creadosEntre(desde, hasta);
+    }
+
+    private static void mostrarMetricas() {
+        EnrutadorLecturas enrutador = DbConnection.getEnrutador();
+        if (enrutador != null) {
+            System.out.println("\n" + enrutador);
+        }
+
+        RegistroMetricas registro = Metricas.getRegistro();
+        if (registro == null) {
+            System.out.println("Metricas deshabilitadas (metricas.habilitado=true en application.properties).\n");
+            return;
+        }
+        if (!(registro instanceof RegistroMetricasMemoria)) {
+            System.out.println("El registro de metricas instalado no guarda datos en memoria: "
+                    + registro.getClass().getName() + "\n");
+            return;
+        }
+        RegistroMetricasMemoria enMemoria = (RegistroMetricasMemoria) registro;
+
+        StringBuilder sb = new StringBuilder("\nTiempos en ms\n");
+        enMemoria.volcarTexto(sb);
+        System.out.println(sb);
+        System.out.println(DbConnection.getPool().stats());
+
+        System.out.print("\nReiniciar metricas? (s/N): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("s")) {
+            enMemoria.reiniciar();
+            System.out.println("Metricas reiniciadas.");
+        }
+        System.out.println();
+    }
+
+    /**
+     * Estadísticas agregadas: por estado, altas por día de las últimas semanas y dominios más usados.
+     * Se calculan en la BD (o con los contadores en memoria), sin traer usuarios.
+     */
+    private static void mostrarEstadisticas() {
+        System.out.println("\n--- ESTADISTICAS ---");
+        System.out.print("Dias hacia atras para las altas (Enter = " + DIAS_ESTADISTICAS + "): ");
+        int dias = DIAS_ESTADISTICAS;
+        String entrada = scanner.nextLine().trim();
+        if (!entrada.isEmpty()) {
+            try {
+                dias = Integer.parseInt(entrada);
+            } catch (NumberFormatException e) {
+                System.out.println("\nError: ingrese un numero de dias.");
+                return;
+            }
+            if (dias <= 0) {
+                System.out.println("\nError: ingrese un numero de dias mayor que 0.");
+                return;
+            }
+        }
+
+        try {
+            long inicio = System.nanoTime();
+            EstadisticasUsuarios e = usuarioService.obtenerEstadisticas();
+            System.out.println("\nUsuarios: " + e.getTotal() + "  activos: " + e.getActivos()
+                    + "  inactivos: " + e.getInactivos()
+                    + "  (" + (e.isDesdeContadores() ? "contadores en memoria" : "consulta") + ", "
+                    + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+
+            LocalDate hasta = LocalDate.now().plusDays(1);
+            inicio = System.nanoTime();
+            List<ConteoPorDia> porDia = usuarioService.contarCreadosPorDia(hasta.minusDays(dias), hasta);
+            System.out.println("\nAltas por dia, ultimos " + dias + " dias ("
+                    + (System.nanoTime() - inicio) / 1_000_000 + " ms):");
+            if (porDia.isEmpty()) {
+                System.out.println("  (sin altas)");
+            }
+            for (ConteoPorDia c : porDia) {
+                System.out.printf("  %s %10d%n", c.getDia(), c.getCreados());
+            }
+
+            inicio = System.nanoTime();
+            List<ConteoPorDominio> dominios = usuarioService.contarPorDominio(DOMINIOS_A_MOSTRAR);
+            System.out.println("\nDominios de email (" + (System.nanoTime() - inicio) / 1_000_000 + " ms):");
+            System.out.printf("  %-30s %10s %10s%n", "dominio", "usuarios", "activos");
+            for (ConteoPorDominio c : dominios) {
+                System.out.printf("  %-30s %10d %10d%n", c.getDominio(), c.getTotal(), c.getActivos());
+            }
+            System.out.println();
+        } catch (IllegalArgumentException e) {
+            System.out.println("\nError: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("\nError al calcular estadisticas: " + e.getMessage());
+        }
+    }
+
     // ----------------- Helpers -----------------
 
     private static void imprimirDetalle(Usuario u) {
@@ -219,6 +701,25 @@ public class Main {
         System.out.println("Email: " + u.getEmail());
         System.out.println("Activo: " + (Boolean.TRUE.equals(u.getActivo()) ? "SI" : "NO"));
         System.out.println("Fecha creación: " + u.getFechaCreacion());
+        System.out.println("Version: " + u.getVersion());
+    }
+
+    private static void imprimirEncabezadoTabla() {
+        System.out.printf("%-5s %-12s %-25s %-30s %-8s %-20s%n",
+                "ID", "RUT-DV", "NOMBRE", "EMAIL", "ACTIVO", "FECHA_CREACION");
+        System.out.println("----------------------------------------------------------------------------------------------------------");
+    }
+
+    private static void imprimirFilaTabla(Usuario u) {
+        String rutDv = (u.getRut() != null ? u.getRut() : "") + "-" + (u.getDv() != null ? u.getDv() : "");
+        System.out.printf("%-5d %-12s %-25s %-30s %-8s %-20s%n",
+                u.getId(),
+                rutDv,
+                recortar(u.getNombre(), 25),
+                recortar(u.getEmail(), 30),
+                Boolean.TRUE.equals(u.getActivo()) ? "SI" : "NO",
+                u.getFechaCreacion()
+        );
     }
 
     private static String recortar(String s, int max) {
@@ -227,30 +728,67 @@ public class Main {
         return t.length() <= max ? t : t.substring(0, max - 3) + "...";
     }
 
-    private static RutDv parseRut(String rutCompleto) {
-        if (rutCompleto == null) throw new IllegalArgumentException("RUT es obligatorio.");
-
-        String[] partes = rutCompleto.trim().split("-");
-        if (partes.length != 2) {
-            throw new IllegalArgumentException("Formato de RUT invalido. Use formato 12345678-9");
+    /**
+     * "1, 5,10-20" -> [1, 5, 10..20]. IllegalArgumentException si el formato es inválido
+     * o si se piden más de {@link #IDS_MAX} IDs.
+     */
+    static List<Long> parseIds(String texto) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("Debe ingresar al menos un ID.");
         }
 
-        String rutStr = partes[0].replace(".", "").trim();
-        String dv = partes[1].trim();
-
-        if (dv.length() != 1) {
-            throw new IllegalArgumentException("DV invalido. Debe tener 1 caracter.");
+        List<Long> ids = new ArrayList<>();
+        for (String parte : texto.split(",")) {
+            String p = parte.trim();
+            if (p.isEmpty()) continue;
+
+            try {
+                int guion = p.indexOf('-', 1);
+                long desde = Long.parseLong((guion < 0 ? p : p.substring(0, guion)).trim());
+                long hasta = guion < 0 ? desde : Long.parseLong(p.substring(guion + 1).trim());
+                if (desde <= 0 || hasta < desde) {
+                    throw new IllegalArgumentException("Rango de IDs invalido: " + p);
+                }
+                if (hasta - desde >= IDS_MAX - ids.size()) {
+                    throw new IllegalArgumentException("Demasiados IDs (maximo " + IDS_MAX + ").");
+                }
+                for (long id = desde; id <= hasta; id++) {
+                    ids.add(id);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("ID invalido: " + p);
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("Debe ingresar al menos un ID.");
         }
+        return ids;
+    }
 
+    /**
+     * Fecha yyyy-MM-dd al inicio del día (o del día siguiente si {@code finDeDia}); null si está vacía.
+     */
+    private static Timestamp parseFecha(String texto, boolean finDeDia) {
+        String t = texto.trim();
+        if (t.isEmpty()) return null;
         try {
-            Integer rut = Integer.parseInt(rutStr);
-            return new RutDv(rut, dv.toUpperCase());
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("RUT invalido.");
+            LocalDate fecha = LocalDate.parse(t);
+            return Timestamp.valueOf((finDeDia ? fecha.plusDays(1) : fecha).atStartOfDay());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha invalida (use yyyy-MM-dd): " + t);
         }
     }
 
-    private static class RutDv {
+    private static long msDesde(long inicioNanos) {
+        return (System.nanoTime() - inicioNanos) / 1_000_000;
+    }
+
+    static RutDv parseRut(String rutCompleto) {
+        long clave = Rut.parsear(rutCompleto);
+        return new RutDv(Rut.numero(clave), Rut.dvTexto(clave));
+    }
+
+    static final class RutDv {
         final Integer rut;
         final String dv;
 
@@ -0,0 +1,172 @@
+package app.cache;
+
+import app.config.DbConnection;
+import app.model.Usuario;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escucha el canal {@code usuarios_cambios} (ver notificaciones.sql) con una conexión dedicada,
+ * fuera del pool, y aplica los cambios de otras instancias a la caché local.
+ *
+ * Las notificaciones se agrupan en lotes: tras la primera se sigue leyendo hasta que no
+ * lleguen más o se alcance {@link #LOTE_MAX}; los ids del lote se desalojan (o se recargan,
+ * si se entregó un cargador y estaban en caché). Si la conexión se pierde se reconecta y se
+ * vacía la caché completa, porque las notificaciones del intervalo no se recuperan.
+ */
+public class CambiosUsuariosListener implements AutoCloseable {
+
+    public static final String CANAL = "usuarios_cambios";
+
+    private static final int ESPERA_MS = 500;
+    private static final int ESPERA_LOTE_MS = 10;
+    private static final int LOTE_MAX = 1_000;
+    private static final long REINTENTO_MAX_MS = 30_000L;
+
+    private final UsuarioCache cache;
+    private final UsuarioCache.Cargador refresco; // null = solo desalojar
+    private final Thread hilo;
+    private volatile boolean activo = true;
+
+    private final AtomicLong notificaciones = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong reconexiones = new AtomicLong();
+
+    public CambiosUsuariosListener(UsuarioCache cache, UsuarioCache.Cargador refresco) {
+        this.cache = cache;
+        this.refresco = refresco;
+        this.hilo = new Thread(this::ejecutar, "usuarios-listener");
+        this.hilo.setDaemon(true);
+    }
+
+    public CambiosUsuariosListener iniciar() {
+        hilo.start();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        activo = false;
+        hilo.interrupt();
+        try {
+            hilo.join(ESPERA_MS * 4L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getNotificaciones() {
+        return notificaciones.get();
+    }
+
+    public long getLotes() {
+        return lotes.get();
+    }
+
+    public long getReconexiones() {
+        return reconexiones.get();
+    }
+
+    // ------------------ Internos ------------------
+
+    private void ejecutar() {
+        long espera = ESPERA_MS;
+        boolean primera = true;
+
+        while (activo) {
+            try (Connection conn = DbConnection.crearConexionDirecta()) {
+                try (PreparedStatement ps = conn.prepareStatement("LISTEN " + CANAL)) {
+                    ps.execute();
+                }
+                if (!primera) {
+                    // Lo ocurrido mientras no se escuchaba no se puede reconstruir
+                    reconexiones.incrementAndGet();
+                    cache.invalidarTodo();
+                }
+                primera = false;
+                espera = ESPERA_MS;
+
+                escuchar(conn.unwrap(PGConnection.class));
+            } catch (SQLException e) {
+                if (!activo) break;
+                dormir(espera);
+                espera = Math.min(espera * 2, REINTENTO_MAX_MS);
+            }
+        }
+    }
+
+    private void escuchar(PGConnection pg) throws SQLException {
+        Set<Long> lote = new LinkedHashSet<>();
+
+        while (activo) {
+            PGNotification[] recibidas = pg.getNotifications(ESPERA_MS);
+            while (recibidas != null && recibidas.length > 0) {
+                for (PGNotification n : recibidas) {
+                    notificaciones.incrementAndGet();
+                    Long id = idDe(n.getParameter());
+                    if (id != null) {
+                        lote.add(id);
+                    }
+                }
+                if (lote.size() >= LOTE_MAX) break;
+                recibidas = pg.getNotifications(ESPERA_LOTE_MS);
+            }
+
+            if (!lote.isEmpty()) {
+                aplicar(lote);
+                lote.clear();
+            }
+        }
+    }
+
+    /**
+     * Aplica un lote de cambios: desaloja los ids y recarga (con el cargador, si hay) los que estaban en caché.
+     */
+    public void aplicar(Set<Long> ids) {
+        lotes.incrementAndGet();
+        for (Long id : ids) {
+            boolean estaba = cache.contiene(id);
+            cache.invalidar(id);
+            if (estaba && refresco != null) {
+                try {
+                    Usuario u = refresco.cargar(id);
+                    if (u != null) cache.poner(u);
+                } catch (SQLException | RuntimeException ignored) {
+                    // Queda desalojado; la próxima lectura lo carga
+                }
+            }
+        }
+    }
+
+    /**
+     * Payload "<operacion>:<id>"; los INSERT no afectan la caché (nunca se guardan ausentes).
+     *
+     * @return id afectado, o null si es un INSERT o el payload no tiene el formato esperado
+     */
+    public static Long idDe(String payload) {
+        if (payload == null || payload.length() < 3 || payload.charAt(1) != ':' || payload.charAt(0) == 'I') {
+            return null;
+        }
+        try {
+            return Long.parseLong(payload.substring(2));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            activo = false;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package app.cache;
+
+import app.config.AppConfig;
+import app.model.Usuario;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caché de lectura de usuarios por id: LRU acotado por tamaño, con TTL por entrada.
+ *
+ * - Las lecturas concurrentes de un mismo id ausente se agrupan en una sola carga.
+ * - Una invalidación durante una carga impide que el valor cargado quede en caché.
+ * - Se guardan y entregan copias, porque {@link Usuario} es mutable.
+ */
+public class UsuarioCache {
+
+    /**
+     * Carga un usuario desde la fuente (normalmente el repositorio).
+     */
+    public interface Cargador {
+        Usuario cargar(Long id) throws SQLException;
+    }
+
+    /**
+     * Carga varios usuarios de una vez; los inexistentes no aparecen en el mapa.
+     */
+    public interface CargadorLote {
+        Map<Long, Usuario> cargar(Collection<Long> ids) throws SQLException;
+    }
+
+    private final int capacidad;
+    private final long ttlNanos;
+    private final LongSupplier reloj;
+
+    private final LinkedHashMap<Long, Entrada> entradas;
+    private final ConcurrentHashMap<Long, CompletableFuture<Usuario>> enCurso = new ConcurrentHashMap<>();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+    private final AtomicLong expirados = new AtomicLong();
+    private final AtomicLong cargasAgrupadas = new AtomicLong();
+
+    public UsuarioCache(int capacidad, long ttlMs) {
+        this(capacidad, ttlMs, System::nanoTime);
+    }
+
+    public UsuarioCache(int capacidad, long ttlMs, LongSupplier reloj) {
+        if (capacidad <= 0 || ttlMs <= 0) {
+            throw new IllegalArgumentException("Capacidad y TTL de la caché deben ser mayores a 0.");
+        }
+        this.capacidad = capacidad;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.reloj = reloj;
+        this.entradas = new LinkedHashMap<Long, Entrada>(Math.min(capacidad, 1 << 16), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> eldest) {
+                if (size() > UsuarioCache.this.capacidad) {
+                    desalojos.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Caché según {@code cache.usuarios.*} en application.properties; null si está deshabilitada.
+     */
+    public static UsuarioCache desdeConfig() {
+        if (!AppConfig.getBoolean("cache.usuarios.habilitado", true)) {
+            return null;
+        }
+        return new UsuarioCache(
+                AppConfig.getInt("cache.usuarios.capacidad", 10_000),
+                AppConfig.getLong("cache.usuarios.ttlMs", 30_000L));
+    }
+
+    /**
+     * Usuario en caché o, si no está (o venció), lo carga con el cargador.
+     * Devuelve null si el usuario no existe (los inexistentes no se guardan).
+     */
+    public Usuario obtener(Long id, Cargador cargador) throws SQLException {
+        Usuario enCache = buscar(id);
+        if (enCache != null) {
+            aciertos.incrementAndGet();
+            return enCache;
+        }
+        fallos.incrementAndGet();
+
+        CompletableFuture<Usuario> propio = new CompletableFuture<>();
+        CompletableFuture<Usuario> existente = enCurso.putIfAbsent(id, propio);
+        if (existente != null) {
+            cargasAgrupadas.incrementAndGet();
+            return copiar(esperar(existente));
+        }
+
+        long generacion = invalidaciones.get();
+        try {
+            Usuario cargado = cargador.cargar(id);
+            if (cargado != null && invalidaciones.get() == generacion) {
+                poner(cargado);
+            }
+            propio.complete(cargado);
+            return copiar(cargado);
+        } catch (SQLException | RuntimeException e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(id, propio);
+        }
+    }
+
+    /**
+     * Versión por lote de {@link #obtener}: entrega lo que esté en caché y carga el resto con una
+     * sola llamada al cargador. Sin agrupación con otras cargas en curso.
+     */
+    public Map<Long, Usuario> obtenerTodos(Collection<Long> ids, CargadorLote cargador) throws SQLException {
+        Map<Long, Usuario> out = new HashMap<>(Math.max(16, (int) (ids.size() / 0.75f) + 1));
+        Set<Long> faltantes = new LinkedHashSet<>();
+
+        long ahora = reloj.getAsLong();
+        synchronized (entradas) {
+            for (Long id : ids) {
+                if (id == null || out.containsKey(id)) continue;
+                Entrada entrada = entradas.get(id);
+                if (entrada != null && !entrada.vencida(ahora)) {
+                    out.put(id, copiar(entrada.usuario));
+                    continue;
+                }
+                if (entrada != null) {
+                    entradas.remove(id);
+                    expirados.incrementAndGet();
+                }
+                faltantes.add(id);
+            }
+        }
+        aciertos.addAndGet(out.size());
+        fallos.addAndGet(faltantes.size());
+
+        if (!faltantes.isEmpty()) {
+            long generacion = invalidaciones.get();
+            Map<Long, Usuario> cargados = cargador.cargar(faltantes);
+            boolean vigente = invalidaciones.get() == generacion;
+            for (Usuario u : cargados.values()) {
+                if (vigente) {
+                    poner(u);
+                }
+                out.put(u.getId(), u);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Guarda (o reemplaza) un usuario, p.ej. tras crearlo.
+     */
+    public void poner(Usuario usuario) {
+        if (usuario == null || usuario.getId() == null) return;
+        Entrada entrada = new Entrada(copiar(usuario), reloj.getAsLong() + ttlNanos);
+        synchronized (entradas) {
+            entradas.put(usuario.getId(), entrada);
+        }
+    }
+
+    /**
+     * Actualiza el estado de la entrada en caché, si existe y tiene el otro estado
+     * (write-through de actualizarActivo).
+     */
+    public void actualizarActivo(Long id, boolean activo) {
+        invalidaciones.incrementAndGet();
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(id);
+            if (entrada != null && !Boolean.valueOf(activo).equals(entrada.usuario.getActivo())) {
+                entradas.put(id, new Entrada(conActivo(entrada.usuario, activo), entrada.venceEn));
+            }
+        }
+    }
+
+    /**
+     * Versión por lote de {@link #actualizarActivo(Long, boolean)}: un solo bloqueo para todos los ids.
+     */
+    public void actualizarActivo(Collection<Long> ids, boolean activo) {
+        invalidaciones.incrementAndGet();
+        synchronized (entradas) {
+            for (Long id : ids) {
+                Entrada entrada = entradas.get(id);
+                if (entrada != null && !Boolean.valueOf(activo).equals(entrada.usuario.getActivo())) {
+                    entradas.put(id, new Entrada(conActivo(entrada.usuario, activo), entrada.venceEn));
+                }
+            }
+        }
+    }
+
+    /**
+     * true si el id tiene una entrada (aunque esté vencida); no cuenta como acierto ni fallo.
+     */
+    public boolean contiene(Long id) {
+        synchronized (entradas) {
+            return entradas.containsKey(id);
+        }
+    }
+
+    public void invalidar(Long id) {
+        invalidaciones.incrementAndGet();
+        synchronized (entradas) {
+            entradas.remove(id);
+        }
+    }
+
+    public void invalidarTodo() {
+        invalidaciones.incrementAndGet();
+        synchronized (entradas) {
+            entradas.clear();
+        }
+    }
+
+    /**
+     * Elimina las entradas vencidas (las lecturas ya las ignoran; esto libera memoria).
+     */
+    public void purgarVencidas() {
+        long ahora = reloj.getAsLong();
+        synchronized (entradas) {
+            Iterator<Entrada> it = entradas.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().vencida(ahora)) {
+                    it.remove();
+                    expirados.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public int getTamano() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    public long getAciertos() {
+        return aciertos.get();
+    }
+
+    public long getFallos() {
+        return fallos.get();
+    }
+
+    public long getDesalojos() {
+        return desalojos.get();
+    }
+
+    public long getExpirados() {
+        return expirados.get();
+    }
+
+    /**
+     * Fallos que esperaron la carga de otro hilo en vez de consultar la BD.
+     */
+    public long getCargasAgrupadas() {
+        return cargasAgrupadas.get();
+    }
+
+    @Override
+    public String toString() {
+        return "UsuarioCache{tamano=" + getTamano() + "/" + capacidad +
+                ", aciertos=" + aciertos.get() +
+                ", fallos=" + fallos.get() +
+                ", desalojos=" + desalojos.get() +
+                ", expirados=" + expirados.get() +
+                ", cargasAgrupadas=" + cargasAgrupadas.get() +
+                '}';
+    }
+
+    // ------------------ Internos ------------------
+
+    private Usuario buscar(Long id) {
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(id);
+            if (entrada == null) {
+                return null;
+            }
+            if (entrada.vencida(reloj.getAsLong())) {
+                entradas.remove(id);
+                expirados.incrementAndGet();
+                return null;
+            }
+            return copiar(entrada.usuario);
+        }
+    }
+
+    private static Usuario esperar(CompletableFuture<Usuario> futuro) throws SQLException {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando la carga del usuario.", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof SQLException) throw (SQLException) causa;
+            if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+            throw new SQLException(causa);
+        }
+    }
+
+    private static Usuario copiar(Usuario u) {
+        if (u == null) return null;
+        return new Usuario(u.getId(), u.getRut(), u.getDv(), u.getNombre(), u.getEmail(),
+                u.getActivo(), u.getFechaCreacion(), u.getVersion());
+    }
+
+    /**
+     * Copia con el nuevo estado y la versión que dejó el UPDATE (+1). Si la BD avanzó distinto
+     * (p. ej. cambios diferidos que se anulan), la actualización condicional que use esta versión
+     * falla una vez e invalida la entrada.
+     */
+    private static Usuario conActivo(Usuario u, boolean activo) {
+        Usuario copia = copiar(u);
+        copia.setActivo(activo);
+        if (copia.getVersion() != null) {
+            copia.setVersion(copia.getVersion() + 1);
+        }
+        return copia;
+    }
+
+    private static final class Entrada {
+        final Usuario usuario;
+        final long venceEn;
+
+        Entrada(Usuario usuario, long venceEn) {
+            this.usuario = usuario;
+            this.venceEn = venceEn;
+        }
+
+        boolean vencida(long ahora) {
+            return ahora - venceEn >= 0;
+        }
+    }
+}
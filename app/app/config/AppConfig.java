@@ -0,0 +1,64 @@
+package app.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Lee la configuración desde {@code application.properties} (classpath).
+ * Cualquier clave puede sobrescribirse con una propiedad de sistema (-Dclave=valor).
+ */
+public final class AppConfig {
+
+    private static final String ARCHIVO = "application.properties";
+    private static final Properties PROPS = cargar();
+
+    private AppConfig() {
+    }
+
+    public static String get(String clave, String porDefecto) {
+        String valor = System.getProperty(clave);
+        if (valor == null) {
+            valor = PROPS.getProperty(clave);
+        }
+        return valor != null ? valor.trim() : porDefecto;
+    }
+
+    public static int getInt(String clave, int porDefecto) {
+        String valor = get(clave, null);
+        if (valor == null || valor.isEmpty()) return porDefecto;
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Valor inválido para " + clave + ": " + valor, e);
+        }
+    }
+
+    public static long getLong(String clave, long porDefecto) {
+        String valor = get(clave, null);
+        if (valor == null || valor.isEmpty()) return porDefecto;
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Valor inválido para " + clave + ": " + valor, e);
+        }
+    }
+
+    public static boolean getBoolean(String clave, boolean porDefecto) {
+        String valor = get(clave, null);
+        if (valor == null || valor.isEmpty()) return porDefecto;
+        return Boolean.parseBoolean(valor);
+    }
+
+    private static Properties cargar() {
+        Properties props = new Properties();
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream(ARCHIVO)) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer " + ARCHIVO + ": " + e.getMessage(), e);
+        }
+        return props;
+    }
+}
@@ -0,0 +1,522 @@
+package app.config;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+/**
+ * Pool acotado de conexiones JDBC.
+ *
+ * - Máximo de conexiones prestadas controlado por un semáforo justo (FIFO entre los que esperan).
+ * - Las conexiones inactivas se reutilizan en orden LIFO; el desalojo por inactividad recorre
+ *   la cola desde las más antiguas y mantiene al menos {@code min} conexiones abiertas.
+ * - Cada préstamo entrega un proxy: {@code close()} devuelve la conexión física al pool
+ *   (con rollback y autocommit restaurado si el llamador lo cambió).
+ * - Con {@code statementCache > 0} cada conexión física conserva (LRU) las sentencias preparadas
+ *   con {@code prepareStatement(sql)}: cerrar la sentencia la devuelve al caché en vez de cerrarla,
+ *   y el siguiente préstamo que prepare el mismo SQL la reutiliza (el driver la mantiene
+ *   preparada en el servidor).
+ */
+public class ConnectionPool implements DataSource {
+
+    /**
+     * Crea conexiones físicas nuevas (normalmente vía DriverManager).
+     */
+    public interface ConnectionFactory {
+        Connection crear() throws SQLException;
+    }
+
+    private final ConnectionFactory fabrica;
+    private final PoolConfig config;
+
+    private final Semaphore permisos;
+    private final LinkedBlockingDeque<ConexionFisica> inactivas = new LinkedBlockingDeque<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger activas = new AtomicInteger();
+    private final AtomicInteger esperando = new AtomicInteger();
+
+    private final AtomicLong prestamos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong creadas = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+    private final AtomicLong esperaMaxMs = new AtomicLong();
+    private final AtomicLong sentenciasReutilizadas = new AtomicLong();
+    private final AtomicLong sentenciasPreparadas = new AtomicLong();
+    private final AtomicLongArray histogramaEspera = new AtomicLongArray(PoolStats.LIMITES_ESPERA_MS.length + 1);
+
+    private final ScheduledExecutorService mantenimiento;
+    private volatile boolean cerrado;
+
+    public ConnectionPool(ConnectionFactory fabrica, PoolConfig config) {
+        this.fabrica = fabrica;
+        this.config = config;
+        this.permisos = new Semaphore(config.getMax(), true);
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1_000L, Math.min(config.getIdleTimeoutMs() / 2, 30_000L));
+        mantenimiento.scheduleWithFixedDelay(this::mantener, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado.");
+        }
+
+        long inicio = System.nanoTime();
+        boolean obtenido;
+        esperando.incrementAndGet();
+        try {
+            obtenido = permisos.tryAcquire(config.getBorrowTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba una conexión.", e);
+        } finally {
+            esperando.decrementAndGet();
+        }
+        registrarEspera(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+
+        if (!obtenido) {
+            timeouts.incrementAndGet();
+            throw new SQLTimeoutException("No hay conexiones disponibles tras " + config.getBorrowTimeoutMs()
+                    + " ms (activas=" + activas.get() + ", max=" + config.getMax() + ").");
+        }
+
+        try {
+            ConexionFisica fisica = tomarFisica();
+            activas.incrementAndGet();
+            prestamos.incrementAndGet();
+            return fisica.prestar();
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("El pool usa las credenciales de su configuración.");
+    }
+
+    public PoolStats stats() {
+        long[] histograma = new long[histogramaEspera.length()];
+        for (int i = 0; i < histograma.length; i++) {
+            histograma[i] = histogramaEspera.get(i);
+        }
+        return new PoolStats(total.get(), activas.get(), inactivas.size(), esperando.get(),
+                prestamos.get(), timeouts.get(), creadas.get(), descartadas.get(),
+                esperaMaxMs.get(), histograma, sentenciasReutilizadas.get(), sentenciasPreparadas.get());
+    }
+
+    /**
+     * Cierra las conexiones inactivas; las prestadas se cierran al ser devueltas.
+     */
+    public void cerrar() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        ConexionFisica fisica;
+        while ((fisica = inactivas.pollFirst()) != null) {
+            descartar(fisica);
+        }
+    }
+
+    // ------------------ Internos ------------------
+
+    private ConexionFisica tomarFisica() throws SQLException {
+        ConexionFisica fisica;
+        while ((fisica = inactivas.pollFirst()) != null) {
+            if (!config.isValidateOnBorrow() || esValida(fisica)) {
+                return fisica;
+            }
+            descartar(fisica);
+        }
+        return crearFisica();
+    }
+
+    private ConexionFisica crearFisica() throws SQLException {
+        Connection real = fabrica.crear();
+        total.incrementAndGet();
+        creadas.incrementAndGet();
+        return new ConexionFisica(real);
+    }
+
+    private boolean esValida(ConexionFisica fisica) {
+        try {
+            return fisica.real.isValid(config.getValidationTimeoutSec());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void devolver(ConexionFisica fisica) {
+        activas.decrementAndGet();
+        try {
+            Connection real = fisica.real;
+            fisica.liberarSentencias();
+            if (real.isClosed()) {
+                descartar(fisica);
+                return;
+            }
+            if (!real.getAutoCommit()) {
+                real.rollback();
+                real.setAutoCommit(true);
+            }
+            if (real.isReadOnly()) {
+                real.setReadOnly(false);
+            }
+            fisica.ultimoUso = System.nanoTime();
+            if (cerrado) {
+                descartar(fisica);
+            } else {
+                inactivas.offerFirst(fisica);
+            }
+        } catch (SQLException e) {
+            descartar(fisica);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    private void descartar(ConexionFisica fisica) {
+        total.decrementAndGet();
+        descartadas.incrementAndGet();
+        try {
+            fisica.real.close();
+        } catch (SQLException ignored) {
+            // La conexión se descarta de todas formas
+        }
+    }
+
+    /**
+     * Desaloja conexiones inactivas vencidas y repone el mínimo configurado.
+     */
+    private void mantener() {
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMs());
+
+        Iterator<ConexionFisica> it = inactivas.descendingIterator();
+        while (it.hasNext() && total.get() > config.getMin()) {
+            ConexionFisica fisica = it.next();
+            if (fisica.ultimoUso - limite < 0 && inactivas.removeFirstOccurrence(fisica)) {
+                descartar(fisica);
+            }
+        }
+
+        try {
+            while (!cerrado && total.get() < config.getMin()) {
+                ConexionFisica fisica = crearFisica();
+                fisica.ultimoUso = System.nanoTime();
+                inactivas.offerLast(fisica);
+            }
+        } catch (SQLException ignored) {
+            // BD no disponible: se reintenta en el próximo ciclo
+        }
+    }
+
+    private void registrarEspera(long ms) {
+        int tramo = 0;
+        while (tramo < PoolStats.LIMITES_ESPERA_MS.length && ms > PoolStats.LIMITES_ESPERA_MS[tramo]) {
+            tramo++;
+        }
+        histogramaEspera.incrementAndGet(tramo);
+        esperaMaxMs.accumulateAndGet(ms, Math::max);
+    }
+
+    /**
+     * Conexión física administrada por el pool.
+     */
+    private final class ConexionFisica {
+        final Connection real;
+        volatile long ultimoUso = System.nanoTime();
+
+        /**
+         * Sentencias preparadas por SQL, en orden de uso (null = sin caché). Solo la usa
+         * quien tiene la conexión prestada; el traspaso por la cola del pool la publica.
+         */
+        private final LinkedHashMap<String, SentenciaCacheada> sentencias;
+
+        ConexionFisica(Connection real) {
+            this.real = real;
+            int capacidad = config.getStatementCache();
+            this.sentencias = capacidad <= 0 ? null : new LinkedHashMap<String, SentenciaCacheada>(capacidad * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SentenciaCacheada> eldest) {
+                    if (size() <= capacidad) return false;
+                    eldest.getValue().desalojar();
+                    return true;
+                }
+            };
+        }
+
+        Connection prestar() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Prestamo(this));
+        }
+
+        boolean tieneCacheSentencias() {
+            return sentencias != null;
+        }
+
+        /**
+         * Sentencia del caché para el SQL, o una nueva si no estaba. Si la del caché sigue en uso
+         * en este mismo préstamo (mismo SQL abierto dos veces) se entrega una sin cachear.
+         */
+        PreparedStatement preparar(String sql, Connection conexion) throws SQLException {
+            SentenciaCacheada cacheada = sentencias.get(sql);
+            if (cacheada != null && !cacheada.enUso) {
+                sentenciasReutilizadas.incrementAndGet();
+                return cacheada.prestar(conexion);
+            }
+
+            PreparedStatement ps = real.prepareStatement(sql);
+            sentenciasPreparadas.incrementAndGet();
+            if (cacheada != null) {
+                return ps;
+            }
+            cacheada = new SentenciaCacheada(this, sql, ps);
+            sentencias.put(sql, cacheada);
+            return cacheada.prestar(conexion);
+        }
+
+        /**
+         * Al devolver la conexión: recupera las sentencias que el llamador no cerró.
+         */
+        void liberarSentencias() {
+            if (sentencias == null) return;
+            for (SentenciaCacheada cacheada : sentencias.values().toArray(new SentenciaCacheada[0])) {
+                if (cacheada.enUso) {
+                    cacheada.liberar();
+                }
+            }
+        }
+
+        void quitar(SentenciaCacheada cacheada) {
+            sentencias.remove(cacheada.sql, cacheada);
+        }
+    }
+
+    /**
+     * Sentencia preparada que vive mientras viva la conexión física (o hasta que el LRU la desaloje).
+     */
+    private static final class SentenciaCacheada {
+        final ConexionFisica fisica;
+        final String sql;
+        final PreparedStatement real;
+        boolean enUso;
+        boolean desalojada;
+        SentenciaPrestada prestamo;
+
+        SentenciaCacheada(ConexionFisica fisica, String sql, PreparedStatement real) {
+            this.fisica = fisica;
+            this.sql = sql;
+            this.real = real;
+        }
+
+        PreparedStatement prestar(Connection conexion) {
+            enUso = true;
+            prestamo = new SentenciaPrestada(this, conexion);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    prestamo);
+        }
+
+        /**
+         * Cierre lógico: deja la sentencia lista para el próximo uso (o la cierra si fue desalojada).
+         */
+        void liberar() {
+            if (prestamo != null) {
+                prestamo.cerrada = true;
+                prestamo = null;
+            }
+            enUso = false;
+            if (desalojada) {
+                cerrarReal();
+                return;
+            }
+            try {
+                ResultSet rs = real.getResultSet();
+                if (rs != null) rs.close();
+                real.clearParameters();
+                real.setFetchSize(0);
+            } catch (SQLException e) {
+                fisica.quitar(this);
+                cerrarReal();
+            }
+        }
+
+        void desalojar() {
+            desalojada = true;
+            if (!enUso) {
+                cerrarReal();
+            }
+        }
+
+        private void cerrarReal() {
+            try {
+                real.close();
+            } catch (SQLException ignored) {
+                // Se descarta de todas formas
+            }
+        }
+    }
+
+    /**
+     * Proxy de un uso de la sentencia cacheada: tras close() queda inutilizable.
+     */
+    private static final class SentenciaPrestada implements InvocationHandler {
+        private final SentenciaCacheada cacheada;
+        private final Connection conexion;
+        boolean cerrada;
+
+        SentenciaPrestada(SentenciaCacheada cacheada, Connection conexion) {
+            this.cacheada = cacheada;
+            this.conexion = conexion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!cerrada) {
+                        cacheada.liberar();
+                    }
+                    return null;
+                case "isClosed":
+                    return cerrada || cacheada.real.isClosed();
+                case "getConnection":
+                    return conexion;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "SentenciaPool[" + cacheada.sql + (cerrada ? ", cerrada" : "") + "]";
+                default:
+                    break;
+            }
+
+            if (cerrada) {
+                throw new SQLException("La sentencia ya fue cerrada.");
+            }
+            try {
+                return method.invoke(cacheada.real, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Proxy de un préstamo: tras close() el handle queda inutilizable aunque la física se reutilice.
+     */
+    private final class Prestamo implements InvocationHandler {
+        private final ConexionFisica fisica;
+        private boolean devuelta;
+
+        Prestamo(ConexionFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!devuelta) {
+                        devuelta = true;
+                        devolver(fisica);
+                    }
+                    return null;
+                case "isClosed":
+                    return devuelta || fisica.real.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionPool[" + fisica.real + (devuelta ? ", devuelta" : "") + "]";
+                default:
+                    break;
+            }
+
+            if (devuelta) {
+                throw new SQLException("La conexión ya fue devuelta al pool.");
+            }
+            if (fisica.tieneCacheSentencias() && "prepareStatement".equals(method.getName())
+                    && args != null && args.length == 1) {
+                return fisica.preparar((String) args[0], (Connection) proxy);
+            }
+            try {
+                return method.invoke(fisica.real, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // ------------------ DataSource (no soportado) ------------------
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        // Sin log
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        // Se usa db.pool.borrowTimeoutMs
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("No es un wrapper de " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
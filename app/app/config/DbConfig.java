@@ -1,17 +1,46 @@
 package app.config;
 
-public final class DbConfig {
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
-    public static final String HOST = "localhost";
-    public static final int PORT = 5432;
-    public static final String DATABASE = "prueba_tecnica";
-    public static final String USER = "postgres";
-    public static final String PASSWORD = "1234";
+/**
+ * Parámetros de conexión y del pool, leídos desde application.properties.
+ * Los valores por defecto corresponden al entorno local de la prueba técnica.
+ */
+public final class DbConfig {
 
     public static final String URL =
-            "jdbc:postgresql://" + HOST + ":" + PORT + "/" + DATABASE;
+            AppConfig.get("db.url", "jdbc:postgresql://localhost:5432/prueba_tecnica");
+    public static final String USER = AppConfig.get("db.username", "postgres");
+    public static final String PASSWORD = AppConfig.get("db.password", "1234");
+
+    public static final int POOL_MIN = AppConfig.getInt("db.pool.min", 2);
+    public static final int POOL_MAX = AppConfig.getInt("db.pool.max", 10);
+    public static final long POOL_IDLE_TIMEOUT_MS = AppConfig.getLong("db.pool.idleTimeoutMs", 300_000L);
+    public static final long POOL_BORROW_TIMEOUT_MS = AppConfig.getLong("db.pool.borrowTimeoutMs", 5_000L);
+    public static final boolean POOL_VALIDATE_ON_BORROW = AppConfig.getBoolean("db.pool.validateOnBorrow", true);
+    public static final int POOL_VALIDATION_TIMEOUT_SEC = AppConfig.getInt("db.pool.validationTimeoutSec", 2);
+    public static final int POOL_STATEMENT_CACHE = AppConfig.getInt("db.pool.statementCache", 32);
+
+    /**
+     * URLs de réplicas de solo lectura separadas por coma (vacío = todo va al primario).
+     */
+    public static final List<String> REPLICAS = lista(AppConfig.get("db.replicas", ""));
+    public static final String REPLICAS_USER = AppConfig.get("db.replicas.username", USER);
+    public static final String REPLICAS_PASSWORD = AppConfig.get("db.replicas.password", PASSWORD);
+    public static final long REPLICAS_VENTANA_ESCRITURA_MS = AppConfig.getLong("db.replicas.ventanaEscrituraMs", 2_000L);
+    public static final long REPLICAS_VERIFICACION_MS = AppConfig.getLong("db.replicas.verificacionMs", 5_000L);
 
     private DbConfig() {
 
     }
-}
\ No newline at end of file
+
+    private static List<String> lista(String valor) {
+        List<String> out = new ArrayList<>();
+        for (String parte : valor.split(",")) {
+            if (!parte.isBlank()) out.add(parte.trim());
+        }
+        return Collections.unmodifiableList(out);
+    }
+}
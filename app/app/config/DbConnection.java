@@ -1,18 +1,68 @@
 package app.config;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Punto de acceso a las conexiones de la aplicación.
+ * Las conexiones salen de un pool único que se crea al primer uso; con {@code db.replicas},
+ * además hay un pool por réplica y un {@link EnrutadorLecturas}.
+ */
 public final class DbConnection {
 
     private DbConnection() {
     }
 
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(
-                app.config.DbConfig.URL,
-                app.config.DbConfig.USER,
-                app.config.DbConfig.PASSWORD
-        );
+        return Holder.POOL.getConnection();
+    }
+
+    public static DataSource getDataSource() {
+        return Holder.POOL;
+    }
+
+    public static ConnectionPool getPool() {
+        return Holder.POOL;
+    }
+
+    /**
+     * Enrutador de lecturas a las réplicas de {@code db.replicas}, o null si no hay réplicas.
+     */
+    public static EnrutadorLecturas getEnrutador() {
+        return Holder.ENRUTADOR;
+    }
+
+    /**
+     * Conexión física fuera del pool, para usos de larga duración que no deben ocupar un cupo.
+     */
+    public static Connection crearConexionDirecta() throws SQLException {
+        return DriverManager.getConnection(DbConfig.URL, DbConfig.USER, DbConfig.PASSWORD);
+    }
+
+    private static final class Holder {
+        static final ConnectionPool POOL = crearPool();
+        static final EnrutadorLecturas ENRUTADOR = crearEnrutador();
+
+        private static ConnectionPool crearPool() {
+            ConnectionPool pool = new ConnectionPool(DbConnection::crearConexionDirecta, PoolConfig.desdeDbConfig());
+            Runtime.getRuntime().addShutdownHook(new Thread(pool::cerrar, "pool-cierre"));
+            return pool;
+        }
+
+        private static EnrutadorLecturas crearEnrutador() {
+            List<ConnectionPool> pools = new ArrayList<>();
+            EnrutadorLecturas enrutador = EnrutadorLecturas.desdeConfig(POOL, pools);
+            if (enrutador != null) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    enrutador.close();
+                    pools.forEach(ConnectionPool::cerrar);
+                }, "replicas-cierre"));
+            }
+            return enrutador;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,447 @@
+package app.config;
+
+import app.metricas.Histograma;
+import app.metricas.Metricas;
+import app.metricas.RegistroMetricas;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Separación de lecturas y escrituras entre el primario y réplicas de solo lectura.
+ *
+ * Entrega tres {@link DataSource} para que el repositorio elija por operación:
+ * - {@link #getLecturas()}: réplicas sanas en turno rotativo; el primario si no queda ninguna sana
+ *   o si hubo una escritura hace menos de {@code ventanaEscrituraMs} (leer lo propio escrito).
+ * - {@link #getPrimario()}: el primario (verificaciones de unicidad, que no toleran réplicas atrasadas).
+ * - {@link #getEscrituras()}: el primario, y cada escritura reinicia la ventana anterior al tomar
+ *   y al devolver la conexión.
+ *
+ * La ventana es global al proceso: tras cualquier escritura todas las lecturas van al primario durante
+ * la ventana. Las réplicas se verifican cada cierto tiempo ({@link #iniciarVerificacion}); una réplica
+ * que falla al entregar una conexión queda fuera hasta la siguiente verificación exitosa.
+ *
+ * Por extremo se mide el tiempo de uso de cada conexión (de tomarla a devolverla), y también se
+ * registra en {@link Metricas} como {@code db.<extremo>} si están habilitadas.
+ */
+public final class EnrutadorLecturas implements AutoCloseable {
+
+    public static final String PRIMARIO = "primario";
+
+    private final Extremo primario;
+    private final Extremo[] replicas;
+    private final long ventanaNanos;
+    private final AtomicInteger turno = new AtomicInteger();
+    private volatile long ultimaEscritura;
+
+    private final LongAdder lecturasPorVentana = new LongAdder();
+    private final LongAdder lecturasPorRespaldo = new LongAdder();
+
+    private final DataSource lecturas = new Fuente() {
+        @Override
+        public Connection getConnection() throws SQLException {
+            return conexionLectura();
+        }
+    };
+    private final DataSource soloPrimario = new Fuente() {
+        @Override
+        public Connection getConnection() throws SQLException {
+            return primario.abrir(null);
+        }
+    };
+    private final DataSource escrituras = new Fuente() {
+        @Override
+        public Connection getConnection() throws SQLException {
+            registrarEscritura();
+            return primario.abrir(EnrutadorLecturas.this);
+        }
+    };
+
+    private ScheduledExecutorService verificador;
+
+    /**
+     * @param replicas           réplicas por nombre, en el orden del turno
+     * @param ventanaEscrituraMs lecturas al primario tras una escritura (0 = sin ventana)
+     */
+    public EnrutadorLecturas(DataSource primario, Map<String, DataSource> replicas, long ventanaEscrituraMs) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos una réplica.");
+        }
+        if (ventanaEscrituraMs < 0) {
+            throw new IllegalArgumentException("La ventana de escritura no puede ser negativa.");
+        }
+        this.primario = new Extremo(PRIMARIO, primario);
+        this.replicas = new Extremo[replicas.size()];
+        int i = 0;
+        for (Map.Entry<String, DataSource> r : replicas.entrySet()) {
+            this.replicas[i++] = new Extremo(r.getKey(), r.getValue());
+        }
+        this.ventanaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaEscrituraMs);
+        this.ultimaEscritura = System.nanoTime() - ventanaNanos - 1;
+    }
+
+    /**
+     * Réplicas de {@link DbConfig#REPLICAS} (con los mismos parámetros de pool que el primario),
+     * o null si no hay réplicas configuradas. Deja la verificación periódica iniciada.
+     *
+     * @param pools recibe los pools creados, para cerrarlos al terminar
+     */
+    static EnrutadorLecturas desdeConfig(DataSource primario, List<ConnectionPool> pools) {
+        if (DbConfig.REPLICAS.isEmpty()) {
+            return null;
+        }
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : DbConfig.REPLICAS) {
+            ConnectionPool pool = new ConnectionPool(
+                    () -> DriverManager.getConnection(url, DbConfig.REPLICAS_USER, DbConfig.REPLICAS_PASSWORD),
+                    PoolConfig.desdeDbConfig());
+            pools.add(pool);
+            replicas.put("replica-" + (replicas.size() + 1), pool);
+        }
+        EnrutadorLecturas enrutador = new EnrutadorLecturas(primario, replicas, DbConfig.REPLICAS_VENTANA_ESCRITURA_MS);
+        enrutador.iniciarVerificacion(DbConfig.REPLICAS_VERIFICACION_MS, DbConfig.POOL_VALIDATION_TIMEOUT_SEC);
+        return enrutador;
+    }
+
+    public DataSource getLecturas() {
+        return lecturas;
+    }
+
+    public DataSource getPrimario() {
+        return soloPrimario;
+    }
+
+    public DataSource getEscrituras() {
+        return escrituras;
+    }
+
+    /**
+     * Abre (o reinicia) la ventana en que las lecturas van al primario.
+     */
+    public void registrarEscritura() {
+        ultimaEscritura = System.nanoTime();
+    }
+
+    private Connection conexionLectura() throws SQLException {
+        if (ventanaNanos > 0 && System.nanoTime() - ultimaEscritura <= ventanaNanos) {
+            lecturasPorVentana.increment();
+            return primario.abrir(null);
+        }
+
+        int n = replicas.length;
+        int inicio = Math.floorMod(turno.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            Extremo r = replicas[(inicio + i) % n];
+            if (!r.sano) continue;
+            try {
+                return r.abrir(null);
+            } catch (SQLTimeoutException e) {
+                r.fallas.increment(); // pool saturado: la réplica sigue sana, se prueba la siguiente
+            } catch (SQLException e) {
+                r.fallas.increment();
+                r.sano = false;
+            }
+        }
+
+        lecturasPorRespaldo.increment();
+        return primario.abrir(null);
+    }
+
+    // ------------------ Verificación de salud ------------------
+
+    /**
+     * Verifica las réplicas cada {@code intervaloMs} en un hilo de fondo.
+     */
+    public synchronized void iniciarVerificacion(long intervaloMs, int timeoutSeg) {
+        if (verificador != null || intervaloMs <= 0) {
+            return;
+        }
+        verificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replicas-verificacion");
+            t.setDaemon(true);
+            return t;
+        });
+        verificador.scheduleWithFixedDelay(() -> verificarSalud(timeoutSeg), intervaloMs, intervaloMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Prueba cada réplica con {@link Connection#isValid}; las que responden quedan sanas.
+     */
+    public void verificarSalud(int timeoutSeg) {
+        for (Extremo r : replicas) {
+            long inicio = System.nanoTime();
+            boolean valida;
+            try (Connection c = r.fuente.getConnection()) {
+                valida = c.isValid(timeoutSeg);
+            } catch (SQLException e) {
+                valida = false;
+            }
+            r.ultimaVerificacionNanos = System.nanoTime() - inicio;
+            if (!valida) r.fallas.increment();
+            r.sano = valida;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (verificador != null) {
+            verificador.shutdownNow();
+            verificador = null;
+        }
+    }
+
+    // ------------------ Estado ------------------
+
+    /**
+     * Estado del primario y de cada réplica, en ese orden.
+     */
+    public List<EstadoExtremo> getEstado() {
+        List<EstadoExtremo> out = new ArrayList<>(replicas.length + 1);
+        out.add(primario.estado());
+        for (Extremo r : replicas) {
+            out.add(r.estado());
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    /**
+     * Lecturas enviadas al primario por estar dentro de la ventana de escritura.
+     */
+    public long getLecturasPorVentana() {
+        return lecturasPorVentana.sum();
+    }
+
+    /**
+     * Lecturas enviadas al primario porque ninguna réplica pudo atenderlas.
+     */
+    public long getLecturasPorRespaldo() {
+        return lecturasPorRespaldo.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("EnrutadorLecturas{ventanaMs=")
+                .append(TimeUnit.NANOSECONDS.toMillis(ventanaNanos))
+                .append(", lecturasPorVentana=").append(getLecturasPorVentana())
+                .append(", lecturasPorRespaldo=").append(getLecturasPorRespaldo());
+        for (EstadoExtremo e : getEstado()) {
+            sb.append(",\n  ").append(e);
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Fotografía (inmutable) de un extremo.
+     */
+    public static final class EstadoExtremo {
+        private final String nombre;
+        private final boolean sano;
+        private final long conexiones;
+        private final long fallas;
+        private final double usoP50Ms;
+        private final double usoP99Ms;
+        private final double verificacionMs;
+
+        EstadoExtremo(String nombre, boolean sano, long conexiones, long fallas,
+                      double usoP50Ms, double usoP99Ms, double verificacionMs) {
+            this.nombre = nombre;
+            this.sano = sano;
+            this.conexiones = conexiones;
+            this.fallas = fallas;
+            this.usoP50Ms = usoP50Ms;
+            this.usoP99Ms = usoP99Ms;
+            this.verificacionMs = verificacionMs;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public boolean isSano() {
+            return sano;
+        }
+
+        /**
+         * Conexiones entregadas desde este extremo.
+         */
+        public long getConexiones() {
+            return conexiones;
+        }
+
+        /**
+         * Conexiones que no se pudieron obtener más verificaciones fallidas.
+         */
+        public long getFallas() {
+            return fallas;
+        }
+
+        /**
+         * Mediana del tiempo de uso de una conexión (las sentencias que se ejecutaron en ella).
+         */
+        public double getUsoP50Ms() {
+            return usoP50Ms;
+        }
+
+        public double getUsoP99Ms() {
+            return usoP99Ms;
+        }
+
+        /**
+         * Duración de la última verificación de salud (0 en el primario).
+         */
+        public double getVerificacionMs() {
+            return verificacionMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%s{sano=%s, conexiones=%d, fallas=%d, usoP50Ms=%.3f, usoP99Ms=%.3f, verificacionMs=%.3f}",
+                    nombre, sano, conexiones, fallas, usoP50Ms, usoP99Ms, verificacionMs);
+        }
+    }
+
+    // ------------------ Internos ------------------
+
+    private static final class Extremo {
+        final String nombre;
+        final String operacion;
+        final DataSource fuente;
+        final Histograma uso = new Histograma();
+        final LongAdder fallas = new LongAdder();
+        volatile boolean sano = true;
+        volatile long ultimaVerificacionNanos;
+
+        Extremo(String nombre, DataSource fuente) {
+            this.nombre = nombre;
+            this.operacion = "db." + nombre;
+            this.fuente = fuente;
+        }
+
+        /**
+         * @param escritura si no es null, se le avisa de la escritura al devolver la conexión
+         */
+        Connection abrir(EnrutadorLecturas escritura) throws SQLException {
+            Connection c = fuente.getConnection();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new UsoMedido(this, c, escritura));
+        }
+
+        void registrarUso(long nanos) {
+            uso.registrar(nanos);
+            RegistroMetricas registro = Metricas.getRegistro();
+            if (registro != null) {
+                registro.registrarLlamada(operacion, nanos);
+            }
+        }
+
+        EstadoExtremo estado() {
+            return new EstadoExtremo(nombre, sano, uso.getTotal(), fallas.sum(),
+                    uso.percentil(50) / 1e6, uso.percentil(99) / 1e6, ultimaVerificacionNanos / 1e6);
+        }
+    }
+
+    /**
+     * Conexión prestada: al cerrarla registra el tiempo de uso en su extremo.
+     */
+    private static final class UsoMedido implements InvocationHandler {
+        private final Extremo extremo;
+        private final Connection conexion;
+        private final EnrutadorLecturas escritura;
+        private final long inicio = System.nanoTime();
+        private boolean cerrada;
+
+        UsoMedido(Extremo extremo, Connection conexion, EnrutadorLecturas escritura) {
+            this.extremo = extremo;
+            this.conexion = conexion;
+            this.escritura = escritura;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("close".equals(method.getName())) {
+                if (!cerrada) {
+                    cerrada = true;
+                    try {
+                        conexion.close();
+                    } finally {
+                        extremo.registrarUso(System.nanoTime() - inicio);
+                        if (escritura != null) escritura.registrarEscritura();
+                    }
+                }
+                return null;
+            }
+            try {
+                return method.invoke(conexion, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * DataSource mínimo: solo {@code getConnection()}.
+     */
+    private abstract static class Fuente implements DataSource {
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Use getConnection()");
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this)) return iface.cast(this);
+            throw new SQLException("No es un wrapper de " + iface.getName());
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return iface.isInstance(this);
+        }
+    }
+}
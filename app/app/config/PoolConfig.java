@@ -0,0 +1,89 @@
+package app.config;
+
+/**
+ * Parámetros del pool de conexiones.
+ */
+public final class PoolConfig {
+
+    private final int min;
+    private final int max;
+    private final long idleTimeoutMs;
+    private final long borrowTimeoutMs;
+    private final boolean validateOnBorrow;
+    private final int validationTimeoutSec;
+    private final int statementCache;
+
+    /**
+     * Sin caché de sentencias preparadas.
+     */
+    public PoolConfig(int min, int max, long idleTimeoutMs, long borrowTimeoutMs,
+                      boolean validateOnBorrow, int validationTimeoutSec) {
+        this(min, max, idleTimeoutMs, borrowTimeoutMs, validateOnBorrow, validationTimeoutSec, 0);
+    }
+
+    /**
+     * @param statementCache sentencias preparadas que conserva cada conexión física (0 = ninguna)
+     */
+    public PoolConfig(int min, int max, long idleTimeoutMs, long borrowTimeoutMs,
+                      boolean validateOnBorrow, int validationTimeoutSec, int statementCache) {
+        if (min < 0 || max <= 0 || min > max) {
+            throw new IllegalArgumentException("Tamaño de pool inválido: min=" + min + ", max=" + max);
+        }
+        if (idleTimeoutMs <= 0 || borrowTimeoutMs <= 0) {
+            throw new IllegalArgumentException("Los timeouts del pool deben ser mayores a 0.");
+        }
+        if (statementCache < 0) {
+            throw new IllegalArgumentException("El caché de sentencias no puede ser negativo.");
+        }
+        this.min = min;
+        this.max = max;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.validateOnBorrow = validateOnBorrow;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.statementCache = statementCache;
+    }
+
+    /**
+     * Configuración leída desde application.properties (ver {@link DbConfig}).
+     */
+    public static PoolConfig desdeDbConfig() {
+        return new PoolConfig(
+                DbConfig.POOL_MIN,
+                DbConfig.POOL_MAX,
+                DbConfig.POOL_IDLE_TIMEOUT_MS,
+                DbConfig.POOL_BORROW_TIMEOUT_MS,
+                DbConfig.POOL_VALIDATE_ON_BORROW,
+                DbConfig.POOL_VALIDATION_TIMEOUT_SEC,
+                DbConfig.POOL_STATEMENT_CACHE
+        );
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public long getBorrowTimeoutMs() {
+        return borrowTimeoutMs;
+    }
+
+    public boolean isValidateOnBorrow() {
+        return validateOnBorrow;
+    }
+
+    public int getValidationTimeoutSec() {
+        return validationTimeoutSec;
+    }
+
+    public int getStatementCache() {
+        return statementCache;
+    }
+}
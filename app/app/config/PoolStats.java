@@ -0,0 +1,123 @@
+package app.config;
+
+/**
+ * Fotografía (inmutable) del estado del pool de conexiones.
+ */
+public final class PoolStats {
+
+    /**
+     * Límites superiores (ms) de cada tramo del histograma de espera.
+     * El último tramo del histograma acumula todo lo que supera el último límite.
+     */
+    public static final long[] LIMITES_ESPERA_MS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    private final int total;
+    private final int activas;
+    private final int inactivas;
+    private final int esperando;
+    private final long prestamos;
+    private final long timeouts;
+    private final long creadas;
+    private final long descartadas;
+    private final long esperaMaxMs;
+    private final long[] histogramaEspera;
+    private final long sentenciasReutilizadas;
+    private final long sentenciasPreparadas;
+
+    PoolStats(int total, int activas, int inactivas, int esperando, long prestamos, long timeouts,
+              long creadas, long descartadas, long esperaMaxMs, long[] histogramaEspera,
+              long sentenciasReutilizadas, long sentenciasPreparadas) {
+        this.total = total;
+        this.activas = activas;
+        this.inactivas = inactivas;
+        this.esperando = esperando;
+        this.prestamos = prestamos;
+        this.timeouts = timeouts;
+        this.creadas = creadas;
+        this.descartadas = descartadas;
+        this.esperaMaxMs = esperaMaxMs;
+        this.histogramaEspera = histogramaEspera;
+        this.sentenciasReutilizadas = sentenciasReutilizadas;
+        this.sentenciasPreparadas = sentenciasPreparadas;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getActivas() {
+        return activas;
+    }
+
+    public int getInactivas() {
+        return inactivas;
+    }
+
+    public int getEsperando() {
+        return esperando;
+    }
+
+    public long getPrestamos() {
+        return prestamos;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getCreadas() {
+        return creadas;
+    }
+
+    public long getDescartadas() {
+        return descartadas;
+    }
+
+    public long getEsperaMaxMs() {
+        return esperaMaxMs;
+    }
+
+    /**
+     * Conteo de préstamos por tramo de espera; tiene {@code LIMITES_ESPERA_MS.length + 1} posiciones.
+     */
+    public long[] getHistogramaEspera() {
+        return histogramaEspera.clone();
+    }
+
+    /**
+     * prepareStatement resueltos con una sentencia ya preparada en la conexión física.
+     */
+    public long getSentenciasReutilizadas() {
+        return sentenciasReutilizadas;
+    }
+
+    /**
+     * prepareStatement que crearon una sentencia nueva en el driver.
+     */
+    public long getSentenciasPreparadas() {
+        return sentenciasPreparadas;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("PoolStats{total=").append(total)
+                .append(", activas=").append(activas)
+                .append(", inactivas=").append(inactivas)
+                .append(", esperando=").append(esperando)
+                .append(", prestamos=").append(prestamos)
+                .append(", timeouts=").append(timeouts)
+                .append(", creadas=").append(creadas)
+                .append(", descartadas=").append(descartadas)
+                .append(", esperaMaxMs=").append(esperaMaxMs)
+                .append(", sentenciasReutilizadas=").append(sentenciasReutilizadas)
+                .append(", sentenciasPreparadas=").append(sentenciasPreparadas)
+                .append(", espera={");
+        for (int i = 0; i < histogramaEspera.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(i < LIMITES_ESPERA_MS.length ? "<=" + LIMITES_ESPERA_MS[i] : ">" + LIMITES_ESPERA_MS[i - 1])
+                    .append("ms:").append(histogramaEspera[i]);
+        }
+        return sb.append("}}").toString();
+    }
+}
@@ -0,0 +1,278 @@
+package app.http;
+
+import app.model.Usuario;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON mínimo para la API HTTP, sin dependencias.
+ *
+ * - Escritura: directa a un {@link Appendable} (p.ej. el Writer de la respuesta), sin armar Strings intermedios.
+ * - Lectura: objetos, arreglos, textos, números (Long, o Double si tienen decimales/exponente),
+ *   booleanos y null. Cualquier error de formato es {@link IllegalArgumentException}.
+ */
+final class Json {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Json() {
+    }
+
+    // ------------------ Escritura ------------------
+
+    static void escribirUsuario(Appendable out, Usuario u) throws IOException {
+        out.append("{\"id\":").append(String.valueOf(u.getId()))
+                .append(",\"rut\":").append(String.valueOf(u.getRut()))
+                .append(",\"dv\":");
+        escribirTexto(out, u.getDv());
+        out.append(",\"nombre\":");
+        escribirTexto(out, u.getNombre());
+        out.append(",\"email\":");
+        escribirTexto(out, u.getEmail());
+        out.append(",\"activo\":").append(String.valueOf(Boolean.TRUE.equals(u.getActivo())))
+                .append(",\"fechaCreacion\":");
+        escribirTexto(out, u.getFechaCreacion() == null ? null : u.getFechaCreacion().toInstant().toString());
+        out.append(",\"version\":").append(String.valueOf(u.getVersion()));
+        out.append('}');
+    }
+
+    static void escribirTexto(Appendable out, String s) throws IOException {
+        if (s == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        int desde = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            out.append(s, desde, i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+            desde = i + 1;
+        }
+        out.append(s, desde, s.length()).append('"');
+    }
+
+    static String usuario(Usuario u) {
+        StringBuilder sb = new StringBuilder(160);
+        try {
+            escribirUsuario(sb, u);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringBuilder no lanza IOException
+        }
+        return sb.toString();
+    }
+
+    static String error(String mensaje) {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        try {
+            escribirTexto(sb, mensaje);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sb.append('}').toString();
+    }
+
+    // ------------------ Lectura ------------------
+
+    static Object parsear(String texto) {
+        Lector lector = new Lector(texto);
+        Object valor = lector.valor();
+        lector.espacios();
+        if (lector.pos != texto.length()) {
+            throw lector.error("contenido después del valor");
+        }
+        return valor;
+    }
+
+    /**
+     * Parsea un objeto JSON; falla si el texto es otra cosa.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> parsearObjeto(String texto) {
+        Object valor = parsear(texto);
+        if (!(valor instanceof Map)) {
+            throw new IllegalArgumentException("JSON inválido: se esperaba un objeto.");
+        }
+        return (Map<String, Object>) valor;
+    }
+
+    private static final class Lector {
+        private static final int PROFUNDIDAD_MAX = 32;
+
+        private final String s;
+        private int pos;
+        private int profundidad;
+
+        Lector(String s) {
+            this.s = s;
+        }
+
+        Object valor() {
+            espacios();
+            if (pos >= s.length()) throw error("fin inesperado");
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{': return objeto();
+                case '[': return arreglo();
+                case '"': return texto();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) return numero();
+                    throw error("carácter inesperado '" + c + "'");
+            }
+        }
+
+        private Map<String, Object> objeto() {
+            entrar();
+            pos++; // {
+            Map<String, Object> out = new LinkedHashMap<>();
+            espacios();
+            if (consumir('}')) {
+                profundidad--;
+                return out;
+            }
+            do {
+                espacios();
+                if (pos >= s.length() || s.charAt(pos) != '"') throw error("se esperaba un nombre de campo");
+                String clave = texto();
+                espacios();
+                if (!consumir(':')) throw error("se esperaba ':'");
+                out.put(clave, valor());
+                espacios();
+            } while (consumir(','));
+            if (!consumir('}')) throw error("se esperaba '}'");
+            profundidad--;
+            return out;
+        }
+
+        private List<Object> arreglo() {
+            entrar();
+            pos++; // [
+            List<Object> out = new ArrayList<>();
+            espacios();
+            if (consumir(']')) {
+                profundidad--;
+                return out;
+            }
+            do {
+                out.add(valor());
+                espacios();
+            } while (consumir(','));
+            if (!consumir(']')) throw error("se esperaba ']'");
+            profundidad--;
+            return out;
+        }
+
+        private String texto() {
+            pos++; // "
+            StringBuilder sb = null;
+            int desde = pos;
+            while (pos < s.length()) {
+                char c = s.charAt(pos);
+                if (c == '"') {
+                    String fin = s.substring(desde, pos++);
+                    return sb == null ? fin : sb.append(fin).toString();
+                }
+                if (c < 0x20) throw error("carácter de control en texto");
+                if (c == '\\') {
+                    if (sb == null) sb = new StringBuilder();
+                    sb.append(s, desde, pos);
+                    pos++;
+                    if (pos >= s.length()) break;
+                    char e = s.charAt(pos++);
+                    switch (e) {
+                        case '"': case '\\': case '/': sb.append(e); break;
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case 'n': sb.append('\n'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'u':
+                            if (pos + 4 > s.length()) throw error("escape \\u incompleto");
+                            try {
+                                sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                            } catch (NumberFormatException ex) {
+                                throw error("escape \\u inválido");
+                            }
+                            pos += 4;
+                            break;
+                        default:
+                            throw error("escape inválido \\" + e);
+                    }
+                    desde = pos;
+                } else {
+                    pos++;
+                }
+            }
+            throw error("texto sin cerrar");
+        }
+
+        private Number numero() {
+            int desde = pos;
+            boolean decimal = false;
+            if (s.charAt(pos) == '-') pos++;
+            while (pos < s.length()) {
+                char c = s.charAt(pos);
+                if (c >= '0' && c <= '9') {
+                    pos++;
+                } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || (c == '-' && decimal)) {
+                    decimal = true;
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            String n = s.substring(desde, pos);
+            try {
+                return decimal ? (Number) Double.parseDouble(n) : (Number) Long.parseLong(n);
+            } catch (NumberFormatException e) {
+                throw error("número inválido '" + n + "'");
+            }
+        }
+
+        private Object literal(String palabra, Object valor) {
+            if (!s.startsWith(palabra, pos)) throw error("literal inválido");
+            pos += palabra.length();
+            return valor;
+        }
+
+        private void entrar() {
+            if (++profundidad > PROFUNDIDAD_MAX) throw error("anidamiento excesivo");
+        }
+
+        private boolean consumir(char c) {
+            if (pos < s.length() && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void espacios() {
+            while (pos < s.length()) {
+                char c = s.charAt(pos);
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') break;
+                pos++;
+            }
+        }
+
+        IllegalArgumentException error(String detalle) {
+            return new IllegalArgumentException("JSON inválido en la posición " + pos + ": " + detalle + ".");
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package app.http;
+
+import app.config.AppConfig;
+import app.config.DbConfig;
+import app.metricas.Metricas;
+import app.metricas.RegistroMetricas;
+import app.model.FiltroUsuarios;
+import app.model.Usuario;
+import app.repository.ResultadoEscritura;
+import app.service.UsuarioDuplicadoException;
+import app.service.UsuarioService;
+import app.service.UsuarioServiceAsync;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * API HTTP/JSON sobre {@link UsuarioService}, con el servidor incluido en el JDK ({@code com.sun.net.httpserver}).
+ *
+ * Rutas (JSON UTF-8; los errores son {@code {"error": "..."}}):
+ * - GET  /usuarios?desde=0&limite=100[&texto=...]: página por id; {@code siguiente} es el {@code desde}
+ *   de la próxima página (null en la última).
+ * - GET  /usuarios/todos: todos los usuarios como arreglo, escrito a medida que llegan del cursor.
+ * - GET  /usuarios/{id}, PUT /usuarios/{id}: obtener / editar ({@code rut, dv, nombre, email}). Con
+ *   {@code version} (la del GET) la edición es condicional: si otra escritura se adelantó responde 409.
+ * - POST /usuarios: crear (201). POST /usuarios/{id}/alternar: activar / desactivar.
+ * - POST /usuarios/estado: {@code {"activo": b, "ids": [...]}} o, sin ids, {@code dominioEmail} /
+ *   {@code nombreContiene} como filtro. POST /usuarios/alternar: {@code {"ids": [...]}}.
+ *
+ * Admisión: como máximo {@code maxConcurrentes} solicitudes en proceso; las demás reciben 503 con
+ * Retry-After sin tocar la BD. Los cuerpos de más de {@code maxCuerpoBytes} reciben 413.
+ * Conexiones HTTP/1.1 persistentes (keep-alive) del servidor del JDK.
+ */
+public final class ServidorHttp implements AutoCloseable {
+
+    private static final String BASE = "/usuarios";
+    private static final int TAMANO_PAGINA_DEFECTO = 100;
+    private static final int BUFFER_RESPUESTA = 64 * 1024;
+
+    private final UsuarioService service;
+    private final HttpServer servidor;
+    private final ExecutorService executor;
+    private final Semaphore admision;
+    private final int maxCuerpoBytes;
+
+    private final LongAdder atendidas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder erroresInternos = new LongAdder();
+
+    public ServidorHttp(UsuarioService service, InetSocketAddress direccion, ExecutorService executor,
+                        int maxConcurrentes, int maxCuerpoBytes) throws IOException {
+        if (maxConcurrentes <= 0) throw new IllegalArgumentException("maxConcurrentes debe ser > 0.");
+        this.service = service;
+        this.executor = executor;
+        this.admision = new Semaphore(maxConcurrentes);
+        this.maxCuerpoBytes = maxCuerpoBytes;
+        this.servidor = HttpServer.create(direccion, AppConfig.getInt("http.backlog", 1024));
+        this.servidor.setExecutor(executor);
+        this.servidor.createContext(BASE, this::atender);
+    }
+
+    /**
+     * Servidor según {@code http.*} en application.properties (sin iniciar).
+     * Ejecutor: AUTO usa hilos virtuales si el JDK los tiene; si no (o ACOTADO), {@code http.hilos} hilos
+     * con cola de {@code http.cola}, y con la cola llena la solicitud la atiende el hilo que acepta
+     * conexiones (contrapresión).
+     */
+    public static ServidorHttp desdeConfig(UsuarioService service) throws IOException {
+        // Keep-alive del servidor del JDK: se lee al crear el primer HttpServer
+        System.setProperty("sun.net.httpserver.idleInterval", AppConfig.get("http.keepAliveSeg", "30"));
+        System.setProperty("sun.net.httpserver.maxIdleConnections", AppConfig.get("http.maxConexionesInactivas", "200"));
+
+        ExecutorService executor = null;
+        if (!"ACOTADO".equalsIgnoreCase(AppConfig.get("http.ejecutor", "AUTO").trim())) {
+            executor = UsuarioServiceAsync.ejecutorHilosVirtuales();
+        }
+        if (executor == null) {
+            executor = UsuarioServiceAsync.ejecutorAcotado("http-",
+                    AppConfig.getInt("http.hilos", DbConfig.POOL_MAX * 2),
+                    AppConfig.getInt("http.cola", 1_000));
+        }
+        return new ServidorHttp(service,
+                new InetSocketAddress(AppConfig.get("http.host", "0.0.0.0"), AppConfig.getInt("http.puerto", 8080)),
+                executor,
+                AppConfig.getInt("http.maxConcurrentes", DbConfig.POOL_MAX * 4),
+                AppConfig.getInt("http.maxCuerpoBytes", 1 << 20));
+    }
+
+    public ServidorHttp iniciar() {
+        servidor.start();
+        return this;
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    public long getAtendidas() {
+        return atendidas.sum();
+    }
+
+    public long getRechazadas() {
+        return rechazadas.sum();
+    }
+
+    public long getErroresInternos() {
+        return erroresInternos.sum();
+    }
+
+    /**
+     * Deja de aceptar conexiones; espera hasta 2 s a que terminen las solicitudes en curso.
+     */
+    @Override
+    public void close() {
+        servidor.stop(2);
+        executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "ServidorHttp{puerto=" + getPuerto() +
+                ", atendidas=" + getAtendidas() +
+                ", rechazadas=" + getRechazadas() +
+                ", erroresInternos=" + getErroresInternos() +
+                '}';
+    }
+
+    // ------------------ Solicitudes ------------------
+
+    private void atender(HttpExchange ex) {
+        long inicio = System.nanoTime();
+        String ruta = "?";
+        try (ex) {
+            if (!admision.tryAcquire()) {
+                rechazadas.increment();
+                ex.getResponseHeaders().set("Retry-After", "1");
+                responder(ex, 503, Json.error("Servidor ocupado, reintente."));
+                return;
+            }
+            try {
+                ruta = despachar(ex);
+                atendidas.increment();
+            } finally {
+                admision.release();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // el cliente cortó la conexión; no hay a quién responder
+        } finally {
+            RegistroMetricas registro = Metricas.getRegistro();
+            if (registro != null) {
+                registro.registrarLlamada("http." + ex.getRequestMethod() + " " + ruta, System.nanoTime() - inicio);
+            }
+        }
+    }
+
+    /**
+     * Atiende la solicitud y devuelve la ruta (con {id} en vez del número) para las métricas.
+     */
+    private String despachar(HttpExchange ex) throws IOException {
+        String metodo = ex.getRequestMethod();
+        String[] partes = ex.getRequestURI().getPath().substring(BASE.length()).split("/");
+        List<String> segmentos = new ArrayList<>(2);
+        for (String p : partes) {
+            if (!p.isEmpty()) segmentos.add(p);
+        }
+
+        String ruta = BASE;
+        try {
+            if (segmentos.isEmpty()) {
+                if ("GET".equals(metodo)) listar(ex);
+                else if ("POST".equals(metodo)) crear(ex);
+                else noPermitido(ex, "GET, POST");
+            } else if (segmentos.size() == 1 && "todos".equals(segmentos.get(0))) {
+                ruta = BASE + "/todos";
+                if ("GET".equals(metodo)) listarTodos(ex);
+                else noPermitido(ex, "GET");
+            } else if (segmentos.size() == 1 && "estado".equals(segmentos.get(0))) {
+                ruta = BASE + "/estado";
+                if ("POST".equals(metodo)) cambiarEstado(ex);
+                else noPermitido(ex, "POST");
+            } else if (segmentos.size() == 1 && "alternar".equals(segmentos.get(0))) {
+                ruta = BASE + "/alternar";
+                if ("POST".equals(metodo)) alternarVarios(ex);
+                else noPermitido(ex, "POST");
+            } else if (segmentos.size() == 1) {
+                ruta = BASE + "/{id}";
+                Long id = parseId(segmentos.get(0));
+                if ("GET".equals(metodo)) obtener(ex, id);
+                else if ("PUT".equals(metodo)) actualizar(ex, id);
+                else noPermitido(ex, "GET, PUT");
+            } else if (segmentos.size() == 2 && "alternar".equals(segmentos.get(1))) {
+                ruta = BASE + "/{id}/alternar";
+                Long id = parseId(segmentos.get(0));
+                if ("POST".equals(metodo)) alternar(ex, id);
+                else noPermitido(ex, "POST");
+            } else {
+                ruta = "desconocida";
+                responder(ex, 404, Json.error("Ruta no encontrada."));
+            }
+        } catch (CuerpoDemasiadoGrande e) {
+            responder(ex, 413, Json.error(e.getMessage()));
+        } catch (UsuarioDuplicadoException e) {
+            responder(ex, 409, Json.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            // las validaciones del servicio
+            responder(ex, 400, Json.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            // p.ej. cola de escritura diferida llena
+            responder(ex, 503, Json.error(e.getMessage()));
+        } catch (UncheckedIOException e) {
+            throw e; // el cliente cortó una respuesta en curso
+        } catch (RuntimeException e) {
+            erroresInternos.increment();
+            System.err.println("HTTP " + metodo + " " + ex.getRequestURI() + ": " + e.getMessage());
+            responder(ex, 500, Json.error("Error interno."));
+        }
+        return ruta;
+    }
+
+    private void listar(HttpExchange ex) throws IOException {
+        Map<String, String> query = parseQuery(ex.getRequestURI().getRawQuery());
+        long desde = parseLong(query.getOrDefault("desde", "0"), "desde");
+        int limite = parseInt(query.getOrDefault("limite", String.valueOf(TAMANO_PAGINA_DEFECTO)), "limite");
+        String texto = query.get("texto");
+
+        List<Usuario> pagina = texto != null
+                ? service.buscarUsuarios(texto, desde, limite)
+                : service.listarUsuariosPagina(desde, limite);
+
+        try (Writer out = respuestaJson(ex, 200)) {
+            out.write("{\"usuarios\":[");
+            for (int i = 0; i < pagina.size(); i++) {
+                if (i > 0) out.write(',');
+                Json.escribirUsuario(out, pagina.get(i));
+            }
+            out.write("],\"siguiente\":");
+            out.write(pagina.size() < limite ? "null" : String.valueOf(pagina.get(pagina.size() - 1).getId()));
+            out.write('}');
+        }
+    }
+
+    /**
+     * Todos los usuarios, codificados a medida que el cursor los entrega (sin juntar la lista).
+     * Una vez enviados los encabezados un error solo puede cortar la respuesta.
+     */
+    private void listarTodos(HttpExchange ex) throws IOException {
+        try (Writer out = respuestaJson(ex, 200)) {
+            out.write('[');
+            boolean[] primero = {true};
+            service.recorrerUsuarios(u -> {
+                try {
+                    if (!primero[0]) out.write(',');
+                    primero[0] = false;
+                    Json.escribirUsuario(out, u);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.write(']');
+        }
+    }
+
+    private void obtener(HttpExchange ex, Long id) throws IOException {
+        Usuario u = service.buscarUsuarioPorId(id);
+        if (u == null) {
+            responder(ex, 404, Json.error("Usuario no encontrado."));
+        } else {
+            responder(ex, 200, Json.usuario(u));
+        }
+    }
+
+    private void crear(HttpExchange ex) throws IOException {
+        Map<String, Object> cuerpo = Json.parsearObjeto(leerCuerpo(ex));
+        Usuario u = service.crearUsuario(entero(cuerpo, "rut"), texto(cuerpo, "dv"),
+                texto(cuerpo, "nombre"), texto(cuerpo, "email"));
+        ex.getResponseHeaders().set("Location", BASE + "/" + u.getId());
+        responder(ex, 201, Json.usuario(u));
+    }
+
+    private void actualizar(HttpExchange ex, Long id) throws IOException {
+        Map<String, Object> cuerpo = Json.parsearObjeto(leerCuerpo(ex));
+        Object version = cuerpo.get("version");
+        if (version != null && !(version instanceof Long)) {
+            throw new IllegalArgumentException("El campo 'version' debe ser un entero.");
+        }
+
+        boolean actualizado;
+        if (version != null) {
+            ResultadoEscritura r = service.actualizarUsuarioSiVersion(id, (Long) version, entero(cuerpo, "rut"),
+                    texto(cuerpo, "dv"), texto(cuerpo, "nombre"), texto(cuerpo, "email"));
+            if (r.isConflictoVersion()) {
+                responder(ex, 409, Json.error("El usuario fue modificado por otra operación (versión "
+                        + r.getVersion() + "); vuelva a leerlo."));
+                return;
+            }
+            actualizado = r.isEncontrado();
+        } else {
+            actualizado = service.actualizarUsuario(id, entero(cuerpo, "rut"), texto(cuerpo, "dv"),
+                    texto(cuerpo, "nombre"), texto(cuerpo, "email"));
+        }
+        if (!actualizado) {
+            responder(ex, 404, Json.error("Usuario no encontrado."));
+            return;
+        }
+        obtener(ex, id);
+    }
+
+    private void alternar(HttpExchange ex, Long id) throws IOException {
+        if (!service.activarDesactivarUsuario(id)) {
+            responder(ex, 404, Json.error("Usuario no encontrado."));
+            return;
+        }
+        obtener(ex, id);
+    }
+
+    private void cambiarEstado(HttpExchange ex) throws IOException {
+        Map<String, Object> cuerpo = Json.parsearObjeto(leerCuerpo(ex));
+        Object activo = cuerpo.get("activo");
+        if (!(activo instanceof Boolean)) {
+            throw new IllegalArgumentException("El campo 'activo' (true/false) es obligatorio.");
+        }
+
+        int modificados;
+        if (cuerpo.containsKey("ids")) {
+            modificados = service.cambiarEstadoUsuarios(ids(cuerpo), (Boolean) activo);
+        } else {
+            FiltroUsuarios filtro = FiltroUsuarios.todos()
+                    .conDominioEmail(texto(cuerpo, "dominioEmail"))
+                    .conNombreContiene(texto(cuerpo, "nombreContiene"));
+            modificados = service.cambiarEstadoUsuarios(filtro, (Boolean) activo);
+        }
+        responder(ex, 200, "{\"modificados\":" + modificados + "}");
+    }
+
+    private void alternarVarios(HttpExchange ex) throws IOException {
+        Map<Long, Boolean> estados = service.alternarEstadoUsuarios(ids(Json.parsearObjeto(leerCuerpo(ex))));
+        try (Writer out = respuestaJson(ex, 200)) {
+            out.write('{');
+            boolean primero = true;
+            for (Map.Entry<Long, Boolean> e : estados.entrySet()) {
+                if (!primero) out.write(',');
+                primero = false;
+                out.write('"');
+                out.write(String.valueOf(e.getKey()));
+                out.write("\":");
+                out.write(String.valueOf(e.getValue()));
+            }
+            out.write('}');
+        }
+    }
+
+    private static void noPermitido(HttpExchange ex, String permitidos) throws IOException {
+        ex.getResponseHeaders().set("Allow", permitidos);
+        responder(ex, 405, Json.error("Método no permitido."));
+    }
+
+    // ------------------ Entrada / salida ------------------
+
+    /**
+     * Marcador para responder 413.
+     */
+    private static final class CuerpoDemasiadoGrande extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CuerpoDemasiadoGrande(int limite) {
+            super("El cuerpo excede " + limite + " bytes.");
+        }
+    }
+
+    private String leerCuerpo(HttpExchange ex) throws IOException {
+        String largo = ex.getRequestHeaders().getFirst("Content-Length");
+        if (largo != null) {
+            try {
+                if (Long.parseLong(largo.trim()) > maxCuerpoBytes) throw new CuerpoDemasiadoGrande(maxCuerpoBytes);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Content-Length inválido.");
+            }
+        }
+        ByteArrayOutputStream cuerpo = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = ex.getRequestBody()) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                if (cuerpo.size() + n > maxCuerpoBytes) throw new CuerpoDemasiadoGrande(maxCuerpoBytes);
+                cuerpo.write(buffer, 0, n);
+            }
+        }
+        if (cuerpo.size() == 0) {
+            throw new IllegalArgumentException("Cuerpo JSON obligatorio.");
+        }
+        return cuerpo.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void responder(HttpExchange ex, int estado, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(estado, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Respuesta de largo desconocido (chunked) con un Writer con buffer; cerrarlo termina la respuesta.
+     */
+    private static Writer respuestaJson(HttpExchange ex, int estado) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(estado, 0);
+        return new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8), BUFFER_RESPUESTA);
+    }
+
+    static Map<String, String> parseQuery(String query) {
+        Map<String, String> out = new HashMap<>();
+        if (query == null || query.isEmpty()) return out;
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            out.put(URLDecoder.decode(clave, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+
+    private static long parseLong(String valor, String nombre) {
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parámetro '" + nombre + "' inválido: " + valor);
+        }
+    }
+
+    private static int parseInt(String valor, String nombre) {
+        long v = parseLong(valor, nombre);
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Parámetro '" + nombre + "' fuera de rango: " + valor);
+        }
+        return (int) v;
+    }
+
+    private static Long parseId(String segmento) {
+        return parseLong(segmento, "id");
+    }
+
+    private static String texto(Map<String, Object> cuerpo, String campo) {
+        Object v = cuerpo.get(campo);
+        if (v != null && !(v instanceof String)) {
+            throw new IllegalArgumentException("El campo '" + campo + "' debe ser texto.");
+        }
+        return (String) v;
+    }
+
+    private static Integer entero(Map<String, Object> cuerpo, String campo) {
+        Object v = cuerpo.get(campo);
+        if (v == null) return null;
+        if (!(v instanceof Long) || (Long) v < Integer.MIN_VALUE || (Long) v > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("El campo '" + campo + "' debe ser un entero.");
+        }
+        return ((Long) v).intValue();
+    }
+
+    private static Set<Long> ids(Map<String, Object> cuerpo) {
+        Object v = cuerpo.get("ids");
+        if (!(v instanceof List)) {
+            throw new IllegalArgumentException("El campo 'ids' debe ser un arreglo de enteros.");
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Object id : (List<?>) v) {
+            if (!(id instanceof Long)) {
+                throw new IllegalArgumentException("El campo 'ids' debe ser un arreglo de enteros.");
+            }
+            ids.add((Long) id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,195 @@
+package app.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Guarda una {@link InstantaneaUsuarios} en un archivo binario y la vuelve a abrir mapeándolo con
+ * {@link FileChannel#map}: las columnas se leen directo de las páginas del archivo, sin decodificar
+ * ni copiar al heap, así que abrir toma milisegundos y la memoria la administra el sistema operativo.
+ *
+ * Formato (little-endian), todas las secciones alineadas a 8 bytes:
+ * <pre>
+ * cabecera (64 bytes):
+ *   0  long  magia "usuarios"
+ *   8  int   versión del formato ({@link #FORMATO})
+ *   12 int   filas (n)
+ *   16 long  bytes de la arena de textos
+ *   24 long  marca de cambios (ver UsuarioRepository#recorrerCambiosDesde)
+ *   32 long  CRC32C del contenido (todo lo que sigue a la cabecera)
+ *   40 long  creado (ms desde la época)
+ *   48 ...   reservado
+ *   60 int   CRC32C de los bytes 0..59 de la cabecera
+ * contenido:
+ *   ids long[n], versiones long[n], creados long[n], activos long[(n + 63) / 64],
+ *   ruts int[n], textos int[2n + 1] (posiciones en la arena), dvs char[n], arena byte[]
+ * </pre>
+ *
+ * El archivo se escribe completo en uno temporal y se renombra al final, así que quien lo abre ve
+ * la versión anterior o la nueva, nunca una a medias. Un mapeo admite hasta 2 GB.
+ */
+public final class ArchivoInstantanea {
+
+    /** Versión del formato; un archivo con otra se considera inválido (se vuelve a generar). */
+    public static final int FORMATO = 1;
+
+    private static final long MAGIA = 0x736f697261757375L; // "usuarios" en ASCII, little-endian
+    private static final int CABECERA = 64;
+    private static final int POS_CRC_CABECERA = 60;
+
+    private ArchivoInstantanea() {
+    }
+
+    /**
+     * Escribe la instantánea en {@code archivo} (reemplazándolo de forma atómica).
+     *
+     * @return bytes del archivo
+     */
+    public static long guardar(InstantaneaUsuarios inst, Path archivo) throws IOException {
+        Secciones s = new Secciones(inst.getTamano(), inst.columnaArena().limit());
+        if (s.total > Integer.MAX_VALUE) {
+            throw new IllegalStateException("La instantánea ocupa " + s.total + " bytes; el archivo admite hasta 2 GB.");
+        }
+
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, s.total);
+            seccion(mapa, s.ids, s.versiones).asLongBuffer().put(inst.columnaIds());
+            seccion(mapa, s.versiones, s.creados).asLongBuffer().put(inst.columnaVersiones());
+            seccion(mapa, s.creados, s.activos).asLongBuffer().put(inst.columnaCreadosEnMs());
+            seccion(mapa, s.activos, s.ruts).asLongBuffer().put(inst.columnaActivos());
+            seccion(mapa, s.ruts, s.textos).asIntBuffer().put(inst.columnaRuts());
+            seccion(mapa, s.textos, s.dvs).asIntBuffer().put(inst.columnaTextos());
+            seccion(mapa, s.dvs, s.arena).asCharBuffer().put(inst.columnaDvs());
+            seccion(mapa, s.arena, s.arena + s.largoArena).put(inst.columnaArena());
+
+            ByteBuffer cabecera = seccion(mapa, 0, CABECERA);
+            cabecera.putLong(0, MAGIA);
+            cabecera.putInt(8, FORMATO);
+            cabecera.putInt(12, inst.getTamano());
+            cabecera.putLong(16, s.largoArena);
+            cabecera.putLong(24, inst.getMarca());
+            cabecera.putLong(32, crc(seccion(mapa, CABECERA, (int) s.total)));
+            cabecera.putLong(40, System.currentTimeMillis());
+            cabecera.putInt(POS_CRC_CABECERA, (int) crc(seccion(mapa, 0, POS_CRC_CABECERA)));
+            mapa.force();
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return s.total;
+    }
+
+    /**
+     * Mapea el archivo en modo lectura y arma la instantánea sobre él.
+     *
+     * La cabecera se valida siempre (magia, formato, tamaños y su CRC). El CRC del contenido obliga
+     * a leer el archivo entero, así que solo se comprueba con {@code verificarContenido}; sin él se
+     * confía en que el archivo lo escribió {@link #guardar}.
+     *
+     * @throws IllegalArgumentException si el archivo no es una instantánea válida de este formato
+     */
+    public static InstantaneaUsuarios abrir(Path archivo, boolean verificarContenido) throws IOException {
+        MappedByteBuffer mapa;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long largo = canal.size();
+            if (largo < CABECERA || largo > Integer.MAX_VALUE) {
+                throw invalido(archivo, "largo " + largo);
+            }
+            mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, largo); // el mapeo sigue válido al cerrar el canal
+        }
+
+        ByteBuffer cabecera = seccion(mapa, 0, CABECERA);
+        if (cabecera.getLong(0) != MAGIA) {
+            throw invalido(archivo, "no es un archivo de instantánea");
+        }
+        if (cabecera.getInt(POS_CRC_CABECERA) != (int) crc(seccion(mapa, 0, POS_CRC_CABECERA))) {
+            throw invalido(archivo, "cabecera dañada");
+        }
+        int formato = cabecera.getInt(8);
+        if (formato != FORMATO) {
+            throw invalido(archivo, "formato " + formato + " (se espera " + FORMATO + ")");
+        }
+        int filas = cabecera.getInt(12);
+        long largoArena = cabecera.getLong(16);
+        if (filas < 0 || largoArena < 0 || largoArena > Integer.MAX_VALUE) {
+            throw invalido(archivo, "tamaños " + filas + " / " + largoArena);
+        }
+        Secciones s = new Secciones(filas, (int) largoArena);
+        if (s.total != mapa.capacity()) {
+            throw invalido(archivo, "largo " + mapa.capacity() + " (se esperan " + s.total + " bytes)");
+        }
+        if (verificarContenido && cabecera.getLong(32) != crc(seccion(mapa, CABECERA, (int) s.total))) {
+            throw invalido(archivo, "contenido dañado");
+        }
+
+        InstantaneaUsuarios inst = new InstantaneaUsuarios(filas,
+                seccion(mapa, s.ids, s.versiones).asLongBuffer(),
+                seccion(mapa, s.ruts, s.textos).asIntBuffer(),
+                seccion(mapa, s.dvs, s.arena).asCharBuffer(),
+                seccion(mapa, s.activos, s.ruts).asLongBuffer(),
+                seccion(mapa, s.creados, s.activos).asLongBuffer(),
+                seccion(mapa, s.versiones, s.creados).asLongBuffer(),
+                seccion(mapa, s.textos, s.dvs).asIntBuffer(),
+                seccion(mapa, s.arena, s.arena + s.largoArena),
+                cabecera.getLong(24), 0, true);
+        if (filas > 0 && inst.columnaTextos().get(2 * filas) != largoArena) {
+            throw invalido(archivo, "posiciones de texto inconsistentes");
+        }
+        return inst;
+    }
+
+    private static IllegalArgumentException invalido(Path archivo, String motivo) {
+        return new IllegalArgumentException("Archivo de instantánea inválido: " + archivo + " (" + motivo + ").");
+    }
+
+    private static ByteBuffer seccion(ByteBuffer mapa, long desde, long hasta) {
+        return mapa.slice((int) desde, (int) (hasta - desde)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long crc(ByteBuffer datos) {
+        CRC32C crc = new CRC32C();
+        crc.update(datos);
+        return crc.getValue();
+    }
+
+    /**
+     * Posición de inicio de cada sección para n filas y una arena dada.
+     */
+    private static final class Secciones {
+        final int largoArena;
+        final long ids;
+        final long versiones;
+        final long creados;
+        final long activos;
+        final long ruts;
+        final long textos;
+        final long dvs;
+        final long arena;
+        final long total;
+
+        Secciones(int filas, int largoArena) {
+            this.largoArena = largoArena;
+            ids = CABECERA;
+            versiones = ids + 8L * filas;
+            creados = versiones + 8L * filas;
+            activos = creados + 8L * filas;
+            ruts = activos + 8L * ((filas + 63) >>> 6);
+            textos = alinear(ruts + 4L * filas);
+            dvs = alinear(textos + 4L * (2L * filas + 1));
+            arena = alinear(dvs + 2L * filas);
+            total = arena + largoArena;
+        }
+
+        private static long alinear(long pos) {
+            return (pos + 7) & ~7L;
+        }
+    }
+}
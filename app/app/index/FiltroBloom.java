@@ -0,0 +1,65 @@
+package app.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre un arreglo de bits ({@code long}) con inserción concurrente sin bloqueo.
+ * Las k posiciones se derivan de un único hash de 64 bits por doble hashing (Kirsch-Mitzenmacher).
+ */
+public class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long m;
+    private final int k;
+
+    /**
+     * @param elementosEsperados n para el que se dimensiona el filtro
+     * @param fpp                tasa de falsos positivos esperada con n elementos (0 &lt; fpp &lt; 1)
+     */
+    public FiltroBloom(long elementosEsperados, double fpp) {
+        if (elementosEsperados <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Parámetros de filtro de Bloom inválidos.");
+        }
+        long bitsNecesarios = (long) Math.ceil(-elementosEsperados * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int palabras = (int) Math.min(Integer.MAX_VALUE - 8, (bitsNecesarios + 63) / 64);
+        this.bits = new AtomicLongArray(palabras);
+        this.m = (long) palabras * 64;
+        this.k = Math.max(1, (int) Math.round((double) m / elementosEsperados * Math.log(2)));
+    }
+
+    public void agregar(long hash) {
+        long h2 = LongLongHashMap.mezclar(hash);
+        for (int i = 1; i <= k; i++) {
+            long bit = posicion(hash + i * h2);
+            int palabra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long actual;
+            while (((actual = bits.get(palabra)) & mascara) == 0) {
+                if (bits.compareAndSet(palabra, actual, actual | mascara)) break;
+            }
+        }
+    }
+
+    public boolean puedeContener(long hash) {
+        long h2 = LongLongHashMap.mezclar(hash);
+        for (int i = 1; i <= k; i++) {
+            long bit = posicion(hash + i * h2);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getFuncionesHash() {
+        return k;
+    }
+
+    public long bytesEstimados() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    private long posicion(long combinado) {
+        return (combinado & Long.MAX_VALUE) % m;
+    }
+}
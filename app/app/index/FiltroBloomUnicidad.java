@@ -0,0 +1,151 @@
+package app.index;
+
+import app.repository.UsuarioRepository;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Verificador de unicidad probabilístico: dos filtros de Bloom (email y RUT-DV).
+ * Mucho más chico que {@link IndiceUnicidad} (~1,2 bytes por usuario y filtro con fpp=1%),
+ * pero no guarda ids: en edición siempre deriva a la BD si el valor puede existir.
+ *
+ * Los filtros no admiten borrado, así que los valores antiguos y el crecimiento sobre la
+ * capacidad aumentan los falsos positivos; {@link #cargar} los reconstruye desde la tabla,
+ * dimensionados para max(capacidad, 1,5 x filas).
+ */
+public class FiltroBloomUnicidad implements VerificadorUnicidad {
+
+    private final long capacidad;
+    private final double fpp;
+
+    private volatile Filtros actual;
+    private volatile Filtros enConstruccion;
+    private volatile boolean listo;
+    // registrar (lectura: los filtros agregan con CAS) no se cruza con el cambio de filtros (escritura)
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicLong consultasLocales = new AtomicLong();
+    private final AtomicLong consultasDerivadas = new AtomicLong();
+
+    public FiltroBloomUnicidad(long capacidad, double fpp) {
+        this.capacidad = capacidad;
+        this.fpp = fpp;
+        this.actual = new Filtros(capacidad, fpp);
+    }
+
+    @Override
+    public boolean puedeExistirEmail(String emailNormalizado, Long excluirId) {
+        return contar(!listo || actual.emails.puedeContener(IndiceUnicidad.hashEmail(emailNormalizado)));
+    }
+
+    @Override
+    public boolean puedeExistirRutDv(int rut, String dv, Long excluirId) {
+        return contar(!listo || actual.rutDvs.puedeContener(claveRutDv(rut, dv)));
+    }
+
+    @Override
+    public void registrar(long id, int rut, String dv, String emailNormalizado) {
+        lock.readLock().lock();
+        try {
+            actual.agregar(rut, dv, emailNormalizado);
+            Filtros nuevo = enConstruccion;
+            if (nuevo != null) {
+                nuevo.agregar(rut, dv, emailNormalizado);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long cargar(UsuarioRepository repository) throws SQLException {
+        return cargar(repository.estimarTotalUsuarios(), repository::recorrerClavesUnicidad);
+    }
+
+    @Override
+    public long cargar(InstantaneaUsuarios instantanea) {
+        return cargar(instantanea.getTamano(), instantanea::recorrerClavesUnicidad);
+    }
+
+    private synchronized <E extends Exception> long cargar(long filas, FuenteClaves<E> fuente) throws E {
+        Filtros nuevo = new Filtros(Math.max(capacidad, filas + filas / 2), fpp);
+        lock.writeLock().lock();
+        try {
+            // Desde aquí las escrituras locales también van al filtro nuevo
+            enConstruccion = nuevo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long cargadas = fuente.recorrer((id, rut, dv, email) -> nuevo.agregar(rut, dv, email));
+            lock.writeLock().lock();
+            try {
+                actual = nuevo;
+                listo = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return cargadas;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                enConstruccion = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public long getConsultasLocales() {
+        return consultasLocales.get();
+    }
+
+    @Override
+    public long getConsultasDerivadas() {
+        return consultasDerivadas.get();
+    }
+
+    @Override
+    public long bytesEstimados() {
+        Filtros f = actual;
+        return f.emails.bytesEstimados() + f.rutDvs.bytesEstimados();
+    }
+
+    @Override
+    public String toString() {
+        return "FiltroBloomUnicidad{listo=" + listo +
+                ", fpp=" + fpp +
+                ", bytes=" + bytesEstimados() +
+                ", evitadas=" + consultasLocales.get() +
+                ", derivadas=" + consultasDerivadas.get() +
+                '}';
+    }
+
+    private boolean contar(boolean puede) {
+        (puede ? consultasDerivadas : consultasLocales).incrementAndGet();
+        return puede;
+    }
+
+    private static long claveRutDv(int rut, String dv) {
+        return LongLongHashMap.mezclar(IndiceUnicidad.claveRutDv(rut, dv));
+    }
+
+    private static final class Filtros {
+        final FiltroBloom emails;
+        final FiltroBloom rutDvs;
+
+        Filtros(long capacidad, double fpp) {
+            this.emails = new FiltroBloom(capacidad, fpp);
+            this.rutDvs = new FiltroBloom(capacidad, fpp);
+        }
+
+        void agregar(int rut, String dv, String email) {
+            emails.agregar(IndiceUnicidad.hashEmail(email));
+            rutDvs.agregar(claveRutDv(rut, dv));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package app.index;
+
+import app.repository.UsuarioRepository;
+
+/**
+ * Origen de las claves de unicidad al cargar un verificador: la tabla (cursor) o una instantánea.
+ *
+ * @param <E> excepción que puede lanzar el recorrido
+ */
+@FunctionalInterface
+interface FuenteClaves<E extends Exception> {
+
+    /**
+     * @return cantidad de usuarios entregados
+     */
+    long recorrer(UsuarioRepository.ClavesUnicidadConsumer consumidor) throws E;
+}
@@ -0,0 +1,227 @@
+package app.index;
+
+import app.model.Rut;
+import app.repository.UsuarioRepository;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de email y RUT-DV para responder localmente los chequeos de duplicado.
+ *
+ * - Email: hash de 64 bits del email normalizado -> id.
+ * - RUT-DV: clave empaquetada {@code (rut << 16) | dv} -> id.
+ *
+ * Un "no está" es definitivo (el índice se carga completo y las escrituras locales lo mantienen);
+ * un "está" puede venir de un valor antiguo o de una colisión de hash, así que se confirma contra
+ * la BD. Lo escrito por otras instancias no aparece aquí: para eso la restricción UNIQUE de la BD
+ * sigue siendo la autoridad final.
+ */
+public class IndiceUnicidad implements VerificadorUnicidad {
+
+    private static final long AUSENTE = Long.MIN_VALUE;
+
+    private final int capacidadInicial;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Mapas actual;
+    private Mapas enConstruccion;
+    private volatile boolean listo;
+
+    private final AtomicLong consultasLocales = new AtomicLong();
+    private final AtomicLong consultasDerivadas = new AtomicLong();
+
+    public IndiceUnicidad(int capacidadEsperada) {
+        this.capacidadInicial = capacidadEsperada;
+        this.actual = new Mapas(capacidadEsperada);
+    }
+
+    /**
+     * Reconstruye el índice recorriendo la tabla con cursor (sin cargarla en memoria).
+     * Se construye aparte y se reemplaza al final, así que las consultas no se bloquean.
+     *
+     * @return cantidad de usuarios indexados
+     */
+    @Override
+    public long cargar(UsuarioRepository repository) throws SQLException {
+        return cargar(repository.estimarTotalUsuarios(), repository::recorrerClavesUnicidad);
+    }
+
+    @Override
+    public long cargar(InstantaneaUsuarios instantanea) {
+        return cargar(instantanea.getTamano(), instantanea::recorrerClavesUnicidad);
+    }
+
+    private synchronized <E extends Exception> long cargar(long estimado, FuenteClaves<E> fuente) throws E {
+        Mapas nuevo = new Mapas(Math.max(capacidadInicial, (int) Math.min(estimado, 1 << 29)));
+        lock.writeLock().lock();
+        try {
+            // Desde aquí las escrituras locales también van al índice nuevo
+            enConstruccion = nuevo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long filas = fuente.recorrer((id, rut, dv, email) -> {
+                lock.writeLock().lock();
+                try {
+                    nuevo.registrar(id, rut, dv, email);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+
+            lock.writeLock().lock();
+            try {
+                actual = nuevo;
+                listo = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return filas;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                enConstruccion = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public void registrar(long id, int rut, String dv, String emailNormalizado) {
+        lock.writeLock().lock();
+        try {
+            actual.registrar(id, rut, dv, emailNormalizado);
+            if (enConstruccion != null) {
+                enConstruccion.registrar(id, rut, dv, emailNormalizado);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * false si ningún usuario distinto de {@code excluirId} puede tener el email;
+     * true si puede existir y hay que confirmarlo en la BD.
+     *
+     * @param excluirId id a ignorar (edición), o null en creación
+     */
+    @Override
+    public boolean puedeExistirEmail(String emailNormalizado, Long excluirId) {
+        return puedeExistir(true, hashEmail(emailNormalizado), excluirId);
+    }
+
+    /**
+     * Igual que {@link #puedeExistirEmail} para el par RUT-DV (dv ya normalizado).
+     */
+    @Override
+    public boolean puedeExistirRutDv(int rut, String dv, Long excluirId) {
+        return puedeExistir(false, claveRutDv(rut, dv), excluirId);
+    }
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    public int getTamano() {
+        lock.readLock().lock();
+        try {
+            return Math.max(actual.emails.size(), actual.rutDvs.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Memoria ocupada por los arreglos de ambos mapas.
+     */
+    @Override
+    public long bytesEstimados() {
+        lock.readLock().lock();
+        try {
+            return actual.emails.bytesEstimados() + actual.rutDvs.bytesEstimados();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long getConsultasLocales() {
+        return consultasLocales.get();
+    }
+
+    @Override
+    public long getConsultasDerivadas() {
+        return consultasDerivadas.get();
+    }
+
+    @Override
+    public String toString() {
+        return "IndiceUnicidad{listo=" + listo +
+                ", usuarios=" + getTamano() +
+                ", bytes=" + bytesEstimados() +
+                ", locales=" + consultasLocales.get() +
+                ", derivadas=" + consultasDerivadas.get() +
+                '}';
+    }
+
+    // ------------------ Claves ------------------
+
+    /**
+     * Clave de {@link Rut#clave}: RUT en los bits altos, el carácter del DV en los 16 bajos.
+     */
+    public static long claveRutDv(int rut, String dv) {
+        return Rut.clave(rut, dv.isEmpty() ? 0 : dv.charAt(0));
+    }
+
+    /**
+     * Hash de 64 bits (FNV-1a + fmix64) del email ya normalizado.
+     */
+    public static long hashEmail(String email) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            h ^= email.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return LongLongHashMap.mezclar(h);
+    }
+
+    // ------------------ Internos ------------------
+
+    private boolean puedeExistir(boolean email, long clave, Long excluirId) {
+        if (!listo) {
+            consultasDerivadas.incrementAndGet();
+            return true;
+        }
+
+        long valor;
+        lock.readLock().lock();
+        try {
+            valor = (email ? actual.emails : actual.rutDvs).get(clave, AUSENTE);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        boolean puede = valor != AUSENTE && (excluirId == null || valor != excluirId);
+        (puede ? consultasDerivadas : consultasLocales).incrementAndGet();
+        return puede;
+    }
+
+    private static final class Mapas {
+        final LongLongHashMap emails;
+        final LongLongHashMap rutDvs;
+
+        Mapas(int capacidad) {
+            this.emails = new LongLongHashMap(capacidad);
+            this.rutDvs = new LongLongHashMap(capacidad);
+        }
+
+        void registrar(long id, int rut, String dv, String email) {
+            emails.put(hashEmail(email), id);
+            rutDvs.put(claveRutDv(rut, dv), id);
+        }
+    }
+}
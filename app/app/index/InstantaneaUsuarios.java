@@ -0,0 +1,638 @@
+package app.index;
+
+import app.model.FiltroUsuarios;
+import app.model.Usuario;
+import app.model.UsuarioCompacto;
+import app.repository.UsuarioRepository;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Copia en memoria de toda la tabla de usuarios en columnas: un buffer primitivo por campo
+ * (índice = fila, ordenadas por id), el estado como bits y nombre / email en UTF-8 sobre una sola
+ * arena de bytes con posiciones de inicio. Son unos 40 bytes por usuario más los textos, sin un
+ * objeto por fila, así que millones de usuarios caben en una fracción del heap de una
+ * {@code List<Usuario>} y los recorridos leen memoria contigua.
+ *
+ * Las columnas están en el heap (al cargar desde la BD) o mapeadas desde un archivo
+ * ({@link ArchivoInstantanea}); la lectura es la misma en ambos casos.
+ *
+ * Inmutable una vez construida: se puede compartir entre hilos sin sincronizar. Los cambios
+ * posteriores en la BD se incorporan con {@link #ponerAlDia}, que entrega una instantánea nueva.
+ */
+public final class InstantaneaUsuarios {
+
+    private static final int CAPACIDAD_MINIMA = 1024;
+    private static final int MAX_FILAS = Integer.MAX_VALUE / 2 - 16;
+
+    private final int tamano;
+    private final LongBuffer ids;
+    private final IntBuffer ruts;
+    private final CharBuffer dvs;
+    private final LongBuffer activos; // bit (fila % 64) de activos[fila / 64]
+    private final LongBuffer creadosEnMs;
+    private final LongBuffer versiones;
+    // nombre de la fila i: arena[textos[2i] .. textos[2i+1]); email: arena[textos[2i+1] .. textos[2i+2])
+    private final IntBuffer textos;
+    private final ByteBuffer arena;
+    private final long marca;
+    private final int cambiosAplicados;
+    private final boolean mapeada;
+
+    private InstantaneaUsuarios(Acumulador a, long marca, int cambiosAplicados) {
+        this(a.tamano,
+                LongBuffer.wrap(Arrays.copyOf(a.ids, a.tamano)),
+                IntBuffer.wrap(Arrays.copyOf(a.ruts, a.tamano)),
+                CharBuffer.wrap(Arrays.copyOf(a.dvs, a.tamano)),
+                LongBuffer.wrap(Arrays.copyOf(a.activos, (a.tamano + 63) >>> 6)),
+                LongBuffer.wrap(Arrays.copyOf(a.creadosEnMs, a.tamano)),
+                LongBuffer.wrap(Arrays.copyOf(a.versiones, a.tamano)),
+                IntBuffer.wrap(Arrays.copyOf(a.textos, 2 * a.tamano + 1)),
+                ByteBuffer.wrap(Arrays.copyOf(a.arena, a.largoArena)),
+                marca, cambiosAplicados, false);
+    }
+
+    /**
+     * Columnas ya armadas (las de un archivo mapeado); cada buffer debe tener exactamente el largo
+     * de su columna.
+     */
+    InstantaneaUsuarios(int tamano, LongBuffer ids, IntBuffer ruts, CharBuffer dvs, LongBuffer activos,
+                        LongBuffer creadosEnMs, LongBuffer versiones, IntBuffer textos, ByteBuffer arena,
+                        long marca, int cambiosAplicados, boolean mapeada) {
+        this.tamano = tamano;
+        this.ids = ids;
+        this.ruts = ruts;
+        this.dvs = dvs;
+        this.activos = activos;
+        this.creadosEnMs = creadosEnMs;
+        this.versiones = versiones;
+        this.textos = textos;
+        this.arena = arena;
+        this.marca = marca;
+        this.cambiosAplicados = cambiosAplicados;
+        this.mapeada = mapeada;
+    }
+
+    /**
+     * Carga la tabla completa desde el cursor de {@link UsuarioRepository#recorrerConMarca} (sin
+     * armar la lista) y recuerda la marca de cambios de esa lectura.
+     */
+    public static InstantaneaUsuarios cargar(UsuarioRepository repository) throws SQLException {
+        Acumulador acumulador = new Acumulador((int) Math.min(repository.estimarTotalUsuarios(), MAX_FILAS), 0);
+        long marca = repository.recorrerConMarca(acumulador);
+        return new InstantaneaUsuarios(acumulador, marca, 0);
+    }
+
+    /**
+     * Incorpora lo insertado o modificado en la BD desde la marca de esta instantánea
+     * ({@link UsuarioRepository#recorrerCambiosDesde}): las filas cambiadas reemplazan a las de
+     * igual id y las nuevas se intercalan en orden. Las columnas sin cambios se copian en bloque.
+     *
+     * Sin cambios devuelve esta misma instancia; si la marca no se conoce o quedó vencida, carga todo.
+     */
+    public InstantaneaUsuarios ponerAlDia(UsuarioRepository repository) throws SQLException {
+        if (marca == UsuarioRepository.MARCA_VENCIDA) {
+            return cargar(repository);
+        }
+        List<Usuario> cambios = new ArrayList<>();
+        long nueva = repository.recorrerCambiosDesde(marca, cambios::add);
+        if (nueva == UsuarioRepository.MARCA_VENCIDA) {
+            return cargar(repository);
+        }
+        if (cambios.isEmpty()) {
+            return this;
+        }
+
+        Acumulador a = new Acumulador((int) Math.min((long) tamano + cambios.size(), MAX_FILAS),
+                arena.limit() + 64L * cambios.size());
+        int fila = 0;
+        for (Usuario u : cambios) {
+            int hasta = primeraFilaDesde(u.getId(), fila);
+            a.copiar(this, fila, hasta);
+            a.accept(u);
+            fila = hasta < tamano && ids.get(hasta) == u.getId() ? hasta + 1 : hasta;
+        }
+        a.copiar(this, fila, tamano);
+        return new InstantaneaUsuarios(a, nueva, cambios.size());
+    }
+
+    public static Acumulador acumulador(int capacidadEsperada) {
+        return new Acumulador(capacidadEsperada, 0);
+    }
+
+    // ------------------ Lectura ------------------
+
+    public int getTamano() {
+        return tamano;
+    }
+
+    /**
+     * Marca de cambios de la lectura de la que viene esta instantánea
+     * ({@link UsuarioRepository#MARCA_VENCIDA} si no se conoce).
+     */
+    public long getMarca() {
+        return marca;
+    }
+
+    /**
+     * Filas incorporadas por el último {@link #ponerAlDia} (0 en una carga completa o un archivo).
+     */
+    public int getCambiosAplicados() {
+        return cambiosAplicados;
+    }
+
+    /**
+     * true si las columnas se leen del archivo mapeado en vez del heap.
+     */
+    public boolean isMapeada() {
+        return mapeada;
+    }
+
+    /**
+     * Fila del id, o -1 si no está (búsqueda binaria).
+     */
+    public int indiceDe(long id) {
+        int i = primeraFilaDesde(id, 0);
+        return i < tamano && ids.get(i) == id ? i : -1;
+    }
+
+    /**
+     * Primera fila desde {@code desde} con id {@code >= id} (tamano si no hay).
+     */
+    private int primeraFilaDesde(long id, int desde) {
+        int bajo = desde;
+        int alto = tamano;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (ids.get(medio) < id) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Usuario con ese id, o null si no está.
+     */
+    public UsuarioCompacto buscar(long id) {
+        int fila = indiceDe(id);
+        return fila < 0 ? null : get(fila);
+    }
+
+    public UsuarioCompacto get(int fila) {
+        return new UsuarioCompacto(ids.get(fila), ruts.get(fila), dvs.get(fila), getNombre(fila), getEmail(fila),
+                isActivo(fila), creadosEnMs.get(fila), versiones.get(fila));
+    }
+
+    public long getId(int fila) {
+        return ids.get(fila);
+    }
+
+    public boolean isActivo(int fila) {
+        return (activos.get(fila >>> 6) & (1L << fila)) != 0;
+    }
+
+    public String getNombre(int fila) {
+        return texto(textos.get(2 * fila), textos.get(2 * fila + 1));
+    }
+
+    public String getEmail(int fila) {
+        return texto(textos.get(2 * fila + 1), textos.get(2 * fila + 2));
+    }
+
+    public int contarActivos() {
+        int n = 0;
+        for (int w = 0; w < activos.limit(); w++) {
+            n += Long.bitCount(activos.get(w));
+        }
+        return n;
+    }
+
+    /**
+     * Usuarios que cumplen el filtro, con la misma semántica que en la BD
+     * (fechas con precisión de milisegundos).
+     */
+    public int contar(FiltroUsuarios filtro) {
+        if (filtro.isVacio()) {
+            return tamano;
+        }
+        if (soloActivo(filtro)) {
+            return filtro.getActivo() ? contarActivos() : tamano - contarActivos();
+        }
+        return filas(new Condicion(filtro), null);
+    }
+
+    /**
+     * Entrega en orden de id los usuarios que cumplen el filtro.
+     *
+     * @return cantidad entregada
+     */
+    public int recorrer(FiltroUsuarios filtro, Consumer<UsuarioCompacto> consumidor) {
+        return filas(new Condicion(filtro), fila -> consumidor.accept(get(fila)));
+    }
+
+    /**
+     * Entrega id, rut, dv y email de cada usuario (para cargar un {@link VerificadorUnicidad} sin ir a la BD).
+     *
+     * @return cantidad entregada
+     */
+    public long recorrerClavesUnicidad(UsuarioRepository.ClavesUnicidadConsumer consumidor) {
+        for (int fila = 0; fila < tamano; fila++) {
+            char dv = dvs.get(fila);
+            consumidor.aceptar(ids.get(fila), ruts.get(fila), dv == '\0' ? null : String.valueOf(dv), getEmail(fila));
+        }
+        return tamano;
+    }
+
+    /**
+     * Bytes que ocupan las columnas (sin cabeceras de objeto), en el heap o en el archivo mapeado.
+     */
+    public long getBytes() {
+        return ids.limit() * 8L + ruts.limit() * 4L + dvs.limit() * 2L + activos.limit() * 8L
+                + creadosEnMs.limit() * 8L + versiones.limit() * 8L + textos.limit() * 4L + arena.limit();
+    }
+
+    @Override
+    public String toString() {
+        return "InstantaneaUsuarios{usuarios=" + tamano + ", activos=" + contarActivos()
+                + ", bytes=" + getBytes() + ", marca=" + marca + (mapeada ? ", mapeada" : "") + '}';
+    }
+
+    // ------------------ Archivo ------------------
+    // Vistas de solo lectura de cada columna, desde la posición 0, para ArchivoInstantanea.
+
+    LongBuffer columnaIds() {
+        return ids.asReadOnlyBuffer().rewind();
+    }
+
+    IntBuffer columnaRuts() {
+        return ruts.asReadOnlyBuffer().rewind();
+    }
+
+    CharBuffer columnaDvs() {
+        return dvs.asReadOnlyBuffer().rewind();
+    }
+
+    LongBuffer columnaActivos() {
+        return activos.asReadOnlyBuffer().rewind();
+    }
+
+    LongBuffer columnaCreadosEnMs() {
+        return creadosEnMs.asReadOnlyBuffer().rewind();
+    }
+
+    LongBuffer columnaVersiones() {
+        return versiones.asReadOnlyBuffer().rewind();
+    }
+
+    IntBuffer columnaTextos() {
+        return textos.asReadOnlyBuffer().rewind();
+    }
+
+    ByteBuffer columnaArena() {
+        return arena.asReadOnlyBuffer().rewind();
+    }
+
+    // ------------------ Filtro ------------------
+
+    private static boolean soloActivo(FiltroUsuarios f) {
+        return f.getActivo() != null && f.getDominioEmail() == null && f.getNombreContiene() == null
+                && f.getCreadoDesde() == null && f.getCreadoHasta() == null;
+    }
+
+    /**
+     * Filtro preparado una vez por recorrido: textos ya en bytes / minúsculas.
+     */
+    private static final class Condicion {
+        final byte[] dominio;
+        final String nombre;     // en minúsculas
+        final byte[] nombreAscii; // null si el texto tiene caracteres no ASCII
+        final Boolean activo;
+        final Timestamp desde;
+        final Timestamp hasta;
+
+        Condicion(FiltroUsuarios f) {
+            this.dominio = f.getDominioEmail() == null ? null : f.getDominioEmail().getBytes(StandardCharsets.UTF_8);
+            this.nombre = f.getNombreContiene() == null ? null : f.getNombreContiene().toLowerCase(Locale.ROOT);
+            this.nombreAscii = nombre != null && esAscii(nombre) ? nombre.getBytes(StandardCharsets.US_ASCII) : null;
+            this.activo = f.getActivo();
+            this.desde = f.getCreadoDesde();
+            this.hasta = f.getCreadoHasta();
+        }
+    }
+
+    /**
+     * Filas que cumplen la condición, en orden. Con criterio de estado se recorren solo los bits
+     * que corresponden (Long.numberOfTrailingZeros) en vez de todas las filas.
+     *
+     * @param alCumplir recibe cada fila que cumple (null: solo contar)
+     */
+    private int filas(Condicion c, IntConsumer alCumplir) {
+        int n = 0;
+        if (c.activo == null) {
+            for (int fila = 0; fila < tamano; fila++) {
+                if (cumpleResto(c, fila)) {
+                    n++;
+                    if (alCumplir != null) alCumplir.accept(fila);
+                }
+            }
+            return n;
+        }
+        for (int w = 0; w < activos.limit(); w++) {
+            long bits = c.activo ? activos.get(w) : ~activos.get(w);
+            int base = w << 6;
+            if (tamano - base < 64) {
+                bits &= (1L << (tamano - base)) - 1; // la última palabra solo tiene tamano % 64 filas
+            }
+            while (bits != 0) {
+                int fila = base + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (cumpleResto(c, fila)) {
+                    n++;
+                    if (alCumplir != null) alCumplir.accept(fila);
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Criterios distintos del estado (ese lo resuelve {@link #filas}).
+     */
+    private boolean cumpleResto(Condicion c, int fila) {
+        if (c.desde != null || c.hasta != null) {
+            long creado = creadosEnMs.get(fila);
+            if (creado == UsuarioCompacto.SIN_FECHA) return false; // NULL en SQL no cumple ningún rango
+            if (c.desde != null && creado < c.desde.getTime()) return false;
+            if (c.hasta != null && creado >= c.hasta.getTime()) return false;
+        }
+        if (c.dominio != null && !dominioIgual(fila, c.dominio)) {
+            return false;
+        }
+        return c.nombre == null || nombreContiene(fila, c);
+    }
+
+    /**
+     * {@code split_part(email, '@', 2) = dominio}: el tramo entre la primera y la segunda arroba.
+     */
+    private boolean dominioIgual(int fila, byte[] dominio) {
+        ByteBuffer a = arena; // en variable local: el JIT no vuelve a leer el campo en cada byte
+        int desde = textos.get(2 * fila + 1);
+        int hasta = textos.get(2 * fila + 2);
+        int sufijo = hasta - dominio.length - 1;
+        if (sufijo >= desde && a.get(sufijo) == '@' && bytesIguales(a, sufijo + 1, hasta, dominio)) {
+            // Caso común: termina en "@dominio"; basta que no haya otra arroba antes
+            int i = desde;
+            while (i < sufijo && a.get(i) != '@') i++;
+            if (i == sufijo) return true;
+        }
+        int arroba = desde;
+        while (arroba < hasta && a.get(arroba) != '@') arroba++;
+        if (arroba >= hasta) {
+            return false;
+        }
+        int fin = arroba + 1;
+        while (fin < hasta && a.get(fin) != '@') fin++;
+        return bytesIguales(a, arroba + 1, fin, dominio);
+    }
+
+    private static boolean bytesIguales(ByteBuffer a, int desde, int hasta, byte[] b) {
+        if (hasta - desde != b.length) {
+            return false;
+        }
+        for (int i = 0; i < b.length; i++) {
+            if (a.get(desde + i) != b[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@code nombre ILIKE '%texto%'}: en ASCII se compara sobre los bytes sin crear el String;
+     * con acentos u otros caracteres se decodifica y se pasa a minúsculas.
+     */
+    private boolean nombreContiene(int fila, Condicion c) {
+        int desde = textos.get(2 * fila);
+        int hasta = textos.get(2 * fila + 1);
+        ByteBuffer a = arena;
+        if (c.nombreAscii != null && esAscii(a, desde, hasta)) {
+            byte[] p = c.nombreAscii;
+            for (int i = desde; i <= hasta - p.length; i++) {
+                int j = 0;
+                while (j < p.length && minuscula(a.get(i + j)) == p[j]) j++;
+                if (j == p.length) return true;
+            }
+            return false;
+        }
+        return texto(desde, hasta).toLowerCase(Locale.ROOT).contains(c.nombre);
+    }
+
+    private static boolean esAscii(ByteBuffer a, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            if (a.get(i) < 0) return false;
+        }
+        return true;
+    }
+
+    private static boolean esAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    private static byte minuscula(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private String texto(int desde, int hasta) {
+        if (arena.hasArray()) {
+            return new String(arena.array(), arena.arrayOffset() + desde, hasta - desde, StandardCharsets.UTF_8);
+        }
+        byte[] b = new byte[hasta - desde];
+        arena.get(desde, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    // ------------------ Construcción ------------------
+
+    /**
+     * Recibe los usuarios en orden ascendente de id (como los entrega {@code recorrer}) y crece por
+     * duplicación. Los textos null se guardan vacíos. No es seguro entre hilos.
+     */
+    public static final class Acumulador implements Consumer<Usuario> {
+        private int tamano;
+        private long[] ids;
+        private int[] ruts;
+        private char[] dvs;
+        private long[] activos;
+        private long[] creadosEnMs;
+        private long[] versiones;
+        private int[] textos;
+        private byte[] arena;
+        private int largoArena;
+
+        /**
+         * @param arenaEsperada bytes de texto previstos (0: estimar por fila)
+         */
+        private Acumulador(int capacidadEsperada, long arenaEsperada) {
+            int c = Math.max(CAPACIDAD_MINIMA, capacidadEsperada);
+            ids = new long[c];
+            ruts = new int[c];
+            dvs = new char[c];
+            activos = new long[(c + 63) >>> 6];
+            creadosEnMs = new long[c];
+            versiones = new long[c];
+            textos = new int[2 * c + 1];
+            arena = new byte[(int) Math.min(arenaEsperada > 0 ? arenaEsperada : c * 32L, Integer.MAX_VALUE - 16)];
+        }
+
+        @Override
+        public void accept(Usuario u) {
+            agregar(u.getId(), u.getRut() != null ? u.getRut() : 0,
+                    u.getDv() == null || u.getDv().isEmpty() ? '\0' : u.getDv().charAt(0),
+                    u.getNombre(), u.getEmail(), Boolean.TRUE.equals(u.getActivo()),
+                    u.getFechaCreacion() == null ? UsuarioCompacto.SIN_FECHA : u.getFechaCreacion().getTime(),
+                    u.getVersion() != null ? u.getVersion() : UsuarioCompacto.SIN_VERSION);
+        }
+
+        public void agregar(UsuarioCompacto u) {
+            agregar(u.getId(), u.getRut(), u.getDv(), u.getNombre(), u.getEmail(), u.isActivo(),
+                    u.getCreadoEnMs(), u.getVersion());
+        }
+
+        public void agregar(long id, int rut, char dv, String nombre, String email, boolean activo,
+                            long creadoEnMs, long version) {
+            if (tamano > 0 && id <= ids[tamano - 1]) {
+                throw new IllegalArgumentException("Los ids deben llegar en orden ascendente: "
+                        + id + " después de " + ids[tamano - 1] + ".");
+            }
+            if (tamano == ids.length) {
+                crecer();
+            }
+            int fila = tamano++;
+            ids[fila] = id;
+            ruts[fila] = rut;
+            dvs[fila] = dv;
+            if (activo) {
+                activos[fila >>> 6] |= 1L << fila;
+            }
+            creadosEnMs[fila] = creadoEnMs;
+            versiones[fila] = version;
+            escribir(nombre);
+            textos[2 * fila + 1] = largoArena;
+            escribir(email);
+            textos[2 * fila + 2] = largoArena;
+        }
+
+        public int getTamano() {
+            return tamano;
+        }
+
+        /**
+         * Copia en bloque las filas {@code [desde, hasta)} de otra instantánea (columnas y textos),
+         * ajustando las posiciones de los textos a esta arena.
+         */
+        public void copiar(InstantaneaUsuarios origen, int desde, int hasta) {
+            int n = hasta - desde;
+            if (n <= 0) {
+                return;
+            }
+            if (tamano > 0 && origen.ids.get(desde) <= ids[tamano - 1]) {
+                throw new IllegalArgumentException("Los ids deben llegar en orden ascendente: "
+                        + origen.ids.get(desde) + " después de " + ids[tamano - 1] + ".");
+            }
+            while (ids.length - tamano < n) {
+                crecer();
+            }
+            origen.ids.get(desde, ids, tamano, n);
+            origen.ruts.get(desde, ruts, tamano, n);
+            origen.dvs.get(desde, dvs, tamano, n);
+            origen.creadosEnMs.get(desde, creadosEnMs, tamano, n);
+            origen.versiones.get(desde, versiones, tamano, n);
+            for (int i = 0; i < n; i++) {
+                if (origen.isActivo(desde + i)) {
+                    int fila = tamano + i;
+                    activos[fila >>> 6] |= 1L << fila;
+                }
+            }
+
+            int inicioTextos = origen.textos.get(2 * desde);
+            int finTextos = origen.textos.get(2 * hasta);
+            int ajuste = largoArena - inicioTextos;
+            for (int i = 1; i <= 2 * n; i++) {
+                textos[2 * tamano + i] = origen.textos.get(2 * desde + i) + ajuste;
+            }
+            asegurarArena(finTextos - inicioTextos);
+            origen.arena.get(inicioTextos, arena, largoArena, finTextos - inicioTextos);
+            largoArena += finTextos - inicioTextos;
+            tamano += n;
+        }
+
+        /**
+         * Instantánea sin marca de cambios: {@link #ponerAlDia} sobre ella carga todo.
+         */
+        public InstantaneaUsuarios construir() {
+            return new InstantaneaUsuarios(this, UsuarioRepository.MARCA_VENCIDA, 0);
+        }
+
+        private void crecer() {
+            if (ids.length >= MAX_FILAS) {
+                throw new IllegalStateException("La instantánea admite como máximo " + MAX_FILAS + " usuarios.");
+            }
+            int c = (int) Math.min((long) ids.length * 2, MAX_FILAS);
+            ids = Arrays.copyOf(ids, c);
+            ruts = Arrays.copyOf(ruts, c);
+            dvs = Arrays.copyOf(dvs, c);
+            activos = Arrays.copyOf(activos, (c + 63) >>> 6);
+            creadosEnMs = Arrays.copyOf(creadosEnMs, c);
+            versiones = Arrays.copyOf(versiones, c);
+            textos = Arrays.copyOf(textos, 2 * c + 1);
+        }
+
+        /**
+         * UTF-8 directo a la arena; los textos solo ASCII (el caso común) se copian sin codificar.
+         */
+        private void escribir(String s) {
+            if (s == null || s.isEmpty()) {
+                return;
+            }
+            if (esAscii(s)) {
+                asegurarArena(s.length());
+                for (int i = 0; i < s.length(); i++) {
+                    arena[largoArena++] = (byte) s.charAt(i);
+                }
+                return;
+            }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            asegurarArena(b.length);
+            System.arraycopy(b, 0, arena, largoArena, b.length);
+            largoArena += b.length;
+        }
+
+        private void asegurarArena(int adicional) {
+            long necesario = (long) largoArena + adicional;
+            if (necesario <= arena.length) {
+                return;
+            }
+            if (necesario > Integer.MAX_VALUE - 16) {
+                throw new IllegalStateException("Los textos de la instantánea superan 2 GB.");
+            }
+            arena = Arrays.copyOf(arena, (int) Math.min(Math.max(necesario, (long) arena.length * 2),
+                    Integer.MAX_VALUE - 16));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package app.index;
+
+import java.util.Arrays;
+
+/**
+ * Mapa long -> long con direccionamiento abierto (sondeo lineal) sobre arreglos primitivos,
+ * sin objetos por entrada. No es thread-safe: la sincronización queda en manos del llamador.
+ */
+public class LongLongHashMap {
+
+    private static final long VACIO = 0L;
+    private static final float CARGA_MAX = 0.75f;
+
+    private long[] claves;
+    private long[] valores;
+    private int mascara;
+    private int tamano;
+
+    // La clave 0 se usa como marca de casilla vacía, así que se guarda aparte
+    private boolean tieneCero;
+    private long valorCero;
+
+    public LongLongHashMap(int capacidadEsperada) {
+        int capacidad = capacidadPara(capacidadEsperada);
+        this.claves = new long[capacidad];
+        this.valores = new long[capacidad];
+        this.mascara = capacidad - 1;
+    }
+
+    public void put(long clave, long valor) {
+        if (clave == VACIO) {
+            if (!tieneCero) tamano++;
+            tieneCero = true;
+            valorCero = valor;
+            return;
+        }
+        int i = indice(clave);
+        while (claves[i] != VACIO) {
+            if (claves[i] == clave) {
+                valores[i] = valor;
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        claves[i] = clave;
+        valores[i] = valor;
+        if (++tamano > claves.length * CARGA_MAX) {
+            redimensionar(claves.length * 2);
+        }
+    }
+
+    /**
+     * Valor asociado a la clave, o {@code ausente} si no está.
+     */
+    public long get(long clave, long ausente) {
+        if (clave == VACIO) {
+            return tieneCero ? valorCero : ausente;
+        }
+        int i = indice(clave);
+        long k;
+        while ((k = claves[i]) != VACIO) {
+            if (k == clave) {
+                return valores[i];
+            }
+            i = (i + 1) & mascara;
+        }
+        return ausente;
+    }
+
+    public boolean containsKey(long clave) {
+        if (clave == VACIO) return tieneCero;
+        int i = indice(clave);
+        long k;
+        while ((k = claves[i]) != VACIO) {
+            if (k == clave) return true;
+            i = (i + 1) & mascara;
+        }
+        return false;
+    }
+
+    public int size() {
+        return tamano;
+    }
+
+    public int capacidad() {
+        return claves.length;
+    }
+
+    /**
+     * Memoria de los arreglos (sin cabeceras de objeto).
+     */
+    public long bytesEstimados() {
+        return (long) claves.length * Long.BYTES * 2;
+    }
+
+    public void clear() {
+        Arrays.fill(claves, VACIO);
+        tamano = 0;
+        tieneCero = false;
+    }
+
+    private int indice(long clave) {
+        return (int) mezclar(clave) & mascara;
+    }
+
+    private void redimensionar(int nuevaCapacidad) {
+        long[] viejasClaves = claves;
+        long[] viejosValores = valores;
+        claves = new long[nuevaCapacidad];
+        valores = new long[nuevaCapacidad];
+        mascara = nuevaCapacidad - 1;
+
+        for (int j = 0; j < viejasClaves.length; j++) {
+            long k = viejasClaves[j];
+            if (k != VACIO) {
+                int i = indice(k);
+                while (claves[i] != VACIO) {
+                    i = (i + 1) & mascara;
+                }
+                claves[i] = k;
+                valores[i] = viejosValores[j];
+            }
+        }
+    }
+
+    private static int capacidadPara(int esperada) {
+        long minimo = (long) Math.ceil(Math.max(esperada, 8) / (double) CARGA_MAX) + 1;
+        long capacidad = Long.highestOneBit(minimo - 1) << 1;
+        if (capacidad > (1 << 30)) {
+            throw new IllegalArgumentException("Capacidad demasiado grande: " + esperada);
+        }
+        return (int) capacidad;
+    }
+
+    /**
+     * Finalizador de MurmurHash3 (fmix64): dispersa claves con bits bajos poco variados.
+     */
+    static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
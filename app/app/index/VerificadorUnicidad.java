@@ -0,0 +1,75 @@
+package app.index;
+
+import app.config.AppConfig;
+import app.repository.UsuarioRepository;
+
+import java.sql.SQLException;
+
+/**
+ * Pre-filtro local para los chequeos de duplicado de email y RUT-DV.
+ *
+ * {@code false} significa "seguro que no existe" y permite omitir la consulta a la BD;
+ * {@code true} significa "puede existir" y se debe confirmar en la BD.
+ */
+public interface VerificadorUnicidad {
+
+    /** Id desconocido (p.ej. filas de una importación masiva, cuyo id no se conoce). */
+    long ID_DESCONOCIDO = -1L;
+
+    /**
+     * @param excluirId id a ignorar (edición), o null en creación; las implementaciones que no
+     *                  guardan ids lo ignoran y responden "puede existir"
+     */
+    boolean puedeExistirEmail(String emailNormalizado, Long excluirId);
+
+    boolean puedeExistirRutDv(int rut, String dv, Long excluirId);
+
+    /**
+     * Registra los valores vigentes de un usuario tras una escritura local.
+     */
+    void registrar(long id, int rut, String dv, String emailNormalizado);
+
+    /**
+     * (Re)construye el verificador recorriendo la tabla. Las consultas siguen respondiéndose
+     * con el contenido anterior hasta que la nueva carga termina.
+     *
+     * @return cantidad de usuarios cargados
+     */
+    long cargar(UsuarioRepository repository) throws SQLException;
+
+    /**
+     * Como {@link #cargar(UsuarioRepository)}, pero desde una instantánea ya en memoria o mapeada
+     * (sin consultar la BD). Lo escrito después de la instantánea no queda registrado.
+     *
+     * @return cantidad de usuarios cargados
+     */
+    long cargar(InstantaneaUsuarios instantanea);
+
+    /** Consultas respondidas "no existe" sin ir a la BD. */
+    long getConsultasLocales();
+
+    /** Consultas que hubo que confirmar en la BD. */
+    long getConsultasDerivadas();
+
+    long bytesEstimados();
+
+    /**
+     * Verificador según {@code unicidad.verificador} (NINGUNO, INDICE o BLOOM); null si es NINGUNO.
+     * Se entrega vacío: hay que cargarlo con {@link #cargar(UsuarioRepository)}.
+     */
+    static VerificadorUnicidad desdeConfig() {
+        String tipo = AppConfig.get("unicidad.verificador", "NINGUNO").toUpperCase();
+        switch (tipo) {
+            case "NINGUNO":
+                return null;
+            case "INDICE":
+                return new IndiceUnicidad(AppConfig.getInt("unicidad.indice.capacidadInicial", 100_000));
+            case "BLOOM":
+                return new FiltroBloomUnicidad(
+                        AppConfig.getInt("unicidad.bloom.capacidad", 1_000_000),
+                        Double.parseDouble(AppConfig.get("unicidad.bloom.fpp", "0.01")));
+            default:
+                throw new IllegalStateException("unicidad.verificador inválido: " + tipo);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package app.metricas;
+
+import java.time.Instant;
+
+/**
+ * Sentencia SQL que superó el umbral de consulta lenta. Los parámetros van redactados
+ * (solo posición y tipo, p.ej. {@code $1=String(12)}): nunca se guardan los valores.
+ */
+public final class ConsultaLenta {
+
+    private final long instanteMs;
+    private final String traza;
+    private final String sql;
+    private final String parametros;
+    private final long nanos;
+
+    public ConsultaLenta(long instanteMs, String traza, String sql, String parametros, long nanos) {
+        this.instanteMs = instanteMs;
+        this.traza = traza;
+        this.sql = sql;
+        this.parametros = parametros;
+        this.nanos = nanos;
+    }
+
+    public long getInstanteMs() {
+        return instanteMs;
+    }
+
+    /**
+     * Operación de servicio en curso y operación de repositorio, p.ej.
+     * {@code UsuarioService.crearUsuario > UsuarioRepository.existeEmail}.
+     */
+    public String getTraza() {
+        return traza;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getParametros() {
+        return parametros;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return Instant.ofEpochMilli(instanteMs) + " " + traza + " " + (nanos / 1_000_000) + " ms"
+                + " sql=" + sql + " parametros=" + parametros;
+    }
+}
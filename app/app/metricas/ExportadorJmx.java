@@ -0,0 +1,50 @@
+package app.metricas;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Publica un {@link RegistroMetricasMemoria} en el MBeanServer de la plataforma (visible en JConsole,
+ * VisualVM o cualquier agente JMX):
+ * - {@value #DOMINIO}:type=Metricas: volcado de texto, cantidad de consultas lentas y reinicio.
+ * - {@value #DOMINIO}:type=Operacion,name=...: una entrada por operación, registrada al crearse.
+ */
+public final class ExportadorJmx {
+
+    public static final String DOMINIO = "app.usuarios";
+
+    private ExportadorJmx() {
+    }
+
+    public static void exportar(RegistroMetricasMemoria registro) {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        registrar(servidor, registro, DOMINIO + ":type=Metricas");
+        registro.alCrearOperacion(m ->
+                registrar(servidor, m, DOMINIO + ":type=Operacion,name=" + ObjectName.quote(m.getNombre())));
+    }
+
+    /**
+     * Registra {@code mbean} con ese nombre, reemplazando uno anterior (p.ej. de otro registro).
+     */
+    private static void registrar(MBeanServer servidor, Object mbean, String nombre) {
+        try {
+            ObjectName objectName = new ObjectName(nombre);
+            try {
+                servidor.registerMBean(mbean, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                try {
+                    servidor.unregisterMBean(objectName);
+                } catch (InstanceNotFoundException ignored) {
+                    // otro hilo lo quitó
+                }
+                servidor.registerMBean(mbean, objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudo registrar " + nombre + " en JMX: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package app.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias log-lineal (estilo HdrHistogram): valores exactos hasta 63 y, sobre eso,
+ * 32 tramos por cada potencia de 2 (error relativo menor a 1/32, ~3%), para todo el rango de long.
+ *
+ * Registrar no asigna memoria: un incremento en un AtomicLongArray, un LongAdder y, si el valor
+ * supera al máximo, un CAS. Seguro entre hilos; las lecturas son aproximadas mientras se registra.
+ */
+public final class Histograma {
+
+    private static final int BITS = 6;
+    private static final int MITAD = 1 << (BITS - 1); // tramos por potencia de 2
+    private static final int TRAMOS = (65 - BITS) * MITAD;
+
+    private final AtomicLongArray conteos = new AtomicLongArray(TRAMOS);
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra un valor (negativos cuentan como 0).
+     */
+    public void registrar(long valor) {
+        long v = Math.max(0L, valor);
+        conteos.incrementAndGet(tramo(v));
+        suma.add(v);
+        long max = maximo.get();
+        while (v > max && !maximo.compareAndSet(max, v)) {
+            max = maximo.get();
+        }
+    }
+
+    public long getTotal() {
+        long total = 0;
+        for (int i = 0; i < TRAMOS; i++) {
+            total += conteos.get(i);
+        }
+        return total;
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    public double getMedia() {
+        long total = getTotal();
+        return total == 0 ? 0.0 : (double) suma.sum() / total;
+    }
+
+    /**
+     * Valor bajo el cual está el {@code percentil} (0-100) de los registros; como en HdrHistogram,
+     * se informa el mayor valor equivalente del tramo (nunca mayor al máximo registrado).
+     */
+    public long percentil(double percentil) {
+        long[] copia = new long[TRAMOS];
+        long total = 0;
+        for (int i = 0; i < TRAMOS; i++) {
+            copia[i] = conteos.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0L;
+        }
+        long objetivo = Math.max(1L, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentil)) / 100.0 * total));
+        long acumulado = 0;
+        for (int i = 0; i < TRAMOS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /**
+     * Vuelve a cero. Lo que se registre en paralelo puede quedar o no.
+     */
+    public void reiniciar() {
+        for (int i = 0; i < TRAMOS; i++) {
+            conteos.set(i, 0L);
+        }
+        suma.reset();
+        maximo.set(0L);
+    }
+
+    static int tramo(long v) {
+        if (v < (1L << BITS)) {
+            return (int) v;
+        }
+        int desplazamiento = 64 - Long.numberOfLeadingZeros(v) - BITS; // >= 1
+        return desplazamiento * MITAD + (int) (v >>> desplazamiento);
+    }
+
+    static long limiteSuperior(int tramo) {
+        if (tramo < (1 << BITS)) {
+            return tramo;
+        }
+        int desplazamiento = tramo / MITAD - 1;
+        long mantisa = tramo % MITAD + MITAD;
+        long siguiente = (mantisa + 1) << desplazamiento;
+        return siguiente <= 0 ? Long.MAX_VALUE : siguiente - 1;
+    }
+}
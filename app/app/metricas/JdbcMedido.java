@@ -0,0 +1,329 @@
+package app.metricas;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Envoltorios JDBC que alimentan el {@link RegistroMetricas} instalado en {@link Metricas}.
+ *
+ * - Conexión: tiempo de {@code getConnection} ({@value Metricas#OBTENER_CONEXION}).
+ * - PreparedStatement: latencia de cada execute*, errores por SQLState, filas afectadas y
+ *   parámetros (solo para describirlos redactados si la sentencia resulta lenta).
+ * - ResultSet: filas leídas, que se registran al cerrarlo.
+ *
+ * La operación de cada SQL se resuelve una vez, con el primer método fuera de JDBC que lo prepara.
+ */
+final class JdbcMedido {
+
+    private static final Object NULO = new Object();
+    private static final ConcurrentHashMap<String, String> OPERACION_POR_SQL = new ConcurrentHashMap<>();
+    private static final StackWalker PILA = StackWalker.getInstance();
+
+    private JdbcMedido() {
+    }
+
+    /**
+     * DataSource que mide la obtención de conexiones y entrega conexiones medidas.
+     */
+    static final class FuenteMedida implements DataSource {
+        private final DataSource real;
+
+        FuenteMedida(DataSource real) {
+            this.real = real;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            RegistroMetricas r = Metricas.getRegistro();
+            if (r == null) {
+                return real.getConnection();
+            }
+            long inicio = System.nanoTime();
+            Connection conn;
+            try {
+                conn = real.getConnection();
+            } catch (SQLException e) {
+                r.registrarError(Metricas.OBTENER_CONEXION, System.nanoTime() - inicio, Metricas.codigoError(e));
+                throw e;
+            }
+            r.registrarLlamada(Metricas.OBTENER_CONEXION, System.nanoTime() - inicio);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new ConexionMedida(conn));
+        }
+
+        @Override
+        public Connection getConnection(String usuario, String clave) throws SQLException {
+            return real.getConnection(usuario, clave);
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return real.getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            real.setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            real.setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return real.getLoginTimeout();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            return real.getParentLogger();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return iface.isInstance(real) ? iface.cast(real) : real.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(real) || real.isWrapperFor(iface);
+        }
+    }
+
+    private static final class ConexionMedida implements InvocationHandler {
+        private final Connection real;
+
+        ConexionMedida(Connection real) {
+            this.real = real;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object resultado = invocar(real, method, args);
+            if ("prepareStatement".equals(method.getName()) && resultado instanceof PreparedStatement) {
+                String sql = (String) args[0];
+                return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                        new Class<?>[]{PreparedStatement.class},
+                        new SentenciaMedida((PreparedStatement) resultado, sql, operacion(sql)));
+            }
+            return resultado;
+        }
+    }
+
+    private static final class SentenciaMedida implements InvocationHandler {
+        private final PreparedStatement real;
+        private final String sql;
+        private final String operacion;
+        private Object[] parametros = new Object[8];
+        private ResultadoMedido abierto;
+
+        SentenciaMedida(PreparedStatement real, String sql, String operacion) {
+            this.real = real;
+            this.sql = sql;
+            this.operacion = operacion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nombre = method.getName();
+            if (nombre.startsWith("execute")) {
+                return ejecutar(proxy, method, args);
+            }
+            if ("getResultSet".equals(nombre)) {
+                return envolver(proxy, invocar(real, method, args));
+            }
+            if ("close".equals(nombre)) {
+                cerrarResultado();
+            } else if ("clearParameters".equals(nombre)) {
+                Arrays.fill(parametros, null);
+            } else if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                guardarParametro((Integer) args[0], "setNull".equals(nombre) ? NULO : args[1]);
+            }
+            return invocar(real, method, args);
+        }
+
+        private Object ejecutar(Object proxy, Method method, Object[] args) throws Throwable {
+            RegistroMetricas r = Metricas.getRegistro();
+            if (r == null) {
+                return envolver(proxy, invocar(real, method, args));
+            }
+            cerrarResultado();
+            long inicio = System.nanoTime();
+            Object resultado;
+            try {
+                resultado = method.invoke(real, args);
+            } catch (InvocationTargetException e) {
+                r.registrarError(operacion, System.nanoTime() - inicio, Metricas.codigoError(e.getCause()));
+                throw e.getCause();
+            }
+            long nanos = System.nanoTime() - inicio;
+            r.registrarLlamada(operacion, nanos);
+
+            if (resultado instanceof Integer || resultado instanceof Long) {
+                r.registrarFilas(operacion, Math.max(0L, ((Number) resultado).longValue()));
+            } else if (resultado instanceof int[]) {
+                long filas = 0;
+                for (int n : (int[]) resultado) {
+                    if (n > 0) filas += n;
+                }
+                r.registrarFilas(operacion, filas);
+            }
+            if (nanos >= Metricas.getUmbralLentaNanos()) {
+                String enCurso = Metricas.getOperacionEnCurso();
+                Metricas.consultaLenta(r, new ConsultaLenta(System.currentTimeMillis(),
+                        enCurso == null ? operacion : enCurso + " > " + operacion,
+                        sql.replaceAll("\\s+", " ").trim(), describirParametros(), nanos));
+            }
+            return envolver(proxy, resultado);
+        }
+
+        private Object envolver(Object sentencia, Object resultado) {
+            if (!(resultado instanceof ResultSet)) {
+                return resultado;
+            }
+            abierto = new ResultadoMedido((ResultSet) resultado, operacion, sentencia);
+            return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, abierto);
+        }
+
+        private void cerrarResultado() {
+            if (abierto != null) {
+                abierto.registrarFilas();
+                abierto = null;
+            }
+        }
+
+        private void guardarParametro(int indice, Object valor) {
+            if (indice < 1) return;
+            if (indice > parametros.length) {
+                parametros = Arrays.copyOf(parametros, Math.max(indice, parametros.length * 2));
+            }
+            parametros[indice - 1] = valor;
+        }
+
+        /**
+         * Posición y tipo de cada parámetro, sin valores: {@code [$1=String(12), $2=Integer, $3=null]}.
+         */
+        private String describirParametros() {
+            int ultimo = parametros.length;
+            while (ultimo > 0 && parametros[ultimo - 1] == null) ultimo--;
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < ultimo; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append('$').append(i + 1).append('=').append(describir(parametros[i]));
+            }
+            return sb.append(']').toString();
+        }
+    }
+
+    private static final class ResultadoMedido implements InvocationHandler {
+        private final ResultSet real;
+        private final String operacion;
+        private final Object sentencia;
+        private long filas;
+        private boolean registrado;
+
+        ResultadoMedido(ResultSet real, String operacion, Object sentencia) {
+            this.real = real;
+            this.operacion = operacion;
+            this.sentencia = sentencia;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nombre = method.getName();
+            if ("next".equals(nombre)) {
+                boolean hay = real.next();
+                if (hay) filas++;
+                return hay;
+            }
+            if ("getStatement".equals(nombre)) {
+                return sentencia;
+            }
+            if ("close".equals(nombre)) {
+                registrarFilas();
+            }
+            return invocar(real, method, args);
+        }
+
+        void registrarFilas() {
+            if (registrado) return;
+            registrado = true;
+            RegistroMetricas r = Metricas.getRegistro();
+            if (r != null) {
+                r.registrarFilas(operacion, filas);
+            }
+        }
+    }
+
+    static String describir(Object valor) {
+        if (valor == null || valor == NULO) {
+            return "null";
+        }
+        if (valor instanceof CharSequence) {
+            return "String(" + ((CharSequence) valor).length() + ")";
+        }
+        if (valor.getClass().isArray()) {
+            return valor.getClass().getComponentType().getSimpleName() + "[" + java.lang.reflect.Array.getLength(valor) + "]";
+        }
+        return valor.getClass().getSimpleName();
+    }
+
+    /**
+     * Nombre de operación del SQL: clase y método que lo prepara por primera vez
+     * (las lambdas cuentan como el método que las contiene).
+     */
+    static String operacion(String sql) {
+        String op = OPERACION_POR_SQL.get(sql);
+        if (op != null) {
+            return op;
+        }
+        op = PILA.walk(frames -> frames
+                .filter(f -> !esInfraestructura(f.getClassName()))
+                .findFirst())
+                .map(f -> nombreSimple(f.getClassName()) + "." + nombreMetodo(f.getMethodName()))
+                .orElse("sql");
+        String previo = OPERACION_POR_SQL.putIfAbsent(sql, op);
+        return previo != null ? previo : op;
+    }
+
+    private static boolean esInfraestructura(String clase) {
+        return clase.startsWith("app.metricas.") || clase.startsWith("app.config.")
+                || clase.startsWith("java.") || clase.startsWith("javax.") || clase.startsWith("jdk.")
+                || clase.startsWith("sun.") || clase.startsWith("com.sun.") || clase.startsWith("org.postgresql.")
+                || clase.contains("$Proxy");
+    }
+
+    private static String nombreSimple(String clase) {
+        return clase.substring(clase.lastIndexOf('.') + 1);
+    }
+
+    private static String nombreMetodo(String metodo) {
+        if (metodo.startsWith("lambda$")) {
+            int fin = metodo.indexOf('$', 7);
+            return fin > 7 ? metodo.substring(7, fin) : metodo;
+        }
+        return metodo;
+    }
+
+    private static Object invocar(Object destino, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package app.metricas;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas acumuladas de una operación: latencia (ns, incluye las llamadas fallidas), llamadas,
+ * errores por código (SQLState, o el tipo de excepción si no hubo SQLException) y filas.
+ */
+public final class MetricaOperacion implements MetricaOperacionMXBean {
+
+    private static final double NANOS_POR_MS = 1_000_000.0;
+
+    private final String nombre;
+    private final Histograma latencia = new Histograma();
+    private final LongAdder llamadas = new LongAdder();
+    private final LongAdder filas = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> errores = new ConcurrentHashMap<>();
+
+    MetricaOperacion(String nombre) {
+        this.nombre = nombre;
+    }
+
+    void registrarLlamada(long nanos) {
+        latencia.registrar(nanos);
+        llamadas.increment();
+    }
+
+    void registrarError(long nanos, String codigo) {
+        registrarLlamada(nanos);
+        errores.computeIfAbsent(codigo == null ? "?" : codigo, c -> new LongAdder()).increment();
+    }
+
+    void registrarFilas(long cantidad) {
+        filas.add(cantidad);
+    }
+
+    void reiniciar() {
+        latencia.reiniciar();
+        llamadas.reset();
+        filas.reset();
+        errores.clear();
+    }
+
+    public Histograma getLatencia() {
+        return latencia;
+    }
+
+    @Override
+    public String getNombre() {
+        return nombre;
+    }
+
+    @Override
+    public long getLlamadas() {
+        return llamadas.sum();
+    }
+
+    @Override
+    public long getErrores() {
+        long total = 0;
+        for (LongAdder n : errores.values()) {
+            total += n.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getErroresPorCodigo() {
+        Map<String, Long> out = new TreeMap<>();
+        errores.forEach((codigo, n) -> out.put(codigo, n.sum()));
+        return out;
+    }
+
+    @Override
+    public long getFilas() {
+        return filas.sum();
+    }
+
+    @Override
+    public double getMediaMs() {
+        return latencia.getMedia() / NANOS_POR_MS;
+    }
+
+    @Override
+    public double getP50Ms() {
+        return latencia.percentil(50) / NANOS_POR_MS;
+    }
+
+    @Override
+    public double getP90Ms() {
+        return latencia.percentil(90) / NANOS_POR_MS;
+    }
+
+    @Override
+    public double getP99Ms() {
+        return latencia.percentil(99) / NANOS_POR_MS;
+    }
+
+    @Override
+    public double getP999Ms() {
+        return latencia.percentil(99.9) / NANOS_POR_MS;
+    }
+
+    @Override
+    public double getMaximoMs() {
+        return latencia.getMaximo() / NANOS_POR_MS;
+    }
+}
@@ -0,0 +1,31 @@
+package app.metricas;
+
+import java.util.Map;
+
+/**
+ * Vista JMX de una {@link MetricaOperacion} (tiempos en milisegundos).
+ */
+public interface MetricaOperacionMXBean {
+
+    String getNombre();
+
+    long getLlamadas();
+
+    long getErrores();
+
+    Map<String, Long> getErroresPorCodigo();
+
+    long getFilas();
+
+    double getMediaMs();
+
+    double getP50Ms();
+
+    double getP90Ms();
+
+    double getP99Ms();
+
+    double getP999Ms();
+
+    double getMaximoMs();
+}
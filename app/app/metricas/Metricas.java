@@ -0,0 +1,136 @@
+package app.metricas;
+
+import app.config.AppConfig;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Punto de acceso a las métricas de servicio y repositorio.
+ *
+ * Deshabilitadas ({@code metricas.habilitado=false}, por defecto) el costo es nulo: el repositorio usa
+ * el DataSource tal cual y el servicio no se envuelve. Habilitadas:
+ * - el repositorio mide cada sentencia (latencia, filas, errores por SQLState) y el tiempo de obtener
+ *   conexión ({@value #OBTENER_CONEXION}); la operación es el método que prepara la sentencia,
+ *   p.ej. {@code UsuarioRepository.buscarPorId}.
+ * - las sentencias que superan {@code metricas.consultaLentaMs} se guardan (y se escriben en stderr si
+ *   {@code metricas.consultaLenta.log}) con los parámetros redactados.
+ * - {@code metricas.jmx} publica el registro en JMX ({@link ExportadorJmx}).
+ */
+public final class Metricas {
+
+    public static final String OBTENER_CONEXION = "conexion.obtener";
+
+    private static final ThreadLocal<String> EN_CURSO = new ThreadLocal<>();
+
+    private static volatile RegistroMetricas registro;
+    private static volatile long umbralLentaNanos;
+    private static volatile boolean logConsultasLentas;
+
+    static {
+        if (AppConfig.getBoolean("metricas.habilitado", false)) {
+            RegistroMetricasMemoria enMemoria = new RegistroMetricasMemoria();
+            if (AppConfig.getBoolean("metricas.jmx", true)) {
+                try {
+                    ExportadorJmx.exportar(enMemoria);
+                } catch (RuntimeException e) {
+                    System.err.println("Metricas: no se pudo publicar en JMX: " + e.getMessage());
+                }
+            }
+            configurar(enMemoria,
+                    AppConfig.getLong("metricas.consultaLentaMs", 200L),
+                    AppConfig.getBoolean("metricas.consultaLenta.log", true));
+        }
+    }
+
+    private Metricas() {
+    }
+
+    /**
+     * Instala un registro (null deshabilita). {@code consultaLentaMs <= 0} no registra consultas lentas.
+     * Solo se instrumentan los repositorios creados con las métricas ya habilitadas.
+     */
+    public static void configurar(RegistroMetricas nuevo, long consultaLentaMs, boolean logConsultas) {
+        umbralLentaNanos = consultaLentaMs > 0 ? consultaLentaMs * 1_000_000L : Long.MAX_VALUE;
+        logConsultasLentas = logConsultas;
+        registro = nuevo;
+    }
+
+    public static boolean isHabilitadas() {
+        return registro != null;
+    }
+
+    /**
+     * Registro instalado, o null si las métricas están deshabilitadas.
+     */
+    public static RegistroMetricas getRegistro() {
+        return registro;
+    }
+
+    /**
+     * DataSource que mide conexiones y sentencias; el mismo {@code dataSource} si están deshabilitadas.
+     */
+    public static DataSource instrumentar(DataSource dataSource) {
+        if (dataSource == null || registro == null) {
+            return dataSource;
+        }
+        return new JdbcMedido.FuenteMedida(dataSource);
+    }
+
+    /**
+     * Ejecuta {@code llamada} midiendo su latencia como {@code operacion}; las sentencias que ejecute
+     * en este hilo quedan asociadas a ella en el registro de consultas lentas.
+     */
+    public static <T> T medir(String operacion, Supplier<T> llamada) {
+        RegistroMetricas r = registro;
+        if (r == null) {
+            return llamada.get();
+        }
+        String anterior = EN_CURSO.get();
+        EN_CURSO.set(operacion);
+        long inicio = System.nanoTime();
+        try {
+            T resultado = llamada.get();
+            r.registrarLlamada(operacion, System.nanoTime() - inicio);
+            return resultado;
+        } catch (RuntimeException e) {
+            r.registrarError(operacion, System.nanoTime() - inicio, codigoError(e));
+            throw e;
+        } finally {
+            EN_CURSO.set(anterior);
+        }
+    }
+
+    /**
+     * SQLState de la primera SQLException en la cadena de causas; "VALIDACION" para
+     * IllegalArgumentException y, si no, el nombre de la excepción.
+     */
+    public static String codigoError(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLException && ((SQLException) t).getSQLState() != null) {
+                return ((SQLException) t).getSQLState();
+            }
+            if (t.getCause() == t) break;
+        }
+        if (error instanceof IllegalArgumentException) {
+            return "VALIDACION";
+        }
+        return error.getClass().getSimpleName();
+    }
+
+    static String getOperacionEnCurso() {
+        return EN_CURSO.get();
+    }
+
+    static long getUmbralLentaNanos() {
+        return umbralLentaNanos;
+    }
+
+    static void consultaLenta(RegistroMetricas r, ConsultaLenta consulta) {
+        r.registrarConsultaLenta(consulta);
+        if (logConsultasLentas) {
+            System.err.println("Consulta lenta: " + consulta);
+        }
+    }
+}
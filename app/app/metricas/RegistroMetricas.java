@@ -0,0 +1,32 @@
+package app.metricas;
+
+/**
+ * Destino de las mediciones de servicio y repositorio. {@link RegistroMetricasMemoria} las acumula
+ * en histogramas; otra implementación puede enviarlas a un sistema de métricas externo
+ * (se instala con {@link Metricas#configurar}).
+ *
+ * Se llama desde el camino de cada operación: las implementaciones deben ser seguras entre hilos
+ * y no bloquear.
+ */
+public interface RegistroMetricas {
+
+    /**
+     * Llamada terminada sin error.
+     */
+    void registrarLlamada(String operacion, long nanos);
+
+    /**
+     * Llamada fallida; {@code codigo} es el SQLState o, si no hubo SQLException, el tipo de error.
+     */
+    void registrarError(String operacion, long nanos, String codigo);
+
+    /**
+     * Filas devueltas (consultas) o afectadas (escrituras) por la operación.
+     */
+    void registrarFilas(String operacion, long filas);
+
+    /**
+     * Sentencia que superó el umbral de consulta lenta.
+     */
+    void registrarConsultaLenta(ConsultaLenta consulta);
+}
@@ -0,0 +1,16 @@
+package app.metricas;
+
+/**
+ * Vista JMX de un {@link RegistroMetricasMemoria}.
+ */
+public interface RegistroMetricasMXBean {
+
+    /**
+     * Mismo texto que la opción de métricas del menú.
+     */
+    String getVolcado();
+
+    long getConsultasLentas();
+
+    void reiniciar();
+}
@@ -0,0 +1,144 @@
+package app.metricas;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Registro en memoria: una {@link MetricaOperacion} por nombre de operación, creada al primer uso,
+ * y las últimas consultas lentas.
+ */
+public final class RegistroMetricasMemoria implements RegistroMetricas, RegistroMetricasMXBean {
+
+    public static final int CONSULTAS_LENTAS_GUARDADAS = 50;
+
+    private final ConcurrentHashMap<String, MetricaOperacion> operaciones = new ConcurrentHashMap<>();
+    private final List<Consumer<MetricaOperacion>> alCrear = new CopyOnWriteArrayList<>();
+    private final ArrayDeque<ConsultaLenta> ultimasLentas = new ArrayDeque<>();
+    private final LongAdder consultasLentas = new LongAdder();
+
+    @Override
+    public void registrarLlamada(String operacion, long nanos) {
+        operacion(operacion).registrarLlamada(nanos);
+    }
+
+    @Override
+    public void registrarError(String operacion, long nanos, String codigo) {
+        operacion(operacion).registrarError(nanos, codigo);
+    }
+
+    @Override
+    public void registrarFilas(String operacion, long filas) {
+        operacion(operacion).registrarFilas(filas);
+    }
+
+    @Override
+    public void registrarConsultaLenta(ConsultaLenta consulta) {
+        consultasLentas.increment();
+        synchronized (ultimasLentas) {
+            if (ultimasLentas.size() == CONSULTAS_LENTAS_GUARDADAS) {
+                ultimasLentas.removeFirst();
+            }
+            ultimasLentas.addLast(consulta);
+        }
+    }
+
+    /**
+     * Métrica de la operación; se crea (y se avisa a los suscriptores) la primera vez.
+     */
+    public MetricaOperacion operacion(String nombre) {
+        MetricaOperacion m = operaciones.get(nombre);
+        if (m != null) {
+            return m;
+        }
+        MetricaOperacion nueva = new MetricaOperacion(nombre);
+        m = operaciones.putIfAbsent(nombre, nueva);
+        if (m != null) {
+            return m;
+        }
+        for (Consumer<MetricaOperacion> suscriptor : alCrear) {
+            suscriptor.accept(nueva);
+        }
+        return nueva;
+    }
+
+    /**
+     * Operaciones registradas hasta ahora, por nombre.
+     */
+    public List<MetricaOperacion> getOperaciones() {
+        List<MetricaOperacion> out = new ArrayList<>(operaciones.values());
+        out.sort((a, b) -> a.getNombre().compareTo(b.getNombre()));
+        return out;
+    }
+
+    /**
+     * Llama a {@code suscriptor} con cada operación existente y con las que se creen después.
+     */
+    public void alCrearOperacion(Consumer<MetricaOperacion> suscriptor) {
+        alCrear.add(suscriptor);
+        operaciones.values().forEach(suscriptor);
+    }
+
+    public List<ConsultaLenta> getUltimasConsultasLentas() {
+        synchronized (ultimasLentas) {
+            return new ArrayList<>(ultimasLentas);
+        }
+    }
+
+    @Override
+    public long getConsultasLentas() {
+        return consultasLentas.sum();
+    }
+
+    /**
+     * Pone a cero todas las métricas (las operaciones siguen registradas, p.ej. en JMX).
+     */
+    @Override
+    public void reiniciar() {
+        operaciones.values().forEach(MetricaOperacion::reiniciar);
+        consultasLentas.reset();
+        synchronized (ultimasLentas) {
+            ultimasLentas.clear();
+        }
+    }
+
+    @Override
+    public String getVolcado() {
+        StringBuilder sb = new StringBuilder();
+        volcarTexto(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Tabla de texto plano con cada operación (tiempos en ms) y las últimas consultas lentas.
+     */
+    public void volcarTexto(StringBuilder sb) {
+        sb.append(String.format(Locale.ROOT, "%-44s %9s %7s %10s %9s %9s %9s %9s %9s %9s%n",
+                "Operacion", "llamadas", "errores", "filas", "media", "p50", "p90", "p99", "p99.9", "max"));
+        for (MetricaOperacion m : getOperaciones()) {
+            sb.append(String.format(Locale.ROOT, "%-44s %9d %7d %10d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    m.getNombre(), m.getLlamadas(), m.getErrores(), m.getFilas(), m.getMediaMs(),
+                    m.getP50Ms(), m.getP90Ms(), m.getP99Ms(), m.getP999Ms(), m.getMaximoMs()));
+            Map<String, Long> errores = m.getErroresPorCodigo();
+            if (!errores.isEmpty()) {
+                sb.append("    errores por codigo: ").append(errores).append(System.lineSeparator());
+            }
+        }
+
+        List<ConsultaLenta> lentas = getUltimasConsultasLentas();
+        sb.append("Consultas lentas: ").append(getConsultasLentas());
+        if (!lentas.isEmpty()) {
+            sb.append(" (ultimas ").append(lentas.size()).append(')');
+        }
+        sb.append(System.lineSeparator());
+        for (ConsultaLenta c : lentas) {
+            sb.append("  ").append(c).append(System.lineSeparator());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package app.model;
+
+import java.time.LocalDate;
+
+/**
+ * Usuarios creados en un día (según fecha_creacion).
+ */
+public class ConteoPorDia {
+
+    private final LocalDate dia;
+    private final long creados;
+
+    public ConteoPorDia(LocalDate dia, long creados) {
+        this.dia = dia;
+        this.creados = creados;
+    }
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public long getCreados() {
+        return creados;
+    }
+
+    @Override
+    public String toString() {
+        return dia + "=" + creados;
+    }
+}
@@ -0,0 +1,34 @@
+package app.model;
+
+/**
+ * Usuarios con email en un dominio ({@code split_part(email, '@', 2)}), total y activos.
+ */
+public class ConteoPorDominio {
+
+    private final String dominio;
+    private final long total;
+    private final long activos;
+
+    public ConteoPorDominio(String dominio, long total, long activos) {
+        this.dominio = dominio;
+        this.total = total;
+        this.activos = activos;
+    }
+
+    public String getDominio() {
+        return dominio;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getActivos() {
+        return activos;
+    }
+
+    @Override
+    public String toString() {
+        return dominio + "=" + total + " (activos " + activos + ")";
+    }
+}
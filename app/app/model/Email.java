@@ -0,0 +1,129 @@
+package app.model;
+
+import java.util.Locale;
+
+/**
+ * Validación y normalización de email en una pasada, sin regex.
+ *
+ * Acepta la misma gramática que el patrón usado antes en el servicio,
+ * {@code [A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\.[A-Za-z]{2,}}, sobre el texto sin espacios
+ * en los extremos (mismo criterio que {@link String#trim()}). La forma normalizada es
+ * ese texto en minúsculas; si la entrada ya está normalizada se devuelve la misma instancia.
+ */
+public final class Email {
+
+    public static final int LARGO_MAX = 200;
+
+    private static final int INVALIDO = -1;
+    private static final int VALIDO = 0;
+    private static final int VALIDO_CON_MAYUSCULAS = 1;
+
+    private Email() {
+    }
+
+    /**
+     * Email normalizado (trim + minúsculas); IllegalArgumentException si es inválido.
+     */
+    public static String normalizar(String email) {
+        if (email == null) throw new IllegalArgumentException("Email es obligatorio.");
+
+        int inicio = inicio(email);
+        int fin = fin(email, inicio);
+        if (inicio == fin) {
+            throw new IllegalArgumentException("Email es obligatorio.");
+        }
+        if (fin - inicio > LARGO_MAX) {
+            throw new IllegalArgumentException("Email excede " + LARGO_MAX + " caracteres.");
+        }
+
+        String normalizado = normalizar(email, inicio, fin);
+        if (normalizado == null) {
+            throw new IllegalArgumentException("Formato de email inválido.");
+        }
+        return normalizado;
+    }
+
+    /**
+     * Como {@link #normalizar}, pero devuelve null si el email es inválido.
+     */
+    public static String intentarNormalizar(String email) {
+        if (email == null) return null;
+        int inicio = inicio(email);
+        int fin = fin(email, inicio);
+        if (inicio == fin || fin - inicio > LARGO_MAX) return null;
+        return normalizar(email, inicio, fin);
+    }
+
+    // ------------------ Internos ------------------
+
+    private static String normalizar(String s, int inicio, int fin) {
+        int estado = revisar(s, inicio, fin);
+        if (estado == INVALIDO) return null;
+        if (estado == VALIDO) {
+            return inicio == 0 && fin == s.length() ? s : s.substring(inicio, fin);
+        }
+
+        // Solo ASCII a esta altura: Locale.ROOT da el mismo resultado que bajar 'A'-'Z' a mano
+        String recortado = inicio == 0 && fin == s.length() ? s : s.substring(inicio, fin);
+        return recortado.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Una pasada: parte local, '@' único, dominio con al menos un punto cuyo sufijo final
+     * (TLD) tiene 2 o más letras y está precedido por al menos un carácter.
+     */
+    private static int revisar(String s, int inicio, int fin) {
+        int arroba = -1;
+        int ultimoPunto = -1;
+        boolean tldLetras = false;
+        boolean mayusculas = false;
+
+        for (int i = inicio; i < fin; i++) {
+            char c = s.charAt(i);
+            boolean letra;
+            if (c >= 'a' && c <= 'z') {
+                letra = true;
+            } else if (c >= 'A' && c <= 'Z') {
+                letra = true;
+                mayusculas = true;
+            } else if ((c >= '0' && c <= '9') || c == '.' || c == '-') {
+                letra = false;
+            } else if (c == '+' || c == '_') {
+                if (arroba >= 0) return INVALIDO; // solo en la parte local
+                letra = false;
+            } else if (c == '@') {
+                if (arroba >= 0 || i == inicio) return INVALIDO;
+                arroba = i;
+                continue;
+            } else {
+                return INVALIDO;
+            }
+
+            if (arroba >= 0) {
+                if (c == '.') {
+                    ultimoPunto = i;
+                    tldLetras = true;
+                } else if (!letra) {
+                    tldLetras = false;
+                }
+            }
+        }
+
+        if (arroba < 0 || ultimoPunto <= arroba + 1 || fin - ultimoPunto - 1 < 2 || !tldLetras) {
+            return INVALIDO;
+        }
+        return mayusculas ? VALIDO_CON_MAYUSCULAS : VALIDO;
+    }
+
+    private static int inicio(String s) {
+        int i = 0;
+        while (i < s.length() && s.charAt(i) <= ' ') i++;
+        return i;
+    }
+
+    private static int fin(String s, int inicio) {
+        int fin = s.length();
+        while (fin > inicio && s.charAt(fin - 1) <= ' ') fin--;
+        return fin;
+    }
+}
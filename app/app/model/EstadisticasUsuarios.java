@@ -0,0 +1,47 @@
+package app.model;
+
+/**
+ * Cantidad de usuarios por estado.
+ */
+public class EstadisticasUsuarios {
+
+    private final long total;
+    private final long activos;
+    private final boolean desdeContadores;
+
+    public EstadisticasUsuarios(long total, long activos, boolean desdeContadores) {
+        this.total = total;
+        this.activos = activos;
+        this.desdeContadores = desdeContadores;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getActivos() {
+        return activos;
+    }
+
+    public long getInactivos() {
+        return total - activos;
+    }
+
+    /**
+     * true si viene de los contadores en memoria (al día con las escrituras de esta instancia,
+     * recalculados desde la BD cada cierto tiempo) en vez de una consulta.
+     */
+    public boolean isDesdeContadores() {
+        return desdeContadores;
+    }
+
+    @Override
+    public String toString() {
+        return "EstadisticasUsuarios{" +
+                "total=" + total +
+                ", activos=" + activos +
+                ", inactivos=" + getInactivos() +
+                ", desdeContadores=" + desdeContadores +
+                '}';
+    }
+}
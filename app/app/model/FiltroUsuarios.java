@@ -0,0 +1,109 @@
+package app.model;
+
+import java.sql.Timestamp;
+import java.util.Locale;
+
+/**
+ * Criterios para operar sobre un conjunto de usuarios (p.ej. cambio de estado masivo).
+ * Inmutable: cada {@code con...} devuelve una copia. Los criterios nulos no filtran.
+ */
+public final class FiltroUsuarios {
+
+    private static final FiltroUsuarios TODOS = new FiltroUsuarios(null, null, null, null, null);
+
+    private final String dominioEmail;
+    private final String nombreContiene;
+    private final Boolean activo;
+    private final Timestamp creadoDesde;
+    private final Timestamp creadoHasta;
+
+    private FiltroUsuarios(String dominioEmail, String nombreContiene, Boolean activo,
+                           Timestamp creadoDesde, Timestamp creadoHasta) {
+        this.dominioEmail = dominioEmail;
+        this.nombreContiene = nombreContiene;
+        this.activo = activo;
+        this.creadoDesde = creadoDesde;
+        this.creadoHasta = creadoHasta;
+    }
+
+    /**
+     * Filtro sin criterios (todos los usuarios).
+     */
+    public static FiltroUsuarios todos() {
+        return TODOS;
+    }
+
+    /**
+     * Dominio exacto del email ("empresa.cl" o "@empresa.cl"); vacío quita el criterio.
+     */
+    public FiltroUsuarios conDominioEmail(String dominio) {
+        String d = dominio == null ? null : dominio.trim().toLowerCase(Locale.ROOT);
+        if (d != null && d.startsWith("@")) d = d.substring(1);
+        return new FiltroUsuarios(vacioANull(d), nombreContiene, activo, creadoDesde, creadoHasta);
+    }
+
+    /**
+     * Texto contenido en el nombre, sin distinguir mayúsculas; vacío quita el criterio.
+     */
+    public FiltroUsuarios conNombreContiene(String texto) {
+        String t = texto == null ? null : texto.trim();
+        return new FiltroUsuarios(dominioEmail, vacioANull(t), activo, creadoDesde, creadoHasta);
+    }
+
+    public FiltroUsuarios conActivo(Boolean activo) {
+        return new FiltroUsuarios(dominioEmail, nombreContiene, activo, creadoDesde, creadoHasta);
+    }
+
+    /**
+     * Rango de fecha de creación: desde inclusivo, hasta exclusivo (cualquiera puede ser null).
+     */
+    public FiltroUsuarios creadosEntre(Timestamp desde, Timestamp hasta) {
+        if (desde != null && hasta != null && !desde.before(hasta)) {
+            throw new IllegalArgumentException("Rango de fechas invalido: 'desde' debe ser anterior a 'hasta'.");
+        }
+        return new FiltroUsuarios(dominioEmail, nombreContiene, activo, desde, hasta);
+    }
+
+    public String getDominioEmail() {
+        return dominioEmail;
+    }
+
+    public String getNombreContiene() {
+        return nombreContiene;
+    }
+
+    public Boolean getActivo() {
+        return activo;
+    }
+
+    public Timestamp getCreadoDesde() {
+        return creadoDesde;
+    }
+
+    public Timestamp getCreadoHasta() {
+        return creadoHasta;
+    }
+
+    /**
+     * true si no tiene ningún criterio.
+     */
+    public boolean isVacio() {
+        return dominioEmail == null && nombreContiene == null && activo == null
+                && creadoDesde == null && creadoHasta == null;
+    }
+
+    @Override
+    public String toString() {
+        return "FiltroUsuarios{" +
+                "dominioEmail='" + dominioEmail + '\'' +
+                ", nombreContiene='" + nombreContiene + '\'' +
+                ", activo=" + activo +
+                ", creadoDesde=" + creadoDesde +
+                ", creadoHasta=" + creadoHasta +
+                '}';
+    }
+
+    private static String vacioANull(String s) {
+        return s == null || s.isEmpty() ? null : s;
+    }
+}
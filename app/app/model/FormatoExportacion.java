@@ -0,0 +1,24 @@
+package app.model;
+
+import java.util.Locale;
+
+/**
+ * Formato de exportación de usuarios.
+ *
+ * - CSV: encabezado {@code id,rut,dv,nombre,email,activo,fecha_creacion}, comillas solo donde hacen falta.
+ * - NDJSON: un objeto JSON por línea, con los nombres de columna como campos.
+ */
+public enum FormatoExportacion {
+    CSV,
+    NDJSON;
+
+    /**
+     * Formato según la extensión del archivo (ignorando un ".gz" final): .ndjson / .jsonl / .json
+     * es NDJSON, cualquier otra CSV.
+     */
+    public static FormatoExportacion desdeArchivo(String nombre) {
+        String n = nombre.toLowerCase(Locale.ROOT);
+        if (n.endsWith(".gz")) n = n.substring(0, n.length() - 3);
+        return n.endsWith(".ndjson") || n.endsWith(".jsonl") || n.endsWith(".json") ? NDJSON : CSV;
+    }
+}
@@ -0,0 +1,28 @@
+package app.model;
+
+/**
+ * Fila rechazada durante una importación masiva.
+ */
+public class RechazoImportacion {
+
+    private final long linea;
+    private final String motivo;
+
+    public RechazoImportacion(long linea, String motivo) {
+        this.linea = linea;
+        this.motivo = motivo;
+    }
+
+    public long getLinea() {
+        return linea;
+    }
+
+    public String getMotivo() {
+        return motivo;
+    }
+
+    @Override
+    public String toString() {
+        return "Linea " + linea + ": " + motivo;
+    }
+}
@@ -0,0 +1,46 @@
+package app.model;
+
+/**
+ * Resumen de una exportación de usuarios.
+ */
+public class ResultadoExportacion {
+
+    private final long filas;
+    private final long bytes;
+    private final long duracionMs;
+
+    public ResultadoExportacion(long filas, long bytes, long duracionMs) {
+        this.filas = filas;
+        this.bytes = bytes;
+        this.duracionMs = duracionMs;
+    }
+
+    public long getFilas() {
+        return filas;
+    }
+
+    /**
+     * Bytes escritos en el destino (comprimidos, si se usó gzip).
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public long getFilasPorSegundo() {
+        return duracionMs > 0 ? filas * 1000 / duracionMs : filas;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoExportacion{" +
+                "filas=" + filas +
+                ", bytes=" + bytes +
+                ", duracionMs=" + duracionMs +
+                ", filasPorSegundo=" + getFilasPorSegundo() +
+                '}';
+    }
+}
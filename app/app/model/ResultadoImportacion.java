@@ -0,0 +1,55 @@
+package app.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resumen de una importación masiva de usuarios.
+ */
+public class ResultadoImportacion {
+
+    private final long leidas;
+    private final long insertadas;
+    private final List<RechazoImportacion> rechazos;
+    private final long duracionMs;
+
+    public ResultadoImportacion(long leidas, long insertadas, List<RechazoImportacion> rechazos, long duracionMs) {
+        this.leidas = leidas;
+        this.insertadas = insertadas;
+        this.rechazos = Collections.unmodifiableList(rechazos);
+        this.duracionMs = duracionMs;
+    }
+
+    public long getLeidas() {
+        return leidas;
+    }
+
+    public long getInsertadas() {
+        return insertadas;
+    }
+
+    /**
+     * Rechazos ordenados por número de línea.
+     */
+    public List<RechazoImportacion> getRechazos() {
+        return rechazos;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public long getFilasPorSegundo() {
+        return duracionMs > 0 ? leidas * 1000 / duracionMs : leidas;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoImportacion{" +
+                "leidas=" + leidas +
+                ", insertadas=" + insertadas +
+                ", rechazadas=" + rechazos.size() +
+                ", duracionMs=" + duracionMs +
+                '}';
+    }
+}
@@ -0,0 +1,159 @@
+package app.model;
+
+/**
+ * Codec de RUT chileno sin asignaciones: parseo en una pasada sobre un {@link CharSequence},
+ * dígito verificador módulo 11 y empaquetado de (rut, dv) en una clave {@code long}.
+ *
+ * Clave: RUT en los bits altos, el carácter del DV (mayúscula) en los 16 bajos. Es la misma
+ * que usan los índices de unicidad, así que un RUT parseado se puede buscar sin crear Strings.
+ */
+public final class Rut {
+
+    /**
+     * Resultado de {@link #intentarParsear} cuando la entrada no es un RUT válido.
+     */
+    public static final long INVALIDO = -1L;
+
+    private static final long ERROR_FORMATO = -1L;
+    private static final long ERROR_RUT = -2L;
+    private static final long ERROR_DV = -3L;
+    private static final long ERROR_VERIFICADOR = -4L;
+
+    private static final String[] DV_TEXTO = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "K"};
+
+    private Rut() {
+    }
+
+    /**
+     * Parsea "12345678-5", "12.345.678-K" (puntos opcionales, espacios alrededor del guion)
+     * y verifica el DV. Devuelve la clave empaquetada.
+     */
+    public static long parsear(CharSequence rutCompleto) {
+        if (rutCompleto == null) throw new IllegalArgumentException("RUT es obligatorio.");
+
+        long clave = decodificar(rutCompleto);
+        if (clave >= 0) return clave;
+
+        if (clave == ERROR_FORMATO) {
+            throw new IllegalArgumentException("Formato de RUT invalido. Use formato 12345678-9");
+        }
+        if (clave == ERROR_RUT) {
+            throw new IllegalArgumentException("RUT invalido.");
+        }
+        if (clave == ERROR_DV) {
+            throw new IllegalArgumentException("DV invalido. Debe tener 1 caracter.");
+        }
+        throw new IllegalArgumentException("DV no corresponde al RUT.");
+    }
+
+    /**
+     * Como {@link #parsear}, pero sin excepciones: {@link #INVALIDO} si la entrada no es válida.
+     * Pensado para procesos por lotes.
+     */
+    public static long intentarParsear(CharSequence rutCompleto) {
+        if (rutCompleto == null) return INVALIDO;
+        long clave = decodificar(rutCompleto);
+        return clave >= 0 ? clave : INVALIDO;
+    }
+
+    /**
+     * Dígito verificador módulo 11 ('0'-'9' o 'K').
+     */
+    public static char calcularDv(int rut) {
+        int suma = 0;
+        int factor = 2;
+        for (int r = rut; r > 0; r /= 10) {
+            suma += (r % 10) * factor;
+            factor = factor == 7 ? 2 : factor + 1;
+        }
+        int resto = 11 - suma % 11;
+        if (resto == 11) return '0';
+        if (resto == 10) return 'K';
+        return (char) ('0' + resto);
+    }
+
+    /**
+     * true si el DV (mayúscula o minúscula) corresponde al RUT.
+     */
+    public static boolean dvValido(int rut, char dv) {
+        return calcularDv(rut) == mayuscula(dv);
+    }
+
+    public static long clave(int rut, char dv) {
+        return ((long) rut << 16) | mayuscula(dv);
+    }
+
+    public static int numero(long clave) {
+        return (int) (clave >>> 16);
+    }
+
+    public static char dv(long clave) {
+        return (char) (clave & 0xFFFF);
+    }
+
+    /**
+     * DV de la clave como String compartido (sin asignar uno nuevo por llamada).
+     */
+    public static String dvTexto(long clave) {
+        char dv = dv(clave);
+        if (dv == 'K') return DV_TEXTO[10];
+        if (dv >= '0' && dv <= '9') return DV_TEXTO[dv - '0'];
+        return String.valueOf(dv);
+    }
+
+    // ------------------ Internos ------------------
+
+    /**
+     * Una pasada: [espacios] dígitos y puntos [espacios] '-' [espacios] DV [espacios].
+     * Devuelve la clave o un código de error negativo.
+     */
+    private static long decodificar(CharSequence s) {
+        int i = 0;
+        int fin = s.length();
+        while (i < fin && esEspacio(s.charAt(i))) i++;
+        while (fin > i && esEspacio(s.charAt(fin - 1))) fin--;
+
+        long numero = 0;
+        int digitos = 0;
+        boolean espacio = false;
+        for (; i < fin; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (espacio || ++digitos > 10) return ERROR_RUT;
+                numero = numero * 10 + (c - '0');
+            } else if (c == '-') {
+                break;
+            } else if (esEspacio(c)) {
+                espacio = true;
+            } else if (c != '.' || espacio) {
+                return ERROR_RUT;
+            }
+        }
+        if (i == fin) return ERROR_FORMATO;
+        if (digitos == 0 || numero > Integer.MAX_VALUE) return ERROR_RUT;
+
+        i++; // guion
+        while (i < fin && esEspacio(s.charAt(i))) i++;
+        if (i == fin) return ERROR_DV;
+        char dv = s.charAt(i++);
+        if (dv == '-') return ERROR_FORMATO;
+        if (i < fin) {
+            for (; i < fin; i++) {
+                if (s.charAt(i) == '-') return ERROR_FORMATO;
+            }
+            return ERROR_DV;
+        }
+
+        int rut = (int) numero;
+        if (!dvValido(rut, dv)) return ERROR_VERIFICADOR;
+        return clave(rut, dv);
+    }
+
+    private static char mayuscula(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - 32) : c;
+    }
+
+    private static boolean esEspacio(char c) {
+        return c <= ' ';
+    }
+}
@@ -29,6 +29,7 @@ public class Usuario {
     private String email;
     private Boolean activo;
     private Timestamp fechaCreacion;
+    private Long version;
 
     public Usuario() {
         // Constructor vacío
@@ -44,6 +45,15 @@ public class Usuario {
         this.fechaCreacion = fechaCreacion;
     }
 
+    /**
+     * @param version versión de la fila (sube con cada actualización); null si no se conoce
+     */
+    public Usuario(Long id, Integer rut, String dv, String nombre, String email, Boolean activo, Timestamp fechaCreacion,
+                   Long version) {
+        this(id, rut, dv, nombre, email, activo, fechaCreacion);
+        this.version = version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -100,6 +110,14 @@ public class Usuario {
         this.fechaCreacion = fechaCreacion;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         String rutDv = (rut != null ? rut : "") + "-" + (dv != null ? dv : "");
@@ -111,6 +129,7 @@ public class Usuario {
                 ", email='" + email + '\'' +
                 ", estado=" + estado +
                 ", fechaCreacion=" + fechaCreacion +
+                ", version=" + version +
                 '}';
     }
 }
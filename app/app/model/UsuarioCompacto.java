@@ -0,0 +1,128 @@
+package app.model;
+
+import java.sql.Timestamp;
+import java.util.Objects;
+
+/**
+ * Usuario inmutable con campos primitivos: sin Long / Integer / Boolean / Timestamp por fila
+ * (~56 bytes más los dos textos, frente a ~150 de {@link Usuario}).
+ *
+ * La fecha de creación se guarda en milisegundos desde la época (se pierden los microsegundos de
+ * PostgreSQL). Los valores que en {@link Usuario} pueden ser null usan centinelas:
+ * {@link #SIN_FECHA}, {@link #SIN_VERSION} y dv {@code '\0'}.
+ */
+public final class UsuarioCompacto {
+
+    public static final long SIN_FECHA = Long.MIN_VALUE;
+    public static final long SIN_VERSION = 0L;
+
+    private final long id;
+    private final int rut;
+    private final char dv;
+    private final String nombre;
+    private final String email;
+    private final boolean activo;
+    private final long creadoEnMs;
+    private final long version;
+
+    public UsuarioCompacto(long id, int rut, char dv, String nombre, String email, boolean activo, long creadoEnMs,
+                           long version) {
+        this.id = id;
+        this.rut = rut;
+        this.dv = dv;
+        this.nombre = nombre;
+        this.email = email;
+        this.activo = activo;
+        this.creadoEnMs = creadoEnMs;
+        this.version = version;
+    }
+
+    public static UsuarioCompacto desde(Usuario u) {
+        return new UsuarioCompacto(u.getId(), u.getRut() != null ? u.getRut() : 0, dv(u.getDv()), u.getNombre(),
+                u.getEmail(), Boolean.TRUE.equals(u.getActivo()), milis(u.getFechaCreacion()),
+                u.getVersion() != null ? u.getVersion() : SIN_VERSION);
+    }
+
+    /**
+     * Usuario mutable equivalente (nuevo en cada llamada).
+     */
+    public Usuario aUsuario() {
+        return new Usuario(id, rut, dv == '\0' ? null : String.valueOf(dv), nombre, email, activo,
+                creadoEnMs == SIN_FECHA ? null : new Timestamp(creadoEnMs),
+                version == SIN_VERSION ? null : version);
+    }
+
+    private static char dv(String dv) {
+        return dv == null || dv.isEmpty() ? '\0' : dv.charAt(0);
+    }
+
+    private static long milis(Timestamp t) {
+        return t == null ? SIN_FECHA : t.getTime();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getRut() {
+        return rut;
+    }
+
+    public char getDv() {
+        return dv;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public boolean isActivo() {
+        return activo;
+    }
+
+    /**
+     * Milisegundos desde la época, o {@link #SIN_FECHA}.
+     */
+    public long getCreadoEnMs() {
+        return creadoEnMs;
+    }
+
+    /**
+     * Versión de la fila, o {@link #SIN_VERSION} si no se conoce.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UsuarioCompacto)) return false;
+        UsuarioCompacto otro = (UsuarioCompacto) o;
+        return id == otro.id && rut == otro.rut && dv == otro.dv && activo == otro.activo
+                && creadoEnMs == otro.creadoEnMs && version == otro.version
+                && Objects.equals(nombre, otro.nombre) && Objects.equals(email, otro.email);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id) * 31 + Long.hashCode(version);
+    }
+
+    @Override
+    public String toString() {
+        return "UsuarioCompacto{" +
+                "id=" + id +
+                ", rut=" + rut + "-" + dv +
+                ", nombre='" + nombre + '\'' +
+                ", email='" + email + '\'' +
+                ", activo=" + activo +
+                ", creadoEnMs=" + creadoEnMs +
+                ", version=" + version +
+                '}';
+    }
+}
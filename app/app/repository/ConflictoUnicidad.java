@@ -0,0 +1,49 @@
+package app.repository;
+
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+
+import java.sql.SQLException;
+
+/**
+ * Restricción UNIQUE de {@code usuarios} que impidió una escritura.
+ */
+public enum ConflictoUnicidad {
+    EMAIL,
+    RUT_DV,
+    /** Violación de unicidad sin restricción identificable (p.ej. carrera con otra sesión). */
+    DESCONOCIDO;
+
+    static final String RESTRICCION_EMAIL = "usuarios_email_key";
+    static final String RESTRICCION_RUT_DV = "usuarios_rut_dv_key";
+
+    /**
+     * Identifica la restricción violada a partir de una SQLException 23505.
+     *
+     * @return null si la excepción no es una violación de unicidad
+     */
+    public static ConflictoUnicidad desde(SQLException e) {
+        if (!"23505".equals(e.getSQLState())) {
+            return null;
+        }
+        if (e instanceof PSQLException) {
+            ServerErrorMessage detalle = ((PSQLException) e).getServerErrorMessage();
+            String restriccion = detalle != null ? detalle.getConstraint() : null;
+            if (RESTRICCION_EMAIL.equals(restriccion)) return EMAIL;
+            if (RESTRICCION_RUT_DV.equals(restriccion)) return RUT_DV;
+        }
+        return DESCONOCIDO;
+    }
+
+    static ConflictoUnicidad desdeColumna(String valor) {
+        if (valor == null) return null;
+        switch (valor) {
+            case "email":
+                return EMAIL;
+            case "rut_dv":
+                return RUT_DV;
+            default:
+                return DESCONOCIDO;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package app.repository;
+
+import app.model.Usuario;
+
+/**
+ * Resultado de una escritura en una sola sentencia: éxito, usuario inexistente, conflicto de unicidad
+ * o (en las actualizaciones condicionales) conflicto de versión.
+ */
+public final class ResultadoEscritura {
+
+    private static final ResultadoEscritura ACTUALIZADO = new ResultadoEscritura(null, true, null, null, false);
+    private static final ResultadoEscritura NO_ENCONTRADO = new ResultadoEscritura(null, false, null, null, false);
+
+    private final Usuario usuario;
+    private final boolean encontrado;
+    private final ConflictoUnicidad conflicto;
+    private final Long version;
+    private final boolean conflictoVersion;
+
+    private ResultadoEscritura(Usuario usuario, boolean encontrado, ConflictoUnicidad conflicto, Long version,
+                               boolean conflictoVersion) {
+        this.usuario = usuario;
+        this.encontrado = encontrado;
+        this.conflicto = conflicto;
+        this.version = version;
+        this.conflictoVersion = conflictoVersion;
+    }
+
+    static ResultadoEscritura creado(Usuario usuario) {
+        return new ResultadoEscritura(usuario, true, null, usuario.getVersion(), false);
+    }
+
+    static ResultadoEscritura actualizado() {
+        return ACTUALIZADO;
+    }
+
+    static ResultadoEscritura actualizado(long nuevaVersion) {
+        return new ResultadoEscritura(null, true, null, nuevaVersion, false);
+    }
+
+    static ResultadoEscritura conflictoVersion(long versionActual) {
+        return new ResultadoEscritura(null, true, null, versionActual, true);
+    }
+
+    static ResultadoEscritura noEncontrado() {
+        return NO_ENCONTRADO;
+    }
+
+    static ResultadoEscritura conflicto(ConflictoUnicidad conflicto) {
+        return new ResultadoEscritura(null, true, conflicto, null, false);
+    }
+
+    /**
+     * Usuario insertado (solo en creación exitosa).
+     */
+    public Usuario getUsuario() {
+        return usuario;
+    }
+
+    /**
+     * false si el id a actualizar no existe.
+     */
+    public boolean isEncontrado() {
+        return encontrado;
+    }
+
+    /**
+     * Restricción que impidió la escritura, o null si no hubo conflicto.
+     */
+    public ConflictoUnicidad getConflicto() {
+        return conflicto;
+    }
+
+    /**
+     * true si la fila ya no estaba en la versión esperada (otra escritura se adelantó);
+     * {@link #getVersion()} es la versión que tenía.
+     */
+    public boolean isConflictoVersion() {
+        return conflictoVersion;
+    }
+
+    /**
+     * Versión de la fila tras la escritura o, si hubo conflicto de versión, la que encontró;
+     * null si no se conoce.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public boolean isExitoso() {
+        return encontrado && conflicto == null && !conflictoVersion;
+    }
+}
@@ -1,50 +1,421 @@
 package app.repository;
 
 import app.config.DbConnection;
+import app.config.EnrutadorLecturas;
+import app.metricas.Metricas;
+import app.model.ConteoPorDia;
+import app.model.ConteoPorDominio;
+import app.model.EstadisticasUsuarios;
+import app.model.FiltroUsuarios;
+import app.model.FormatoExportacion;
+import app.model.RechazoImportacion;
 import app.model.Usuario;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Repositorio para acceso a datos de Usuario usando JDBC.
  * Requisito: usar PreparedStatement y cerrar recursos (try-with-resources).
+ *
+ * Cada operación toma la conexión según su tipo: lectura (puede ir a una réplica), escritura o
+ * verificación de unicidad (siempre al primario). Sin {@link EnrutadorLecturas} las tres son la misma.
  */
 public class UsuarioRepository {
 
+    /**
+     * Filas por viaje al servidor cuando se recorre la tabla con cursor.
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    /** Marca de cambios que ya no sirve para ponerse al día (hay que recorrer todo). */
+    public static final long MARCA_VENCIDA = -1L;
+    // age(xid) compara en aritmética circular de 32 bits: sirve hasta 2^31 transacciones (con margen)
+    private static final long DISTANCIA_MAX_XMIN = 1L << 30;
+
+    /**
+     * Motivos de rechazo que entrega {@link #cargarMasivo(ProductorCarga)}.
+     */
+    public static final String MOTIVO_EMAIL_EXISTE = "EMAIL_EXISTE";
+    public static final String MOTIVO_RUT_DV_EXISTE = "RUT_DV_EXISTE";
+    public static final String MOTIVO_EMAIL_DUPLICADO = "EMAIL_DUPLICADO";
+    public static final String MOTIVO_RUT_DV_DUPLICADO = "RUT_DV_DUPLICADO";
+    public static final String MOTIVO_CONFLICTO = "CONFLICTO";
+
+    /**
+     * Ids por sentencia en {@link #buscarPorIds} y en los cambios de estado por lote; las entradas más grandes se parten en varias.
+     */
+    static final int IDS_POR_CONSULTA = 5_000;
+
+    /**
+     * Largo mínimo del texto para buscarlo en cualquier posición (los trigramas necesitan 3 caracteres).
+     */
+    public static final int BUSQUEDA_MIN_SUBCADENA = 3;
+
+    /**
+     * Bytes acumulados antes de enviar un bloque al COPY.
+     */
+    private static final int COPY_BUFFER = 64 * 1024;
+
+    /**
+     * Columnas de la exportación, en orden; {@code EscritorExportacion} escribe las mismas.
+     */
+    public static final String COLUMNAS_EXPORTACION = "id, rut, dv, nombre, email, activo, fecha_creacion, version";
+
+    /**
+     * Las mismas columnas para COPY CSV: activo como texto (true/false en vez de t/f).
+     */
+    public static final String COLUMNAS_EXPORTACION_CSV =
+            "id, rut, dv, nombre, email, activo::text AS activo, fecha_creacion, version";
+
+    /**
+     * Recibe las filas (ya validadas y normalizadas) de una carga masiva.
+     */
+    public interface DestinoCarga {
+        void agregar(long linea, int rut, String dv, String nombre, String email) throws SQLException;
+    }
+
+    /**
+     * Recibe las claves de unicidad de cada usuario al recorrer la tabla.
+     */
+    public interface ClavesUnicidadConsumer {
+        void aceptar(long id, int rut, String dv, String email);
+    }
+
+    /**
+     * Produce las filas de una carga masiva escribiéndolas en el destino entregado.
+     */
+    public interface ProductorCarga {
+        void producir(DestinoCarga destino) throws SQLException, IOException;
+    }
+
+    private final DataSource dataSource; // primario: verificaciones de unicidad
+    private final DataSource lecturas;
+    private final DataSource escrituras;
+
+    /**
+     * Pool de la aplicación; con réplicas configuradas ({@code db.replicas}), a través de su enrutador.
+     */
+    public UsuarioRepository() {
+        this(DbConnection.getDataSource(), DbConnection.getEnrutador());
+    }
+
+    /**
+     * Todas las operaciones van a {@code dataSource}. Con las métricas habilitadas, las conexiones
+     * y sentencias se miden ({@link Metricas#instrumentar}).
+     */
+    public UsuarioRepository(DataSource dataSource) {
+        this(dataSource, null);
+    }
+
+    /**
+     * Lecturas a las réplicas del enrutador; escrituras y verificaciones de unicidad (existe*,
+     * {@link #recorrerClavesUnicidad}) a su primario.
+     */
+    public static UsuarioRepository conReplicas(EnrutadorLecturas enrutador) {
+        return new UsuarioRepository(null, Objects.requireNonNull(enrutador, "enrutador"));
+    }
+
+    private UsuarioRepository(DataSource dataSource, EnrutadorLecturas enrutador) {
+        if (enrutador == null) {
+            this.dataSource = Metricas.instrumentar(dataSource);
+            this.lecturas = this.dataSource;
+            this.escrituras = this.dataSource;
+        } else {
+            this.dataSource = Metricas.instrumentar(enrutador.getPrimario());
+            this.lecturas = Metricas.instrumentar(enrutador.getLecturas());
+            this.escrituras = Metricas.instrumentar(enrutador.getEscrituras());
+        }
+    }
+
     private Connection getConnection() throws SQLException {
-        return DbConnection.getConnection();
+        return dataSource.getConnection();
+    }
+
+    /**
+     * Conexión para lecturas que toleran una réplica algo atrasada.
+     */
+    private Connection getConexionLectura() throws SQLException {
+        return lecturas.getConnection();
+    }
+
+    private Connection getConexionEscritura() throws SQLException {
+        return escrituras.getConnection();
     }
 
     public List<Usuario> listar() throws SQLException {
-        String sql = "SELECT id, rut, dv, nombre, email, activo, fecha_creacion " +
+        String sql = "SELECT id, rut, dv, nombre, email, activo, fecha_creacion, version " +
                 "FROM usuarios ORDER BY id";
 
         List<Usuario> out = new ArrayList<>();
 
-        try (Connection conn = getConnection();
+        try (Connection conn = getConexionLectura();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
+            MapeoUsuario mapeo = MapeoUsuario.de(rs);
             while (rs.next()) {
-                out.add(map(rs));
+                out.add(mapeo.map(rs));
             }
         }
 
         return out;
     }
 
-    public Usuario buscarPorId(Long id) throws SQLException {
-        String sql = "SELECT id, rut, dv, nombre, email, activo, fecha_creacion " +
-                "FROM usuarios WHERE id = ?";
+    /**
+     * Paginación por clave (keyset): usuarios con id mayor a {@code afterId}, ordenados por id.
+     * El costo no depende de la página solicitada (no usa OFFSET).
+     */
+    public List<Usuario> listarDesde(long afterId, int pageSize) throws SQLException {
+        String sql = "SELECT id, rut, dv, nombre, email, activo, fecha_creacion, version " +
+                "FROM usuarios WHERE id > ? ORDER BY id LIMIT ?";
 
-        try (Connection conn = getConnection();
+        List<Usuario> out = new ArrayList<>(pageSize);
+
+        try (Connection conn = getConexionLectura();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
+            ps.setLong(1, afterId);
+            ps.setInt(2, pageSize);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                MapeoUsuario mapeo = MapeoUsuario.de(rs);
+                while (rs.next()) {
+                    out.add(mapeo.map(rs));
+                }
+            }
+        }
+
+        return out;
+    }
+
+    /**
+     * Primera página de {@link #buscar(String, long, int)}.
+     */
+    public List<Usuario> buscar(String texto, int limit) throws SQLException {
+        return buscar(texto, 0L, limit);
+    }
+
+    /**
+     * Usuarios cuyo nombre o email contiene {@code texto} (sin distinguir mayúsculas), paginados
+     * por clave como {@link #listarDesde}. Con menos de {@link #BUSQUEDA_MIN_SUBCADENA} caracteres
+     * solo se buscan prefijos: los índices de trigramas no sirven para textos tan cortos.
+     * Índices de apoyo (pg_trgm y text_pattern_ops) en schema.sql.
+     */
+    public List<Usuario> buscar(String texto, long afterId, int limit) throws SQLException {
+        String t = texto.trim();
+        boolean subcadena = t.length() >= BUSQUEDA_MIN_SUBCADENA;
+
+        String sql = "SELECT id, rut, dv, nombre, email, activo, fecha_creacion, version FROM usuarios WHERE " +
+                (subcadena
+                        ? "(nombre ILIKE ? ESCAPE '\\' OR email ILIKE ? ESCAPE '\\')"
+                        : "(lower(nombre) LIKE ? ESCAPE '\\' OR email LIKE ? ESCAPE '\\')") +
+                " AND id > ? ORDER BY id LIMIT ?";
+        String patron = subcadena
+                ? '%' + escaparLike(t) + '%'
+                : escaparLike(t.toLowerCase(Locale.ROOT)) + '%';
+
+        List<Usuario> out = new ArrayList<>(Math.min(limit, 1000));
+
+        try (Connection conn = getConexionLectura();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, patron);
+            ps.setString(2, patron);
+            ps.setLong(3, afterId);
+            ps.setInt(4, limit);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                MapeoUsuario mapeo = MapeoUsuario.de(rs);
+                while (rs.next()) {
+                    out.add(mapeo.map(rs));
+                }
+            }
+        }
+
+        return out;
+    }
+
+    /**
+     * Recorre la tabla completa con un cursor del servidor (autocommit desactivado + fetch size),
+     * entregando las filas una a una al consumidor. La memoria usada no depende del tamaño de la tabla.
+     *
+     * @return cantidad de filas entregadas
+     */
+    public long recorrer(Consumer<Usuario> consumidor) throws SQLException {
+        String sql = "SELECT id, rut, dv, nombre, email, activo, fecha_creacion, version " +
+                "FROM usuarios ORDER BY id";
+
+        long filas = 0;
+
+        try (Connection conn = getConexionLectura()) {
+            // PostgreSQL solo usa cursor (fetch size) dentro de una transacción
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(FETCH_SIZE);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    MapeoUsuario mapeo = MapeoUsuario.de(rs);
+                    while (rs.next()) {
+                        consumidor.accept(mapeo.map(rs));
+                        filas++;
+                    }
+                }
+            }
+
+            conn.commit();
+        }
+
+        return filas;
+    }
+
+    /**
+     * Como {@link #recorrer}, dentro de una foto REPEATABLE READ, y devuelve la marca de cambios de
+     * esa foto: el menor id de transacción que aún podía estar en curso. Lo que no alcanzó a quedar
+     * en lo recorrido lo escribió una transacción {@code >= marca} (ver {@link #recorrerCambiosDesde}).
+     */
+    public long recorrerConMarca(Consumer<Usuario> consumidor) throws SQLException {
+        return recorrerEnFoto(null, consumidor);
+    }
+
+    /**
+     * Filas insertadas o modificadas por transacciones {@code >= marca} (el xmin de la versión vigente
+     * de la fila), en orden de id. El servidor recorre la tabla, pero solo viajan las filas cambiadas.
+     * Las eliminaciones no se informan.
+     *
+     * @return la marca de la foto actual, o {@link #MARCA_VENCIDA} (sin entregar filas) si la marca
+     *         quedó a más de 2^30 transacciones y ya no se puede comparar con xmin
+     */
+    public long recorrerCambiosDesde(long marca, Consumer<Usuario> consumidor) throws SQLException {
+        return recorrerEnFoto(marca, consumidor);
+    }
+
+    private long recorrerEnFoto(Long marcaAnterior, Consumer<Usuario> consumidor) throws SQLException {
+        String sql = "SELECT id, rut, dv, nombre, email, activo, fecha_creacion, version FROM usuarios " +
+                (marcaAnterior != null ? "WHERE age(xmin) <= age(?::text::xid) " : "") +
+                "ORDER BY id";
+
+        try (Connection conn = getConexionLectura()) {
+            conn.setAutoCommit(false);
+
+            long marca;
+            try (PreparedStatement ps = conn.prepareStatement("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ, READ ONLY")) {
+                ps.execute();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("SELECT txid_snapshot_xmin(txid_current_snapshot())");
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                marca = rs.getLong(1);
+            }
+            if (marcaAnterior != null && marca - marcaAnterior >= DISTANCIA_MAX_XMIN) {
+                conn.commit();
+                return MARCA_VENCIDA;
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(FETCH_SIZE);
+                if (marcaAnterior != null) {
+                    ps.setString(1, Long.toString(marcaAnterior & 0xFFFF_FFFFL)); // xid de 32 bits
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    MapeoUsuario mapeo = MapeoUsuario.de(rs);
+                    while (rs.next()) {
+                        consumidor.accept(mapeo.map(rs));
+                    }
+                }
+            }
+
+            conn.commit();
+            return marca;
+        }
+    }
+
+    /**
+     * Recorre con cursor solo las columnas de unicidad (id, rut, dv, email), sin crear {@link Usuario}.
+     *
+     * @return cantidad de filas entregadas
+     */
+    public long recorrerClavesUnicidad(ClavesUnicidadConsumer consumidor) throws SQLException {
+        String sql = "SELECT id, rut, dv, email FROM usuarios";
+
+        long filas = 0;
+
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(FETCH_SIZE);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumidor.aceptar(rs.getLong(1), rs.getInt(2), rs.getString(3), rs.getString(4));
+                        filas++;
+                    }
+                }
+            }
+
+            conn.commit();
+        }
+
+        return filas;
+    }
+
+    /**
+     * Cantidad aproximada de filas según las estadísticas del planificador (sin recorrer la tabla).
+     * Sirve para dimensionar estructuras en memoria; puede ser 0 si la tabla nunca se analizó.
+     */
+    public long estimarTotalUsuarios() throws SQLException {
+        String sql = "SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE oid = 'usuarios'::regclass";
+
+        try (Connection conn = getConexionLectura();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+
+    public Usuario buscarPorId(Long id) throws SQLException {
+        try (Connection conn = getConexionLectura()) {
+            return buscarPorId(conn, id);
+        }
+    }
+
+    /**
+     * Como {@link #buscarPorId(Long)}, pero siempre en el primario: para recargar la caché justo después
+     * de una notificación del primario, cuando una réplica aún puede tener la fila anterior.
+     */
+    public Usuario buscarPorIdEnPrimario(Long id) throws SQLException {
+        try (Connection conn = getConnection()) {
+            return buscarPorId(conn, id);
+        }
+    }
+
+    private static Usuario buscarPorId(Connection conn, Long id) throws SQLException {
+        String sql = "SELECT id, rut, dv, nombre, email, activo, fecha_creacion, version " +
+                "FROM usuarios WHERE id = ?";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
 
             try (ResultSet rs = ps.executeQuery()) {
@@ -53,6 +424,46 @@ public class UsuarioRepository {
         }
     }
 
+    /**
+     * Usuarios con los ids dados, indexados por id (los inexistentes no aparecen).
+     * Un solo parámetro {@code bigint[]} por consulta ({@code id = ANY(?)}), en tramos de
+     * {@link #IDS_POR_CONSULTA}, todos con la misma conexión.
+     */
+    public Map<Long, Usuario> buscarPorIds(Collection<Long> ids) throws SQLException {
+        long[] unicos = idsUnicos(ids);
+        Map<Long, Usuario> out = new HashMap<>(Math.max(16, (int) (unicos.length / 0.75f) + 1));
+        if (unicos.length == 0) {
+            return out;
+        }
+        if (unicos.length == 1) {
+            // Un solo id: la consulta por igualdad es más barata que armar y planificar el arreglo
+            Usuario u = buscarPorId(unicos[0]);
+            if (u != null) out.put(u.getId(), u);
+            return out;
+        }
+
+        String sql = "SELECT id, rut, dv, nombre, email, activo, fecha_creacion, version " +
+                "FROM usuarios WHERE id = ANY(?)";
+
+        try (Connection conn = getConexionLectura();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            for (int desde = 0; desde < unicos.length; desde += IDS_POR_CONSULTA) {
+                int hasta = Math.min(unicos.length, desde + IDS_POR_CONSULTA);
+                ps.setObject(1, desde == 0 && hasta == unicos.length ? unicos : Arrays.copyOfRange(unicos, desde, hasta));
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    MapeoUsuario mapeo = MapeoUsuario.de(rs);
+                    while (rs.next()) {
+                        Usuario u = mapeo.map(rs);
+                        out.put(u.getId(), u);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
     public boolean existeEmail(String email) throws SQLException {
         String sql = "SELECT 1 FROM usuarios WHERE email = ? LIMIT 1";
 
@@ -116,9 +527,9 @@ public class UsuarioRepository {
     public Usuario crear(Integer rut, String dv, String nombre, String email) throws SQLException {
         String sql = "INSERT INTO usuarios (rut, dv, nombre, email, activo) " +
                 "VALUES (?, ?, ?, ?, TRUE) " +
-                "RETURNING id, rut, dv, nombre, email, activo, fecha_creacion";
+                "RETURNING id, rut, dv, nombre, email, activo, fecha_creacion, version";
 
-        try (Connection conn = getConnection();
+        try (Connection conn = getConexionEscritura();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setInt(1, rut);
@@ -133,9 +544,9 @@ public class UsuarioRepository {
     }
 
     public boolean actualizar(Long id, Integer rut, String dv, String nombre, String email) throws SQLException {
-        String sql = "UPDATE usuarios SET rut = ?, dv = ?, nombre = ?, email = ? WHERE id = ?";
+        String sql = "UPDATE usuarios SET rut = ?, dv = ?, nombre = ?, email = ?, version = version + 1 WHERE id = ?";
 
-        try (Connection conn = getConnection();
+        try (Connection conn = getConexionEscritura();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setInt(1, rut);
@@ -148,28 +559,691 @@ public class UsuarioRepository {
         }
     }
 
-    public boolean actualizarActivo(Long id, boolean activo) throws SQLException {
-        String sql = "UPDATE usuarios SET activo = ? WHERE id = ?";
+    /**
+     * Inserta en un solo viaje, sin consultas previas de existencia.
+     * Si choca con una restricción UNIQUE, la misma sentencia informa cuál (email o RUT-DV).
+     */
+    public ResultadoEscritura crearUnaSentencia(Integer rut, String dv, String nombre, String email) throws SQLException {
+        String sql = "WITH ins AS (" +
+                "INSERT INTO usuarios (rut, dv, nombre, email, activo) VALUES (?, ?, ?, ?, TRUE) " +
+                "ON CONFLICT DO NOTHING " +
+                "RETURNING id, rut, dv, nombre, email, activo, fecha_creacion, version) " +
+                "SELECT id, rut, dv, nombre, email, activo, fecha_creacion, version, NULL AS conflicto FROM ins " +
+                "UNION ALL " +
+                "SELECT NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, " +
+                "CASE WHEN EXISTS (SELECT 1 FROM usuarios WHERE email = ?) THEN 'email' " +
+                "WHEN EXISTS (SELECT 1 FROM usuarios WHERE rut = ? AND dv = ?) THEN 'rut_dv' " +
+                "ELSE 'desconocido' END " +
+                "WHERE NOT EXISTS (SELECT 1 FROM ins)";
 
-        try (Connection conn = getConnection();
+        try (Connection conn = getConexionEscritura();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, rut);
+            ps.setString(2, dv);
+            ps.setString(3, nombre);
+            ps.setString(4, email);
+            ps.setString(5, email);
+            ps.setInt(6, rut);
+            ps.setString(7, dv);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("La inserción no devolvió resultado.");
+                }
+                String conflicto = rs.getString("conflicto");
+                return conflicto == null
+                        ? ResultadoEscritura.creado(map(rs))
+                        : ResultadoEscritura.conflicto(ConflictoUnicidad.desdeColumna(conflicto));
+            }
+        }
+    }
+
+    /**
+     * Actualiza en un solo viaje: la misma sentencia verifica existencia del id y
+     * duplicados de email / RUT-DV en otros usuarios antes de aplicar el UPDATE.
+     * Una carrera con otra sesión se resuelve por la restricción UNIQUE (nombre de la restricción).
+     */
+    public ResultadoEscritura actualizarUnaSentencia(Long id, Integer rut, String dv, String nombre, String email)
+            throws SQLException {
+        String sql = "WITH chk AS (" +
+                "SELECT EXISTS (SELECT 1 FROM usuarios WHERE id = ?) AS existe, " +
+                "CASE WHEN EXISTS (SELECT 1 FROM usuarios WHERE email = ? AND id <> ?) THEN 'email' " +
+                "WHEN EXISTS (SELECT 1 FROM usuarios WHERE rut = ? AND dv = ? AND id <> ?) THEN 'rut_dv' " +
+                "END AS conflicto), " +
+                "upd AS (" +
+                "UPDATE usuarios SET rut = ?, dv = ?, nombre = ?, email = ?, version = version + 1 " +
+                "WHERE id = ? AND (SELECT conflicto FROM chk) IS NULL RETURNING id) " +
+                "SELECT chk.existe, chk.conflicto, (SELECT count(*) FROM upd) AS actualizadas FROM chk";
+
+        try (Connection conn = getConexionEscritura();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setLong(1, id);
+            ps.setString(2, email);
+            ps.setLong(3, id);
+            ps.setInt(4, rut);
+            ps.setString(5, dv);
+            ps.setLong(6, id);
+            ps.setInt(7, rut);
+            ps.setString(8, dv);
+            ps.setString(9, nombre);
+            ps.setString(10, email);
+            ps.setLong(11, id);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                if (!rs.getBoolean("existe")) {
+                    return ResultadoEscritura.noEncontrado();
+                }
+                String conflicto = rs.getString("conflicto");
+                if (conflicto != null) {
+                    return ResultadoEscritura.conflicto(ConflictoUnicidad.desdeColumna(conflicto));
+                }
+                return rs.getLong("actualizadas") == 1
+                        ? ResultadoEscritura.actualizado()
+                        : ResultadoEscritura.noEncontrado();
+            }
+        } catch (SQLException e) {
+            ConflictoUnicidad conflicto = ConflictoUnicidad.desde(e);
+            if (conflicto == null) {
+                throw e;
+            }
+            return ResultadoEscritura.conflicto(conflicto);
+        }
+    }
+
+    /**
+     * Actualización condicional (compare-and-set): se aplica solo si la fila sigue en {@code version},
+     * sin lectura previa. En el mismo viaje informa la nueva versión o, si otra escritura se adelantó,
+     * la versión que encontró. Los duplicados de email / RUT-DV los resuelve la restricción UNIQUE.
+     */
+    public ResultadoEscritura actualizarSiVersion(Long id, long version, Integer rut, String dv, String nombre,
+                                                  String email) throws SQLException {
+        String sql = "WITH upd AS (" +
+                "UPDATE usuarios SET rut = ?, dv = ?, nombre = ?, email = ?, version = version + 1 " +
+                "WHERE id = ? AND version = ? RETURNING version) " +
+                "SELECT (SELECT version FROM upd) AS nueva, (SELECT version FROM usuarios WHERE id = ?) AS actual";
+
+        try (Connection conn = getConexionEscritura();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, rut);
+            ps.setString(2, dv);
+            ps.setString(3, nombre);
+            ps.setString(4, email);
+            ps.setLong(5, id);
+            ps.setLong(6, version);
+            ps.setLong(7, id);
+
+            return resultadoSiVersion(ps);
+        } catch (SQLException e) {
+            ConflictoUnicidad conflicto = ConflictoUnicidad.desde(e);
+            if (conflicto == null) {
+                throw e;
+            }
+            return ResultadoEscritura.conflicto(conflicto);
+        }
+    }
+
+    /**
+     * Cambio de estado condicional: como {@link #actualizarSiVersion}, solo para {@code activo}.
+     */
+    public ResultadoEscritura cambiarActivoSiVersion(Long id, long version, boolean activo) throws SQLException {
+        String sql = "WITH upd AS (" +
+                "UPDATE usuarios SET activo = ?, version = version + 1 " +
+                "WHERE id = ? AND version = ? RETURNING version) " +
+                "SELECT (SELECT version FROM upd) AS nueva, (SELECT version FROM usuarios WHERE id = ?) AS actual";
+
+        try (Connection conn = getConexionEscritura();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setBoolean(1, activo);
             ps.setLong(2, id);
+            ps.setLong(3, version);
+            ps.setLong(4, id);
 
-            return ps.executeUpdate() == 1;
+            return resultadoSiVersion(ps);
+        }
+    }
+
+    /**
+     * nueva = versión tras el UPDATE (null si no se aplicó); actual = versión en la foto de la sentencia
+     * (null si el id no existe). Si la escritura que se adelantó confirmó mientras el UPDATE la esperaba,
+     * actual aún puede ser la versión esperada: ante un conflicto se relee antes de reintentar.
+     */
+    private static ResultadoEscritura resultadoSiVersion(PreparedStatement ps) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("La actualización condicional no devolvió resultado.");
+            }
+            long nueva = rs.getLong(1);
+            if (!rs.wasNull()) {
+                return ResultadoEscritura.actualizado(nueva);
+            }
+            long actual = rs.getLong(2);
+            return rs.wasNull() ? ResultadoEscritura.noEncontrado() : ResultadoEscritura.conflictoVersion(actual);
         }
     }
 
-    private Usuario map(ResultSet rs) throws SQLException {
-        Usuario u = new Usuario();
-        u.setId(rs.getLong("id"));
-        u.setRut(rs.getInt("rut"));
-        u.setDv(rs.getString("dv"));
-        u.setNombre(rs.getString("nombre"));
-        u.setEmail(rs.getString("email"));
-        u.setActivo(rs.getBoolean("activo"));
-        u.setFechaCreacion(rs.getTimestamp("fecha_creacion"));
-        return u;
+    /**
+     * Deja el usuario en {@code activo} solo si estaba en el otro estado (sin reescribir la fila si no).
+     *
+     * @return true si cambió, false si ya tenía ese estado, null si el id no existe
+     */
+    public Boolean actualizarActivo(Long id, boolean activo) throws SQLException {
+        String sql = "WITH upd AS (" +
+                "UPDATE usuarios SET activo = ?, version = version + 1 WHERE id = ? AND activo <> ? RETURNING id) " +
+                "SELECT EXISTS (SELECT 1 FROM upd), EXISTS (SELECT 1 FROM usuarios WHERE id = ?)";
+
+        try (Connection conn = getConexionEscritura();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setBoolean(1, activo);
+            ps.setLong(2, id);
+            ps.setBoolean(3, activo);
+            ps.setLong(4, id);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return rs.getBoolean(1) ? Boolean.TRUE : rs.getBoolean(2) ? Boolean.FALSE : null;
+            }
+        }
+    }
+
+    /**
+     * Cambio de estado atómico en el servidor ({@code SET activo = NOT activo}), sin leer antes.
+     *
+     * @return nuevo estado, o null si el id no existe
+     */
+    public Boolean alternarActivo(Long id) throws SQLException {
+        String sql = "UPDATE usuarios SET activo = NOT activo, version = version + 1 WHERE id = ? RETURNING activo";
+
+        try (Connection conn = getConexionEscritura();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setLong(1, id);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getBoolean(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Deja el estado de todos los ids en {@code activo}, enlazando los ids como arreglo
+     * ({@code id = ANY(?)}) en tramos de {@link #IDS_POR_CONSULTA}, todo en una transacción.
+     * Las filas que ya tienen ese estado no se reescriben.
+     *
+     * @return filas que cambiaron de estado
+     */
+    public int actualizarActivo(Collection<Long> ids, boolean activo) throws SQLException {
+        long[] unicos = idsUnicos(ids);
+        if (unicos.length == 0) {
+            return 0;
+        }
+
+        String sql = "UPDATE usuarios SET activo = ?, version = version + 1 WHERE id = ANY(?) AND activo <> ?";
+        int cambiadas = 0;
+
+        try (Connection conn = getConexionEscritura()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setBoolean(1, activo);
+                ps.setBoolean(3, activo);
+
+                for (int desde = 0; desde < unicos.length; desde += IDS_POR_CONSULTA) {
+                    int hasta = Math.min(unicos.length, desde + IDS_POR_CONSULTA);
+                    ps.setObject(2, desde == 0 && hasta == unicos.length ? unicos : Arrays.copyOfRange(unicos, desde, hasta));
+                    cambiadas += ps.executeUpdate();
+                }
+            }
+
+            conn.commit();
+        }
+        return cambiadas;
+    }
+
+    /**
+     * Aplica un estado distinto por id: {@code ids[i]} queda en {@code estados[i]}. Los dos arreglos
+     * se enlazan como parámetros y se cruzan con {@code unnest}, en tramos de {@link #IDS_POR_CONSULTA}
+     * dentro de una transacción. Los ids no deben repetirse; conviene entregarlos ordenados para que
+     * escrituras concurrentes tomen los bloqueos de fila en el mismo orden.
+     *
+     * @return filas que cambiaron de estado
+     */
+    public int actualizarActivo(long[] ids, boolean[] estados) throws SQLException {
+        if (ids.length != estados.length) {
+            throw new IllegalArgumentException("ids y estados deben tener el mismo largo.");
+        }
+        if (ids.length == 0) {
+            return 0;
+        }
+
+        String sql = "UPDATE usuarios u SET activo = v.activo, version = u.version + 1 " +
+                "FROM unnest(?::bigint[], ?::boolean[]) AS v(id, activo) " +
+                "WHERE u.id = v.id AND u.activo <> v.activo";
+        int cambiadas = 0;
+
+        try (Connection conn = getConexionEscritura()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int desde = 0; desde < ids.length; desde += IDS_POR_CONSULTA) {
+                    int hasta = Math.min(ids.length, desde + IDS_POR_CONSULTA);
+                    boolean completo = desde == 0 && hasta == ids.length;
+                    ps.setObject(1, completo ? ids : Arrays.copyOfRange(ids, desde, hasta));
+                    ps.setObject(2, completo ? estados : Arrays.copyOfRange(estados, desde, hasta));
+                    cambiadas += ps.executeUpdate();
+                }
+            }
+
+            conn.commit();
+        }
+        return cambiadas;
+    }
+
+    /**
+     * Deja en {@code activo} a todos los usuarios que cumplen el filtro, con una sola sentencia.
+     *
+     * @return filas que cambiaron de estado
+     */
+    public int actualizarActivo(FiltroUsuarios filtro, boolean activo) throws SQLException {
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(activo);
+        parametros.add(activo);
+        String sql = "UPDATE usuarios SET activo = ?, version = version + 1 WHERE activo <> ?" + condiciones(filtro, parametros);
+
+        try (Connection conn = getConexionEscritura();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            enlazar(ps, parametros);
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Alterna el estado de todos los ids en una transacción ({@code SET activo = NOT activo ... RETURNING}).
+     *
+     * @return nuevo estado por id; los inexistentes no aparecen
+     */
+    public Map<Long, Boolean> alternarActivo(Collection<Long> ids) throws SQLException {
+        long[] unicos = idsUnicos(ids);
+        Map<Long, Boolean> out = new HashMap<>(Math.max(16, (int) (unicos.length / 0.75f) + 1));
+        if (unicos.length == 0) {
+            return out;
+        }
+
+        String sql = "UPDATE usuarios SET activo = NOT activo, version = version + 1 WHERE id = ANY(?) RETURNING id, activo";
+
+        try (Connection conn = getConexionEscritura()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int desde = 0; desde < unicos.length; desde += IDS_POR_CONSULTA) {
+                    int hasta = Math.min(unicos.length, desde + IDS_POR_CONSULTA);
+                    ps.setObject(1, desde == 0 && hasta == unicos.length ? unicos : Arrays.copyOfRange(unicos, desde, hasta));
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            out.put(rs.getLong(1), rs.getBoolean(2));
+                        }
+                    }
+                }
+            }
+
+            conn.commit();
+        }
+        return out;
+    }
+
+    /**
+     * Cantidad de usuarios que cumplen el filtro.
+     */
+    public long contar(FiltroUsuarios filtro) throws SQLException {
+        List<Object> parametros = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM usuarios WHERE TRUE" + condiciones(filtro, parametros);
+
+        try (Connection conn = getConexionLectura();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            enlazar(ps, parametros);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    // ------------------ Estadísticas ------------------
+
+    /**
+     * Total y activos en una sola pasada ({@code COUNT(*) FILTER (WHERE activo)}).
+     */
+    public EstadisticasUsuarios contarPorEstado() throws SQLException {
+        String sql = "SELECT COUNT(*), COUNT(*) FILTER (WHERE activo) FROM usuarios";
+
+        try (Connection conn = getConexionLectura();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            rs.next();
+            return new EstadisticasUsuarios(rs.getLong(1), rs.getLong(2), false);
+        }
+    }
+
+    /**
+     * Usuarios creados por día en {@code [desde, hasta)} (null = sin límite), en orden; los días
+     * sin altas no aparecen. Con límites, el índice de fecha_creacion acota lo recorrido al rango.
+     */
+    public List<ConteoPorDia> contarCreadosPorDia(LocalDate desde, LocalDate hasta) throws SQLException {
+        List<Object> parametros = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT date_trunc('day', fecha_creacion) AS dia, COUNT(*) FROM usuarios WHERE TRUE");
+        if (desde != null) {
+            sql.append(" AND fecha_creacion >= ?");
+            parametros.add(Timestamp.valueOf(desde.atStartOfDay()));
+        }
+        if (hasta != null) {
+            sql.append(" AND fecha_creacion < ?");
+            parametros.add(Timestamp.valueOf(hasta.atStartOfDay()));
+        }
+        sql.append(" GROUP BY 1 ORDER BY 1");
+
+        List<ConteoPorDia> out = new ArrayList<>();
+        try (Connection conn = getConexionLectura();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            enlazar(ps, parametros);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(new ConteoPorDia(rs.getTimestamp(1).toLocalDateTime().toLocalDate(), rs.getLong(2)));
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Los {@code limite} dominios de email con más usuarios (total y activos), de mayor a menor.
+     * Recorre la tabla completa: ningún índice ordena por dominio.
+     */
+    public List<ConteoPorDominio> contarPorDominio(int limite) throws SQLException {
+        String sql = "SELECT split_part(email, '@', 2) AS dominio, COUNT(*), COUNT(*) FILTER (WHERE activo) " +
+                "FROM usuarios GROUP BY 1 ORDER BY 2 DESC, 1 LIMIT ?";
+
+        List<ConteoPorDominio> out = new ArrayList<>();
+        try (Connection conn = getConexionLectura();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, limite);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(new ConteoPorDominio(rs.getString(1), rs.getLong(2), rs.getLong(3)));
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Carga masiva: las filas se envían con COPY a una tabla temporal y luego se insertan
+     * en {@code usuarios} con sentencias set-based, todo en una transacción.
+     *
+     * Filas rechazadas (motivo = constantes MOTIVO_*):
+     * email o RUT-DV ya existente en la tabla, duplicado dentro de la misma carga
+     * (se conserva la primera línea) o conflicto con una inserción concurrente.
+     *
+     * @return rechazos ordenados por línea; el resto de las filas quedó insertado
+     */
+    public List<RechazoImportacion> cargarMasivo(ProductorCarga productor) throws SQLException, IOException {
+        List<RechazoImportacion> rechazos = new ArrayList<>();
+
+        try (Connection conn = getConexionEscritura()) {
+            conn.setAutoCommit(false);
+
+            ejecutar(conn, "CREATE TEMP TABLE usuarios_carga (" +
+                    "linea BIGINT NOT NULL, rut INTEGER NOT NULL, dv VARCHAR(1) NOT NULL, " +
+                    "nombre VARCHAR(200) NOT NULL, email VARCHAR(200) NOT NULL, motivo TEXT" +
+                    ") ON COMMIT DROP");
+
+            CopyIn copy = conn.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY usuarios_carga (linea, rut, dv, nombre, email) FROM STDIN");
+            try {
+                EscritorCopy escritor = new EscritorCopy(copy);
+                productor.producir(escritor);
+                escritor.vaciar();
+                copy.endCopy();
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+
+            ejecutar(conn, "ANALYZE usuarios_carga");
+
+            ejecutar(conn, "UPDATE usuarios_carga c SET motivo = CASE " +
+                    "WHEN EXISTS (SELECT 1 FROM usuarios u WHERE u.email = c.email) THEN '" + MOTIVO_EMAIL_EXISTE + "' " +
+                    "ELSE '" + MOTIVO_RUT_DV_EXISTE + "' END " +
+                    "WHERE EXISTS (SELECT 1 FROM usuarios u WHERE u.email = c.email) " +
+                    "OR EXISTS (SELECT 1 FROM usuarios u WHERE u.rut = c.rut AND u.dv = c.dv)");
+
+            ejecutar(conn, "UPDATE usuarios_carga c SET motivo = '" + MOTIVO_EMAIL_DUPLICADO + "' " +
+                    "FROM (SELECT linea, row_number() OVER (PARTITION BY email ORDER BY linea) AS n " +
+                    "FROM usuarios_carga WHERE motivo IS NULL) d " +
+                    "WHERE c.linea = d.linea AND d.n > 1");
+
+            ejecutar(conn, "UPDATE usuarios_carga c SET motivo = '" + MOTIVO_RUT_DV_DUPLICADO + "' " +
+                    "FROM (SELECT linea, row_number() OVER (PARTITION BY rut, dv ORDER BY linea) AS n " +
+                    "FROM usuarios_carga WHERE motivo IS NULL) d " +
+                    "WHERE c.linea = d.linea AND d.n > 1");
+
+            // Lo que no quedó insertado por ON CONFLICT fue tomado por otra sesión entretanto
+            ejecutar(conn, "WITH ins AS (" +
+                    "INSERT INTO usuarios (rut, dv, nombre, email, activo) " +
+                    "SELECT rut, dv, nombre, email, TRUE FROM usuarios_carga WHERE motivo IS NULL ORDER BY linea " +
+                    "ON CONFLICT DO NOTHING RETURNING email) " +
+                    "UPDATE usuarios_carga c SET motivo = '" + MOTIVO_CONFLICTO + "' " +
+                    "WHERE c.motivo IS NULL AND NOT EXISTS (SELECT 1 FROM ins WHERE ins.email = c.email)");
+
+            try (PreparedStatement ps = conn.prepareStatement("SELECT linea, motivo FROM usuarios_carga " +
+                    "WHERE motivo IS NOT NULL ORDER BY linea");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rechazos.add(new RechazoImportacion(rs.getLong(1), rs.getString(2)));
+                }
+            }
+
+            conn.commit();
+        }
+
+        return rechazos;
+    }
+
+    /**
+     * Exporta la tabla completa con {@code COPY ... TO STDOUT}: el servidor arma el texto y el driver
+     * solo copia bytes al destino. Mismas columnas, orden y formato que {@code EscritorExportacion}
+     * (CSV con encabezado; NDJSON con {@code row_to_json}, sin comillas ni escapes de CSV).
+     *
+     * @return cantidad de filas exportadas (sin contar el encabezado)
+     */
+    public long exportarCopy(FormatoExportacion formato, OutputStream destino) throws SQLException, IOException {
+        String sql = formato == FormatoExportacion.NDJSON
+                // \x01 y \x02 no aparecen en el JSON (row_to_json los escapa), así que nada se cita
+                ? "COPY (SELECT row_to_json(t) FROM (SELECT " + COLUMNAS_EXPORTACION + " FROM usuarios ORDER BY id) t) " +
+                  "TO STDOUT WITH (FORMAT csv, QUOTE e'\\x01', DELIMITER e'\\x02')"
+                : "COPY (SELECT " + COLUMNAS_EXPORTACION_CSV + " FROM usuarios ORDER BY id) TO STDOUT " +
+                  "WITH (FORMAT csv, HEADER)";
+
+        try (Connection conn = getConexionLectura()) {
+            return conn.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, destino);
+        }
+    }
+
+    private static long[] idsUnicos(Collection<Long> ids) {
+        long[] arr = new long[ids.size()];
+        int n = 0;
+        for (Long id : ids) {
+            if (id != null) arr[n++] = id;
+        }
+        Arrays.sort(arr, 0, n);
+
+        int unicos = 0;
+        for (int i = 0; i < n; i++) {
+            if (unicos == 0 || arr[i] != arr[unicos - 1]) {
+                arr[unicos++] = arr[i];
+            }
+        }
+        return unicos == arr.length ? arr : Arrays.copyOf(arr, unicos);
+    }
+
+    /**
+     * Condiciones SQL del filtro (cada una precedida de AND); agrega los valores a enlazar.
+     */
+    private static String condiciones(FiltroUsuarios filtro, List<Object> parametros) {
+        StringBuilder sb = new StringBuilder();
+        if (filtro.getDominioEmail() != null) {
+            sb.append(" AND split_part(email, '@', 2) = ?");
+            parametros.add(filtro.getDominioEmail());
+        }
+        if (filtro.getNombreContiene() != null) {
+            sb.append(" AND nombre ILIKE ? ESCAPE '\\'");
+            parametros.add('%' + escaparLike(filtro.getNombreContiene()) + '%');
+        }
+        if (filtro.getActivo() != null) {
+            sb.append(" AND activo = ?");
+            parametros.add(filtro.getActivo());
+        }
+        if (filtro.getCreadoDesde() != null) {
+            sb.append(" AND fecha_creacion >= ?");
+            parametros.add(filtro.getCreadoDesde());
+        }
+        if (filtro.getCreadoHasta() != null) {
+            sb.append(" AND fecha_creacion < ?");
+            parametros.add(filtro.getCreadoHasta());
+        }
+        return sb.toString();
+    }
+
+    private static void enlazar(PreparedStatement ps, List<Object> parametros) throws SQLException {
+        for (int i = 0; i < parametros.size(); i++) {
+            ps.setObject(i + 1, parametros.get(i));
+        }
+    }
+
+    private static String escaparLike(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length() + 4);
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') sb.append('\\');
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private void ejecutar(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.execute();
+        }
+    }
+
+    /**
+     * Usuario de la fila actual. Para varias filas conviene resolver {@link MapeoUsuario} una vez
+     * por ResultSet y mapear cada fila por posición.
+     */
+    static Usuario map(ResultSet rs) throws SQLException {
+        return MapeoUsuario.de(rs).map(rs);
+    }
+
+    /**
+     * Posiciones de las columnas de usuario en un ResultSet, resueltas una vez por consulta:
+     * cada fila se lee por índice en vez de buscar las 8 columnas por nombre.
+     */
+    static final class MapeoUsuario {
+        private final int id;
+        private final int rut;
+        private final int dv;
+        private final int nombre;
+        private final int email;
+        private final int activo;
+        private final int fechaCreacion;
+        private final int version;
+
+        private MapeoUsuario(ResultSet rs) throws SQLException {
+            this.id = rs.findColumn("id");
+            this.rut = rs.findColumn("rut");
+            this.dv = rs.findColumn("dv");
+            this.nombre = rs.findColumn("nombre");
+            this.email = rs.findColumn("email");
+            this.activo = rs.findColumn("activo");
+            this.fechaCreacion = rs.findColumn("fecha_creacion");
+            this.version = rs.findColumn("version");
+        }
+
+        static MapeoUsuario de(ResultSet rs) throws SQLException {
+            return new MapeoUsuario(rs);
+        }
+
+        Usuario map(ResultSet rs) throws SQLException {
+            return new Usuario(rs.getLong(id), rs.getInt(rut), rs.getString(dv), rs.getString(nombre),
+                    rs.getString(email), rs.getBoolean(activo), rs.getTimestamp(fechaCreacion), rs.getLong(version));
+        }
+    }
+
+    /**
+     * Codifica filas en formato texto de COPY (separador TAB) y las envía por bloques.
+     */
+    private static final class EscritorCopy implements DestinoCarga {
+        private final CopyIn copy;
+        private final StringBuilder sb = new StringBuilder(COPY_BUFFER + 1024);
+
+        EscritorCopy(CopyIn copy) {
+            this.copy = copy;
+        }
+
+        @Override
+        public void agregar(long linea, int rut, String dv, String nombre, String email) throws SQLException {
+            sb.append(linea).append('\t').append(rut).append('\t');
+            escapar(dv);
+            sb.append('\t');
+            escapar(nombre);
+            sb.append('\t');
+            escapar(email);
+            sb.append('\n');
+            if (sb.length() >= COPY_BUFFER) {
+                vaciar();
+            }
+        }
+
+        void vaciar() throws SQLException {
+            if (sb.length() == 0) return;
+            byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            sb.setLength(0);
+        }
+
+        private void escapar(String valor) {
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                switch (c) {
+                    case '\\':
+                        sb.append("\\\\");
+                        break;
+                    case '\t':
+                        sb.append("\\t");
+                        break;
+                    case '\n':
+                        sb.append("\\n");
+                        break;
+                    case '\r':
+                        sb.append("\\r");
+                        break;
+                    default:
+                        sb.append(c);
+                }
+            }
+        }
     }
 }
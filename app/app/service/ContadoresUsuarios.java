@@ -0,0 +1,130 @@
+package app.service;
+
+import app.config.AppConfig;
+import app.model.ConteoPorDia;
+import app.model.EstadisticasUsuarios;
+import app.repository.UsuarioRepository;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores en memoria de usuarios por estado y de altas por día, que las escrituras de esta
+ * instancia mantienen al día: las estadísticas se responden sin consultar la BD y su costo no
+ * depende del tamaño de la tabla.
+ *
+ * Se cargan desde la BD con consultas agregadas al primer uso y se recalculan cada cierto tiempo
+ * ({@link UsuarioService#programarRecargaContadores}). Lo escrito por otras instancias o directo en
+ * la BD solo aparece tras recalcular, y una escritura que coincide con la recarga puede quedar
+ * contada de más o de menos hasta la siguiente.
+ */
+public class ContadoresUsuarios {
+
+    /**
+     * Valores de una carga; las escrituras suman sobre los vigentes y una recarga los reemplaza.
+     */
+    private static final class Valores {
+        final LongAdder total = new LongAdder();
+        final LongAdder activos = new LongAdder();
+        final ConcurrentSkipListMap<LocalDate, LongAdder> creadosPorDia = new ConcurrentSkipListMap<>();
+    }
+
+    private volatile Valores actual; // null = sin cargar (o invalidados)
+
+    /**
+     * Contadores según {@code estadisticas.contadores.habilitado}; null si están deshabilitados.
+     */
+    public static ContadoresUsuarios desdeConfig() {
+        return AppConfig.getBoolean("estadisticas.contadores.habilitado", false) ? new ContadoresUsuarios() : null;
+    }
+
+    /**
+     * Recalcula todo desde la BD (total y activos, altas por día).
+     */
+    public synchronized void cargar(UsuarioRepository repository) throws SQLException {
+        Valores nuevos = new Valores();
+        EstadisticasUsuarios e = repository.contarPorEstado();
+        nuevos.total.add(e.getTotal());
+        nuevos.activos.add(e.getActivos());
+        for (ConteoPorDia c : repository.contarCreadosPorDia(null, null)) {
+            nuevos.creadosPorDia.computeIfAbsent(c.getDia(), d -> new LongAdder()).add(c.getCreados());
+        }
+        actual = nuevos;
+    }
+
+    public boolean isCargados() {
+        return actual != null;
+    }
+
+    /**
+     * Descarta los valores (p.ej. tras un cambio cuyo efecto no se conoce); la próxima consulta recarga.
+     */
+    public void invalidar() {
+        actual = null;
+    }
+
+    /**
+     * Registra {@code cantidad} altas del día indicado, {@code activos} de ellas activas.
+     */
+    public void creados(LocalDate dia, long cantidad, long activos) {
+        Valores v = actual;
+        if (v == null || cantidad == 0) {
+            return;
+        }
+        v.total.add(cantidad);
+        v.activos.add(activos);
+        v.creadosPorDia.computeIfAbsent(dia, d -> new LongAdder()).add(cantidad);
+    }
+
+    /**
+     * Registra cambios de estado efectivos (usuarios que pasaron a activos y a inactivos).
+     */
+    public void estadoCambiado(long activados, long desactivados) {
+        Valores v = actual;
+        if (v != null) {
+            v.activos.add(activados - desactivados);
+        }
+    }
+
+    /**
+     * Total y activos actuales, o null si no están cargados.
+     */
+    public EstadisticasUsuarios estadisticas() {
+        Valores v = actual;
+        return v == null ? null : new EstadisticasUsuarios(v.total.sum(), v.activos.sum(), true);
+    }
+
+    /**
+     * Altas por día en {@code [desde, hasta)} (null = sin límite), o null si no están cargados.
+     */
+    public List<ConteoPorDia> creadosPorDia(LocalDate desde, LocalDate hasta) {
+        Valores v = actual;
+        if (v == null) {
+            return null;
+        }
+        NavigableMap<LocalDate, LongAdder> dias = v.creadosPorDia;
+        if (desde != null) {
+            dias = dias.tailMap(desde, true);
+        }
+        if (hasta != null) {
+            dias = dias.headMap(hasta, false);
+        }
+        List<ConteoPorDia> out = new ArrayList<>();
+        for (Map.Entry<LocalDate, LongAdder> e : dias.entrySet()) {
+            out.add(new ConteoPorDia(e.getKey(), e.getValue().sum()));
+        }
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        EstadisticasUsuarios e = estadisticas();
+        return "ContadoresUsuarios{" + (e == null ? "sin cargar" : "total=" + e.getTotal() + ", activos=" + e.getActivos()) + '}';
+    }
+}
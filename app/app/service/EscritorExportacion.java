@@ -0,0 +1,282 @@
+package app.service;
+
+import app.model.FormatoExportacion;
+import app.model.Usuario;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Escritor de exportación en streaming: formatea cada usuario directo a un buffer de bytes UTF-8
+ * (sin String.format ni Strings intermedios) y lo entrega al destino en bloques de 64 KB.
+ *
+ * La salida es la misma que produce PostgreSQL con {@code COPY}: CSV con comillas solo cuando el
+ * campo las necesita, booleanos como true/false y fechas como {@code yyyy-MM-dd HH:mm:ss[.ffffff]};
+ * NDJSON con las mismas claves, escapes y fechas que {@code row_to_json}.
+ */
+class EscritorExportacion {
+
+    static final String ENCABEZADO_CSV = "id,rut,dv,nombre,email,activo,fecha_creacion,version\n";
+
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    private final OutputStream destino;
+    private final FormatoExportacion formato;
+    private final byte[] buffer = new byte[64 * 1024];
+    private final byte[] digitos = new byte[20];
+    private int pos;
+    private long filas;
+
+    EscritorExportacion(OutputStream destino, FormatoExportacion formato) {
+        this.destino = destino;
+        this.formato = formato;
+    }
+
+    long getFilas() {
+        return filas;
+    }
+
+    /**
+     * Encabezado del archivo (solo CSV).
+     */
+    void encabezado() throws IOException {
+        if (formato == FormatoExportacion.CSV) {
+            ascii(ENCABEZADO_CSV);
+        }
+    }
+
+    void escribir(Usuario u) throws IOException {
+        if (formato == FormatoExportacion.CSV) {
+            numero(u.getId());
+            poner(',');
+            numero(u.getRut());
+            poner(',');
+            campoCsv(u.getDv());
+            poner(',');
+            campoCsv(u.getNombre());
+            poner(',');
+            campoCsv(u.getEmail());
+            poner(',');
+            ascii(Boolean.TRUE.equals(u.getActivo()) ? "true" : "false");
+            poner(',');
+            if (u.getFechaCreacion() != null) fecha(u.getFechaCreacion(), ' ');
+            poner(',');
+            if (u.getVersion() != null) numero(u.getVersion());
+        } else {
+            ascii("{\"id\":");
+            numero(u.getId());
+            ascii(",\"rut\":");
+            numero(u.getRut());
+            ascii(",\"dv\":");
+            textoJson(u.getDv());
+            ascii(",\"nombre\":");
+            textoJson(u.getNombre());
+            ascii(",\"email\":");
+            textoJson(u.getEmail());
+            ascii(Boolean.TRUE.equals(u.getActivo()) ? ",\"activo\":true" : ",\"activo\":false");
+            ascii(",\"fecha_creacion\":");
+            if (u.getFechaCreacion() == null) {
+                ascii("null");
+            } else {
+                poner('"');
+                fecha(u.getFechaCreacion(), 'T');
+                poner('"');
+            }
+            ascii(",\"version\":");
+            if (u.getVersion() == null) {
+                ascii("null");
+            } else {
+                numero(u.getVersion());
+            }
+            poner('}');
+        }
+        poner('\n');
+        filas++;
+    }
+
+    /**
+     * Entrega al destino lo que quede en el buffer (no cierra el destino).
+     */
+    void vaciar() throws IOException {
+        if (pos > 0) {
+            destino.write(buffer, 0, pos);
+            pos = 0;
+        }
+    }
+
+    // ------------------ Campos ------------------
+
+    /**
+     * Como COPY CSV: entre comillas si está vacío o contiene coma, comillas o saltos de línea;
+     * las comillas internas se duplican. null queda como campo vacío sin comillas.
+     */
+    private void campoCsv(String s) throws IOException {
+        if (s == null) return;
+        boolean citar = s.isEmpty();
+        for (int i = 0; i < s.length() && !citar; i++) {
+            char c = s.charAt(i);
+            citar = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!citar) {
+            utf8(s, false);
+            return;
+        }
+        poner('"');
+        utf8(s, true);
+        poner('"');
+    }
+
+    /**
+     * Como row_to_json: escapa comillas, barra invertida y caracteres de control.
+     */
+    private void textoJson(String s) throws IOException {
+        if (s == null) {
+            ascii("null");
+            return;
+        }
+        poner('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                if (c < 0x80) {
+                    poner(c);
+                } else {
+                    i = caracter(s, i);
+                }
+                continue;
+            }
+            poner('\\');
+            switch (c) {
+                case '"': poner('"'); break;
+                case '\\': poner('\\'); break;
+                case '\b': poner('b'); break;
+                case '\f': poner('f'); break;
+                case '\n': poner('n'); break;
+                case '\r': poner('r'); break;
+                case '\t': poner('t'); break;
+                default:
+                    ascii("u00");
+                    poner(HEX[c >> 4]);
+                    poner(HEX[c & 0xF]);
+            }
+        }
+        poner('"');
+    }
+
+    /**
+     * {@code yyyy-MM-dd HH:mm:ss}, más los microsegundos sin ceros a la derecha si no son cero.
+     */
+    private void fecha(Timestamp ts, char separador) throws IOException {
+        LocalDateTime f = ts.toLocalDateTime();
+        relleno(f.getYear(), 4);
+        poner('-');
+        relleno(f.getMonthValue(), 2);
+        poner('-');
+        relleno(f.getDayOfMonth(), 2);
+        poner(separador);
+        relleno(f.getHour(), 2);
+        poner(':');
+        relleno(f.getMinute(), 2);
+        poner(':');
+        relleno(f.getSecond(), 2);
+
+        int micros = f.getNano() / 1000;
+        if (micros != 0) {
+            int cifras = 6;
+            while (micros % 10 == 0) {
+                micros /= 10;
+                cifras--;
+            }
+            poner('.');
+            relleno(micros, cifras);
+        }
+    }
+
+    private void numero(long v) throws IOException {
+        if (v < 0) {
+            if (v == Long.MIN_VALUE) {
+                ascii(Long.toString(v));
+                return;
+            }
+            poner('-');
+            v = -v;
+        }
+        int n = 0;
+        do {
+            digitos[n++] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        while (n > 0) {
+            poner(digitos[--n]);
+        }
+    }
+
+    private void relleno(int v, int cifras) throws IOException {
+        for (int i = cifras - 1; i >= 0; i--) {
+            digitos[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        for (int i = 0; i < cifras; i++) {
+            poner(digitos[i]);
+        }
+    }
+
+    // ------------------ Bytes ------------------
+
+    private void utf8(String s, boolean duplicarComillas) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                poner(c);
+                if (c == '"' && duplicarComillas) poner('"');
+            } else {
+                i = caracter(s, i);
+            }
+        }
+    }
+
+    /**
+     * Codifica en UTF-8 el carácter no ASCII en {@code i} (o el par sustituto que empieza ahí).
+     *
+     * @return índice del último char consumido
+     */
+    private int caracter(String s, int i) throws IOException {
+        char c = s.charAt(i);
+        if (c < 0x800) {
+            poner(0xC0 | (c >> 6));
+            poner(0x80 | (c & 0x3F));
+            return i;
+        }
+        if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, s.charAt(i + 1));
+            poner(0xF0 | (cp >> 18));
+            poner(0x80 | ((cp >> 12) & 0x3F));
+            poner(0x80 | ((cp >> 6) & 0x3F));
+            poner(0x80 | (cp & 0x3F));
+            return i + 1;
+        }
+        if (Character.isSurrogate(c)) {
+            poner('?'); // sustituto suelto, igual que String.getBytes(UTF_8)
+            return i;
+        }
+        poner(0xE0 | (c >> 12));
+        poner(0x80 | ((c >> 6) & 0x3F));
+        poner(0x80 | (c & 0x3F));
+        return i;
+    }
+
+    private void ascii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            poner(s.charAt(i));
+        }
+    }
+
+    private void poner(int b) throws IOException {
+        if (pos == buffer.length) {
+            vaciar();
+        }
+        buffer[pos++] = (byte) b;
+    }
+}
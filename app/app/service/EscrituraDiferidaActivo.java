@@ -0,0 +1,458 @@
+package app.service;
+
+import app.config.AppConfig;
+import app.repository.UsuarioRepository;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escritura diferida (write-behind) de los cambios de estado activo/inactivo.
+ *
+ * - Los cambios se acumulan en memoria por id: si un id cambia varias veces antes de escribirse,
+ *   solo se escribe el último estado.
+ * - Un hilo de fondo los escribe por lote ({@link UsuarioRepository#actualizarActivo(long[], boolean[])})
+ *   al llegar a {@code lote} pendientes o cuando el más antiguo cumple {@code intervaloMs}.
+ * - Con {@code capacidad} ids pendientes, quien registra un id nuevo espera a que haya espacio
+ *   (contrapresión) hasta {@code esperaMaxMs}; luego falla con IllegalStateException.
+ * - Si la escritura falla, el lote vuelve a la cola (sin pisar cambios más nuevos) y se reintenta.
+ * - {@link #close()} (también desde un shutdown hook) escribe lo pendiente antes de terminar.
+ *   Un corte abrupto del proceso pierde los cambios aún no escritos.
+ */
+public class EscrituraDiferidaActivo implements AutoCloseable {
+
+    private static final long REINTENTO_MAX_MS = 30_000L;
+
+    private final UsuarioRepository usuarioRepository;
+    private final int capacidad;
+    private final int tamanoLote;
+    private final long intervaloNanos;
+    private final long esperaMaxNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayTrabajo = lock.newCondition();
+    private final Condition hayEspacio = lock.newCondition();
+    private final ReentrantLock escribiendo = new ReentrantLock(); // un lote a la vez, en orden
+
+    private LinkedHashMap<Long, Boolean> pendientes = new LinkedHashMap<>();
+    private Map<Long, Boolean> enVuelo = Collections.emptyMap();
+    private long primeraPendienteNanos;
+    private boolean cerrado;
+
+    private final Thread hilo;
+    private Thread hookApagado;
+
+    private final AtomicLong registrados = new AtomicLong();
+    private final AtomicLong fusionados = new AtomicLong();
+    private final AtomicLong esperasContrapresion = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong idsEscritos = new AtomicLong();
+    private final AtomicLong filasCambiadas = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+    private final AtomicLong nanosEscritura = new AtomicLong();
+    private final AtomicLong nanosEscrituraMax = new AtomicLong();
+    private volatile long nanosUltimaEscritura;
+    private volatile int pendientesMax;
+
+    public EscrituraDiferidaActivo(UsuarioRepository usuarioRepository, int capacidad, int tamanoLote,
+                                   long intervaloMs, long esperaMaxMs) {
+        if (capacidad <= 0 || tamanoLote <= 0 || intervaloMs <= 0 || esperaMaxMs < 0) {
+            throw new IllegalArgumentException("Parámetros de escritura diferida inválidos.");
+        }
+        this.usuarioRepository = usuarioRepository;
+        this.capacidad = capacidad;
+        this.tamanoLote = Math.min(tamanoLote, capacidad);
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+        this.esperaMaxNanos = TimeUnit.MILLISECONDS.toNanos(esperaMaxMs);
+        this.hilo = new Thread(this::ejecutar, "activo-escritura-diferida");
+        this.hilo.setDaemon(true);
+    }
+
+    /**
+     * Escritura diferida según {@code activo.diferido.*} en application.properties; null si está deshabilitada.
+     */
+    public static EscrituraDiferidaActivo desdeConfig(UsuarioRepository usuarioRepository) {
+        if (!AppConfig.getBoolean("activo.diferido.habilitado", false)) {
+            return null;
+        }
+        return new EscrituraDiferidaActivo(usuarioRepository,
+                AppConfig.getInt("activo.diferido.capacidad", 100_000),
+                AppConfig.getInt("activo.diferido.lote", 5_000),
+                AppConfig.getLong("activo.diferido.intervaloMs", 200L),
+                AppConfig.getLong("activo.diferido.esperaMaxMs", 5_000L))
+                .iniciar();
+    }
+
+    /**
+     * Arranca el hilo escritor y registra un shutdown hook que escribe lo pendiente al apagar.
+     */
+    public EscrituraDiferidaActivo iniciar() {
+        hilo.start();
+        hookApagado = new Thread(this::close, "activo-escritura-diferida-apagado");
+        Runtime.getRuntime().addShutdownHook(hookApagado);
+        return this;
+    }
+
+    /**
+     * Deja pendiente el estado del id. Si ya había un cambio pendiente para ese id, se reemplaza.
+     */
+    public void registrar(long id, boolean activo) {
+        lock.lock();
+        try {
+            if (!pendientes.containsKey(id)) {
+                esperarEspacio();
+                if (pendientes.isEmpty()) {
+                    primeraPendienteNanos = System.nanoTime();
+                }
+                pendientes.put(id, activo);
+                if (pendientes.size() > pendientesMax) {
+                    pendientesMax = pendientes.size();
+                }
+                if (pendientes.size() >= tamanoLote) {
+                    hayTrabajo.signal();
+                }
+            } else {
+                pendientes.put(id, activo);
+                fusionados.incrementAndGet();
+            }
+            registrados.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Invierte el estado del id partiendo del pendiente (si hay) o de {@code estadoActual}.
+     * Atómico respecto de otros registros en esta instancia.
+     *
+     * @return el nuevo estado
+     */
+    public boolean alternar(long id, boolean estadoActual) {
+        lock.lock();
+        try {
+            Boolean base = estadoPendiente(id);
+            boolean nuevo = !(base != null ? base : estadoActual);
+            registrar(id, nuevo);
+            return nuevo;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Estado aún no confirmado en la BD para el id (pendiente o en escritura), o null si no hay.
+     * Sirve para que las lecturas no devuelvan un estado que ya se reemplazó.
+     */
+    public Boolean estadoPendiente(long id) {
+        lock.lock();
+        try {
+            Boolean estado = pendientes.get(id);
+            return estado != null ? estado : enVuelo.get(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escribe ahora todo lo pendiente, en el hilo que llama.
+     * Se usa antes de escrituras que no pasan por la cola, para que no queden desordenadas.
+     */
+    public void vaciar() throws SQLException {
+        while (escribirLote()) {
+            // sigue mientras haya pendientes
+        }
+    }
+
+    /**
+     * Deja de aceptar cambios, detiene el hilo escritor y escribe lo pendiente.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (cerrado) return;
+            cerrado = true;
+            hayTrabajo.signalAll();
+            hayEspacio.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            vaciar();
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Escritura diferida: no se pudieron escribir " + getPendientes()
+                    + " cambios de estado al cerrar: " + e.getMessage());
+        }
+        if (hookApagado != null && Thread.currentThread() != hookApagado) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hookApagado);
+            } catch (IllegalStateException ignored) {
+                // Ya se está apagando la JVM
+            }
+        }
+    }
+
+    // ------------------ Métricas ------------------
+
+    /**
+     * Profundidad de la cola: ids con un cambio pendiente de escribir.
+     */
+    public int getPendientes() {
+        lock.lock();
+        try {
+            return pendientes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendientesMax() {
+        return pendientesMax;
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public long getRegistrados() {
+        return registrados.get();
+    }
+
+    /**
+     * Registros que reemplazaron un cambio pendiente del mismo id (escrituras ahorradas).
+     */
+    public long getFusionados() {
+        return fusionados.get();
+    }
+
+    /**
+     * Veces que un registro tuvo que esperar por la cola llena.
+     */
+    public long getEsperasContrapresion() {
+        return esperasContrapresion.get();
+    }
+
+    public long getLotes() {
+        return lotes.get();
+    }
+
+    public long getIdsEscritos() {
+        return idsEscritos.get();
+    }
+
+    /**
+     * Filas que cambiaron en la BD (los ids que ya tenían el estado no cuentan).
+     */
+    public long getFilasCambiadas() {
+        return filasCambiadas.get();
+    }
+
+    public long getErrores() {
+        return errores.get();
+    }
+
+    public double getEscrituraPromedioMs() {
+        long n = lotes.get();
+        return n == 0 ? 0 : nanosEscritura.get() / (double) n / 1_000_000;
+    }
+
+    public double getEscrituraMaxMs() {
+        return nanosEscrituraMax.get() / 1_000_000.0;
+    }
+
+    public double getUltimaEscrituraMs() {
+        return nanosUltimaEscritura / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "EscrituraDiferidaActivo{pendientes=" + getPendientes() + "/" + capacidad +
+                ", pendientesMax=" + pendientesMax +
+                ", registrados=" + registrados.get() +
+                ", fusionados=" + fusionados.get() +
+                ", esperasContrapresion=" + esperasContrapresion.get() +
+                ", lotes=" + lotes.get() +
+                ", idsEscritos=" + idsEscritos.get() +
+                ", filasCambiadas=" + filasCambiadas.get() +
+                ", errores=" + errores.get() +
+                String.format(", escrituraPromedioMs=%.2f, escrituraMaxMs=%.2f", getEscrituraPromedioMs(), getEscrituraMaxMs()) +
+                '}';
+    }
+
+    // ------------------ Internos ------------------
+
+    /**
+     * Con el lock tomado: espera a que haya espacio para un id nuevo.
+     */
+    private void esperarEspacio() {
+        if (cerrado) {
+            throw new IllegalStateException("La escritura diferida está cerrada.");
+        }
+        if (pendientes.size() < capacidad) {
+            return;
+        }
+
+        esperasContrapresion.incrementAndGet();
+        hayTrabajo.signal();
+        long restante = esperaMaxNanos;
+        try {
+            while (pendientes.size() >= capacidad) {
+                if (restante <= 0) {
+                    throw new IllegalStateException("Cola de escritura diferida llena (" + capacidad + " pendientes).");
+                }
+                restante = hayEspacio.awaitNanos(restante);
+                if (cerrado) {
+                    throw new IllegalStateException("La escritura diferida está cerrada.");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando espacio en la cola de escritura diferida.", e);
+        }
+    }
+
+    private void ejecutar() {
+        long espera = TimeUnit.NANOSECONDS.toMillis(intervaloNanos);
+
+        while (true) {
+            lock.lock();
+            try {
+                while (!cerrado && !listo()) {
+                    if (pendientes.isEmpty()) {
+                        hayTrabajo.await();
+                    } else {
+                        hayTrabajo.awaitNanos(primeraPendienteNanos + intervaloNanos - System.nanoTime());
+                    }
+                }
+                if (cerrado) {
+                    return; // close() escribe lo que quede
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                escribirLote();
+                espera = TimeUnit.NANOSECONDS.toMillis(intervaloNanos);
+            } catch (SQLException | RuntimeException e) {
+                // El lote volvió a la cola; se reintenta con espera creciente
+                if (!esperarReintento(espera)) return;
+                espera = Math.min(espera * 2, REINTENTO_MAX_MS);
+            }
+        }
+    }
+
+    private boolean listo() {
+        return pendientes.size() >= tamanoLote
+                || (!pendientes.isEmpty() && System.nanoTime() - primeraPendienteNanos >= intervaloNanos);
+    }
+
+    /**
+     * Toma todo lo pendiente y lo escribe en una transacción.
+     *
+     * @return false si no había nada pendiente
+     */
+    private boolean escribirLote() throws SQLException {
+        escribiendo.lock();
+        try {
+            Map<Long, Boolean> lote;
+            lock.lock();
+            try {
+                if (pendientes.isEmpty()) return false;
+                lote = pendientes;
+                enVuelo = lote;
+                pendientes = new LinkedHashMap<>();
+                hayEspacio.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            long[] ids = new long[lote.size()];
+            int n = 0;
+            for (Long id : lote.keySet()) {
+                ids[n++] = id;
+            }
+            Arrays.sort(ids);
+            boolean[] estados = new boolean[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                estados[i] = lote.get(ids[i]);
+            }
+
+            long inicio = System.nanoTime();
+            try {
+                filasCambiadas.addAndGet(usuarioRepository.actualizarActivo(ids, estados));
+            } catch (SQLException | RuntimeException e) {
+                errores.incrementAndGet();
+                devolver(lote);
+                throw e;
+            }
+
+            long nanos = System.nanoTime() - inicio;
+            lotes.incrementAndGet();
+            idsEscritos.addAndGet(ids.length);
+            nanosEscritura.addAndGet(nanos);
+            nanosEscrituraMax.accumulateAndGet(nanos, Math::max);
+            nanosUltimaEscritura = nanos;
+            return true;
+        } finally {
+            lock.lock();
+            try {
+                enVuelo = Collections.emptyMap();
+            } finally {
+                lock.unlock();
+            }
+            escribiendo.unlock();
+        }
+    }
+
+    /**
+     * Reencola un lote que no se pudo escribir; los ids que volvieron a cambiar conservan el valor nuevo.
+     */
+    private void devolver(Map<Long, Boolean> lote) {
+        lock.lock();
+        try {
+            if (pendientes.isEmpty()) {
+                primeraPendienteNanos = System.nanoTime();
+            }
+            LinkedHashMap<Long, Boolean> unidos = new LinkedHashMap<>(lote);
+            unidos.putAll(pendientes);
+            pendientes = unidos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Espera antes de reintentar; termina antes si se cierra.
+     *
+     * @return false si se cerró (o se interrumpió) durante la espera
+     */
+    private boolean esperarReintento(long ms) {
+        lock.lock();
+        try {
+            long restante = TimeUnit.MILLISECONDS.toNanos(ms);
+            while (!cerrado && restante > 0) {
+                restante = hayTrabajo.awaitNanos(restante);
+            }
+            return !cerrado;
+        } catch (InterruptedException e) {
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
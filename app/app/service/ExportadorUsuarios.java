@@ -0,0 +1,115 @@
+package app.service;
+
+import app.model.FormatoExportacion;
+import app.model.ResultadoExportacion;
+import app.repository.UsuarioRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación de la tabla de usuarios a CSV o NDJSON, en streaming y con gzip opcional.
+ *
+ * Dos caminos con la misma salida:
+ * - cursor: {@link UsuarioRepository#recorrer} + {@link EscritorExportacion} (formato en la aplicación).
+ * - COPY: {@link UsuarioRepository#exportarCopy} (formato en el servidor; el más rápido).
+ * En ambos la memoria no depende del tamaño de la tabla.
+ */
+class ExportadorUsuarios {
+
+    static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final UsuarioRepository usuarioRepository;
+
+    ExportadorUsuarios(UsuarioRepository usuarioRepository) {
+        this.usuarioRepository = usuarioRepository;
+    }
+
+    /**
+     * Exporta al archivo (se crea o se reemplaza), comprimiendo con gzip si se pide.
+     * Si la exportación falla, el archivo incompleto se elimina.
+     */
+    ResultadoExportacion exportar(Path archivo, FormatoExportacion formato, boolean gzip, boolean usarCopy)
+            throws SQLException, IOException {
+        try {
+            return exportarArchivo(archivo, formato, gzip, usarCopy);
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(archivo);
+            throw e;
+        }
+    }
+
+    private ResultadoExportacion exportarArchivo(Path archivo, FormatoExportacion formato, boolean gzip, boolean usarCopy)
+            throws SQLException, IOException {
+        long inicio = System.nanoTime();
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream archivoSalida = Channels.newOutputStream(canal);
+            GZIPOutputStream comprimido = gzip ? new GzipRapido(archivoSalida) : null;
+
+            long filas = exportar(comprimido != null ? comprimido : archivoSalida, formato, usarCopy);
+            if (comprimido != null) {
+                comprimido.finish(); // escribe el final del gzip sin cerrar el canal
+            }
+            long bytes = canal.position();
+            if (comprimido != null) {
+                comprimido.close(); // libera el Deflater
+            }
+            return new ResultadoExportacion(filas, bytes, (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
+    /**
+     * Exporta al stream (no lo cierra; sí lo vacía).
+     *
+     * @return cantidad de filas exportadas
+     */
+    long exportar(OutputStream destino, FormatoExportacion formato, boolean usarCopy) throws SQLException, IOException {
+        if (usarCopy) {
+            // El driver entrega cada fila por separado: se agrupan antes de llegar al archivo o al gzip
+            BufferedOutputStream buffer = new BufferedOutputStream(destino, TAMANO_BUFFER);
+            long filas = usuarioRepository.exportarCopy(formato, buffer);
+            buffer.flush();
+            return filas;
+        }
+
+        EscritorExportacion escritor = new EscritorExportacion(destino, formato);
+        escritor.encabezado();
+        try {
+            usuarioRepository.recorrer(u -> {
+                try {
+                    escritor.escribir(u);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        escritor.vaciar();
+        destino.flush();
+        return escritor.getFilas();
+    }
+
+    /**
+     * gzip con el nivel de compresión más rápido: con el nivel por defecto la compresión,
+     * no la BD, pasa a ser el cuello de botella de la exportación.
+     */
+    private static final class GzipRapido extends GZIPOutputStream {
+        GzipRapido(OutputStream out) throws IOException {
+            super(out, TAMANO_BUFFER);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+}
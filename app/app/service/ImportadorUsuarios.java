@@ -0,0 +1,201 @@
+package app.service;
+
+import app.index.VerificadorUnicidad;
+import app.model.RechazoImportacion;
+import app.model.ResultadoImportacion;
+import app.repository.UsuarioRepository;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Importación masiva de usuarios desde CSV ({@code rut,dv,nombre,email}, encabezado opcional).
+ *
+ * El archivo se lee en streaming y se valida por lotes en paralelo con las mismas reglas
+ * que {@link UsuarioService#crearUsuario}. Los lotes se envían en orden al COPY del repositorio,
+ * con un máximo de lotes en vuelo para que la memoria no dependa del tamaño del archivo.
+ */
+class ImportadorUsuarios {
+
+    static final int TAMANO_LOTE = 5_000;
+
+    private final UsuarioRepository usuarioRepository;
+    private final VerificadorUnicidad verificador; // puede ser null
+    private final int hilos;
+
+    ImportadorUsuarios(UsuarioRepository usuarioRepository, VerificadorUnicidad verificador) {
+        this(usuarioRepository, verificador, Runtime.getRuntime().availableProcessors());
+    }
+
+    ImportadorUsuarios(UsuarioRepository usuarioRepository, VerificadorUnicidad verificador, int hilos) {
+        this.usuarioRepository = usuarioRepository;
+        this.verificador = verificador;
+        this.hilos = Math.max(1, hilos);
+    }
+
+    ResultadoImportacion importar(Reader reader) throws SQLException, IOException {
+        long inicio = System.nanoTime();
+        LectorCsv lector = new LectorCsv(reader);
+        List<RechazoImportacion> rechazos = new ArrayList<>();
+        long[] contadores = new long[2]; // [0] leídas, [1] enviadas a la BD
+
+        ExecutorService executor = Executors.newFixedThreadPool(hilos, r -> {
+            Thread t = new Thread(r, "importacion-validacion");
+            t.setDaemon(true);
+            return t;
+        });
+
+        List<RechazoImportacion> rechazosBd;
+        try {
+            rechazosBd = usuarioRepository.cargarMasivo(destino -> {
+                Deque<Future<Lote>> enVuelo = new ArrayDeque<>();
+                List<String> registro = lector.siguiente();
+                if (registro != null && esEncabezado(registro)) {
+                    registro = lector.siguiente();
+                }
+
+                while (registro != null) {
+                    Lote lote = new Lote();
+                    while (registro != null && lote.size() < TAMANO_LOTE) {
+                        lote.agregar(lector.getLineaRegistro(), registro);
+                        registro = lector.siguiente();
+                    }
+                    contadores[0] += lote.size();
+                    enVuelo.addLast(executor.submit(lote::validar));
+
+                    if (enVuelo.size() > hilos * 2) {
+                        escribir(esperar(enVuelo.pollFirst()), destino, rechazos, contadores, verificador);
+                    }
+                }
+                while (!enVuelo.isEmpty()) {
+                    escribir(esperar(enVuelo.pollFirst()), destino, rechazos, contadores, verificador);
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (RechazoImportacion r : rechazosBd) {
+            rechazos.add(new RechazoImportacion(r.getLinea(), mensaje(r.getMotivo())));
+        }
+        rechazos.sort(Comparator.comparingLong(RechazoImportacion::getLinea));
+
+        long insertadas = contadores[1] - rechazosBd.size();
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        return new ResultadoImportacion(contadores[0], insertadas, rechazos, duracionMs);
+    }
+
+    /**
+     * Envía las filas válidas del lote al COPY. También se registran en el verificador de unicidad
+     * (con id desconocido): si luego resultan rechazadas solo generan una confirmación extra en la BD.
+     */
+    private static void escribir(Lote lote, UsuarioRepository.DestinoCarga destino, List<RechazoImportacion> rechazos,
+                                 long[] contadores, VerificadorUnicidad verificador) throws SQLException {
+        for (int i = 0; i < lote.size(); i++) {
+            String error = lote.errores[i];
+            if (error != null) {
+                rechazos.add(new RechazoImportacion(lote.lineas[i], error));
+            } else {
+                destino.agregar(lote.lineas[i], lote.ruts[i], lote.dvs[i], lote.nombres[i], lote.emails[i]);
+                contadores[1]++;
+                if (verificador != null) {
+                    verificador.registrar(VerificadorUnicidad.ID_DESCONOCIDO, lote.ruts[i], lote.dvs[i], lote.emails[i]);
+                }
+            }
+        }
+    }
+
+    private static Lote esperar(Future<Lote> futuro) throws IOException {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importación interrumpida.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error validando lote: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static boolean esEncabezado(List<String> registro) {
+        return !registro.isEmpty() && registro.get(0).trim().equalsIgnoreCase("rut");
+    }
+
+    private static String mensaje(String motivo) {
+        switch (motivo) {
+            case UsuarioRepository.MOTIVO_EMAIL_EXISTE:
+                return "El email ya existe.";
+            case UsuarioRepository.MOTIVO_RUT_DV_EXISTE:
+                return "El RUT-DV ya existe.";
+            case UsuarioRepository.MOTIVO_EMAIL_DUPLICADO:
+                return "Email duplicado en el archivo.";
+            case UsuarioRepository.MOTIVO_RUT_DV_DUPLICADO:
+                return "RUT-DV duplicado en el archivo.";
+            default:
+                return "Ya existe un usuario con ese email o RUT-DV.";
+        }
+    }
+
+    /**
+     * Lote de registros crudos; al validarse queda con los valores normalizados o el error por fila.
+     */
+    private static final class Lote {
+        final long[] lineas = new long[TAMANO_LOTE];
+        final List<List<String>> registros = new ArrayList<>(TAMANO_LOTE);
+
+        final int[] ruts = new int[TAMANO_LOTE];
+        final String[] dvs = new String[TAMANO_LOTE];
+        final String[] nombres = new String[TAMANO_LOTE];
+        final String[] emails = new String[TAMANO_LOTE];
+        final String[] errores = new String[TAMANO_LOTE];
+        int cantidad;
+
+        int size() {
+            return cantidad;
+        }
+
+        void agregar(long linea, List<String> registro) {
+            lineas[cantidad++] = linea;
+            registros.add(registro);
+        }
+
+        Lote validar() {
+            for (int i = 0; i < cantidad; i++) {
+                List<String> campos = registros.get(i);
+                if (campos.size() != 4) {
+                    errores[i] = "Cantidad de columnas inválida (se esperan rut,dv,nombre,email).";
+                    continue;
+                }
+
+                try {
+                    int rut = Integer.parseInt(campos.get(0).trim());
+                    String dv = campos.get(1);
+                    String nombre = campos.get(2);
+                    String email = campos.get(3);
+
+                    String emailNorm = UsuarioService.validarDatos(rut, dv, nombre, email);
+
+                    ruts[i] = rut;
+                    dvs[i] = UsuarioService.normalizarDv(dv);
+                    nombres[i] = nombre.trim();
+                    emails[i] = emailNorm;
+                } catch (NumberFormatException e) {
+                    errores[i] = "RUT inválido.";
+                } catch (IllegalArgumentException e) {
+                    errores[i] = e.getMessage();
+                }
+            }
+            registros.clear();
+            return this;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package app.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector CSV en streaming (RFC 4180): separador coma, comillas dobles opcionales,
+ * comillas escapadas como "" y saltos de línea dentro de campos entre comillas.
+ */
+public class LectorCsv {
+
+    private final Reader reader;
+    private final char[] buffer = new char[64 * 1024];
+    private int pos;
+    private int fin;
+
+    private long linea = 1;
+    private long lineaRegistro;
+    private final StringBuilder campo = new StringBuilder(64);
+
+    public LectorCsv(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Línea (base 1) donde comienza el último registro leído.
+     */
+    public long getLineaRegistro() {
+        return lineaRegistro;
+    }
+
+    /**
+     * Siguiente registro, o null al final del archivo. Las líneas vacías se omiten.
+     * Los fines de línea pueden ser \n, \r\n o \r solo.
+     */
+    public List<String> siguiente() throws IOException {
+        int c = leer();
+        while (c == '\n' || c == '\r') {
+            finDeLinea(c);
+            c = leer();
+        }
+        if (c < 0) {
+            return null;
+        }
+
+        lineaRegistro = linea;
+        List<String> campos = new ArrayList<>(4);
+        campo.setLength(0);
+        boolean entreComillas = false;
+
+        while (true) {
+            if (c < 0) {
+                if (entreComillas) {
+                    throw new IOException("Comillas sin cerrar en el registro de la línea " + lineaRegistro);
+                }
+                campos.add(campo.toString());
+                return campos;
+            }
+
+            if (entreComillas) {
+                if (c == '"') {
+                    int sig = leer();
+                    if (sig == '"') {
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                        c = sig;
+                        continue;
+                    }
+                } else {
+                    campo.append((char) c);
+                    if ((c == '\r' || c == '\n') && finDeLinea(c)) {
+                        campo.append('\n'); // el \n de un \r\n dentro del campo
+                    }
+                }
+            } else if (c == '"' && campo.length() == 0) {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                finDeLinea(c);
+                campos.add(campo.toString());
+                return campos;
+            } else {
+                campo.append((char) c);
+            }
+            c = leer();
+        }
+    }
+
+    /**
+     * Cuenta un fin de línea que empieza en {@code c}: \r\n cuenta una sola vez (consume el \n).
+     *
+     * @return true si consumió el \n de un \r\n
+     */
+    private boolean finDeLinea(int c) throws IOException {
+        linea++;
+        if (c == '\r') {
+            if (leer() == '\n') {
+                return true;
+            }
+            retroceder();
+        }
+        return false;
+    }
+
+    private int leer() throws IOException {
+        if (pos == fin) {
+            fin = reader.read(buffer, 0, buffer.length);
+            pos = 0;
+            if (fin <= 0) {
+                fin = 0;
+                return -1;
+            }
+        }
+        return buffer[pos++];
+    }
+
+    private void retroceder() {
+        if (pos > 0) pos--;
+    }
+}
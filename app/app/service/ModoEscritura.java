@@ -0,0 +1,27 @@
+package app.service;
+
+import app.config.AppConfig;
+
+/**
+ * Estrategia de escritura para crear / actualizar usuarios.
+ */
+public enum ModoEscritura {
+
+    /** Consultas de existencia previas y luego INSERT / UPDATE (3 a 4 viajes a la BD). */
+    VERIFICACION_PREVIA,
+
+    /** Una sola sentencia por operación; el conflicto de unicidad se informa en el resultado. */
+    SENTENCIA_UNICA;
+
+    /**
+     * Modo configurado en {@code usuarios.escritura.modo} (por defecto VERIFICACION_PREVIA).
+     */
+    public static ModoEscritura desdeConfig() {
+        String valor = AppConfig.get("usuarios.escritura.modo", VERIFICACION_PREVIA.name());
+        try {
+            return valueOf(valor.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("usuarios.escritura.modo inválido: " + valor, e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package app.service;
+
+import app.repository.ConflictoUnicidad;
+
+/**
+ * Email o RUT-DV que ya usa otro usuario. Es una validación (IllegalArgumentException), pero se
+ * distingue por tipo: la API la responde con 409 en vez de 400.
+ */
+public class UsuarioDuplicadoException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ConflictoUnicidad conflicto;
+
+    /**
+     * @param sufijo texto tras "ya existe" (p.ej. " para otro usuario"), o vacío
+     */
+    public UsuarioDuplicadoException(ConflictoUnicidad conflicto, String sufijo) {
+        super(mensaje(conflicto, sufijo));
+        this.conflicto = conflicto;
+    }
+
+    public ConflictoUnicidad getConflicto() {
+        return conflicto;
+    }
+
+    private static String mensaje(ConflictoUnicidad conflicto, String sufijo) {
+        switch (conflicto) {
+            case EMAIL:
+                return "El email ya existe" + sufijo + ".";
+            case RUT_DV:
+                return "El RUT-DV ya existe" + sufijo + ".";
+            default:
+                return "Ya existe un usuario con ese email o RUT-DV.";
+        }
+    }
+}
@@ -1,11 +1,39 @@
 package app.service;
 
+import app.cache.CambiosUsuariosListener;
+import app.cache.UsuarioCache;
+import app.index.ArchivoInstantanea;
+import app.index.InstantaneaUsuarios;
+import app.index.VerificadorUnicidad;
+import app.metricas.Metricas;
+import app.model.ConteoPorDia;
+import app.model.ConteoPorDominio;
+import app.model.Email;
+import app.model.EstadisticasUsuarios;
+import app.model.FiltroUsuarios;
+import app.model.FormatoExportacion;
+import app.model.ResultadoExportacion;
+import app.model.ResultadoImportacion;
+import app.model.Rut;
 import app.model.Usuario;
+import app.repository.ConflictoUnicidad;
+import app.repository.ResultadoEscritura;
 import app.repository.UsuarioRepository;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Servicio de lógica de negocio para Usuario.
@@ -13,14 +41,145 @@ import java.util.regex.Pattern;
  */
 public class UsuarioService {
 
-    private final UsuarioRepository usuarioRepository;
+    public static final int TAMANO_PAGINA_MAX = 1000;
 
-    // Validación simple de email (suficiente para prueba técnica)
-    private static final Pattern EMAIL_PATTERN =
-            Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+    private final UsuarioRepository usuarioRepository;
+    private final ModoEscritura modoEscritura;
+    private final UsuarioCache cache; // null = sin caché
+    private final VerificadorUnicidad verificador; // null = chequeos de duplicado siempre en la BD
+    private final EscrituraDiferidaActivo escrituraDiferida; // null = cambios de estado directo a la BD
+    private final ContadoresUsuarios contadores; // null = estadísticas siempre con consultas agregadas
 
     public UsuarioService() {
-        this.usuarioRepository = new UsuarioRepository();
+        this(new UsuarioRepository());
+    }
+
+    UsuarioService(UsuarioRepository usuarioRepository) {
+        this(usuarioRepository, ModoEscritura.desdeConfig(), UsuarioCache.desdeConfig(),
+                VerificadorUnicidad.desdeConfig(), EscrituraDiferidaActivo.desdeConfig(usuarioRepository),
+                ContadoresUsuarios.desdeConfig());
+    }
+
+    public UsuarioService(UsuarioRepository usuarioRepository, ModoEscritura modoEscritura) {
+        this(usuarioRepository, modoEscritura, null);
+    }
+
+    public UsuarioService(UsuarioRepository usuarioRepository, ModoEscritura modoEscritura, UsuarioCache cache) {
+        this(usuarioRepository, modoEscritura, cache, null);
+    }
+
+    public UsuarioService(UsuarioRepository usuarioRepository, ModoEscritura modoEscritura, UsuarioCache cache,
+                          VerificadorUnicidad verificador) {
+        this(usuarioRepository, modoEscritura, cache, verificador, null);
+    }
+
+    public UsuarioService(UsuarioRepository usuarioRepository, ModoEscritura modoEscritura, UsuarioCache cache,
+                          VerificadorUnicidad verificador, EscrituraDiferidaActivo escrituraDiferida) {
+        this(usuarioRepository, modoEscritura, cache, verificador, escrituraDiferida, null);
+    }
+
+    public UsuarioService(UsuarioRepository usuarioRepository, ModoEscritura modoEscritura, UsuarioCache cache,
+                          VerificadorUnicidad verificador, EscrituraDiferidaActivo escrituraDiferida,
+                          ContadoresUsuarios contadores) {
+        this.usuarioRepository = usuarioRepository;
+        this.modoEscritura = modoEscritura;
+        this.cache = cache;
+        this.verificador = verificador;
+        this.escrituraDiferida = escrituraDiferida;
+        this.contadores = contadores;
+    }
+
+    /**
+     * Servicio configurado desde application.properties; con las métricas habilitadas
+     * ({@code metricas.habilitado}) cada operación se mide ({@link UsuarioServiceMedido}).
+     */
+    public static UsuarioService desdeConfig() {
+        UsuarioRepository repository = new UsuarioRepository();
+        return Metricas.isHabilitadas() ? new UsuarioServiceMedido(repository) : new UsuarioService(repository);
+    }
+
+    /**
+     * Caché de usuarios por id, o null si está deshabilitada.
+     */
+    public UsuarioCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Carga (o recarga) el verificador de unicidad recorriendo la tabla.
+     *
+     * @return usuarios cargados, o -1 si no hay verificador configurado
+     */
+    public long cargarVerificadorUnicidad() {
+        if (verificador == null) {
+            return -1;
+        }
+        try {
+            return verificador.cargar(usuarioRepository);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al cargar verificador de unicidad: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Carga el verificador de unicidad desde una instantánea, sin recorrer la tabla.
+     *
+     * @return usuarios cargados, o -1 si no hay verificador configurado
+     */
+    public long cargarVerificadorUnicidad(InstantaneaUsuarios instantanea) {
+        return verificador == null ? -1 : verificador.cargar(instantanea);
+    }
+
+    /**
+     * Recarga el verificador cada {@code periodoMs} en un hilo de fondo, para descartar valores
+     * antiguos (y, en el filtro de Bloom, redimensionarlo si la tabla creció).
+     *
+     * @return la tarea programada, o null si no hay verificador
+     */
+    public ScheduledExecutorService programarRecargaVerificador(long periodoMs) {
+        if (verificador == null || periodoMs <= 0) {
+            return null;
+        }
+        ScheduledExecutorService programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "unicidad-recarga");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                verificador.cargar(usuarioRepository);
+            } catch (SQLException | RuntimeException ignored) {
+                // Se sigue usando el contenido anterior; se reintenta en el próximo período
+            }
+        }, periodoMs, periodoMs, TimeUnit.MILLISECONDS);
+        return programador;
+    }
+
+    public VerificadorUnicidad getVerificadorUnicidad() {
+        return verificador;
+    }
+
+    /**
+     * Escritura diferida de activar/desactivar, o null si los cambios van directo a la BD.
+     */
+    public EscrituraDiferidaActivo getEscrituraDiferida() {
+        return escrituraDiferida;
+    }
+
+    /**
+     * Inicia el listener de cambios (LISTEN/NOTIFY) que mantiene la caché al día con las
+     * escrituras de otras instancias. Requiere notificaciones.sql aplicado en la BD.
+     *
+     * @param refrescar true para recargar las entradas afectadas en vez de solo desalojarlas
+     * @return el listener iniciado, o null si la caché está deshabilitada
+     */
+    public CambiosUsuariosListener iniciarListenerCambios(boolean refrescar) {
+        if (cache == null) {
+            return null;
+        }
+        // En el primario: la notificación llega antes de que las réplicas apliquen el cambio
+        UsuarioCache.Cargador refresco = refrescar ? usuarioRepository::buscarPorIdEnPrimario : null;
+        return new CambiosUsuariosListener(cache, refresco).iniciar();
     }
 
     /**
@@ -35,6 +194,109 @@ public class UsuarioService {
         }
     }
 
+    /**
+     * Página de usuarios con id mayor a {@code afterId} (paginación por clave).
+     * Para la primera página usar {@code afterId = 0}.
+     */
+    public List<Usuario> listarUsuariosPagina(long afterId, int tamanoPagina) {
+        if (afterId < 0) {
+            throw new IllegalArgumentException("ID de inicio inválido.");
+        }
+        if (tamanoPagina <= 0 || tamanoPagina > TAMANO_PAGINA_MAX) {
+            throw new IllegalArgumentException("Tamaño de página debe estar entre 1 y " + TAMANO_PAGINA_MAX + ".");
+        }
+
+        try {
+            return usuarioRepository.listarDesde(afterId, tamanoPagina);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al listar usuarios: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Busca por nombre o email (sin distinguir mayúsculas), paginado por id igual que
+     * {@link #listarUsuariosPagina}. Con 1 o 2 caracteres solo se buscan prefijos.
+     */
+    public List<Usuario> buscarUsuarios(String texto, long afterId, int tamanoPagina) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("Texto de búsqueda es obligatorio.");
+        }
+        if (texto.trim().length() > 200) {
+            throw new IllegalArgumentException("Texto de búsqueda excede 200 caracteres.");
+        }
+        if (afterId < 0) {
+            throw new IllegalArgumentException("ID de inicio inválido.");
+        }
+        if (tamanoPagina <= 0 || tamanoPagina > TAMANO_PAGINA_MAX) {
+            throw new IllegalArgumentException("Tamaño de página debe estar entre 1 y " + TAMANO_PAGINA_MAX + ".");
+        }
+
+        try {
+            return usuarioRepository.buscar(texto, afterId, tamanoPagina);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al buscar usuarios: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recorre todos los usuarios sin cargarlos en memoria (cursor del servidor).
+     *
+     * @return cantidad de usuarios recorridos
+     */
+    public long recorrerUsuarios(Consumer<Usuario> consumidor) {
+        try {
+            return usuarioRepository.recorrer(consumidor);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al recorrer usuarios: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copia columnar de toda la tabla (ver {@link InstantaneaUsuarios}), cargada desde el cursor
+     * para recorridos, filtros y conteos en memoria sin volver a la BD.
+     */
+    public InstantaneaUsuarios cargarInstantanea() {
+        try {
+            return InstantaneaUsuarios.cargar(usuarioRepository);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al cargar la instantánea de usuarios: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Instantánea lista para usar con arranque en frío rápido: mapea el archivo guardado (si existe y
+     * es válido), la pone al día con lo cambiado en la BD desde entonces y, si hubo cambios, lo
+     * vuelve a guardar. Sin archivo válido hace la carga completa y lo crea.
+     */
+    public InstantaneaUsuarios abrirInstantanea(Path archivo) {
+        try {
+            InstantaneaUsuarios inst = null;
+            if (Files.isRegularFile(archivo)) {
+                try {
+                    inst = ArchivoInstantanea.abrir(archivo, false);
+                } catch (IllegalArgumentException e) {
+                    // Dañado o de otro formato: se regenera desde la BD
+                }
+            }
+            InstantaneaUsuarios alDia = inst == null
+                    ? InstantaneaUsuarios.cargar(usuarioRepository)
+                    : inst.ponerAlDia(usuarioRepository);
+            if (alDia != inst) {
+                try {
+                    ArchivoInstantanea.guardar(alDia, archivo);
+                } catch (IOException e) {
+                    // Se sigue con la copia en memoria; el archivo se actualiza en la próxima apertura
+                    // (p.ej. en Windows no se puede reemplazar un archivo que sigue mapeado)
+                }
+            }
+            return alDia;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Error al leer el archivo: " + e.getMessage(), e);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al cargar la instantánea de usuarios: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Busca un usuario por ID.
      */
@@ -42,79 +304,128 @@ public class UsuarioService {
         validarId(id);
 
         try {
-            return usuarioRepository.buscarPorId(id);
+            return buscar(id);
         } catch (SQLException e) {
             throw new RuntimeException("Error al buscar usuario: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Busca varios usuarios por ID con una consulta por tramo en vez de una por id
+     * (primero en la caché, si hay). Los ids inexistentes no aparecen en el mapa.
+     */
+    public Map<Long, Usuario> buscarPorIds(Collection<Long> ids) {
+        validarIds(ids);
+
+        try {
+            Map<Long, Usuario> usuarios = cache != null
+                    ? cache.obtenerTodos(ids, usuarioRepository::buscarPorIds)
+                    : usuarioRepository.buscarPorIds(ids);
+            if (escrituraDiferida != null) {
+                usuarios.values().forEach(this::conEstadoPendiente);
+            }
+            return usuarios;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al buscar usuarios: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Crea un nuevo usuario.
      */
     public Usuario crearUsuario(Integer rut, String dv, String nombre, String email) {
-        validarDatos(rut, dv, nombre, email);
+        String emailNorm = validarDatos(rut, dv, nombre, email);
 
         String dvNorm = normalizarDv(dv);
         String nombreNorm = nombre.trim();
-        String emailNorm = email.trim().toLowerCase();
+
+        if (modoEscritura == ModoEscritura.SENTENCIA_UNICA) {
+            return crearUnaSentencia(rut, dvNorm, nombreNorm, emailNorm);
+        }
 
         try {
             // Validar duplicados antes de intentar insertar (mejor UX)
-            if (usuarioRepository.existeEmail(emailNorm)) {
-                throw new IllegalArgumentException("El email ya existe.");
+            if (existeEmail(emailNorm, null)) {
+                throw new UsuarioDuplicadoException(ConflictoUnicidad.EMAIL, "");
             }
-            if (usuarioRepository.existeRutDv(rut, dvNorm)) {
-                throw new IllegalArgumentException("El RUT-DV ya existe.");
+            if (existeRutDv(rut, dvNorm, null)) {
+                throw new UsuarioDuplicadoException(ConflictoUnicidad.RUT_DV, "");
             }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al crear usuario: " + e.getMessage(), e);
+        }
 
-            Usuario creado = usuarioRepository.crear(rut, dvNorm, nombreNorm, emailNorm);
-            if (creado == null) {
-                throw new RuntimeException("No se pudo crear el usuario.");
+        return insertar(rut, dvNorm, nombreNorm, emailNorm);
+    }
+
+    /**
+     * Importación masiva desde CSV ({@code rut,dv,nombre,email}, encabezado opcional).
+     * Aplica las mismas validaciones que {@link #crearUsuario}; las filas inválidas o duplicadas
+     * se informan como rechazos y el resto se inserta.
+     */
+    public ResultadoImportacion importarUsuariosCsv(Reader reader) {
+        try {
+            ResultadoImportacion r = new ImportadorUsuarios(usuarioRepository, verificador).importar(reader);
+            if (contadores != null) {
+                contadores.creados(LocalDate.now(), r.getInsertadas(), r.getInsertadas()); // se insertan activos
             }
-            return creado;
+            return r;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Error al leer el archivo: " + e.getMessage(), e);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al importar usuarios: " + e.getMessage(), e);
+        }
+    }
 
+    /**
+     * Exporta todos los usuarios al archivo, ordenados por id, en streaming (ver {@link ExportadorUsuarios}).
+     *
+     * @param gzip     comprime la salida
+     * @param usarCopy formatea en el servidor con COPY en vez de recorrer con cursor (misma salida)
+     */
+    public ResultadoExportacion exportarUsuarios(Path archivo, FormatoExportacion formato, boolean gzip, boolean usarCopy) {
+        try {
+            return new ExportadorUsuarios(usuarioRepository).exportar(archivo, formato, gzip, usarCopy);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Error al escribir el archivo: " + e.getMessage(), e);
         } catch (SQLException e) {
-            // Si igual cae por UNIQUE, entregamos mensaje claro
-            if ("23505".equals(e.getSQLState())) {
-                throw new IllegalArgumentException("Ya existe un usuario con ese email o RUT-DV.");
-            }
-            throw new RuntimeException("Error al crear usuario: " + e.getMessage(), e);
+            throw new RuntimeException("Error al exportar usuarios: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Actualiza los datos de un usuario existente.
+     * Actualiza los datos de un usuario existente. Sin versión gana la última escritura: para no pisar
+     * un cambio concurrente use {@link #actualizarUsuarioSiVersion}.
      */
     public boolean actualizarUsuario(Long id, Integer rut, String dv, String nombre, String email) {
         validarId(id);
-        validarDatos(rut, dv, nombre, email);
+        String emailNorm = validarDatos(rut, dv, nombre, email);
 
         String dvNorm = normalizarDv(dv);
         String nombreNorm = nombre.trim();
-        String emailNorm = email.trim().toLowerCase();
+
+        if (modoEscritura == ModoEscritura.SENTENCIA_UNICA) {
+            return actualizarUnaSentencia(id, rut, dvNorm, nombreNorm, emailNorm);
+        }
 
         try {
-            Usuario existente = usuarioRepository.buscarPorId(id);
+            Usuario existente = buscar(id);
             if (existente == null) {
                 return false;
             }
 
             // Validar duplicados excluyendo el mismo ID
-            if (usuarioRepository.existeEmailParaOtroId(id, emailNorm)) {
-                throw new IllegalArgumentException("El email ya existe para otro usuario.");
+            if (existeEmail(emailNorm, id)) {
+                throw new UsuarioDuplicadoException(ConflictoUnicidad.EMAIL, " para otro usuario");
             }
-            if (usuarioRepository.existeRutDvParaOtroId(id, rut, dvNorm)) {
-                throw new IllegalArgumentException("El RUT-DV ya existe para otro usuario.");
+            if (existeRutDv(rut, dvNorm, id)) {
+                throw new UsuarioDuplicadoException(ConflictoUnicidad.RUT_DV, " para otro usuario");
             }
-
-            return usuarioRepository.actualizar(id, rut, dvNorm, nombreNorm, emailNorm);
-
         } catch (SQLException e) {
-            if ("23505".equals(e.getSQLState())) {
-                throw new IllegalArgumentException("Ya existe un usuario con ese email o RUT-DV.");
-            }
             throw new RuntimeException("Error al actualizar usuario: " + e.getMessage(), e);
         }
+
+        return guardarActualizacion(id, rut, dvNorm, nombreNorm, emailNorm);
     }
 
     /**
@@ -124,13 +435,13 @@ public class UsuarioService {
         validarId(id);
 
         try {
-            Usuario u = usuarioRepository.buscarPorId(id);
+            Usuario u = buscar(id);
             if (u == null) return false;
 
             if (Boolean.TRUE.equals(u.getActivo())) {
                 return true; // ya estaba activo
             }
-            return usuarioRepository.actualizarActivo(id, true);
+            return actualizarActivo(id, true);
 
         } catch (SQLException e) {
             throw new RuntimeException("Error al activar usuario: " + e.getMessage(), e);
@@ -144,13 +455,13 @@ public class UsuarioService {
         validarId(id);
 
         try {
-            Usuario u = usuarioRepository.buscarPorId(id);
+            Usuario u = buscar(id);
             if (u == null) return false;
 
             if (Boolean.FALSE.equals(u.getActivo())) {
                 return true; // ya estaba inactivo
             }
-            return usuarioRepository.actualizarActivo(id, false);
+            return actualizarActivo(id, false);
 
         } catch (SQLException e) {
             throw new RuntimeException("Error al desactivar usuario: " + e.getMessage(), e);
@@ -159,31 +470,498 @@ public class UsuarioService {
 
     /**
      * Toggle para cumplir el menú "Activar / Desactivar" en una sola opción.
+     * Se resuelve en el servidor ({@code SET activo = NOT activo}): sin lectura previa ni carrera
+     * entre dos toggles concurrentes.
      */
     public boolean activarDesactivarUsuario(Long id) {
         validarId(id);
 
         try {
-            Usuario u = usuarioRepository.buscarPorId(id);
-            if (u == null) return false;
+            if (escrituraDiferida != null) {
+                Usuario u = buscar(id);
+                if (u == null) return false;
+                boolean nuevo = escrituraDiferida.alternar(id, Boolean.TRUE.equals(u.getActivo()));
+                if (cache != null) {
+                    cache.actualizarActivo(id, nuevo);
+                }
+                registrarEstado(nuevo, 1);
+                return true;
+            }
+
+            Boolean nuevoEstado = usuarioRepository.alternarActivo(id);
+            if (nuevoEstado != null) {
+                registrarEstado(nuevoEstado, 1);
+            }
+            if (cache != null) {
+                if (nuevoEstado != null) {
+                    cache.actualizarActivo(id, nuevoEstado);
+                } else {
+                    cache.invalidar(id);
+                }
+            }
+            return nuevoEstado != null;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al cambiar estado del usuario: " + e.getMessage(), e);
+        }
+    }
+
+    // ------------------ Actualización condicional (versión) ------------------
+
+    /**
+     * Actualiza solo si el usuario sigue en {@code version} (la que leyó el llamador), en una sentencia
+     * y sin lectura previa. Si otra escritura se adelantó no se pisa: el resultado lo informa con
+     * {@link ResultadoEscritura#isConflictoVersion()} para que el llamador relea y decida.
+     *
+     * @throws IllegalArgumentException datos inválidos, o email / RUT-DV de otro usuario
+     */
+    public ResultadoEscritura actualizarUsuarioSiVersion(Long id, long version, Integer rut, String dv, String nombre,
+                                                         String email) {
+        validarId(id);
+        String emailNorm = validarDatos(rut, dv, nombre, email);
+
+        String dvNorm = normalizarDv(dv);
+        String nombreNorm = nombre.trim();
 
-            boolean nuevoEstado = !Boolean.TRUE.equals(u.getActivo());
-            return usuarioRepository.actualizarActivo(id, nuevoEstado);
+        try {
+            ResultadoEscritura r = usuarioRepository.actualizarSiVersion(id, version, rut, dvNorm, nombreNorm, emailNorm);
+            if (r.getConflicto() != null) {
+                throw new UsuarioDuplicadoException(r.getConflicto(), " para otro usuario");
+            }
+            if (r.isExitoso()) {
+                registrarActualizado(id, rut, dvNorm, emailNorm);
+            } else if (cache != null) {
+                cache.invalidar(id); // la copia en caché quedó atrás (o el usuario ya no existe)
+            }
+            return r;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al actualizar usuario: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deja el estado en {@code activo} solo si el usuario sigue en {@code version}; ver
+     * {@link #actualizarUsuarioSiVersion}.
+     */
+    public ResultadoEscritura cambiarEstadoSiVersion(Long id, long version, boolean activo) {
+        validarId(id);
 
+        try {
+            if (escrituraDiferida != null && escrituraDiferida.estadoPendiente(id) != null) {
+                vaciarEscrituraDiferida(); // el cambio pendiente es anterior: debe contar para la versión
+            }
+            ResultadoEscritura r = usuarioRepository.cambiarActivoSiVersion(id, version, activo);
+            if (cache != null) {
+                cache.invalidar(id);
+            }
+            if (contadores != null && r.isExitoso()) {
+                contadores.invalidar(); // no se sabe si el estado cambió o ya era ese
+            }
+            return r;
         } catch (SQLException e) {
             throw new RuntimeException("Error al cambiar estado del usuario: " + e.getMessage(), e);
         }
     }
 
+    // ------------------ Cambios de estado masivos ------------------
+
+    /**
+     * Deja activos o inactivos a todos los ids (los inexistentes se ignoran), en una transacción.
+     *
+     * @return usuarios que cambiaron de estado
+     */
+    public int cambiarEstadoUsuarios(Collection<Long> ids, boolean activo) {
+        validarIds(ids);
+
+        try {
+            vaciarEscrituraDiferida();
+            int cambiados = usuarioRepository.actualizarActivo(ids, activo);
+            if (cache != null) {
+                cache.actualizarActivo(ids, activo);
+            }
+            registrarEstado(activo, cambiados);
+            return cambiados;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al cambiar estado de usuarios: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deja activos o inactivos a todos los usuarios que cumplen el filtro, con una sola sentencia.
+     * El filtro debe tener al menos un criterio.
+     *
+     * @return usuarios que cambiaron de estado
+     */
+    public int cambiarEstadoUsuarios(FiltroUsuarios filtro, boolean activo) {
+        validarFiltro(filtro);
+
+        try {
+            vaciarEscrituraDiferida();
+            int cambiados = usuarioRepository.actualizarActivo(filtro, activo);
+            if (cache != null && cambiados > 0) {
+                cache.invalidarTodo(); // no se sabe qué ids cambiaron
+            }
+            registrarEstado(activo, cambiados);
+            return cambiados;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al cambiar estado de usuarios: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Alterna el estado de todos los ids en el servidor, en una transacción.
+     *
+     * @return nuevo estado por id; los inexistentes no aparecen
+     */
+    public Map<Long, Boolean> alternarEstadoUsuarios(Collection<Long> ids) {
+        validarIds(ids);
+
+        try {
+            vaciarEscrituraDiferida();
+            Map<Long, Boolean> estados = usuarioRepository.alternarActivo(ids);
+            if (!estados.isEmpty()) {
+                List<Long> activados = new ArrayList<>();
+                List<Long> desactivados = new ArrayList<>();
+                for (Map.Entry<Long, Boolean> e : estados.entrySet()) {
+                    (e.getValue() ? activados : desactivados).add(e.getKey());
+                }
+                if (cache != null) {
+                    cache.actualizarActivo(activados, true);
+                    cache.actualizarActivo(desactivados, false);
+                }
+                if (contadores != null) {
+                    contadores.estadoCambiado(activados.size(), desactivados.size());
+                }
+            }
+            return estados;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al cambiar estado de usuarios: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Cantidad de usuarios que cumplen el filtro (p.ej. para confirmar un cambio masivo).
+     */
+    public long contarUsuarios(FiltroUsuarios filtro) {
+        if (filtro == null) throw new IllegalArgumentException("Filtro es obligatorio.");
+
+        try {
+            return usuarioRepository.contar(filtro);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al contar usuarios: " + e.getMessage(), e);
+        }
+    }
+
+    // ------------------ Estadísticas ------------------
+
+    /**
+     * Total, activos e inactivos. Con contadores en memoria ({@code estadisticas.contadores.habilitado})
+     * se responde sin consultar la BD (salvo la primera vez); si no, con una consulta agregada.
+     */
+    public EstadisticasUsuarios obtenerEstadisticas() {
+        try {
+            if (contadores != null) {
+                EstadisticasUsuarios e = contadores.estadisticas();
+                if (e == null) {
+                    contadores.cargar(usuarioRepository);
+                    e = contadores.estadisticas();
+                }
+                if (e != null) {
+                    return e;
+                }
+            }
+            return usuarioRepository.contarPorEstado();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al calcular estadísticas: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Usuarios creados por día en {@code [desde, hasta)} (null = sin límite); los días sin altas no
+     * aparecen. Con contadores en memoria no consulta la BD.
+     */
+    public List<ConteoPorDia> contarCreadosPorDia(LocalDate desde, LocalDate hasta) {
+        if (desde != null && hasta != null && !desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("La fecha desde debe ser anterior a la fecha hasta.");
+        }
+        try {
+            if (contadores != null) {
+                if (!contadores.isCargados()) {
+                    contadores.cargar(usuarioRepository);
+                }
+                List<ConteoPorDia> dias = contadores.creadosPorDia(desde, hasta);
+                if (dias != null) {
+                    return dias;
+                }
+            }
+            return usuarioRepository.contarCreadosPorDia(desde, hasta);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al calcular estadísticas: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Los {@code limite} dominios de email con más usuarios (siempre con una consulta agregada).
+     */
+    public List<ConteoPorDominio> contarPorDominio(int limite) {
+        if (limite <= 0 || limite > TAMANO_PAGINA_MAX) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + TAMANO_PAGINA_MAX + ".");
+        }
+        try {
+            return usuarioRepository.contarPorDominio(limite);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al calcular estadísticas: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Contadores de estadísticas en memoria, o null si están deshabilitados.
+     */
+    public ContadoresUsuarios getContadores() {
+        return contadores;
+    }
+
+    /**
+     * Recalcula los contadores desde la BD cada {@code periodoMs} en un hilo de fondo, para incorporar
+     * lo escrito por otras instancias.
+     *
+     * @return la tarea programada, o null si no hay contadores
+     */
+    public ScheduledExecutorService programarRecargaContadores(long periodoMs) {
+        if (contadores == null || periodoMs <= 0) {
+            return null;
+        }
+        ScheduledExecutorService programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "estadisticas-recarga");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                contadores.cargar(usuarioRepository);
+            } catch (SQLException | RuntimeException ignored) {
+                // Se siguen usando los valores anteriores; se reintenta en el próximo período
+            }
+        }, periodoMs, periodoMs, TimeUnit.MILLISECONDS);
+        return programador;
+    }
+
+    ModoEscritura getModoEscritura() {
+        return modoEscritura;
+    }
+
+    // ------------------ Escritura tras la verificación previa ------------------
+
+    /**
+     * INSERT de datos ya validados y sin duplicados detectados (el UNIQUE de la BD tiene la última palabra).
+     */
+    Usuario insertar(Integer rut, String dvNorm, String nombreNorm, String emailNorm) {
+        try {
+            Usuario creado = usuarioRepository.crear(rut, dvNorm, nombreNorm, emailNorm);
+            if (creado == null) {
+                throw new RuntimeException("No se pudo crear el usuario.");
+            }
+            registrarCreado(creado);
+            return creado;
+
+        } catch (SQLException e) {
+            // Si igual cae por UNIQUE, entregamos mensaje claro
+            if ("23505".equals(e.getSQLState())) {
+                throw new IllegalArgumentException("Ya existe un usuario con ese email o RUT-DV.");
+            }
+            throw new RuntimeException("Error al crear usuario: " + e.getMessage(), e);
+        }
+    }
+
+    boolean guardarActualizacion(Long id, Integer rut, String dvNorm, String nombreNorm, String emailNorm) {
+        try {
+            boolean actualizado = usuarioRepository.actualizar(id, rut, dvNorm, nombreNorm, emailNorm);
+            if (actualizado) {
+                registrarActualizado(id, rut, dvNorm, emailNorm);
+            }
+            return actualizado;
+
+        } catch (SQLException e) {
+            if ("23505".equals(e.getSQLState())) {
+                throw new IllegalArgumentException("Ya existe un usuario con ese email o RUT-DV.");
+            }
+            throw new RuntimeException("Error al actualizar usuario: " + e.getMessage(), e);
+        }
+    }
+
+    // ------------------ Acceso con caché ------------------
+
+    Usuario buscar(Long id) throws SQLException {
+        Usuario u = cache != null
+                ? cache.obtener(id, usuarioRepository::buscarPorId)
+                : usuarioRepository.buscarPorId(id);
+        return conEstadoPendiente(u);
+    }
+
+    /**
+     * Con escritura diferida, reemplaza el estado leído por el que aún no se escribió en la BD.
+     */
+    private Usuario conEstadoPendiente(Usuario u) {
+        if (u != null && escrituraDiferida != null) {
+            Boolean pendiente = escrituraDiferida.estadoPendiente(u.getId());
+            if (pendiente != null) {
+                u.setActivo(pendiente);
+            }
+        }
+        return u;
+    }
+
+    /**
+     * Escribe los cambios de estado diferidos antes de una escritura que no pasa por la cola,
+     * para que uno anterior no pise al posterior.
+     */
+    private void vaciarEscrituraDiferida() throws SQLException {
+        if (escrituraDiferida != null) {
+            escrituraDiferida.vaciar();
+        }
+    }
+
+    private boolean actualizarActivo(Long id, boolean activo) throws SQLException {
+        if (escrituraDiferida != null) {
+            // El llamador ya verificó que el usuario existe
+            escrituraDiferida.registrar(id, activo);
+            if (cache != null) {
+                cache.actualizarActivo(id, activo);
+            }
+            registrarEstado(activo, 1);
+            return true;
+        }
+
+        // La lectura previa del llamador puede venir del caché o de una réplica: solo se cuenta
+        // si la fila cambió de verdad
+        Boolean cambiado = usuarioRepository.actualizarActivo(id, activo);
+        if (Boolean.TRUE.equals(cambiado)) {
+            registrarEstado(activo, 1);
+        }
+        if (cache != null) {
+            if (Boolean.TRUE.equals(cambiado)) {
+                cache.actualizarActivo(id, activo);
+            } else {
+                cache.invalidar(id); // sin fila, o ya tenía ese estado: lo cacheado estaba desactualizado
+            }
+        }
+        return cambiado != null;
+    }
+
+    // ------------------ Chequeos de duplicado ------------------
+
+    /**
+     * ¿Existe el email en otro usuario? El verificador (si hay) descarta localmente los casos negativos.
+     */
+    boolean existeEmail(String email, Long excluirId) throws SQLException {
+        if (verificador != null && !verificador.puedeExistirEmail(email, excluirId)) {
+            return false;
+        }
+        return excluirId == null
+                ? usuarioRepository.existeEmail(email)
+                : usuarioRepository.existeEmailParaOtroId(excluirId, email);
+    }
+
+    boolean existeRutDv(Integer rut, String dv, Long excluirId) throws SQLException {
+        if (verificador != null && !verificador.puedeExistirRutDv(rut, dv, excluirId)) {
+            return false;
+        }
+        return excluirId == null
+                ? usuarioRepository.existeRutDv(rut, dv)
+                : usuarioRepository.existeRutDvParaOtroId(excluirId, rut, dv);
+    }
+
+    private void registrarCreado(Usuario creado) {
+        if (cache != null) {
+            cache.poner(creado);
+        }
+        if (contadores != null) {
+            LocalDate dia = creado.getFechaCreacion() != null
+                    ? creado.getFechaCreacion().toLocalDateTime().toLocalDate() : LocalDate.now();
+            contadores.creados(dia, 1, Boolean.TRUE.equals(creado.getActivo()) ? 1 : 0);
+        }
+        if (verificador != null) {
+            verificador.registrar(creado.getId(), creado.getRut(), creado.getDv(), creado.getEmail());
+        }
+    }
+
+    /**
+     * {@code cantidad} usuarios pasaron al estado {@code activo}.
+     */
+    private void registrarEstado(boolean activo, long cantidad) {
+        if (contadores != null && cantidad > 0) {
+            contadores.estadoCambiado(activo ? cantidad : 0, activo ? 0 : cantidad);
+        }
+    }
+
+    private void registrarActualizado(Long id, Integer rut, String dv, String email) {
+        if (cache != null) {
+            cache.invalidar(id);
+        }
+        if (verificador != null) {
+            verificador.registrar(id, rut, dv, email);
+        }
+    }
+
+    // ------------------ Escritura en una sentencia ------------------
+
+    private Usuario crearUnaSentencia(Integer rut, String dv, String nombre, String email) {
+        try {
+            ResultadoEscritura r = usuarioRepository.crearUnaSentencia(rut, dv, nombre, email);
+            if (r.getConflicto() != null) {
+                throw new UsuarioDuplicadoException(r.getConflicto(), "");
+            }
+            registrarCreado(r.getUsuario());
+            return r.getUsuario();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al crear usuario: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean actualizarUnaSentencia(Long id, Integer rut, String dv, String nombre, String email) {
+        try {
+            ResultadoEscritura r = usuarioRepository.actualizarUnaSentencia(id, rut, dv, nombre, email);
+            if (r.getConflicto() != null) {
+                throw new UsuarioDuplicadoException(r.getConflicto(), " para otro usuario");
+            }
+            if (r.isEncontrado()) {
+                registrarActualizado(id, rut, dv, email);
+            }
+            return r.isEncontrado();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al actualizar usuario: " + e.getMessage(), e);
+        }
+    }
+
     // ------------------ Validaciones ------------------
 
-    private void validarId(Long id) {
+    static void validarId(Long id) {
         if (id == null || id <= 0) {
             throw new IllegalArgumentException("ID inválido. Debe ser mayor a 0.");
         }
     }
 
-    private void validarDatos(Integer rut, String dv, String nombre, String email) {
+    static void validarIds(Collection<Long> ids) {
+        if (ids == null) throw new IllegalArgumentException("La lista de IDs es obligatoria.");
+        for (Long id : ids) {
+            validarId(id);
+        }
+    }
+
+    static void validarFiltro(FiltroUsuarios filtro) {
+        if (filtro == null || filtro.isVacio()) {
+            throw new IllegalArgumentException("El filtro debe tener al menos un criterio.");
+        }
+    }
+
+    /**
+     * Valida los datos de creación / edición y devuelve el email normalizado (trim + minúsculas),
+     * que sale de la misma pasada de validación.
+     */
+    static String validarDatos(Integer rut, String dv, String nombre, String email) {
         if (rut == null || rut <= 0) {
             throw new IllegalArgumentException("RUT es obligatorio y debe ser mayor a 0.");
         }
@@ -192,6 +970,10 @@ public class UsuarioService {
             throw new IllegalArgumentException("DV es obligatorio y debe tener 1 carácter.");
         }
 
+        if (!Rut.dvValido(rut, dv.trim().charAt(0))) {
+            throw new IllegalArgumentException("DV no corresponde al RUT.");
+        }
+
         if (nombre == null || nombre.trim().isEmpty()) {
             throw new IllegalArgumentException("Nombre es obligatorio.");
         }
@@ -200,21 +982,10 @@ public class UsuarioService {
             throw new IllegalArgumentException("Nombre excede 200 caracteres.");
         }
 
-        if (email == null || email.trim().isEmpty()) {
-            throw new IllegalArgumentException("Email es obligatorio.");
-        }
-
-        if (email.trim().length() > 200) {
-            throw new IllegalArgumentException("Email excede 200 caracteres.");
-        }
-
-        String emailNorm = email.trim();
-        if (!EMAIL_PATTERN.matcher(emailNorm).matches()) {
-            throw new IllegalArgumentException("Formato de email inválido.");
-        }
+        return Email.normalizar(email);
     }
 
-    private String normalizarDv(String dv) {
+    static String normalizarDv(String dv) {
         return dv.trim().toUpperCase();
     }
 }
\ No newline at end of file
@@ -0,0 +1,276 @@
+package app.service;
+
+import app.config.AppConfig;
+import app.config.DbConfig;
+import app.model.FiltroUsuarios;
+import app.model.Usuario;
+import app.repository.ConflictoUnicidad;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fachada asíncrona de {@link UsuarioService}: cada operación devuelve un {@link CompletableFuture}
+ * y no bloquea el hilo que llama.
+ *
+ * - Las validaciones de datos se hacen antes de despachar; si fallan, el futuro ya viene fallido.
+ * - Con VERIFICACION_PREVIA los chequeos independientes (email, RUT-DV y, al editar, existencia
+ *   del id) corren en paralelo; la escritura se lanza cuando terminan todos.
+ * - Los errores llegan como causa del futuro, con las mismas excepciones y mensajes que la versión síncrona.
+ *
+ * Ejecutor según {@code async.ejecutor}: AUTO usa hilos virtuales si el JDK los tiene (21+) y si no
+ * un pool acotado ({@code async.hilos} hilos, cola de {@code async.cola}; con la cola llena la tarea
+ * corre en el hilo que llama, como contrapresión). Las conexiones siguen acotadas por el pool de BD.
+ */
+public class UsuarioServiceAsync implements AutoCloseable {
+
+    /**
+     * Consulta que puede fallar con SQLException.
+     */
+    private interface Consulta<T> {
+        T ejecutar() throws SQLException;
+    }
+
+    /**
+     * Ejecutor elegido según la configuración y si usa hilos virtuales.
+     */
+    private static final class Ejecutor {
+        final ExecutorService executor;
+        final boolean hilosVirtuales;
+
+        Ejecutor(ExecutorService executor, boolean hilosVirtuales) {
+            this.executor = executor;
+            this.hilosVirtuales = hilosVirtuales;
+        }
+    }
+
+    private final UsuarioService service;
+    private final ExecutorService executor;
+    private final boolean hilosVirtuales;
+
+    public UsuarioServiceAsync(UsuarioService service) {
+        this(service, ejecutorSegunConfig());
+    }
+
+    /**
+     * Con un ejecutor propio (se asume de hilos de plataforma).
+     */
+    public UsuarioServiceAsync(UsuarioService service, ExecutorService executor) {
+        this(service, executor, false);
+    }
+
+    public UsuarioServiceAsync(UsuarioService service, ExecutorService executor, boolean hilosVirtuales) {
+        this.service = service;
+        this.executor = executor;
+        this.hilosVirtuales = hilosVirtuales;
+    }
+
+    private UsuarioServiceAsync(UsuarioService service, Ejecutor ejecutor) {
+        this(service, ejecutor.executor, ejecutor.hilosVirtuales);
+    }
+
+    /**
+     * true si las tareas corren en hilos virtuales.
+     */
+    public boolean isHilosVirtuales() {
+        return hilosVirtuales;
+    }
+
+    public UsuarioService getService() {
+        return service;
+    }
+
+    public CompletableFuture<Usuario> buscarUsuarioPorId(Long id) {
+        return CompletableFuture.supplyAsync(() -> service.buscarUsuarioPorId(id), executor);
+    }
+
+    public CompletableFuture<Map<Long, Usuario>> buscarPorIds(Collection<Long> ids) {
+        return CompletableFuture.supplyAsync(() -> service.buscarPorIds(ids), executor);
+    }
+
+    public CompletableFuture<List<Usuario>> listarUsuariosPagina(long afterId, int tamanoPagina) {
+        return CompletableFuture.supplyAsync(() -> service.listarUsuariosPagina(afterId, tamanoPagina), executor);
+    }
+
+    public CompletableFuture<List<Usuario>> buscarUsuarios(String texto, long afterId, int tamanoPagina) {
+        return CompletableFuture.supplyAsync(() -> service.buscarUsuarios(texto, afterId, tamanoPagina), executor);
+    }
+
+    public CompletableFuture<Usuario> crearUsuario(Integer rut, String dv, String nombre, String email) {
+        String emailNorm;
+        try {
+            emailNorm = UsuarioService.validarDatos(rut, dv, nombre, email);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String dvNorm = UsuarioService.normalizarDv(dv);
+        String nombreNorm = nombre.trim();
+
+        if (service.getModoEscritura() == ModoEscritura.SENTENCIA_UNICA) {
+            return CompletableFuture.supplyAsync(() -> service.crearUsuario(rut, dvNorm, nombreNorm, emailNorm), executor);
+        }
+
+        String error = "Error al crear usuario: ";
+        CompletableFuture<Boolean> emailExiste = consultar(() -> service.existeEmail(emailNorm, null), error);
+        CompletableFuture<Boolean> rutDvExiste = consultar(() -> service.existeRutDv(rut, dvNorm, null), error);
+
+        return emailExiste.thenCombine(rutDvExiste, (existeEmail, existeRutDv) -> {
+            if (existeEmail) {
+                throw new UsuarioDuplicadoException(ConflictoUnicidad.EMAIL, "");
+            }
+            if (existeRutDv) {
+                throw new UsuarioDuplicadoException(ConflictoUnicidad.RUT_DV, "");
+            }
+            return Boolean.TRUE;
+        }).thenApplyAsync(ok -> service.insertar(rut, dvNorm, nombreNorm, emailNorm), executor);
+    }
+
+    public CompletableFuture<Boolean> actualizarUsuario(Long id, Integer rut, String dv, String nombre, String email) {
+        String emailNorm;
+        try {
+            UsuarioService.validarId(id);
+            emailNorm = UsuarioService.validarDatos(rut, dv, nombre, email);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String dvNorm = UsuarioService.normalizarDv(dv);
+        String nombreNorm = nombre.trim();
+
+        if (service.getModoEscritura() == ModoEscritura.SENTENCIA_UNICA) {
+            return CompletableFuture.supplyAsync(
+                    () -> service.actualizarUsuario(id, rut, dvNorm, nombreNorm, emailNorm), executor);
+        }
+
+        String error = "Error al actualizar usuario: ";
+        CompletableFuture<Usuario> existente = consultar(() -> service.buscar(id), error);
+        CompletableFuture<Boolean> emailExiste = consultar(() -> service.existeEmail(emailNorm, id), error);
+        CompletableFuture<Boolean> rutDvExiste = consultar(() -> service.existeRutDv(rut, dvNorm, id), error);
+
+        return CompletableFuture.allOf(existente, emailExiste, rutDvExiste).thenApplyAsync(nada -> {
+            if (existente.join() == null) {
+                return false;
+            }
+            if (emailExiste.join()) {
+                throw new UsuarioDuplicadoException(ConflictoUnicidad.EMAIL, " para otro usuario");
+            }
+            if (rutDvExiste.join()) {
+                throw new UsuarioDuplicadoException(ConflictoUnicidad.RUT_DV, " para otro usuario");
+            }
+            return service.guardarActualizacion(id, rut, dvNorm, nombreNorm, emailNorm);
+        }, executor);
+    }
+
+    public CompletableFuture<Boolean> activarUsuario(Long id) {
+        return CompletableFuture.supplyAsync(() -> service.activarUsuario(id), executor);
+    }
+
+    public CompletableFuture<Boolean> desactivarUsuario(Long id) {
+        return CompletableFuture.supplyAsync(() -> service.desactivarUsuario(id), executor);
+    }
+
+    public CompletableFuture<Boolean> activarDesactivarUsuario(Long id) {
+        return CompletableFuture.supplyAsync(() -> service.activarDesactivarUsuario(id), executor);
+    }
+
+    public CompletableFuture<Integer> cambiarEstadoUsuarios(Collection<Long> ids, boolean activo) {
+        return CompletableFuture.supplyAsync(() -> service.cambiarEstadoUsuarios(ids, activo), executor);
+    }
+
+    public CompletableFuture<Integer> cambiarEstadoUsuarios(FiltroUsuarios filtro, boolean activo) {
+        return CompletableFuture.supplyAsync(() -> service.cambiarEstadoUsuarios(filtro, activo), executor);
+    }
+
+    public CompletableFuture<Map<Long, Boolean>> alternarEstadoUsuarios(Collection<Long> ids) {
+        return CompletableFuture.supplyAsync(() -> service.alternarEstadoUsuarios(ids), executor);
+    }
+
+    /**
+     * Deja de aceptar tareas; las que están en curso terminan.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    // ------------------ Ejecutor ------------------
+
+    /**
+     * Ejecutor según {@code async.*} en application.properties.
+     */
+    public static ExecutorService crearEjecutor() {
+        return ejecutorSegunConfig().executor;
+    }
+
+    private static Ejecutor ejecutorSegunConfig() {
+        String tipo = AppConfig.get("async.ejecutor", "AUTO").trim().toUpperCase();
+        if (!"ACOTADO".equals(tipo)) {
+            ExecutorService virtuales = ejecutorHilosVirtuales();
+            if (virtuales != null) {
+                return new Ejecutor(virtuales, true);
+            }
+            if ("VIRTUAL".equals(tipo)) {
+                throw new IllegalStateException("async.ejecutor=VIRTUAL requiere Java 21 o superior (actual: "
+                        + System.getProperty("java.version") + ").");
+            }
+        }
+        return new Ejecutor(ejecutorAcotado(
+                AppConfig.getInt("async.hilos", DbConfig.POOL_MAX * 2),
+                AppConfig.getInt("async.cola", 10_000)), false);
+    }
+
+    public static ExecutorService ejecutorAcotado(int hilos, int cola) {
+        return ejecutorAcotado("usuarios-async-", hilos, cola);
+    }
+
+    /**
+     * Pool de {@code hilos} hilos daemon ({@code prefijo}N) con cola de {@code cola}; con la cola llena
+     * la tarea corre en el hilo que llama.
+     */
+    public static ExecutorService ejecutorAcotado(String prefijo, int hilos, int cola) {
+        AtomicInteger secuencia = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(cola),
+                r -> {
+                    Thread t = new Thread(r, prefijo + secuencia.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * {@code Executors.newVirtualThreadPerTaskExecutor()} por reflexión: el build apunta a Java 17,
+     * pero en un JDK 21+ se aprovechan los hilos virtuales. Null si no están disponibles.
+     */
+    public static ExecutorService ejecutorHilosVirtuales() {
+        try {
+            Method fabrica = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrica.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ------------------ Internos ------------------
+
+    private <T> CompletableFuture<T> consultar(Consulta<T> consulta, String error) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return consulta.ejecutar();
+            } catch (SQLException e) {
+                throw new RuntimeException(error + e.getMessage(), e);
+            }
+        }, executor);
+    }
+}
@@ -0,0 +1,197 @@
+package app.service;
+
+import app.cache.UsuarioCache;
+import app.index.InstantaneaUsuarios;
+import app.index.VerificadorUnicidad;
+import app.metricas.Metricas;
+import app.metricas.RegistroMetricas;
+import app.model.ConteoPorDia;
+import app.model.ConteoPorDominio;
+import app.model.EstadisticasUsuarios;
+import app.model.FiltroUsuarios;
+import app.model.FormatoExportacion;
+import app.model.ResultadoExportacion;
+import app.model.ResultadoImportacion;
+import app.model.Usuario;
+import app.repository.ResultadoEscritura;
+import app.repository.UsuarioRepository;
+
+import java.io.Reader;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link UsuarioService} que mide cada operación pública con {@link Metricas#medir}: latencia,
+ * errores (SQLState de la causa, VALIDACION u otro tipo) y filas devueltas o modificadas.
+ * Se usa solo con las métricas habilitadas ({@link UsuarioService#desdeConfig()}).
+ */
+public class UsuarioServiceMedido extends UsuarioService {
+
+    private static final String PREFIJO = "UsuarioService.";
+
+    UsuarioServiceMedido(UsuarioRepository usuarioRepository) {
+        super(usuarioRepository);
+    }
+
+    public UsuarioServiceMedido(UsuarioRepository usuarioRepository, ModoEscritura modoEscritura, UsuarioCache cache,
+                                VerificadorUnicidad verificador, EscrituraDiferidaActivo escrituraDiferida) {
+        super(usuarioRepository, modoEscritura, cache, verificador, escrituraDiferida);
+    }
+
+    @Override
+    public List<Usuario> listarUsuarios() {
+        return medir("listarUsuarios", super::listarUsuarios);
+    }
+
+    @Override
+    public List<Usuario> listarUsuariosPagina(long afterId, int tamanoPagina) {
+        return medir("listarUsuariosPagina", () -> super.listarUsuariosPagina(afterId, tamanoPagina));
+    }
+
+    @Override
+    public List<Usuario> buscarUsuarios(String texto, long afterId, int tamanoPagina) {
+        return medir("buscarUsuarios", () -> super.buscarUsuarios(texto, afterId, tamanoPagina));
+    }
+
+    @Override
+    public long recorrerUsuarios(Consumer<Usuario> consumidor) {
+        return medirFilas("recorrerUsuarios", () -> super.recorrerUsuarios(consumidor));
+    }
+
+    @Override
+    public InstantaneaUsuarios cargarInstantanea() {
+        return medir("cargarInstantanea", super::cargarInstantanea);
+    }
+
+    @Override
+    public InstantaneaUsuarios abrirInstantanea(Path archivo) {
+        return medir("abrirInstantanea", () -> super.abrirInstantanea(archivo));
+    }
+
+    @Override
+    public Usuario buscarUsuarioPorId(Long id) {
+        return medir("buscarUsuarioPorId", () -> super.buscarUsuarioPorId(id));
+    }
+
+    @Override
+    public Map<Long, Usuario> buscarPorIds(Collection<Long> ids) {
+        return medir("buscarPorIds", () -> super.buscarPorIds(ids));
+    }
+
+    @Override
+    public Usuario crearUsuario(Integer rut, String dv, String nombre, String email) {
+        return medir("crearUsuario", () -> super.crearUsuario(rut, dv, nombre, email));
+    }
+
+    @Override
+    public ResultadoImportacion importarUsuariosCsv(Reader reader) {
+        return medir("importarUsuariosCsv", () -> super.importarUsuariosCsv(reader));
+    }
+
+    @Override
+    public ResultadoExportacion exportarUsuarios(Path archivo, FormatoExportacion formato, boolean gzip, boolean usarCopy) {
+        return medir("exportarUsuarios", () -> super.exportarUsuarios(archivo, formato, gzip, usarCopy));
+    }
+
+    @Override
+    public boolean actualizarUsuario(Long id, Integer rut, String dv, String nombre, String email) {
+        return medir("actualizarUsuario", () -> super.actualizarUsuario(id, rut, dv, nombre, email));
+    }
+
+    @Override
+    public ResultadoEscritura actualizarUsuarioSiVersion(Long id, long version, Integer rut, String dv, String nombre,
+                                                         String email) {
+        return medir("actualizarUsuarioSiVersion",
+                () -> super.actualizarUsuarioSiVersion(id, version, rut, dv, nombre, email));
+    }
+
+    @Override
+    public boolean activarUsuario(Long id) {
+        return medir("activarUsuario", () -> super.activarUsuario(id));
+    }
+
+    @Override
+    public boolean desactivarUsuario(Long id) {
+        return medir("desactivarUsuario", () -> super.desactivarUsuario(id));
+    }
+
+    @Override
+    public boolean activarDesactivarUsuario(Long id) {
+        return medir("activarDesactivarUsuario", () -> super.activarDesactivarUsuario(id));
+    }
+
+    @Override
+    public ResultadoEscritura cambiarEstadoSiVersion(Long id, long version, boolean activo) {
+        return medir("cambiarEstadoSiVersion", () -> super.cambiarEstadoSiVersion(id, version, activo));
+    }
+
+    @Override
+    public int cambiarEstadoUsuarios(Collection<Long> ids, boolean activo) {
+        return medirFilas("cambiarEstadoUsuarios", () -> super.cambiarEstadoUsuarios(ids, activo));
+    }
+
+    @Override
+    public int cambiarEstadoUsuarios(FiltroUsuarios filtro, boolean activo) {
+        return medirFilas("cambiarEstadoUsuariosFiltro", () -> super.cambiarEstadoUsuarios(filtro, activo));
+    }
+
+    @Override
+    public Map<Long, Boolean> alternarEstadoUsuarios(Collection<Long> ids) {
+        return medir("alternarEstadoUsuarios", () -> super.alternarEstadoUsuarios(ids));
+    }
+
+    @Override
+    public long contarUsuarios(FiltroUsuarios filtro) {
+        return medir("contarUsuarios", () -> super.contarUsuarios(filtro));
+    }
+
+    @Override
+    public EstadisticasUsuarios obtenerEstadisticas() {
+        return medir("obtenerEstadisticas", super::obtenerEstadisticas);
+    }
+
+    @Override
+    public List<ConteoPorDia> contarCreadosPorDia(LocalDate desde, LocalDate hasta) {
+        return medir("contarCreadosPorDia", () -> super.contarCreadosPorDia(desde, hasta));
+    }
+
+    @Override
+    public List<ConteoPorDominio> contarPorDominio(int limite) {
+        return medir("contarPorDominio", () -> super.contarPorDominio(limite));
+    }
+
+    /**
+     * Mide la llamada; si devuelve una colección o un mapa, registra su tamaño como filas.
+     */
+    private static <T> T medir(String operacion, Supplier<T> llamada) {
+        String nombre = PREFIJO + operacion;
+        T resultado = Metricas.medir(nombre, llamada);
+        RegistroMetricas registro = Metricas.getRegistro();
+        if (registro != null) {
+            if (resultado instanceof Collection) {
+                registro.registrarFilas(nombre, ((Collection<?>) resultado).size());
+            } else if (resultado instanceof Map) {
+                registro.registrarFilas(nombre, ((Map<?, ?>) resultado).size());
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Mide la llamada y registra su resultado numérico como filas.
+     */
+    private static <T extends Number> T medirFilas(String operacion, Supplier<T> llamada) {
+        String nombre = PREFIJO + operacion;
+        T resultado = Metricas.medir(nombre, llamada);
+        RegistroMetricas registro = Metricas.getRegistro();
+        if (registro != null) {
+            registro.registrarFilas(nombre, resultado.longValue());
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,21 @@
+-- Notificación de cambios en usuarios (LISTEN/NOTIFY) para invalidar cachés de otras instancias.
+-- Ejecutar después de schema.sql:  psql -U postgres -d prueba_tecnica -f notificaciones.sql
+--
+-- Payload: "<operacion>:<id>", con operacion I (insert), U (update) o D (delete).
+
+CREATE OR REPLACE FUNCTION usuarios_notificar_cambio() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'DELETE' THEN
+    PERFORM pg_notify('usuarios_cambios', 'D:' || OLD.id);
+    RETURN OLD;
+  END IF;
+  PERFORM pg_notify('usuarios_cambios', left(TG_OP, 1) || ':' || NEW.id);
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS usuarios_cambios ON usuarios;
+
+CREATE TRIGGER usuarios_cambios
+  AFTER INSERT OR UPDATE OR DELETE ON usuarios
+  FOR EACH ROW EXECUTE PROCEDURE usuarios_notificar_cambio();
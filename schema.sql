@@ -13,11 +13,31 @@ CREATE TABLE usuarios (
   email VARCHAR(200) NOT NULL UNIQUE,
   activo BOOLEAN NOT NULL DEFAULT TRUE,
   fecha_creacion TIMESTAMP NOT NULL DEFAULT NOW(),
+  version BIGINT NOT NULL DEFAULT 1,
   UNIQUE(rut, dv)
 );
 
+-- version: sube en 1 con cada UPDATE; las actualizaciones condicionales (UsuarioService.*SiVersion)
+-- solo se aplican si la fila sigue en la versión leída. En una base ya creada:
+--   ALTER TABLE usuarios ADD COLUMN version BIGINT NOT NULL DEFAULT 1;
+
+-- Búsqueda por nombre / email (opción 8 del menú, UsuarioRepository.buscar).
+-- Trigramas: texto en cualquier posición, sin distinguir mayúsculas (ILIKE '%texto%').
+-- text_pattern_ops: prefijos (LIKE 'te%') para textos de 1-2 caracteres, independiente del collation.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX usuarios_nombre_trgm ON usuarios USING gin (nombre gin_trgm_ops);
+CREATE INDEX usuarios_email_trgm ON usuarios USING gin (email gin_trgm_ops);
+CREATE INDEX usuarios_nombre_prefijo ON usuarios (lower(nombre) text_pattern_ops);
+CREATE INDEX usuarios_email_prefijo ON usuarios (email text_pattern_ops);
+
+-- Estadísticas (opción 11 del menú) y filtros por estado / fecha de creación.
+-- fecha_creacion con activo incluido: altas por día de un rango sin leer la tabla (index-only scan).
+-- activo: conteos y cambios masivos por estado.
+CREATE INDEX usuarios_fecha_creacion ON usuarios (fecha_creacion) INCLUDE (activo);
+CREATE INDEX usuarios_activo ON usuarios (activo);
+
 -- Insertar datos de prueba
 INSERT INTO usuarios (rut, dv, nombre, email, activo) VALUES
 (12345678, '5', 'Juan Perez', 'juan.perez@email.com', true),
 (23456789, '6', 'Maria Gonzalez', 'maria.gonzalez@email.com', false),
-(34567890, '1', 'Carlos Lopez', 'carlos.lopez@email.com', true);
+(34567890, '5', 'Carlos Lopez', 'carlos.lopez@email.com', true);
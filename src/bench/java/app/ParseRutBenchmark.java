@@ -0,0 +1,120 @@
+package app;
+
+import app.model.Rut;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parseo de RUT: implementación anterior de {@link Main#parseRut} (split, replace, trim,
+ * parseInt, sin verificar el DV) contra el codec {@link Rut}. Con -prof gc se ve la diferencia
+ * en bytes asignados por operación.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseRutBenchmark {
+
+    private static final int LOTE = 1024;
+
+    @Param({"12345678-5", "15.000.005-k", "  7654321-6  "})
+    public String rut;
+
+    private String[] lote;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        lote = new String[LOTE];
+        for (int i = 0; i < LOTE; i++) {
+            int n = 1_000_000 + random.nextInt(30_000_000);
+            lote[i] = n + "-" + Rut.calcularDv(n);
+        }
+    }
+
+    @Benchmark
+    public Object original() {
+        return parseRutOriginal(rut);
+    }
+
+    @Benchmark
+    public Main.RutDv parseRut() {
+        return Main.parseRut(rut);
+    }
+
+    @Benchmark
+    public long codec() {
+        return Rut.parsear(rut);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public long originalLote() {
+        long suma = 0;
+        for (String s : lote) {
+            suma += parseRutOriginal(s).rut;
+        }
+        return suma;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public long codecLote() {
+        long suma = 0;
+        for (String s : lote) {
+            suma += Rut.intentarParsear(s);
+        }
+        return suma;
+    }
+
+    /**
+     * Copia de Main.parseRut previa al codec, como línea base.
+     */
+    private static RutDvOriginal parseRutOriginal(String rutCompleto) {
+        if (rutCompleto == null) throw new IllegalArgumentException("RUT es obligatorio.");
+
+        String[] partes = rutCompleto.trim().split("-");
+        if (partes.length != 2) {
+            throw new IllegalArgumentException("Formato de RUT invalido. Use formato 12345678-9");
+        }
+
+        String rutStr = partes[0].replace(".", "").trim();
+        String dv = partes[1].trim();
+
+        if (dv.length() != 1) {
+            throw new IllegalArgumentException("DV invalido. Debe tener 1 caracter.");
+        }
+
+        try {
+            Integer rut = Integer.parseInt(rutStr);
+            return new RutDvOriginal(rut, dv.toUpperCase());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("RUT invalido.");
+        }
+    }
+
+    private static final class RutDvOriginal {
+        final Integer rut;
+        final String dv;
+
+        RutDvOriginal(Integer rut, String dv) {
+            this.rut = rut;
+            this.dv = dv;
+        }
+    }
+}
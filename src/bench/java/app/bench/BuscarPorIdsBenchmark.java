@@ -0,0 +1,92 @@
+package app.bench;
+
+import app.model.Usuario;
+import app.repository.UsuarioRepository;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de resolver {@code cantidad} usuarios: bucle de buscarUsuarioPorId (una conexión y una
+ * consulta por id) contra buscarPorIds (un {@code id = ANY(?)} por tramo). Sin caché, para medir la BD.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class BuscarPorIdsBenchmark {
+
+    private static final String DOMINIO = "@jmh-ids.local";
+    private static final int RUT_BASE = 1_700_000_000;
+    private static final int TAMANO_TABLA = 100_000;
+
+    @Param({FuenteDatosBench.EMBEBIDO, FuenteDatosBench.LOCAL})
+    public String bd;
+
+    @Param({"1", "100", "10000"})
+    public int cantidad;
+
+    private FuenteDatosBench fuente;
+    private UsuarioService service;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void preparar(BenchmarkParams params) throws Exception {
+        fuente = FuenteDatosBench.abrir(bd, params.getThreads());
+        service = new UsuarioService(new UsuarioRepository(fuente.getDataSource()), ModoEscritura.VERIFICACION_PREVIA);
+
+        fuente.limpiar(DOMINIO);
+        long[] sembrados = fuente.sembrar(TAMANO_TABLA, RUT_BASE, DOMINIO);
+        Random random = new Random(42);
+        ids = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            ids.add(sembrados[random.nextInt(sembrados.length)]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        try {
+            fuente.limpiar(DOMINIO);
+        } finally {
+            fuente.close();
+        }
+    }
+
+    @Benchmark
+    public Map<Long, Usuario> bucle() {
+        Map<Long, Usuario> out = new HashMap<>();
+        for (Long id : ids) {
+            Usuario u = service.buscarUsuarioPorId(id);
+            if (u != null) out.put(id, u);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public Map<Long, Usuario> lote() {
+        return service.buscarPorIds(ids);
+    }
+}
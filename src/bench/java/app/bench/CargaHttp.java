@@ -0,0 +1,117 @@
+package app.bench;
+
+import app.metricas.Histograma;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prueba de carga de la API HTTP (Main --server): {@code hilos} clientes en lazo cerrado durante
+ * {@code segundos}, con conexiones persistentes. Informa solicitudes/s, percentiles de latencia y
+ * cuántas respuestas hubo por código HTTP.
+ *
+ * Mezcla por solicitud: {@code -Dcarga.escrituras} (fracción, 0 por defecto) de POST /usuarios/{id}/alternar,
+ * {@code -Dcarga.paginas} (0.1) de GET /usuarios?desde=..&limite=20 y el resto GET /usuarios/{id}.
+ * Los ids salen de la primera página de 1000 usuarios.
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=app.bench.CargaHttp -Dexec.args="http://localhost:8080 16 30"
+ */
+public final class CargaHttp {
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        int hilos = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        double escrituras = Double.parseDouble(System.getProperty("carga.escrituras", "0"));
+        double paginas = Double.parseDouble(System.getProperty("carga.paginas", "0.1"));
+
+        HttpClient cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        long[] ids = cargarIds(cliente, base);
+        if (ids.length == 0) {
+            System.out.println("No hay usuarios en " + base + "/usuarios; cree algunos antes de la prueba.");
+            return;
+        }
+
+        Histograma latencias = new Histograma();
+        Map<Integer, LongAdder> porCodigo = new ConcurrentHashMap<>();
+        LongAdder fallas = new LongAdder();
+        long fin = System.nanoTime() + segundos * 1_000_000_000L;
+
+        List<Thread> clientes = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            Thread t = new Thread(() -> {
+                ThreadLocalRandom azar = ThreadLocalRandom.current();
+                while (System.nanoTime() < fin) {
+                    long id = ids[azar.nextInt(ids.length)];
+                    double p = azar.nextDouble();
+                    HttpRequest solicitud = p < escrituras
+                            ? HttpRequest.newBuilder(URI.create(base + "/usuarios/" + id + "/alternar"))
+                                    .POST(HttpRequest.BodyPublishers.noBody()).build()
+                            : p < escrituras + paginas
+                            ? HttpRequest.newBuilder(URI.create(base + "/usuarios?desde=" + (id - 1) + "&limite=20")).build()
+                            : HttpRequest.newBuilder(URI.create(base + "/usuarios/" + id)).build();
+
+                    long inicio = System.nanoTime();
+                    try {
+                        HttpResponse<Void> r = cliente.send(solicitud, HttpResponse.BodyHandlers.discarding());
+                        latencias.registrar(System.nanoTime() - inicio);
+                        porCodigo.computeIfAbsent(r.statusCode(), c -> new LongAdder()).increment();
+                    } catch (Exception e) {
+                        fallas.increment();
+                    }
+                }
+            }, "carga-" + h);
+            t.start();
+            clientes.add(t);
+        }
+        for (Thread t : clientes) {
+            t.join();
+        }
+
+        long total = latencias.getTotal();
+        Map<Integer, Long> codigos = new TreeMap<>();
+        porCodigo.forEach((c, n) -> codigos.put(c, n.sum()));
+
+        System.out.printf(Locale.ROOT, "%s, %d hilos, %d s (escrituras=%.2f, paginas=%.2f)%n",
+                base, hilos, segundos, escrituras, paginas);
+        System.out.printf(Locale.ROOT, "Solicitudes: %d (%.0f/s), fallas de conexion: %d, por codigo: %s%n",
+                total, total / (double) segundos, fallas.sum(), codigos);
+        System.out.printf(Locale.ROOT, "Latencia ms: media %.3f  p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n",
+                latencias.getMedia() / 1e6, latencias.percentil(50) / 1e6, latencias.percentil(90) / 1e6,
+                latencias.percentil(99) / 1e6, latencias.percentil(99.9) / 1e6, latencias.getMaximo() / 1e6);
+    }
+
+    private static long[] cargarIds(HttpClient cliente, String base) throws Exception {
+        HttpResponse<String> r = cliente.send(
+                HttpRequest.newBuilder(URI.create(base + "/usuarios?desde=0&limite=1000")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (r.statusCode() != 200) {
+            throw new IllegalStateException("GET /usuarios respondió " + r.statusCode() + ": " + r.body());
+        }
+        List<Long> ids = new ArrayList<>();
+        Matcher m = ID.matcher(r.body());
+        while (m.find()) {
+            ids.add(Long.parseLong(m.group(1)));
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
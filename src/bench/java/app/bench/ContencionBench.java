@@ -0,0 +1,142 @@
+package app.bench;
+
+import app.model.Rut;
+import app.model.Usuario;
+import app.repository.ResultadoEscritura;
+import app.service.UsuarioService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lectura-modificación-escritura concurrente sobre la BD configurada (db.url): cada operación suma 1
+ * a un contador guardado en el nombre ("Contador N") de un usuario. Informa incrementos/s,
+ * conflictos de versión e incrementos perdidos (confirmados menos el valor final del contador).
+ *
+ * Escenarios, {@code hilos} hilos durante {@code segundos} cada uno:
+ * - compartida: todos los hilos sobre las mismas {@code calientes} filas.
+ *   sin versión = buscarUsuarioPorId + actualizarUsuario (gana la última escritura);
+ *   con versión = buscarUsuarioPorId + actualizarUsuarioSiVersion, releyendo ante conflicto.
+ * - propia: una fila por hilo, sin contención.
+ *   sin versión = actualizarUsuario (lectura previa y chequeos de duplicado);
+ *   con versión = actualizarUsuarioSiVersion con la versión que devolvió la escritura anterior (sin lectura).
+ *
+ * Usa los primeros usuarios por id (con RUT válido) y al terminar les devuelve el nombre original.
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=app.bench.ContencionBench -Dexec.args="16 10 1"
+ */
+public final class ContencionBench {
+
+    public static void main(String[] args) throws Exception {
+        int hilos = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int calientes = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        UsuarioService service = UsuarioService.desdeConfig();
+        List<Usuario> originales = new ArrayList<>();
+        for (Usuario u : service.listarUsuariosPagina(0, UsuarioService.TAMANO_PAGINA_MAX)) {
+            if (originales.size() < Math.max(calientes, hilos) && Rut.dvValido(u.getRut(), u.getDv().charAt(0))) {
+                originales.add(u); // las escrituras validan el RUT: se omiten los datos de prueba inválidos
+            }
+        }
+        if (originales.size() < Math.max(calientes, hilos)) {
+            System.out.println("Se necesitan al menos " + Math.max(calientes, hilos) + " usuarios.");
+            return;
+        }
+
+        System.out.printf(Locale.ROOT, "%-11s %-12s %12s %12s %12s %10s%n",
+                "filas", "modo", "incrementos", "incr/s", "conflictos", "perdidos");
+        try {
+            for (boolean propia : new boolean[]{false, true}) {
+                for (boolean conVersion : new boolean[]{false, true}) {
+                    List<Usuario> filas = originales.subList(0, propia ? hilos : calientes);
+                    ejecutar(service, filas, hilos, segundos, propia, conVersion);
+                }
+            }
+        } finally {
+            for (Usuario u : originales) {
+                service.actualizarUsuario(u.getId(), u.getRut(), u.getDv(), u.getNombre(), u.getEmail());
+            }
+        }
+    }
+
+    private static void ejecutar(UsuarioService service, List<Usuario> filas, int hilos, int segundos,
+                                 boolean propia, boolean conVersion) throws InterruptedException {
+        for (Usuario u : filas) {
+            service.actualizarUsuario(u.getId(), u.getRut(), u.getDv(), "Contador 0", u.getEmail());
+        }
+
+        LongAdder incrementos = new LongAdder();
+        LongAdder conflictos = new LongAdder();
+        LongAdder errores = new LongAdder();
+        long inicio = System.nanoTime();
+        long fin = inicio + segundos * 1_000_000_000L;
+
+        List<Thread> trabajadores = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            int hilo = h;
+            Thread t = new Thread(() -> {
+                int i = 0;
+                Long version = null; // propia + con versión: la que dejó la última escritura
+                while (System.nanoTime() < fin) {
+                    i++;
+                    Usuario fila = filas.get(propia ? hilo : (hilo + i) % filas.size());
+                    try {
+                        if (!conVersion) {
+                            int n = propia ? i : contador(service.buscarUsuarioPorId(fila.getId())) + 1;
+                            service.actualizarUsuario(fila.getId(), fila.getRut(), fila.getDv(),
+                                    "Contador " + n, fila.getEmail());
+                        } else if (propia) {
+                            if (version == null) {
+                                version = service.buscarUsuarioPorId(fila.getId()).getVersion();
+                            }
+                            ResultadoEscritura r = service.actualizarUsuarioSiVersion(fila.getId(), version,
+                                    fila.getRut(), fila.getDv(), "Contador " + i, fila.getEmail());
+                            version = r.isExitoso() ? r.getVersion() : null;
+                            if (!r.isExitoso()) {
+                                conflictos.increment();
+                                continue;
+                            }
+                        } else {
+                            while (true) {
+                                Usuario u = service.buscarUsuarioPorId(fila.getId());
+                                ResultadoEscritura r = service.actualizarUsuarioSiVersion(u.getId(), u.getVersion(),
+                                        u.getRut(), u.getDv(), "Contador " + (contador(u) + 1), u.getEmail());
+                                if (r.isExitoso()) break;
+                                conflictos.increment();
+                            }
+                        }
+                        incrementos.increment();
+                    } catch (RuntimeException e) {
+                        errores.increment();
+                    }
+                }
+            });
+            t.start();
+            trabajadores.add(t);
+        }
+        for (Thread t : trabajadores) {
+            t.join();
+        }
+        double seg = (System.nanoTime() - inicio) / 1e9;
+
+        String perdidos = "-";
+        if (!propia) {
+            long contado = 0;
+            for (Usuario u : filas) {
+                contado += contador(service.buscarUsuarioPorId(u.getId()));
+            }
+            perdidos = String.valueOf(incrementos.sum() - contado);
+        }
+        System.out.printf(Locale.ROOT, "%-11s %-12s %12d %12.0f %12d %10s%s%n",
+                propia ? "propia" : "compartida(" + filas.size() + ")", conVersion ? "con version" : "sin version",
+                incrementos.sum(), incrementos.sum() / seg, conflictos.sum(), perdidos,
+                errores.sum() > 0 ? "  errores=" + errores.sum() : "");
+    }
+
+    private static int contador(Usuario u) {
+        return Integer.parseInt(u.getNombre().substring("Contador ".length()));
+    }
+}
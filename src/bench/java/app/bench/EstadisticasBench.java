@@ -0,0 +1,84 @@
+package app.bench;
+
+import app.model.Usuario;
+import app.repository.UsuarioRepository;
+import app.service.ContadoresUsuarios;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Estadísticas sobre la BD configurada (db.url), mejor de {@code repeticiones}:
+ * - listar todo y contar en Java (estado, altas por día, dominios), como referencia;
+ * - consultas agregadas: por estado, altas por día de los últimos {@code dias} días y de toda la
+ *   tabla, y los 10 dominios con más usuarios;
+ * - contadores en memoria: carga inicial y luego por estado y altas por día.
+ *
+ * Para medir el efecto de los índices de schema.sql, correrlo con y sin ellos.
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=app.bench.EstadisticasBench -Dexec.args="14 5"
+ */
+public final class EstadisticasBench {
+
+    public static void main(String[] args) {
+        int dias = args.length > 0 ? Integer.parseInt(args[0]) : 14;
+        int repeticiones = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        LocalDate hasta = LocalDate.now().plusDays(1);
+        LocalDate desde = hasta.minusDays(dias);
+
+        UsuarioRepository repository = new UsuarioRepository();
+        UsuarioService consultas = new UsuarioService(repository, ModoEscritura.VERIFICACION_PREVIA);
+        UsuarioService conContadores = new UsuarioService(repository, ModoEscritura.VERIFICACION_PREVIA, null, null,
+                null, new ContadoresUsuarios());
+
+        System.out.printf(Locale.ROOT, "%-36s %12s   %s%n", "operacion", "ms", "resultado");
+        medir("listar + contar en Java", 1, () -> contarEnJava(consultas.listarUsuarios(), desde));
+        medir("SQL por estado", repeticiones, consultas::obtenerEstadisticas);
+        medir("SQL altas por dia (" + dias + " dias)", repeticiones,
+                () -> consultas.contarCreadosPorDia(desde, hasta).size() + " dias");
+        medir("SQL altas por dia (toda la tabla)", repeticiones,
+                () -> consultas.contarCreadosPorDia(null, null).size() + " dias");
+        medir("SQL 10 dominios", repeticiones, () -> consultas.contarPorDominio(10).get(0));
+        medir("contadores: carga", 1, conContadores::obtenerEstadisticas);
+        medir("contadores: por estado", repeticiones, conContadores::obtenerEstadisticas);
+        medir("contadores: altas por dia (" + dias + ")", repeticiones,
+                () -> conContadores.contarCreadosPorDia(desde, hasta).size() + " dias");
+    }
+
+    private static String contarEnJava(List<Usuario> usuarios, LocalDate desde) {
+        long activos = 0;
+        Map<LocalDate, Long> porDia = new TreeMap<>();
+        Map<String, Long> porDominio = new HashMap<>();
+        for (Usuario u : usuarios) {
+            if (Boolean.TRUE.equals(u.getActivo())) activos++;
+            LocalDate dia = u.getFechaCreacion().toLocalDateTime().toLocalDate();
+            if (!dia.isBefore(desde)) porDia.merge(dia, 1L, Long::sum);
+            String email = u.getEmail();
+            porDominio.merge(email.substring(email.indexOf('@') + 1), 1L, Long::sum);
+        }
+        return usuarios.size() + " usuarios, " + activos + " activos, " + porDia.size() + " dias, "
+                + porDominio.size() + " dominios";
+    }
+
+    private static void medir(String nombre, int repeticiones, Supplier<Object> operacion) {
+        long mejor = Long.MAX_VALUE;
+        Object resultado = null;
+        for (int i = 0; i < repeticiones; i++) {
+            long t = System.nanoTime();
+            resultado = operacion.get();
+            mejor = Math.min(mejor, System.nanoTime() - t);
+        }
+        if (resultado instanceof List) {
+            List<?> l = (List<?>) resultado;
+            resultado = l.isEmpty() ? "[]" : l.get(0) + " ...";
+        }
+        System.out.printf(Locale.ROOT, "%-36s %12.2f   %s%n", nombre, mejor / 1e6, resultado);
+    }
+}
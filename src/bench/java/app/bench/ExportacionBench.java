@@ -0,0 +1,48 @@
+package app.bench;
+
+import app.model.FormatoExportacion;
+import app.model.ResultadoExportacion;
+import app.service.UsuarioService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Exportación de la tabla configurada (db.url) en cada combinación de formato (CSV / NDJSON),
+ * camino (cursor / COPY) y compresión, informando filas/s y tamaño. Cada combinación se repite
+ * {@code repeticiones} veces y se informa la mejor; los archivos quedan en {@code directorio}
+ * para compararlos (cursor y COPY deben ser idénticos).
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=app.bench.ExportacionBench -Dexec.args="/tmp/exportacion 2"
+ */
+public final class ExportacionBench {
+
+    public static void main(String[] args) throws Exception {
+        Path directorio = Paths.get(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir"));
+        int repeticiones = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        Files.createDirectories(directorio);
+
+        UsuarioService service = UsuarioService.desdeConfig();
+        System.out.printf(Locale.ROOT, "%-8s %-7s %-5s %12s %10s %12s %14s%n",
+                "formato", "camino", "gzip", "filas", "ms", "filas/s", "bytes");
+
+        for (FormatoExportacion formato : FormatoExportacion.values()) {
+            for (boolean gzip : new boolean[]{false, true}) {
+                for (boolean usarCopy : new boolean[]{false, true}) {
+                    String nombre = "usuarios-" + (usarCopy ? "copy" : "cursor")
+                            + (formato == FormatoExportacion.CSV ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+                    ResultadoExportacion mejor = null;
+                    for (int i = 0; i < repeticiones; i++) {
+                        ResultadoExportacion r = service.exportarUsuarios(directorio.resolve(nombre), formato, gzip, usarCopy);
+                        if (mejor == null || r.getDuracionMs() < mejor.getDuracionMs()) mejor = r;
+                    }
+                    System.out.printf(Locale.ROOT, "%-8s %-7s %-5s %12d %10d %12d %14d%n",
+                            formato, usarCopy ? "COPY" : "cursor", gzip, mejor.getFilas(), mejor.getDuracionMs(),
+                            mejor.getFilasPorSegundo(), mejor.getBytes());
+                }
+            }
+        }
+    }
+}
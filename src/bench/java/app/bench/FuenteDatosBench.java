@@ -0,0 +1,151 @@
+package app.bench;
+
+import app.config.ConnectionPool;
+import app.config.DbConfig;
+import app.config.PoolConfig;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Base de datos para las suites de repositorio.
+ *
+ * - {@code local}: la BD de application.properties (o -Ddb.url=...).
+ * - {@code embebido}: PostgreSQL embebido, creado con schema.sql. Los datos van en /dev/shm
+ *   cuando existe y sin fsync, para que el disco no domine la medición.
+ *
+ * En ambos casos las conexiones salen de un {@link ConnectionPool} propio, dimensionado
+ * para la concurrencia del benchmark.
+ */
+final class FuenteDatosBench implements AutoCloseable {
+
+    static final String LOCAL = "local";
+    static final String EMBEBIDO = "embebido";
+
+    private final EmbeddedPostgres embebido; // null si es local
+    private final ConnectionPool pool;
+
+    private FuenteDatosBench(EmbeddedPostgres embebido, ConnectionPool pool) {
+        this.embebido = embebido;
+        this.pool = pool;
+    }
+
+    static FuenteDatosBench abrir(String tipo, int conexiones) throws IOException, SQLException {
+        return abrir(tipo, conexiones, DbConfig.POOL_STATEMENT_CACHE);
+    }
+
+    /**
+     * @param cacheSentencias sentencias preparadas que guarda cada conexión del pool (0 = sin caché)
+     */
+    static FuenteDatosBench abrir(String tipo, int conexiones, int cacheSentencias) throws IOException, SQLException {
+        PoolConfig config = new PoolConfig(0, Math.max(1, conexiones), 60_000L, 30_000L, false, 2, cacheSentencias);
+
+        if (LOCAL.equals(tipo)) {
+            return new FuenteDatosBench(null, new ConnectionPool(
+                    () -> DriverManager.getConnection(DbConfig.URL, DbConfig.USER, DbConfig.PASSWORD), config));
+        }
+        if (!EMBEBIDO.equals(tipo)) {
+            throw new IllegalArgumentException("Base de datos desconocida: " + tipo + " (local|embebido)");
+        }
+
+        EmbeddedPostgres.Builder builder = EmbeddedPostgres.builder()
+                .setServerConfig("fsync", "off")
+                .setServerConfig("synchronous_commit", "off")
+                .setServerConfig("full_page_writes", "off")
+                .setServerConfig("max_connections", String.valueOf(Math.max(100, conexiones + 10)));
+        Path shm = Paths.get("/dev/shm");
+        if (Files.isDirectory(shm) && Files.isWritable(shm)) {
+            builder.setDataDirectory(Files.createTempDirectory(shm, "pg-bench-"));
+        }
+        EmbeddedPostgres pg = builder.start();
+        DataSource ds = pg.getPostgresDatabase();
+        crearEsquema(ds);
+        return new FuenteDatosBench(pg, new ConnectionPool(ds::getConnection, config));
+    }
+
+    DataSource getDataSource() {
+        return pool;
+    }
+
+    /**
+     * Inserta {@code cantidad} usuarios de prueba (rut desde {@code rutBase}, email {@code jmh-N<dominio>})
+     * y devuelve sus ids en orden.
+     */
+    long[] sembrar(int cantidad, int rutBase, String dominio) throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO usuarios (rut, dv, nombre, email) " +
+                    "SELECT ? + g, '1', 'JMH ' || g, 'jmh-' || g || ? FROM generate_series(0, ? - 1) g")) {
+                ps.setInt(1, rutBase);
+                ps.setString(2, dominio);
+                ps.setInt(3, cantidad);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("ANALYZE usuarios")) {
+                ps.execute();
+            }
+
+            long[] ids = new long[cantidad];
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT id FROM usuarios WHERE email LIKE ? ORDER BY id")) {
+                ps.setString(1, "%" + dominio);
+                try (ResultSet rs = ps.executeQuery()) {
+                    int i = 0;
+                    while (rs.next() && i < cantidad) {
+                        ids[i++] = rs.getLong(1);
+                    }
+                }
+            }
+            return ids;
+        }
+    }
+
+    void limpiar(String dominio) throws SQLException {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM usuarios WHERE email LIKE ?")) {
+            ps.setString(1, "%" + dominio);
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        pool.cerrar();
+        if (embebido != null) {
+            embebido.close();
+        }
+    }
+
+    /**
+     * Ejecuta schema.sql sin el CREATE DATABASE ni los comandos de psql.
+     */
+    private static void crearEsquema(DataSource ds) throws IOException, SQLException {
+        StringBuilder sql = new StringBuilder();
+        for (String linea : Files.readAllLines(Paths.get("schema.sql"), StandardCharsets.UTF_8)) {
+            String t = linea.trim();
+            if (!t.startsWith("--") && !t.startsWith("\\")) {
+                sql.append(linea).append('\n');
+            }
+        }
+
+        try (Connection conn = ds.getConnection()) {
+            for (String sentencia : sql.toString().split(";")) {
+                String s = sentencia.trim();
+                if (s.isEmpty() || s.toUpperCase().startsWith("CREATE DATABASE")) continue;
+                try (PreparedStatement ps = conn.prepareStatement(s)) {
+                    ps.execute();
+                }
+            }
+        }
+    }
+}
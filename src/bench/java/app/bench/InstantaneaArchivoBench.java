@@ -0,0 +1,98 @@
+package app.bench;
+
+import app.index.ArchivoInstantanea;
+import app.index.InstantaneaUsuarios;
+import app.model.FiltroUsuarios;
+import app.repository.UsuarioRepository;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tiempo hasta tener la instantánea lista sobre la BD configurada (db.url):
+ * - carga completa por JDBC (cursor) y guardado del archivo (tiempo y tamaño);
+ * - apertura del archivo mapeado, sin y con verificación del CRC del contenido, y el primer conteo
+ *   sobre él (páginas aún no leídas) y el mejor conteo ya en caliente, frente al de la copia en el heap;
+ * - puesta al día sin cambios y tras alternar el estado de {@code cambios} usuarios (se revierte al final).
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=app.bench.InstantaneaArchivoBench -Dexec.args="/tmp/usuarios.inst 1000"
+ */
+public final class InstantaneaArchivoBench {
+
+    public static void main(String[] args) throws Exception {
+        Path archivo = Paths.get(args.length > 0 ? args[0] : "usuarios.inst");
+        int cambios = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        FiltroUsuarios filtro = FiltroUsuarios.todos().conDominioEmail("gmail.com").conActivo(true);
+        UsuarioRepository repository = new UsuarioRepository();
+        UsuarioService service = new UsuarioService(repository, ModoEscritura.VERIFICACION_PREVIA);
+
+        long t = System.nanoTime();
+        InstantaneaUsuarios cargada = service.cargarInstantanea();
+        imprimir("carga JDBC completa", t, cargada.getTamano() + " usuarios");
+
+        t = System.nanoTime();
+        long bytes = ArchivoInstantanea.guardar(cargada, archivo);
+        imprimir("guardar archivo", t, String.format(Locale.ROOT, "%.1f MB", bytes / 1048576.0));
+
+        t = System.nanoTime();
+        InstantaneaUsuarios mapeada = ArchivoInstantanea.abrir(archivo, false);
+        imprimir("abrir (solo cabecera)", t, "");
+
+        t = System.nanoTime();
+        int n = mapeada.contar(filtro);
+        imprimir("primer conteo mapeada", t, n + " coinciden");
+        long mejor = Long.MAX_VALUE;
+        long mejorHeap = Long.MAX_VALUE;
+        for (int i = 0; i < 20; i++) {
+            t = System.nanoTime();
+            mapeada.contar(filtro);
+            mejor = Math.min(mejor, System.nanoTime() - t);
+            t = System.nanoTime();
+            cargada.contar(filtro);
+            mejorHeap = Math.min(mejorHeap, System.nanoTime() - t);
+        }
+        System.out.printf(Locale.ROOT, "%-28s %10.1f ms   (heap: %.1f ms)%n", "conteo mapeada (mejor de 20)",
+                mejor / 1e6, mejorHeap / 1e6);
+
+        t = System.nanoTime();
+        ArchivoInstantanea.abrir(archivo, true);
+        imprimir("abrir (con CRC)", t, "");
+
+        t = System.nanoTime();
+        InstantaneaUsuarios alDia = mapeada.ponerAlDia(repository);
+        imprimir("poner al dia, sin cambios", t, alDia.getCambiosAplicados() + " cambios");
+
+        List<Long> ids = new ArrayList<>();
+        int total = Math.min(cambios, mapeada.getTamano());
+        for (int i = 0; i < total; i++) {
+            ids.add(mapeada.getId((int) ((long) i * mapeada.getTamano() / total)));
+        }
+        service.alternarEstadoUsuarios(ids);
+        try {
+            t = System.nanoTime();
+            alDia = mapeada.ponerAlDia(repository);
+            imprimir("poner al dia, " + ids.size() + " cambios", t, alDia.getCambiosAplicados() + " cambios");
+
+            t = System.nanoTime();
+            ArchivoInstantanea.guardar(alDia, archivo);
+            imprimir("guardar tras poner al dia", t, "");
+        } finally {
+            service.alternarEstadoUsuarios(ids);
+        }
+
+        t = System.nanoTime();
+        InstantaneaUsuarios abierta = service.abrirInstantanea(archivo);
+        imprimir("abrirInstantanea (total)", t, abierta.getCambiosAplicados() + " cambios");
+        Files.deleteIfExists(archivo);
+    }
+
+    private static void imprimir(String paso, long inicio, String detalle) {
+        System.out.printf(Locale.ROOT, "%-28s %10.1f ms   %s%n", paso, (System.nanoTime() - inicio) / 1e6, detalle);
+    }
+}
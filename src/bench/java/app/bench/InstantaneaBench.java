@@ -0,0 +1,84 @@
+package app.bench;
+
+import app.index.InstantaneaUsuarios;
+import app.model.FiltroUsuarios;
+import app.model.Usuario;
+import app.service.UsuarioService;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Toda la tabla configurada (db.url) en memoria de dos formas: {@code List<Usuario>} (listarUsuarios)
+ * y {@link InstantaneaUsuarios} (cargada desde el cursor). Informa tiempo de carga, heap retenido
+ * (medido tras GC) y el mejor tiempo de un conteo filtrado (dominio y activos) sobre cada una.
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=app.bench.InstantaneaBench -Dexec.args="gmail.com 30"
+ */
+public final class InstantaneaBench {
+
+    public static void main(String[] args) {
+        String dominio = args.length > 0 ? args[0] : "gmail.com";
+        int repeticiones = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        FiltroUsuarios filtro = FiltroUsuarios.todos().conDominioEmail(dominio).conActivo(true);
+        UsuarioService service = UsuarioService.desdeConfig();
+
+        System.out.printf(Locale.ROOT, "%-12s %10s %10s %12s %14s %12s%n",
+                "forma", "usuarios", "carga ms", "heap MB", "bytes/usuario", "conteo ms");
+
+        long antes = heapUsado();
+        long inicio = System.nanoTime();
+        InstantaneaUsuarios inst = service.cargarInstantanea();
+        long cargaMs = (System.nanoTime() - inicio) / 1_000_000;
+        long heap = heapUsado() - antes;
+        long mejor = Long.MAX_VALUE;
+        int contados = 0;
+        for (int i = 0; i < repeticiones; i++) {
+            long t = System.nanoTime();
+            contados = inst.contar(filtro);
+            mejor = Math.min(mejor, System.nanoTime() - t);
+        }
+        imprimir("instantanea", inst.getTamano(), cargaMs, heap, mejor, contados);
+        inst = null;
+
+        antes = heapUsado();
+        inicio = System.nanoTime();
+        List<Usuario> lista = service.listarUsuarios();
+        cargaMs = (System.nanoTime() - inicio) / 1_000_000;
+        heap = heapUsado() - antes;
+        mejor = Long.MAX_VALUE;
+        for (int i = 0; i < repeticiones; i++) {
+            long t = System.nanoTime();
+            contados = contar(lista, dominio);
+            mejor = Math.min(mejor, System.nanoTime() - t);
+        }
+        imprimir("List<Usuario>", lista.size(), cargaMs, heap, mejor, contados);
+    }
+
+    private static int contar(List<Usuario> lista, String dominio) {
+        int n = 0;
+        for (Usuario u : lista) {
+            String email = u.getEmail();
+            int arroba = email.indexOf('@');
+            if (Boolean.TRUE.equals(u.getActivo()) && arroba >= 0 && email.startsWith(dominio, arroba + 1)
+                    && email.length() == arroba + 1 + dominio.length()) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static void imprimir(String forma, int usuarios, long cargaMs, long heap, long conteoNanos, int contados) {
+        System.out.printf(Locale.ROOT, "%-12s %10d %10d %12.1f %14.1f %12.1f   (%d coinciden)%n",
+                forma, usuarios, cargaMs, heap / 1048576.0, usuarios == 0 ? 0 : (double) heap / usuarios,
+                conteoNanos / 1e6, contados);
+    }
+
+    private static long heapUsado() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,90 @@
+package app.bench;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ejecuta las suites JMH (app.ParseRutBenchmark, app.service.ValidacionBenchmark,
+ * app.repository.MapeoBenchmark, app.bench.RepositorioBenchmark) una vez por cada nivel de
+ * concurrencia y junta todos los resultados en un único JSON, para comparar entre versiones.
+ *
+ * Los argumentos son los de JMH (filtro de suites, -p, -f, -wi, ...). Propiedades:
+ * - bench.hilos: niveles de concurrencia separados por coma (por defecto 1,4); se ignora si se pasa -t.
+ * - bench.salida: archivo JSON (por defecto target/jmh/resultados.json).
+ * - db.*: se reenvían a los forks (p.ej. -Ddb.url=... para la suite local).
+ *
+ * Uso: mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=app.bench.JmhRunner \
+ *          -Dexec.args="RepositorioBenchmark -p bd=embebido" -Dbench.hilos=1,8,32
+ */
+public class JmhRunner {
+
+    public static void main(String[] args) throws Exception {
+        exponerClasspath();
+
+        CommandLineOptions cli = new CommandLineOptions(args);
+        File salida = new File(System.getProperty("bench.salida", "target/jmh/resultados.json"));
+
+        List<Integer> niveles = new ArrayList<>();
+        if (cli.getThreads().hasValue()) {
+            niveles.add(cli.getThreads().get());
+        } else {
+            for (String s : System.getProperty("bench.hilos", "1,4").split(",")) {
+                niveles.add(Integer.parseInt(s.trim()));
+            }
+        }
+
+        // -Ddb.url=... dado a Maven no llega solo a los forks de JMH
+        List<String> propiedadesDb = new ArrayList<>();
+        for (String clave : System.getProperties().stringPropertyNames()) {
+            if (clave.startsWith("db.")) {
+                propiedadesDb.add("-D" + clave + "=" + System.getProperty(clave));
+            }
+        }
+
+        List<RunResult> resultados = new ArrayList<>();
+        for (int hilos : niveles) {
+            ChainedOptionsBuilder opciones = new OptionsBuilder().parent(cli).threads(hilos);
+            if (!propiedadesDb.isEmpty()) {
+                opciones.jvmArgsAppend(propiedadesDb.toArray(new String[0]));
+            }
+            resultados.addAll(new Runner(opciones.build()).run());
+        }
+
+        File dir = salida.getAbsoluteFile().getParentFile();
+        Files.createDirectories(dir.toPath());
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, salida.getPath()).writeOut(resultados);
+        System.out.println("Resultados JSON: " + salida.getPath());
+    }
+
+    /**
+     * Bajo exec:java el classpath vive en el classloader del plugin, no en java.class.path;
+     * los forks de JMH lo necesitan ahí.
+     */
+    private static void exponerClasspath() throws URISyntaxException {
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        if (!(cl instanceof URLClassLoader)) return;
+
+        StringBuilder cp = new StringBuilder();
+        for (URL url : ((URLClassLoader) cl).getURLs()) {
+            if (!"file".equals(url.getProtocol())) continue;
+            if (cp.length() > 0) cp.append(File.pathSeparatorChar);
+            cp.append(new File(url.toURI()).getPath());
+        }
+        if (cp.length() > 0) {
+            System.setProperty("java.class.path", cp.toString());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package app.bench;
+
+import app.model.Usuario;
+import app.repository.UsuarioRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filas mapeadas por segundo en un {@code listar} completo (la tabla sembrada con {@code tamanoTabla} usuarios).
+ *
+ * - {@code listarPorNombre}: la versión anterior, con getters por nombre de columna y setters en cada fila.
+ * - {@code listar}: {@link UsuarioRepository#listar()}, columnas resueltas una vez y lectura por índice.
+ *
+ * El contador {@code filas} reporta filas/s; la métrica principal son listados completos por segundo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ListarBenchmark {
+
+    static final String DOMINIO = "@jmh-listar.local";
+    private static final int RUT_BASE = 1_700_000_000;
+
+    @Param({FuenteDatosBench.EMBEBIDO})
+    public String bd;
+
+    @Param({"1000000"})
+    public int tamanoTabla;
+
+    /**
+     * Filas entregadas, acumuladas por hilo; JMH las reporta como tasa.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Filas {
+        public long filas;
+    }
+
+    private FuenteDatosBench fuente;
+    private UsuarioRepository repository;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        fuente = FuenteDatosBench.abrir(bd, 1);
+        repository = new UsuarioRepository(fuente.getDataSource());
+
+        fuente.limpiar(DOMINIO);
+        fuente.sembrar(tamanoTabla, RUT_BASE, DOMINIO);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        try {
+            fuente.limpiar(DOMINIO);
+        } finally {
+            fuente.close();
+        }
+    }
+
+    @Benchmark
+    public List<Usuario> listar(Filas contador) throws SQLException {
+        List<Usuario> usuarios = repository.listar();
+        contador.filas += usuarios.size();
+        return usuarios;
+    }
+
+    @Benchmark
+    public List<Usuario> listarPorNombre(Filas contador) throws SQLException {
+        List<Usuario> usuarios = new ArrayList<>();
+        try (Connection conn = fuente.getDataSource().getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT id, rut, dv, nombre, email, activo, fecha_creacion " +
+                     "FROM usuarios ORDER BY id");
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                Usuario u = new Usuario();
+                u.setId(rs.getLong("id"));
+                u.setRut(rs.getInt("rut"));
+                u.setDv(rs.getString("dv"));
+                u.setNombre(rs.getString("nombre"));
+                u.setEmail(rs.getString("email"));
+                u.setActivo(rs.getBoolean("activo"));
+                u.setFechaCreacion(rs.getTimestamp("fecha_creacion"));
+                usuarios.add(u);
+            }
+        }
+        contador.filas += usuarios.size();
+        return usuarios;
+    }
+}
@@ -0,0 +1,99 @@
+package app.bench;
+
+import app.metricas.Histograma;
+import app.metricas.Metricas;
+import app.metricas.RegistroMetricasMemoria;
+import app.model.Usuario;
+import app.repository.UsuarioRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de las métricas, deshabilitadas y habilitadas ({@code habilitadas}).
+ *
+ * - {@code medir}: {@link Metricas#medir} alrededor de una llamada vacía (lo que agrega el servicio medido).
+ * - {@code registrarHistograma}: un registro en el histograma de latencias.
+ * - {@code buscarPorId}, {@code listarPagina}: repositorio contra PostgreSQL embebido, con
+ *   {@code tamanoTabla} usuarios; habilitadas, cada sentencia y fila pasa por los envoltorios JDBC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class MetricasBenchmark {
+
+    static final String DOMINIO = "@jmh-metricas.local";
+    private static final int RUT_BASE = 1_800_000_000;
+    private static final int TAMANO_PAGINA = 100;
+
+    @Param({"false", "true"})
+    public boolean habilitadas;
+
+    @Param({"10000"})
+    public int tamanoTabla;
+
+    private final Histograma histograma = new Histograma();
+    private FuenteDatosBench fuente;
+    private UsuarioRepository repository;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void preparar(BenchmarkParams params) throws Exception {
+        Metricas.configurar(habilitadas ? new RegistroMetricasMemoria() : null, 0, false);
+
+        fuente = FuenteDatosBench.abrir(FuenteDatosBench.EMBEBIDO, params.getThreads());
+        repository = new UsuarioRepository(fuente.getDataSource()); // instrumentado si están habilitadas
+        fuente.limpiar(DOMINIO);
+        ids = fuente.sembrar(tamanoTabla, RUT_BASE, DOMINIO);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        try {
+            fuente.limpiar(DOMINIO);
+        } finally {
+            fuente.close();
+            Metricas.configurar(null, 0, false);
+        }
+    }
+
+    @Benchmark
+    public Object medir() {
+        return Metricas.medir("bench.medir", () -> ids);
+    }
+
+    @Benchmark
+    public void registrarHistograma() {
+        histograma.registrar(ThreadLocalRandom.current().nextLong(1_000_000L));
+    }
+
+    @Benchmark
+    public Usuario buscarPorId() throws SQLException {
+        return repository.buscarPorId(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public List<Usuario> listarPagina() throws SQLException {
+        long desde = ids[ThreadLocalRandom.current().nextInt(ids.length)] - 1;
+        return repository.listarDesde(desde, TAMANO_PAGINA);
+    }
+}
@@ -0,0 +1,96 @@
+package app.bench;
+
+import app.config.DbConnection;
+import app.model.Rut;
+import app.repository.UsuarioRepository;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Compara VERIFICACION_PREVIA vs SENTENCIA_UNICA en crear, actualizar y crear duplicado.
+ * Requiere la BD configurada en application.properties (o -Ddb.url=...).
+ *
+ * Uso: mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=app.bench.ModoEscrituraBenchmark [-Dexec.args=N]
+ */
+public class ModoEscrituraBenchmark {
+
+    private static final int RUT_BASE = 1_500_000_000;
+    private static final String DOMINIO = "@bench.local";
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int calentamiento = Math.max(100, n / 10);
+
+        UsuarioRepository repository = new UsuarioRepository();
+        limpiar();
+
+        System.out.printf("%-20s %-10s %10s %12s%n", "MODO", "OPERACION", "OPS/S", "US/OP");
+        int desplazamiento = 0;
+        for (ModoEscritura modo : ModoEscritura.values()) {
+            UsuarioService service = new UsuarioService(repository, modo);
+
+            ejecutar(service, desplazamiento, calentamiento, null);
+            desplazamiento += calentamiento;
+            ejecutar(service, desplazamiento, n, modo);
+            desplazamiento += n;
+            limpiar();
+        }
+
+        DbConnection.getPool().cerrar();
+    }
+
+    private static void ejecutar(UsuarioService service, int desde, int n, ModoEscritura modo) {
+        long[] ids = new long[n];
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            int k = desde + i;
+            ids[i] = service.crearUsuario(RUT_BASE + k, dv(k), "Bench " + k, "bench-" + k + DOMINIO).getId();
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            int k = desde + i;
+            service.actualizarUsuario(ids[i], RUT_BASE + k, dv(k), "Bench upd " + k, "bench-upd-" + k + DOMINIO);
+        }
+        long t2 = System.nanoTime();
+        int rechazados = 0;
+        for (int i = 0; i < n; i++) {
+            try {
+                service.crearUsuario(RUT_BASE + desde + i, dv(desde + i), "Dup", "otro-" + i + DOMINIO);
+            } catch (IllegalArgumentException e) {
+                rechazados++;
+            }
+        }
+        long t3 = System.nanoTime();
+
+        if (rechazados != n) {
+            throw new IllegalStateException("Se esperaban " + n + " duplicados, hubo " + rechazados);
+        }
+        if (modo != null) {
+            imprimir(modo, "crear", n, t1 - t0);
+            imprimir(modo, "actualizar", n, t2 - t1);
+            imprimir(modo, "duplicado", n, t3 - t2);
+        }
+    }
+
+    private static String dv(int k) {
+        return String.valueOf(Rut.calcularDv(RUT_BASE + k));
+    }
+
+    private static void imprimir(ModoEscritura modo, String operacion, int n, long nanos) {
+        System.out.printf("%-20s %-10s %10.0f %12.1f%n",
+                modo, operacion, n * 1e9 / nanos, nanos / 1e3 / n);
+    }
+
+    private static void limpiar() throws SQLException {
+        try (Connection conn = DbConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM usuarios WHERE email LIKE ?")) {
+            ps.setString(1, "%" + DOMINIO);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package app.bench;
+
+import app.model.Rut;
+import app.model.Usuario;
+import app.repository.UsuarioRepository;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Operaciones del repositorio y el alta completa del servicio contra PostgreSQL local y embebido.
+ *
+ * La tabla se siembra con {@code tamanoTabla} usuarios propios ({@value #DOMINIO}), que se borran
+ * al terminar. La concurrencia es la cantidad de hilos de JMH (-t, o -Dbench.hilos en {@link JmhRunner});
+ * el pool se dimensiona con ese valor. Sin caché ni verificador de unicidad: se mide la BD.
+ * {@code cacheSentencias} compara el pool sin y con caché de sentencias preparadas por conexión.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class RepositorioBenchmark {
+
+    static final String DOMINIO = "@jmh.local";
+    private static final int RUT_BASE = 1_600_000_000;
+    private static final int TAMANO_PAGINA = 100;
+
+    @Param({FuenteDatosBench.EMBEBIDO, FuenteDatosBench.LOCAL})
+    public String bd;
+
+    @Param({"10000", "100000"})
+    public int tamanoTabla;
+
+    @Param({"0", "32"})
+    public int cacheSentencias;
+
+    private FuenteDatosBench fuente;
+    private UsuarioRepository repository;
+    private UsuarioService service;
+    private long[] ids;
+    private String[] emails;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void preparar(BenchmarkParams params) throws Exception {
+        fuente = FuenteDatosBench.abrir(bd, params.getThreads(), cacheSentencias);
+        repository = new UsuarioRepository(fuente.getDataSource());
+        service = new UsuarioService(repository, ModoEscritura.VERIFICACION_PREVIA, null, null);
+
+        fuente.limpiar(DOMINIO);
+        ids = fuente.sembrar(tamanoTabla, RUT_BASE, DOMINIO);
+        emails = new String[ids.length];
+        for (int i = 0; i < emails.length; i++) {
+            emails[i] = "jmh-" + i + DOMINIO;
+        }
+        siguiente.set(tamanoTabla);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        try {
+            fuente.limpiar(DOMINIO);
+        } finally {
+            fuente.close();
+        }
+    }
+
+    @Benchmark
+    public Usuario buscarPorId() throws SQLException {
+        return repository.buscarPorId(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public boolean existeEmail() throws SQLException {
+        return repository.existeEmail(emails[ThreadLocalRandom.current().nextInt(emails.length)]);
+    }
+
+    @Benchmark
+    public List<Usuario> listarPagina() throws SQLException {
+        long desde = ids[ThreadLocalRandom.current().nextInt(ids.length)] - 1;
+        return repository.listarDesde(desde, TAMANO_PAGINA);
+    }
+
+    @Benchmark
+    public Usuario crearUsuario() {
+        int k = siguiente.getAndIncrement();
+        int rut = RUT_BASE + k;
+        return service.crearUsuario(rut, String.valueOf(Rut.calcularDv(rut)), "JMH " + k, "jmh-" + k + DOMINIO);
+    }
+}
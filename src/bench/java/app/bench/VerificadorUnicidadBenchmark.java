@@ -0,0 +1,81 @@
+package app.bench;
+
+import app.index.FiltroBloomUnicidad;
+import app.index.IndiceUnicidad;
+import app.index.VerificadorUnicidad;
+import app.repository.UsuarioRepository;
+
+import java.sql.SQLException;
+
+/**
+ * Memoria, velocidad de consulta y consultas a la BD evitadas por cada verificador de unicidad,
+ * con N usuarios sintéticos (sin BD). La mitad de las consultas son de emails inexistentes.
+ *
+ * Uso: mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=app.bench.VerificadorUnicidadBenchmark [-Dexec.args=N]
+ */
+public class VerificadorUnicidadBenchmark {
+
+    private static final int CONSULTAS = 2_000_000;
+
+    public static void main(String[] args) throws SQLException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        String[] existentes = new String[CONSULTAS / 2];
+        String[] nuevos = new String[CONSULTAS / 2];
+        for (int i = 0; i < existentes.length; i++) {
+            existentes[i] = email("usuario", i % n);
+            nuevos[i] = email("nuevo", i);
+        }
+
+        System.out.printf("usuarios: %,d%n%n", n);
+        System.out.printf("%-22s %10s %14s %14s %16s %12s%n",
+                "VERIFICADOR", "CARGA_MS", "BYTES", "BYTES/USUARIO", "CONSULTAS/S", "EVITADAS");
+
+        medir("IndiceUnicidad", new IndiceUnicidad(n), n, existentes, nuevos);
+        medir("FiltroBloom fpp=1%", new FiltroBloomUnicidad(n, 0.01), n, existentes, nuevos);
+        medir("FiltroBloom fpp=0.1%", new FiltroBloomUnicidad(n, 0.001), n, existentes, nuevos);
+    }
+
+    private static void medir(String nombre, VerificadorUnicidad verificador, int n,
+                              String[] existentes, String[] nuevos) throws SQLException {
+        long t0 = System.nanoTime();
+        verificador.cargar(repositorioSintetico(n));
+        long t1 = System.nanoTime();
+
+        long t2 = System.nanoTime();
+        for (int i = 0; i < existentes.length; i++) {
+            verificador.puedeExistirEmail(existentes[i], null);
+            verificador.puedeExistirEmail(nuevos[i], null);
+        }
+        long t3 = System.nanoTime();
+
+        System.out.printf("%-22s %10.0f %,14d %14.1f %,16.0f %12d%n",
+                nombre,
+                (t1 - t0) / 1e6,
+                verificador.bytesEstimados(),
+                verificador.bytesEstimados() / (double) n,
+                CONSULTAS * 1e9 / (t3 - t2),
+                verificador.getConsultasLocales());
+    }
+
+    private static UsuarioRepository repositorioSintetico(int n) {
+        return new UsuarioRepository(null) {
+            @Override
+            public long estimarTotalUsuarios() {
+                return n;
+            }
+
+            @Override
+            public long recorrerClavesUnicidad(ClavesUnicidadConsumer consumidor) {
+                for (int i = 0; i < n; i++) {
+                    consumidor.aceptar(i + 1, 10_000_000 + i, String.valueOf(i % 10), email("usuario", i));
+                }
+                return n;
+            }
+        };
+    }
+
+    private static String email(String prefijo, int i) {
+        return prefijo + i + "@empresa.cl";
+    }
+}
@@ -0,0 +1,84 @@
+package app.repository;
+
+import app.model.Usuario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo del mapeo de una fila a {@link app.model.Usuario} sobre un ResultSet en memoria (sin driver ni red).
+ *
+ * - {@code map}: columnas buscadas por nombre en cada fila (lo que se hace para una sola fila).
+ * - {@code mapPorPosicion}: {@link UsuarioRepository.MapeoUsuario} resuelto una vez, lectura por índice.
+ * - {@code lecturas}: los mismos 7 getters por nombre sin construir el Usuario; la diferencia con
+ *   {@code map} es el costo propio del mapeo; lo común es el despacho del ResultSet de prueba.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapeoBenchmark {
+
+    private static final List<String> COLUMNAS =
+            Arrays.asList("id", "rut", "dv", "nombre", "email", "activo", "fecha_creacion", "version");
+
+    private ResultSet rs;
+    private UsuarioRepository.MapeoUsuario mapeo;
+
+    @Setup
+    public void preparar() throws SQLException {
+        Timestamp fecha = new Timestamp(System.currentTimeMillis());
+        Object[] valores = {123_456L, 12_345_678, "5", "Juan Perez", "juan.perez@email.com", Boolean.TRUE, fecha, 1L};
+        rs = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    int indice = args[0] instanceof Integer
+                            ? (Integer) args[0]
+                            : COLUMNAS.indexOf(args[0]) + 1;
+                    if (indice <= 0 || indice > valores.length) {
+                        throw new SQLException("Columna desconocida: " + args[0]);
+                    }
+                    return "findColumn".equals(method.getName()) ? indice : valores[indice - 1];
+                });
+        mapeo = UsuarioRepository.MapeoUsuario.de(rs);
+    }
+
+    @Benchmark
+    public Usuario map() throws SQLException {
+        return UsuarioRepository.map(rs);
+    }
+
+    @Benchmark
+    public Usuario mapPorPosicion() throws SQLException {
+        return mapeo.map(rs);
+    }
+
+    @Benchmark
+    public void lecturas(Blackhole bh) throws SQLException {
+        bh.consume(rs.getLong("id"));
+        bh.consume(rs.getInt("rut"));
+        bh.consume(rs.getString("dv"));
+        bh.consume(rs.getString("nombre"));
+        bh.consume(rs.getString("email"));
+        bh.consume(rs.getBoolean("activo"));
+        bh.consume(rs.getTimestamp("fecha_creacion"));
+        bh.consume(rs.getLong("version"));
+    }
+}
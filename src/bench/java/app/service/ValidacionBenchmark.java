@@ -0,0 +1,74 @@
+package app.service;
+
+import app.model.Email;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Costo de {@link UsuarioService#validarDatos} y de la normalización que aplican el servicio
+ * y el importador antes de escribir.
+ *
+ * {@code emailRegex} reproduce el camino anterior (trim repetidos, regex y trim + toLowerCase);
+ * {@code emailNormalizar} es {@link Email#normalizar}, que hace lo mismo en una pasada.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacionBenchmark {
+
+    private static final Pattern EMAIL_PATTERN =
+            Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+
+    @Param({"juan.perez@email.com", "  Nombre.Apellido+etiqueta@sub.dominio-ejemplo.cl  "})
+    public String email;
+
+    private final Integer rut = 12345678;
+    private final String dv = "5";
+    private final String nombre = "  Juan Perez Gonzalez  ";
+
+    @Benchmark
+    public String validarDatos() {
+        return UsuarioService.validarDatos(rut, dv, nombre, email);
+    }
+
+    @Benchmark
+    public void validarYNormalizar(Blackhole bh) {
+        bh.consume(UsuarioService.validarDatos(rut, dv, nombre, email));
+        bh.consume(UsuarioService.normalizarDv(dv));
+        bh.consume(nombre.trim());
+    }
+
+    @Benchmark
+    public String emailRegex() {
+        if (email == null || email.trim().isEmpty()) {
+            throw new IllegalArgumentException("Email es obligatorio.");
+        }
+        if (email.trim().length() > 200) {
+            throw new IllegalArgumentException("Email excede 200 caracteres.");
+        }
+        if (!EMAIL_PATTERN.matcher(email.trim()).matches()) {
+            throw new IllegalArgumentException("Formato de email inválido.");
+        }
+        return email.trim().toLowerCase();
+    }
+
+    @Benchmark
+    public String emailNormalizar() {
+        return Email.normalizar(email);
+    }
+}
@@ -0,0 +1,180 @@
+package app;
+
+import app.index.ArchivoInstantanea;
+import app.index.IndiceUnicidad;
+import app.index.InstantaneaUsuarios;
+import app.model.FiltroUsuarios;
+import app.model.Usuario;
+import app.repository.UsuarioRepository;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArchivoInstantaneaTest {
+
+    private static final Timestamp ENERO = Timestamp.valueOf(LocalDateTime.of(2024, 1, 10, 8, 0));
+
+    private static final List<Usuario> USUARIOS = List.of(
+            new Usuario(3L, 12345678, "5", "Juan Pérez", "juan@empresa.cl", true, ENERO, 4L),
+            new Usuario(7L, 9876543, "K", "ANA SOTO", "ana@otra.cl", false, ENERO, 1L),
+            new Usuario(9L, 1, "9", "José Núñez", "jose@empresa.cl", false, null, 2L),
+            new Usuario(12L, 2, "7", "", "x@empresa.cl", true, ENERO, 1L));
+
+    @TempDir
+    Path dir;
+
+    /** Lo que entrega recorrerCambiosDesde en la próxima llamada. */
+    private final List<Usuario> cambios = new ArrayList<>();
+    private long marcaActual = 100L;
+
+    @Test
+    void guardarYAbrir_mapeadaIgualALaDelHeap() throws Exception {
+        InstantaneaUsuarios heap = InstantaneaUsuarios.cargar(repositorio());
+        Path archivo = dir.resolve("usuarios.inst");
+
+        long bytes = ArchivoInstantanea.guardar(heap, archivo);
+        InstantaneaUsuarios mapeada = ArchivoInstantanea.abrir(archivo, true);
+
+        assertEquals(Files.size(archivo), bytes);
+        assertTrue(mapeada.isMapeada());
+        assertEquals(100L, mapeada.getMarca());
+        assertEquals(heap.getTamano(), mapeada.getTamano());
+        for (int fila = 0; fila < heap.getTamano(); fila++) {
+            assertEquals(heap.get(fila), mapeada.get(fila));
+        }
+        assertEquals(heap.contar(FiltroUsuarios.todos().conDominioEmail("empresa.cl").conActivo(true)),
+                mapeada.contar(FiltroUsuarios.todos().conDominioEmail("empresa.cl").conActivo(true)));
+        assertEquals(1, mapeada.contar(FiltroUsuarios.todos().conNombreContiene("núñez")));
+        assertNull(mapeada.buscar(8L));
+    }
+
+    @Test
+    void abrir_rechazaArchivosDanados() throws Exception {
+        Path archivo = dir.resolve("usuarios.inst");
+        ArchivoInstantanea.guardar(InstantaneaUsuarios.cargar(repositorio()), archivo);
+        byte[] original = Files.readAllBytes(archivo);
+
+        byte[] contenido = original.clone();
+        contenido[contenido.length - 3] ^= 1; // un byte de la arena
+        Files.write(archivo, contenido);
+        assertThrows(IllegalArgumentException.class, () -> ArchivoInstantanea.abrir(archivo, true));
+        ArchivoInstantanea.abrir(archivo, false); // sin verificar el contenido solo se revisa la cabecera
+
+        byte[] cabecera = original.clone();
+        cabecera[8] = 2; // versión del formato
+        Files.write(archivo, cabecera);
+        assertThrows(IllegalArgumentException.class, () -> ArchivoInstantanea.abrir(archivo, false));
+
+        Files.write(archivo, new byte[]{1, 2, 3});
+        assertThrows(IllegalArgumentException.class, () -> ArchivoInstantanea.abrir(archivo, false));
+    }
+
+    @Test
+    void ponerAlDia_reemplazaEIntercalaEnOrden() throws Exception {
+        Path archivo = dir.resolve("usuarios.inst");
+        ArchivoInstantanea.guardar(InstantaneaUsuarios.cargar(repositorio()), archivo);
+        InstantaneaUsuarios mapeada = ArchivoInstantanea.abrir(archivo, false);
+
+        cambios.add(new Usuario(1L, 3, "5", "Nuevo Primero", "p@nuevo.cl", true, ENERO, 1L));
+        cambios.add(new Usuario(7L, 9876543, "K", "Ana Soto", "ana@otra.cl", true, ENERO, 2L));
+        cambios.add(new Usuario(8L, 4, "3", "Nuevo Medio", "m@empresa.cl", false, null, 1L));
+        cambios.add(new Usuario(20L, 5, "1", "Nuevo Último", "u@empresa.cl", true, ENERO, 1L));
+        marcaActual = 200L;
+        InstantaneaUsuarios alDia = mapeada.ponerAlDia(repositorio());
+
+        assertEquals(4, alDia.getCambiosAplicados());
+        assertEquals(200L, alDia.getMarca());
+        assertEquals(7, alDia.getTamano());
+        List<Long> ids = new ArrayList<>();
+        alDia.recorrer(FiltroUsuarios.todos(), u -> ids.add(u.getId()));
+        assertEquals(List.of(1L, 3L, 7L, 8L, 9L, 12L, 20L), ids);
+        assertEquals("Ana Soto", alDia.buscar(7L).getNombre());
+        assertEquals(2L, alDia.buscar(7L).getVersion());
+        assertEquals("José Núñez", alDia.buscar(9L).getNombre());
+        assertEquals("x@empresa.cl", alDia.buscar(12L).getEmail());
+        assertEquals(5, alDia.contarActivos());
+        assertEquals(5, alDia.contar(FiltroUsuarios.todos().conDominioEmail("empresa.cl")));
+
+        cambios.clear();
+        assertSame(alDia, alDia.ponerAlDia(repositorio()));
+    }
+
+    @Test
+    void ponerAlDia_conMarcaVencidaCargaTodo() throws Exception {
+        InstantaneaUsuarios inst = InstantaneaUsuarios.cargar(repositorio());
+        cambios.add(new Usuario(1L, 3, "5", "No se aplica", "p@nuevo.cl", true, ENERO, 1L));
+        marcaActual = UsuarioRepository.MARCA_VENCIDA;
+
+        InstantaneaUsuarios otra = inst.ponerAlDia(repositorio());
+
+        assertEquals(USUARIOS.size(), otra.getTamano());
+        assertEquals(0, otra.getCambiosAplicados());
+    }
+
+    @Test
+    void abrirInstantanea_creaElArchivoYLuegoLoMapea() {
+        UsuarioService service = new UsuarioService(repositorio(), ModoEscritura.VERIFICACION_PREVIA);
+        Path archivo = dir.resolve("sub.inst");
+
+        InstantaneaUsuarios primera = service.abrirInstantanea(archivo);
+        InstantaneaUsuarios segunda = service.abrirInstantanea(archivo);
+
+        assertFalse(primera.isMapeada());
+        assertTrue(Files.exists(archivo));
+        assertTrue(segunda.isMapeada());
+        assertEquals(0, segunda.getCambiosAplicados());
+        assertEquals(primera.get(2), segunda.get(2));
+    }
+
+    @Test
+    void verificador_seCargaDesdeLaInstantanea() throws Exception {
+        IndiceUnicidad indice = new IndiceUnicidad(16);
+
+        long n = indice.cargar(InstantaneaUsuarios.cargar(repositorio()));
+
+        assertEquals(USUARIOS.size(), n);
+        assertTrue(indice.puedeExistirEmail("ana@otra.cl", null));
+        assertFalse(indice.puedeExistirEmail("nadie@otra.cl", null));
+        assertTrue(indice.puedeExistirRutDv(9876543, "K", null));
+        assertFalse(indice.puedeExistirRutDv(9876543, "K", 7L));
+    }
+
+    private UsuarioRepository repositorio() {
+        return new UsuarioRepository(null) {
+            @Override
+            public long estimarTotalUsuarios() {
+                return USUARIOS.size();
+            }
+
+            @Override
+            public long recorrerConMarca(Consumer<Usuario> consumidor) {
+                USUARIOS.forEach(consumidor);
+                return 100L;
+            }
+
+            @Override
+            public long recorrerCambiosDesde(long marca, Consumer<Usuario> consumidor) {
+                if (marcaActual != MARCA_VENCIDA) {
+                    cambios.forEach(consumidor);
+                }
+                return marcaActual;
+            }
+        };
+    }
+}
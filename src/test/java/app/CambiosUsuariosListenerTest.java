@@ -0,0 +1,86 @@
+package app;
+
+import app.cache.CambiosUsuariosListener;
+import app.cache.UsuarioCache;
+import app.model.Usuario;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CambiosUsuariosListenerTest {
+
+    private final List<Long> recargados = new ArrayList<>();
+
+    @Test
+    void idDe_ignoraInsertYPayloadsInvalidos() {
+        assertEquals(42L, CambiosUsuariosListener.idDe("U:42"));
+        assertEquals(7L, CambiosUsuariosListener.idDe("D:7"));
+        assertNull(CambiosUsuariosListener.idDe("I:42")); // un alta no deja nada viejo en caché
+        assertNull(CambiosUsuariosListener.idDe(null));
+        assertNull(CambiosUsuariosListener.idDe(""));
+        assertNull(CambiosUsuariosListener.idDe("U:"));
+        assertNull(CambiosUsuariosListener.idDe("U42"));
+        assertNull(CambiosUsuariosListener.idDe("U:x"));
+        assertNull(CambiosUsuariosListener.idDe("U:99999999999999999999"));
+    }
+
+    @Test
+    void aplicar_sinCargador_soloDesaloja() {
+        UsuarioCache cache = conUsuarios(1L, 2L);
+
+        new CambiosUsuariosListener(cache, null).aplicar(ids(1L, 3L));
+
+        assertFalse(cache.contiene(1L));
+        assertTrue(cache.contiene(2L));
+        assertFalse(cache.contiene(3L));
+    }
+
+    @Test
+    void aplicar_conCargador_recargaSoloLosQueEstabanEnCache() throws Exception {
+        UsuarioCache cache = conUsuarios(1L, 2L);
+
+        new CambiosUsuariosListener(cache, this::cargar).aplicar(ids(1L, 3L));
+
+        assertEquals(List.of(1L), recargados);
+        assertEquals("Recargado 1", cache.obtener(1L, this::cargar).getNombre());
+        assertTrue(cache.contiene(2L));
+        assertFalse(cache.contiene(3L));
+    }
+
+    @Test
+    void aplicar_falloDelCargador_quedaDesalojado() {
+        UsuarioCache cache = conUsuarios(1L, 2L);
+
+        new CambiosUsuariosListener(cache, id -> {
+            throw new SQLException("sin conexión");
+        }).aplicar(ids(1L, 2L));
+
+        assertEquals(0, cache.getTamano());
+    }
+
+    private static UsuarioCache conUsuarios(Long... ids) {
+        UsuarioCache cache = new UsuarioCache(10, 60_000L);
+        for (Long id : ids) {
+            cache.poner(new Usuario(id, 12345678, "5", "Original " + id, "u" + id + "@mail.com", true, null, 1L));
+        }
+        return cache;
+    }
+
+    private static Set<Long> ids(Long... ids) {
+        return new LinkedHashSet<>(List.of(ids));
+    }
+
+    private Usuario cargar(Long id) {
+        recargados.add(id);
+        return new Usuario(id, 12345678, "5", "Recargado " + id, "u" + id + "@mail.com", true, null, 2L);
+    }
+}
@@ -0,0 +1,269 @@
+package app;
+
+import app.model.Usuario;
+import app.repository.ResultadoEscritura;
+import app.repository.UsuarioRepository;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrenciaOptimistaTest {
+
+    private final FilaFalsa fila = new FilaFalsa();
+    private final UsuarioService service =
+            new UsuarioService(new UsuarioRepository(fila), ModoEscritura.VERIFICACION_PREVIA);
+
+    @Test
+    void sinVersion_dosEscrituras_sePierdeUna() throws Exception {
+        CyclicBarrier ambasLeyeron = new CyclicBarrier(2);
+
+        enDosHilos(() -> {
+            int n = contador(service.buscarUsuarioPorId(1L));
+            ambasLeyeron.await();
+            service.actualizarUsuario(1L, 12345678, "5", "Contador " + (n + 1), "a@mail.com");
+            return null;
+        });
+
+        assertEquals("Contador 1", fila.nombre); // dos incrementos, queda uno
+        assertEquals(3, fila.version);
+    }
+
+    @Test
+    void conVersion_laSegundaEscrituraEsConflicto() throws Exception {
+        CyclicBarrier ambasLeyeron = new CyclicBarrier(2);
+
+        List<ResultadoEscritura> resultados = enDosHilos(() -> {
+            Usuario u = service.buscarUsuarioPorId(1L);
+            ambasLeyeron.await();
+            return incrementar(u);
+        });
+
+        ResultadoEscritura ok = resultados.get(0).isExitoso() ? resultados.get(0) : resultados.get(1);
+        ResultadoEscritura conflicto = ok == resultados.get(0) ? resultados.get(1) : resultados.get(0);
+        assertTrue(ok.isExitoso());
+        assertEquals(2L, ok.getVersion());
+        assertTrue(conflicto.isConflictoVersion());
+        assertTrue(conflicto.isEncontrado());
+        assertFalse(conflicto.isExitoso());
+        assertEquals(2L, conflicto.getVersion());
+        assertEquals("Contador 1", fila.nombre);
+    }
+
+    @Test
+    void conVersionYReintento_noSePierdenIncrementos() throws Exception {
+        int hilos = 8;
+        int porHilo = 250;
+        AtomicInteger conflictos = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                tareas.add(pool.submit(() -> {
+                    for (int i = 0; i < porHilo; i++) {
+                        while (!incrementar(service.buscarUsuarioPorId(1L)).isExitoso()) {
+                            conflictos.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> t : tareas) {
+                t.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals("Contador " + hilos * porHilo, fila.nombre);
+        assertEquals(1 + hilos * porHilo, fila.version);
+        assertEquals(hilos * porHilo + conflictos.get(), fila.condicionales.get());
+    }
+
+    @Test
+    void conVersion_idInexistente() {
+        ResultadoEscritura r = service.actualizarUsuarioSiVersion(2L, 1L, 12345678, "5", "Otro", "b@mail.com");
+
+        assertFalse(r.isEncontrado());
+        assertFalse(r.isConflictoVersion());
+        assertEquals(1, fila.version);
+    }
+
+    private ResultadoEscritura incrementar(Usuario u) {
+        return service.actualizarUsuarioSiVersion(u.getId(), u.getVersion(), u.getRut(), u.getDv(),
+                "Contador " + (contador(u) + 1), u.getEmail());
+    }
+
+    private static int contador(Usuario u) {
+        return Integer.parseInt(u.getNombre().substring("Contador ".length()));
+    }
+
+    private static <T> List<T> enDosHilos(Callable<T> tarea) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<T> a = pool.submit(tarea);
+            Future<T> b = pool.submit(tarea);
+            return Arrays.asList(a.get(10, TimeUnit.SECONDS), b.get(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Tabla de un solo usuario (id 1) en memoria. Atiende las sentencias del repositorio que usa el
+     * test: lectura por id, UPDATE sin condición y UPDATE condicional por versión, cada una atómica.
+     */
+    private static final class FilaFalsa implements DataSource {
+        private static final List<String> COLUMNAS =
+                List.of("id", "rut", "dv", "nombre", "email", "activo", "fecha_creacion", "version");
+
+        volatile String nombre = "Contador 0";
+        volatile long version = 1;
+        final AtomicInteger condicionales = new AtomicInteger();
+
+        @Override
+        public Connection getConnection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> "prepareStatement".equals(method.getName()) ? sentencia((String) args[0]) : null);
+        }
+
+        private PreparedStatement sentencia(String sql) {
+            Map<Integer, Object> parametros = new HashMap<>();
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        String m = method.getName();
+                        if (m.startsWith("set") && args.length == 2) {
+                            parametros.put((Integer) args[0], args[1]);
+                            return null;
+                        }
+                        if ("executeUpdate".equals(m)) {
+                            return actualizar(sql, parametros);
+                        }
+                        if ("executeQuery".equals(m)) {
+                            return consultar(sql, parametros);
+                        }
+                        return null;
+                    });
+        }
+
+        private synchronized int actualizar(String sql, Map<Integer, Object> p) {
+            if (!sql.startsWith("UPDATE usuarios SET rut") || !Long.valueOf(1L).equals(p.get(5))) {
+                return 0;
+            }
+            nombre = (String) p.get(3);
+            version++;
+            return 1;
+        }
+
+        private synchronized ResultSet consultar(String sql, Map<Integer, Object> p) {
+            if (sql.startsWith("WITH upd AS (UPDATE usuarios SET rut")) {
+                condicionales.incrementAndGet();
+                if (!Long.valueOf(1L).equals(p.get(5))) {
+                    return filas(new Object[]{null, null});
+                }
+                if ((Long) p.get(6) != version) {
+                    return filas(new Object[]{null, version});
+                }
+                long anterior = version;
+                nombre = (String) p.get(3);
+                version++;
+                return filas(new Object[]{version, anterior});
+            }
+            if (sql.startsWith("SELECT id, rut") && Long.valueOf(1L).equals(p.get(1))) {
+                return filas(new Object[]{1L, 12345678, "5", nombre, "a@mail.com", true, null, version});
+            }
+            return filas();
+        }
+
+        private ResultSet filas(Object[]... filas) {
+            int[] actual = {-1};
+            boolean[] nulo = {false};
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "next":
+                                return ++actual[0] < filas.length;
+                            case "findColumn":
+                                return COLUMNAS.indexOf(args[0]) + 1;
+                            case "wasNull":
+                                return nulo[0];
+                            case "getLong":
+                            case "getInt":
+                            case "getString":
+                            case "getBoolean":
+                            case "getTimestamp":
+                                Object v = filas[actual[0]][(Integer) args[0] - 1];
+                                nulo[0] = v == null;
+                                if (v == null) {
+                                    return method.getReturnType() == long.class ? 0L : null;
+                                }
+                                return v;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return null;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) {
+            return null;
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package app;
+
+import app.config.ConnectionPool;
+import app.config.PoolConfig;
+import app.config.PoolStats;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConnectionPoolTest {
+
+    private final AtomicInteger creadas = new AtomicInteger();
+    private final AtomicBoolean validas = new AtomicBoolean(true);
+    private final AtomicInteger sentenciasCreadas = new AtomicInteger();
+    private final AtomicInteger sentenciasCerradas = new AtomicInteger();
+
+    @Test
+    void conexionDevuelta_seReutiliza() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::conexionFalsa, config(2));
+
+        pool.getConnection().close();
+        pool.getConnection().close();
+
+        assertEquals(1, creadas.get());
+        PoolStats stats = pool.stats();
+        assertEquals(1, stats.getInactivas());
+        assertEquals(0, stats.getActivas());
+        assertEquals(2, stats.getPrestamos());
+        pool.cerrar();
+    }
+
+    @Test
+    void poolAgotado_debeFallarPorTimeout() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::conexionFalsa, config(1));
+
+        try (Connection ocupada = pool.getConnection()) {
+            assertFalse(ocupada.isClosed());
+            assertThrows(SQLTimeoutException.class, pool::getConnection);
+            assertEquals(1, pool.stats().getTimeouts());
+        }
+        pool.cerrar();
+    }
+
+    @Test
+    void conexionInvalida_seDescartaAlPrestar() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::conexionFalsa, config(2));
+
+        pool.getConnection().close();
+        validas.set(false);
+        pool.getConnection().close();
+
+        assertEquals(2, creadas.get());
+        assertEquals(1, pool.stats().getDescartadas());
+        pool.cerrar();
+    }
+
+    @Test
+    void handleCerrado_noPuedeUsarse() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::conexionFalsa, config(1));
+
+        Connection conn = pool.getConnection();
+        conn.close();
+
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::createStatement);
+        pool.cerrar();
+    }
+
+    @Test
+    void sentenciaCerrada_seReutilizaEnElSiguientePrestamo() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::conexionFalsa,
+                new PoolConfig(0, 1, 60_000L, 50L, false, 1, 2));
+
+        try (Connection conn = pool.getConnection()) {
+            PreparedStatement ps = conn.prepareStatement("SELECT 1");
+            ps.close();
+            assertTrue(ps.isClosed());
+            assertThrows(SQLException.class, ps::executeQuery);
+        }
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT 1");
+             PreparedStatement mismoSql = conn.prepareStatement("SELECT 1")) {
+            assertEquals(conn, ps.getConnection());
+            assertNotSame(ps, mismoSql); // la del caché está en uso: se prepara otra
+            assertFalse(mismoSql.isClosed());
+        }
+
+        // Una preparación para el caché y otra para el mismo SQL abierto dos veces a la vez
+        assertEquals(2, sentenciasCreadas.get());
+        assertEquals(1, sentenciasCerradas.get());
+        assertEquals(1, pool.stats().getSentenciasReutilizadas());
+        assertEquals(2, pool.stats().getSentenciasPreparadas());
+        pool.cerrar();
+    }
+
+    @Test
+    void cacheDeSentenciasLleno_cierraLaMenosUsada() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::conexionFalsa,
+                new PoolConfig(0, 1, 60_000L, 50L, false, 1, 2));
+
+        try (Connection conn = pool.getConnection()) {
+            conn.prepareStatement("A").close();
+            conn.prepareStatement("B").close();
+            conn.prepareStatement("A").close();
+            conn.prepareStatement("C").close(); // desaloja B
+            conn.prepareStatement("A").close();
+        }
+
+        assertEquals(3, sentenciasCreadas.get());
+        assertEquals(1, sentenciasCerradas.get());
+        assertEquals(2, pool.stats().getSentenciasReutilizadas());
+        pool.cerrar();
+    }
+
+    private PoolConfig config(int max) {
+        return new PoolConfig(0, max, 60_000L, 50L, true, 1);
+    }
+
+    private Connection conexionFalsa() {
+        creadas.incrementAndGet();
+        AtomicBoolean cerrada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isValid":
+                            return validas.get();
+                        case "isClosed":
+                            return cerrada.get();
+                        case "close":
+                            cerrada.set(true);
+                            return null;
+                        case "getAutoCommit":
+                            return true;
+                        case "isReadOnly":
+                            return false;
+                        case "prepareStatement":
+                            return sentenciaFalsa();
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private PreparedStatement sentenciaFalsa() {
+        sentenciasCreadas.incrementAndGet();
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            sentenciasCerradas.incrementAndGet();
+                            return null;
+                        case "isClosed":
+                            return false;
+                        case "getFetchSize":
+                            return 0;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
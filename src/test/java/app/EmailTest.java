@@ -0,0 +1,92 @@
+package app;
+
+import app.model.Email;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EmailTest {
+
+    // Patrón que usaba UsuarioService antes del validador manual
+    private static final Pattern EMAIL_PATTERN =
+            Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+
+    private static final String ALFABETO = "aZk09+_.-@..@ \téıKx-.co";
+
+    @Test
+    void normalizar_trimYMinusculas() {
+        assertEquals("juan.perez@email.com", Email.normalizar("  Juan.Perez@EMAIL.com \n"));
+        assertEquals("a+b_c-d@sub-1.dominio.cl", Email.normalizar("a+b_c-d@sub-1.dominio.cl"));
+
+        String normalizado = "ya.normal@mail.cl";
+        assertSame(normalizado, Email.normalizar(normalizado));
+    }
+
+    @Test
+    void normalizar_mensajes() {
+        assertEquals("Email es obligatorio.", mensaje(null));
+        assertEquals("Email es obligatorio.", mensaje("   "));
+        assertEquals("Email excede 200 caracteres.", mensaje(repetir('a', 190) + "@mail.com.cl"));
+        assertEquals("Formato de email inválido.", mensaje("correo-invalido"));
+        assertEquals("Formato de email inválido.", mensaje("a@b.c"));
+        assertEquals("Formato de email inválido.", mensaje("a@.cl"));
+        assertEquals("Formato de email inválido.", mensaje("a@b.c1"));
+        assertEquals("Formato de email inválido.", mensaje("a+b@c+d.cl"));
+        assertEquals("Formato de email inválido.", mensaje("a@b@c.cl"));
+    }
+
+    @Test
+    void intentarNormalizar_equivaleAlPatron() {
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < 500_000; n++) {
+            sb.setLength(0);
+            int largo = random.nextInt(14);
+            for (int i = 0; i < largo; i++) {
+                sb.append(ALFABETO.charAt(random.nextInt(ALFABETO.length())));
+            }
+            // Sesgo hacia entradas casi válidas
+            if (random.nextBoolean()) sb.insert(random.nextInt(sb.length() + 1), "x@y.");
+
+            String entrada = sb.toString();
+            assertEquals(segunPatron(entrada), Email.intentarNormalizar(entrada), () -> "Entrada: [" + entrada + "]");
+        }
+    }
+
+    @Test
+    void intentarNormalizar_largoMaximo() {
+        String limite = repetir('a', 192) + "@mail.cl";
+        assertEquals(200, limite.length());
+        assertEquals(limite, Email.intentarNormalizar(limite));
+        assertNull(Email.intentarNormalizar("a" + limite));
+    }
+
+    private static String segunPatron(String entrada) {
+        String t = entrada.trim();
+        if (t.isEmpty() || t.length() > Email.LARGO_MAX || !EMAIL_PATTERN.matcher(t).matches()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(t.length());
+        for (int i = 0; i < t.length(); i++) {
+            char c = t.charAt(i);
+            sb.append(c >= 'A' && c <= 'Z' ? (char) (c + 32) : c);
+        }
+        return sb.toString();
+    }
+
+    private static String mensaje(String entrada) {
+        return assertThrows(IllegalArgumentException.class, () -> Email.normalizar(entrada)).getMessage();
+    }
+
+    private static String repetir(char c, int n) {
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) sb.append(c);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,228 @@
+package app;
+
+import app.cache.CambiosUsuariosListener;
+import app.cache.UsuarioCache;
+import app.config.EnrutadorLecturas;
+import app.model.Usuario;
+import app.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EnrutadorLecturasTest {
+
+    private final List<String> usadas = Collections.synchronizedList(new ArrayList<>());
+    private final FuenteFalsa primario = new FuenteFalsa("primario");
+    private final FuenteFalsa replica1 = new FuenteFalsa("replica-1");
+    private final FuenteFalsa replica2 = new FuenteFalsa("replica-2");
+
+    @Test
+    void lecturas_vanALasReplicasEnTurno() throws SQLException {
+        EnrutadorLecturas enrutador = enrutador(0);
+
+        for (int i = 0; i < 4; i++) {
+            enrutador.getLecturas().getConnection().close();
+        }
+
+        assertEquals(List.of("replica-1", "replica-2", "replica-1", "replica-2"), usadas);
+        assertEquals(2, enrutador.getEstado().get(1).getConexiones());
+        assertEquals(0, enrutador.getEstado().get(0).getConexiones());
+    }
+
+    @Test
+    void repositorio_unicidadYEscriturasAlPrimario() throws SQLException {
+        UsuarioRepository repository = UsuarioRepository.conReplicas(enrutador(0));
+
+        repository.buscarPorId(1L);
+        repository.existeEmail("a@mail.com");
+        repository.existeRutDv(12345678, "5");
+        repository.actualizarActivo(1L, false);
+
+        assertEquals(List.of("replica-1", "primario", "primario", "primario"), usadas);
+    }
+
+    @Test
+    void trasUnaEscritura_leeDelPrimarioDuranteLaVentana() throws Exception {
+        EnrutadorLecturas enrutador = enrutador(150);
+        UsuarioRepository repository = UsuarioRepository.conReplicas(enrutador);
+
+        repository.actualizarActivo(1L, true);
+        repository.buscarPorId(1L);
+        Thread.sleep(250);
+        repository.buscarPorId(1L);
+
+        assertEquals(List.of("primario", "primario", "replica-1"), usadas);
+        assertEquals(1, enrutador.getLecturasPorVentana());
+    }
+
+    @Test
+    void refrescoDelListener_leeDelPrimarioAunqueLaReplicaEsteAtrasada() throws SQLException {
+        UsuarioRepository repository = UsuarioRepository.conReplicas(enrutador(0));
+        for (FuenteFalsa f : List.of(primario, replica1, replica2)) {
+            f.conFila.set(true); // cada extremo entrega la fila con su nombre: las réplicas, la anterior
+        }
+        UsuarioCache cache = new UsuarioCache(10, 60_000L);
+        cache.poner(new Usuario(1L, 1, "9", "cacheado", "a@mail.com", true, null, 1L));
+
+        new CambiosUsuariosListener(cache, repository::buscarPorIdEnPrimario).aplicar(Set.of(1L));
+
+        assertEquals("primario", cache.obtener(1L, id -> null).getNombre());
+        assertEquals(List.of("primario"), usadas);
+        assertEquals("replica-1", repository.buscarPorId(1L).getNombre()); // las lecturas normales sí van a réplica
+    }
+
+    @Test
+    void replicaCaida_respaldoYRecuperacion() throws SQLException {
+        EnrutadorLecturas enrutador = enrutador(0);
+        replica1.caida.set(true);
+        replica2.caida.set(true);
+
+        enrutador.getLecturas().getConnection().close(); // ambas fallan: primario
+        enrutador.getLecturas().getConnection().close(); // ya fuera de turno: primario sin intentarlas
+        assertEquals(List.of("primario", "primario"), usadas);
+        assertEquals(2, enrutador.getLecturasPorRespaldo());
+        assertFalse(enrutador.getEstado().get(1).isSano());
+
+        replica2.caida.set(false);
+        enrutador.verificarSalud(1);
+        usadas.clear();
+        enrutador.getLecturas().getConnection().close();
+
+        assertEquals(List.of("replica-2"), usadas);
+        assertFalse(enrutador.getEstado().get(1).isSano());
+        assertTrue(enrutador.getEstado().get(2).isSano());
+    }
+
+    private EnrutadorLecturas enrutador(long ventanaMs) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        return new EnrutadorLecturas(primario, replicas, ventanaMs);
+    }
+
+    /**
+     * Extremo falso: anota su nombre por conexión entregada; las consultas no devuelven filas
+     * (o una, con su nombre en las columnas de texto, si {@code conFila}) y las actualizaciones afectan una.
+     */
+    private final class FuenteFalsa implements DataSource {
+        final String nombre;
+        final AtomicBoolean caida = new AtomicBoolean();
+        final AtomicBoolean conFila = new AtomicBoolean();
+
+        FuenteFalsa(String nombre) {
+            this.nombre = nombre;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (caida.get()) {
+                throw new SQLException("Conexión rechazada: " + nombre, "08001");
+            }
+            usadas.add(nombre);
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "prepareStatement":
+                                return sentencia();
+                            case "isValid":
+                                return !caida.get();
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private PreparedStatement sentencia() {
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "executeQuery":
+                                return resultado();
+                            case "executeUpdate":
+                                return 1;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private ResultSet resultado() {
+            AtomicBoolean entregada = new AtomicBoolean(!conFila.get());
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (p, m, a) -> {
+                        switch (m.getName()) {
+                            case "next":
+                                return entregada.compareAndSet(false, true);
+                            case "findColumn":
+                            case "getInt":
+                                return 1;
+                            case "getLong":
+                                return 1L;
+                            case "getBoolean":
+                                return true;
+                            case "getString":
+                                return nombre;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return null;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) {
+            return null;
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package app;
+
+import app.repository.UsuarioRepository;
+import app.service.EscrituraDiferidaActivo;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EscrituraDiferidaActivoTest {
+
+    /**
+     * Repositorio en memoria: registra cada lote escrito; puede simular una BD caída.
+     */
+    private static final class RepositorioLotes extends UsuarioRepository {
+        final List<Map<Long, Boolean>> lotes = new ArrayList<>();
+        final AtomicBoolean caido = new AtomicBoolean();
+
+        RepositorioLotes() {
+            super(null);
+        }
+
+        @Override
+        public synchronized int actualizarActivo(long[] ids, boolean[] estados) throws SQLException {
+            if (caido.get()) throw new SQLException("BD caída");
+            Map<Long, Boolean> lote = new TreeMap<>();
+            for (int i = 0; i < ids.length; i++) {
+                lote.put(ids[i], estados[i]);
+            }
+            lotes.add(lote);
+            return ids.length;
+        }
+
+        synchronized int cantidadLotes() {
+            return lotes.size();
+        }
+    }
+
+    @Test
+    void cambiosRepetidosDelMismoId_seFusionan() throws Exception {
+        RepositorioLotes repo = new RepositorioLotes();
+        EscrituraDiferidaActivo diferida = new EscrituraDiferidaActivo(repo, 100, 100, 60_000L, 0L);
+
+        diferida.registrar(1L, false);
+        diferida.registrar(1L, true);
+        diferida.registrar(1L, false);
+        diferida.registrar(2L, false);
+        assertEquals(2, diferida.getPendientes());
+        assertEquals(false, diferida.estadoPendiente(1L));
+        assertTrue(diferida.alternar(2L, true)); // parte del pendiente (false), no del estado leído
+
+        diferida.vaciar();
+
+        assertEquals(1, repo.lotes.size());
+        assertEquals(Map.of(1L, false, 2L, true), repo.lotes.get(0));
+        assertEquals(3, diferida.getFusionados());
+        assertNull(diferida.estadoPendiente(1L));
+        assertEquals(0, diferida.getPendientes());
+    }
+
+    @Test
+    void alLlegarAlTamanoDeLote_elHiloEscritorEscribe() throws Exception {
+        RepositorioLotes repo = new RepositorioLotes();
+        try (EscrituraDiferidaActivo diferida = new EscrituraDiferidaActivo(repo, 1_000, 10, 60_000L, 1_000L).iniciar()) {
+            for (long id = 1; id <= 10; id++) {
+                diferida.registrar(id, false);
+            }
+            long limite = System.currentTimeMillis() + 5_000;
+            while (repo.cantidadLotes() == 0 && System.currentTimeMillis() < limite) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, repo.cantidadLotes());
+            assertEquals(10, repo.lotes.get(0).size());
+        }
+    }
+
+    @Test
+    void colaLlena_fallaTrasLaEsperaMaxima() {
+        RepositorioLotes repo = new RepositorioLotes();
+        EscrituraDiferidaActivo diferida = new EscrituraDiferidaActivo(repo, 2, 2, 60_000L, 20L); // sin hilo escritor
+
+        diferida.registrar(1L, false);
+        diferida.registrar(2L, false);
+        diferida.registrar(2L, true); // id ya pendiente: no ocupa espacio
+
+        assertThrows(IllegalStateException.class, () -> diferida.registrar(3L, false));
+        assertEquals(1, diferida.getEsperasContrapresion());
+    }
+
+    @Test
+    void escrituraFallida_vuelveALaColaSinPisarCambiosNuevos() throws Exception {
+        RepositorioLotes repo = new RepositorioLotes();
+        EscrituraDiferidaActivo diferida = new EscrituraDiferidaActivo(repo, 100, 100, 60_000L, 0L);
+
+        diferida.registrar(1L, false);
+        diferida.registrar(2L, false);
+        repo.caido.set(true);
+        assertThrows(SQLException.class, diferida::vaciar);
+        assertEquals(2, diferida.getPendientes());
+
+        diferida.registrar(2L, true);
+        repo.caido.set(false);
+        diferida.close(); // escribe lo pendiente
+
+        assertEquals(Map.of(1L, false, 2L, true), repo.lotes.get(0));
+        assertEquals(1, diferida.getErrores());
+        assertThrows(IllegalStateException.class, () -> diferida.registrar(5L, true));
+    }
+}
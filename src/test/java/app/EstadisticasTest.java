@@ -0,0 +1,154 @@
+package app;
+
+import app.model.ConteoPorDia;
+import app.model.EstadisticasUsuarios;
+import app.model.Usuario;
+import app.repository.UsuarioRepository;
+import app.service.ContadoresUsuarios;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EstadisticasTest {
+
+    private static final LocalDate HOY = LocalDate.of(2024, 5, 20);
+
+    /** Consultas agregadas hechas al repositorio. */
+    private final AtomicInteger consultas = new AtomicInteger();
+
+    @Test
+    void sinContadores_cadaLlamadaConsulta() {
+        UsuarioService service = new UsuarioService(repositorio(), ModoEscritura.VERIFICACION_PREVIA);
+
+        EstadisticasUsuarios e = service.obtenerEstadisticas();
+        service.obtenerEstadisticas();
+
+        assertEquals(100, e.getTotal());
+        assertEquals(30, e.getInactivos());
+        assertFalse(e.isDesdeContadores());
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void contadores_seCarganUnaVezYSiguenLasEscrituras() {
+        UsuarioService service = conContadores();
+
+        assertEquals(70, service.obtenerEstadisticas().getActivos());
+        service.crearUsuario(12345678, "5", "Nuevo", "nuevo@mail.com");
+        service.cambiarEstadoUsuarios(List.of(1L, 2L, 3L), false); // el repositorio informa 2 cambiados
+        service.activarDesactivarUsuario(9L);                        // queda activo
+        EstadisticasUsuarios e = service.obtenerEstadisticas();
+
+        assertTrue(e.isDesdeContadores());
+        assertEquals(101, e.getTotal());
+        assertEquals(70, e.getActivos());
+        assertEquals(31, e.getInactivos());
+        assertEquals(2, consultas.get()); // solo la carga: estado + altas por día
+    }
+
+    @Test
+    void contadores_altasPorDiaEnElRango() {
+        UsuarioService service = conContadores();
+        service.contarCreadosPorDia(null, null); // carga
+        service.crearUsuario(12345678, "5", "Nuevo", "nuevo@mail.com");
+
+        List<ConteoPorDia> dias = service.contarCreadosPorDia(HOY.minusDays(1), HOY.plusDays(1));
+
+        assertEquals(List.of(HOY.minusDays(1), HOY), dias.stream().map(ConteoPorDia::getDia).toList());
+        assertEquals(41, dias.get(1).getCreados());
+        assertThrows(IllegalArgumentException.class, () -> service.contarCreadosPorDia(HOY, HOY));
+    }
+
+    @Test
+    void contadores_soloCuentanCambiosEfectivos() {
+        UsuarioService service = conContadores();
+        service.obtenerEstadisticas();
+
+        assertTrue(service.activarUsuario(5L));  // la lectura lo ve inactivo, pero otra escritura se adelantó
+        assertTrue(service.activarUsuario(6L));  // cambió de verdad
+        assertFalse(service.activarUsuario(7L)); // no existe al escribir
+
+        assertEquals(71, service.obtenerEstadisticas().getActivos());
+    }
+
+    @Test
+    void contadores_invalidadosSeRecargan() {
+        UsuarioService service = conContadores();
+        service.obtenerEstadisticas();
+
+        service.getContadores().invalidar();
+        service.obtenerEstadisticas();
+
+        assertEquals(4, consultas.get());
+    }
+
+    private UsuarioService conContadores() {
+        return new UsuarioService(repositorio(), ModoEscritura.VERIFICACION_PREVIA, null, null, null,
+                new ContadoresUsuarios());
+    }
+
+    private UsuarioRepository repositorio() {
+        return new UsuarioRepository(null) {
+            @Override
+            public EstadisticasUsuarios contarPorEstado() {
+                consultas.incrementAndGet();
+                return new EstadisticasUsuarios(100, 70, false);
+            }
+
+            @Override
+            public List<ConteoPorDia> contarCreadosPorDia(LocalDate desde, LocalDate hasta) {
+                consultas.incrementAndGet();
+                return List.of(new ConteoPorDia(HOY.minusDays(2), 10), new ConteoPorDia(HOY.minusDays(1), 50),
+                        new ConteoPorDia(HOY, 40));
+            }
+
+            @Override
+            public boolean existeEmail(String email) {
+                return false;
+            }
+
+            @Override
+            public boolean existeRutDv(Integer rut, String dv) {
+                return false;
+            }
+
+            @Override
+            public Usuario crear(Integer rut, String dv, String nombre, String email) {
+                return new Usuario(101L, rut, dv, nombre, email, true,
+                        Timestamp.valueOf(HOY.atTime(10, 0)), 1L);
+            }
+
+            @Override
+            public int actualizarActivo(Collection<Long> ids, boolean activo) {
+                return 2;
+            }
+
+            @Override
+            public Usuario buscarPorId(Long id) {
+                return new Usuario(id, 12345678, "5", "Inactivo", "inactivo@mail.com", false,
+                        Timestamp.valueOf(HOY.atTime(10, 0)), 1L);
+            }
+
+            @Override
+            public Boolean actualizarActivo(Long id, boolean activo) {
+                return id == 5L ? Boolean.FALSE : id == 6L ? Boolean.TRUE : null;
+            }
+
+            @Override
+            public Boolean alternarActivo(Long id) {
+                return true;
+            }
+        };
+    }
+}
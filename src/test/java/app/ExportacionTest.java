@@ -0,0 +1,117 @@
+package app;
+
+import app.model.FormatoExportacion;
+import app.model.ResultadoExportacion;
+import app.model.Usuario;
+import app.repository.UsuarioRepository;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ExportacionTest {
+
+    private static final List<Usuario> USUARIOS = List.of(
+            new Usuario(1L, 12345678, "5", "Juan Pérez", "juan@mail.com", true,
+                    Timestamp.valueOf(LocalDateTime.of(2024, 3, 5, 7, 8, 9, 120_000_000)), 1L),
+            new Usuario(2L, 9876543, "K", "Ana \"la jefa\", Soto", "ana@mail.com", false,
+                    Timestamp.valueOf(LocalDateTime.of(2024, 12, 31, 23, 59, 0)), 12L),
+            new Usuario(3L, 1, "1", "Línea\nnueva\t😀 \\", "x@mail.com", true, null, 3L));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void csv_comillasSoloDondeHacenFalta() throws Exception {
+        Path archivo = dir.resolve("u.csv");
+
+        ResultadoExportacion r = service().exportarUsuarios(archivo, FormatoExportacion.CSV, false, false);
+
+        assertEquals(3, r.getFilas());
+        assertEquals(Files.size(archivo), r.getBytes());
+        assertEquals("id,rut,dv,nombre,email,activo,fecha_creacion,version\n"
+                + "1,12345678,5,Juan Pérez,juan@mail.com,true,2024-03-05 07:08:09.12,1\n"
+                + "2,9876543,K,\"Ana \"\"la jefa\"\", Soto\",ana@mail.com,false,2024-12-31 23:59:00,12\n"
+                + "3,1,1,\"Línea\nnueva\t😀 \\\",x@mail.com,true,,3\n",
+                Files.readString(archivo, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void ndjsonGzip_unObjetoPorLinea() throws Exception {
+        Path archivo = dir.resolve("u.ndjson.gz");
+
+        service().exportarUsuarios(archivo, FormatoExportacion.NDJSON, true, false);
+
+        String texto;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archivo))) {
+            texto = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals(""
+                + "{\"id\":1,\"rut\":12345678,\"dv\":\"5\",\"nombre\":\"Juan Pérez\",\"email\":\"juan@mail.com\",\"activo\":true,\"fecha_creacion\":\"2024-03-05T07:08:09.12\",\"version\":1}\n"
+                + "{\"id\":2,\"rut\":9876543,\"dv\":\"K\",\"nombre\":\"Ana \\\"la jefa\\\", Soto\",\"email\":\"ana@mail.com\",\"activo\":false,\"fecha_creacion\":\"2024-12-31T23:59:00\",\"version\":12}\n"
+                + "{\"id\":3,\"rut\":1,\"dv\":\"1\",\"nombre\":\"Línea\\nnueva\\t😀 \\\\\",\"email\":\"x@mail.com\",\"activo\":true,\"fecha_creacion\":null,\"version\":3}\n",
+                texto);
+    }
+
+    @Test
+    void cursor_mismasColumnasQueCopy() throws Exception {
+        // COPY escribe las columnas de COLUMNAS_EXPORTACION (encabezado CSV y claves de row_to_json)
+        String columnas = UsuarioRepository.COLUMNAS_EXPORTACION.replace(" ", "");
+        Path csv = dir.resolve("u.csv");
+        Path ndjson = dir.resolve("u.ndjson");
+
+        service().exportarUsuarios(csv, FormatoExportacion.CSV, false, false);
+        service().exportarUsuarios(ndjson, FormatoExportacion.NDJSON, false, false);
+
+        assertEquals(columnas, Files.readAllLines(csv, StandardCharsets.UTF_8).get(0));
+        Matcher claves = Pattern.compile("\"(\\w+)\":").matcher(Files.readAllLines(ndjson, StandardCharsets.UTF_8).get(0));
+        List<String> encontradas = new ArrayList<>();
+        while (claves.find()) {
+            encontradas.add(claves.group(1));
+        }
+        assertEquals(columnas, String.join(",", encontradas));
+    }
+
+    @Test
+    void copyCsv_mismosNombresDeColumna() {
+        List<String> nombres = new ArrayList<>();
+        for (String columna : UsuarioRepository.COLUMNAS_EXPORTACION_CSV.split(",")) {
+            String[] partes = columna.trim().split("(?i)\\s+AS\\s+");
+            nombres.add(partes[partes.length - 1]);
+        }
+
+        assertEquals(UsuarioRepository.COLUMNAS_EXPORTACION.replace(" ", ""), String.join(",", nombres));
+    }
+
+    @Test
+    void formatoDesdeArchivo() {
+        assertEquals(FormatoExportacion.CSV, FormatoExportacion.desdeArchivo("usuarios.csv.gz"));
+        assertEquals(FormatoExportacion.NDJSON, FormatoExportacion.desdeArchivo("USUARIOS.NDJSON"));
+        assertEquals(FormatoExportacion.NDJSON, FormatoExportacion.desdeArchivo("usuarios.jsonl.gz"));
+    }
+
+    private static UsuarioService service() {
+        return new UsuarioService(new UsuarioRepository(null) {
+            @Override
+            public long recorrer(Consumer<Usuario> consumidor) {
+                USUARIOS.forEach(consumidor);
+                return USUARIOS.size();
+            }
+        }, ModoEscritura.VERIFICACION_PREVIA);
+    }
+}
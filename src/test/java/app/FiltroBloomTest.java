@@ -0,0 +1,47 @@
+package app;
+
+import app.index.FiltroBloom;
+import app.index.FiltroBloomUnicidad;
+import app.index.IndiceUnicidad;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FiltroBloomTest {
+
+    @Test
+    void elementosAgregados_nuncaDanFalsoNegativo() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar(IndiceUnicidad.hashEmail("u" + i + "@mail.com"));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filtro.puedeContener(IndiceUnicidad.hashEmail("u" + i + "@mail.com")));
+        }
+    }
+
+    @Test
+    void tasaDeFalsosPositivos_cercaDeLaConfigurada() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar(IndiceUnicidad.hashEmail("u" + i + "@mail.com"));
+        }
+
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.puedeContener(IndiceUnicidad.hashEmail("otro" + i + "@mail.com"))) {
+                falsosPositivos++;
+            }
+        }
+        assertTrue(falsosPositivos < 2_000, "falsos positivos: " + falsosPositivos);
+    }
+
+    @Test
+    void sinCargar_siempreDerivaALaBd() {
+        FiltroBloomUnicidad verificador = new FiltroBloomUnicidad(1_000, 0.01);
+
+        assertTrue(verificador.puedeExistirEmail("nadie@mail.com", null));
+        assertTrue(verificador.puedeExistirRutDv(1, "9", null));
+    }
+}
@@ -0,0 +1,217 @@
+package app;
+
+import app.model.FiltroUsuarios;
+import app.repository.UsuarioRepository;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Del filtro, de las búsquedas por ids y de los textos de búsqueda al SQL: se revisa la sentencia y los valores enlazados
+ * con una fuente de datos falsa que los anota, sin BD.
+ */
+public class FiltroUsuariosTest {
+
+    private static final Timestamp ENERO = Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0));
+    private static final Timestamp FEBRERO = Timestamp.valueOf(LocalDateTime.of(2024, 2, 1, 0, 0));
+
+    /** Sentencias ejecutadas, cada una con sus valores enlazados por posición. */
+    private final List<String> sentencias = new ArrayList<>();
+    private final List<Map<Integer, Object>> valores = new ArrayList<>();
+
+    private final UsuarioRepository repository = new UsuarioRepository(fuente());
+
+    @Test
+    void filtro_normalizaYQuitaCriteriosVacios() {
+        FiltroUsuarios f = FiltroUsuarios.todos().conDominioEmail("  @Empresa.CL ").conNombreContiene("  ");
+
+        assertEquals("empresa.cl", f.getDominioEmail());
+        assertNull(f.getNombreContiene());
+        assertTrue(FiltroUsuarios.todos().conDominioEmail("@").conNombreContiene("").isVacio());
+        assertThrows(IllegalArgumentException.class, () -> FiltroUsuarios.todos().creadosEntre(FEBRERO, ENERO));
+        assertThrows(IllegalArgumentException.class, () -> FiltroUsuarios.todos().creadosEntre(ENERO, ENERO));
+    }
+
+    @Test
+    void condiciones_enOrdenConSusValores() throws Exception {
+        FiltroUsuarios f = FiltroUsuarios.todos().conDominioEmail("empresa.cl").conNombreContiene("pérez")
+                .conActivo(true).creadosEntre(ENERO, FEBRERO);
+
+        repository.actualizarActivo(f, false);
+
+        assertEquals("UPDATE usuarios SET activo = ?, version = version + 1 WHERE activo <> ?"
+                + " AND split_part(email, '@', 2) = ?"
+                + " AND nombre ILIKE ? ESCAPE '\\'"
+                + " AND activo = ?"
+                + " AND fecha_creacion >= ?"   // desde inclusivo
+                + " AND fecha_creacion < ?",   // hasta exclusivo
+                sentencias.get(0));
+        assertEquals(List.of(false, false, "empresa.cl", "%pérez%", true, ENERO, FEBRERO), enlazados(0));
+    }
+
+    @Test
+    void condiciones_soloLasDelFiltro() throws Exception {
+        repository.contar(FiltroUsuarios.todos().creadosEntre(null, FEBRERO));
+
+        assertEquals("SELECT COUNT(*) FROM usuarios WHERE TRUE AND fecha_creacion < ?", sentencias.get(0));
+        assertEquals(List.of(FEBRERO), enlazados(0));
+    }
+
+    @Test
+    void nombreContiene_escapaComodinesDeLike() throws Exception {
+        repository.contar(FiltroUsuarios.todos().conNombreContiene("50%_a\\b"));
+
+        assertEquals(List.of("%50\\%\\_a\\\\b%"), enlazados(0));
+    }
+
+    @Test
+    void filtroVacio_noLlegaAlRepositorio() {
+        UsuarioService service = new UsuarioService(repository, ModoEscritura.VERIFICACION_PREVIA);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.cambiarEstadoUsuarios(FiltroUsuarios.todos(), false));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.cambiarEstadoUsuarios(FiltroUsuarios.todos().conNombreContiene(" "), false));
+        assertThrows(IllegalArgumentException.class, () -> service.cambiarEstadoUsuarios((FiltroUsuarios) null, true));
+
+        assertEquals("El filtro debe tener al menos un criterio.", e.getMessage());
+        assertTrue(sentencias.isEmpty());
+    }
+
+    @Test
+    void buscar_textoCorto_soloPrefijo() throws Exception {
+        repository.buscar(" Ab ", 0L, 20);
+
+        assertTrue(sentencias.get(0).contains("(lower(nombre) LIKE ? ESCAPE '\\' OR email LIKE ? ESCAPE '\\')"));
+        assertEquals(List.of("ab%", "ab%", 0L, 20), enlazados(0));
+    }
+
+    @Test
+    void buscar_textoLargo_subcadenaEscapada() throws Exception {
+        repository.buscar("Pé_rez", 7L, 20);
+
+        assertTrue(sentencias.get(0).contains("(nombre ILIKE ? ESCAPE '\\' OR email ILIKE ? ESCAPE '\\')"));
+        assertEquals(List.of("%Pé\\_rez%", "%Pé\\_rez%", 7L, 20), enlazados(0));
+    }
+
+    @Test
+    void buscarPorIds_sinRepetidosNiNulosYEnTramos() throws Exception {
+        assertTrue(repository.buscarPorIds(Arrays.asList(null, null)).isEmpty());
+        assertTrue(sentencias.isEmpty());
+
+        repository.buscarPorIds(Arrays.asList(5L, null, 5L));
+        assertTrue(sentencias.get(0).endsWith("WHERE id = ?")); // un solo id: por igualdad
+        assertEquals(List.of(5L), enlazados(0));
+
+        sentencias.clear();
+        valores.clear();
+        List<Long> ids = LongStream.rangeClosed(1, 5_001).boxed().collect(Collectors.toList());
+        ids.add(3L);
+        ids.add(null);
+        Collections.reverse(ids);
+        repository.buscarPorIds(ids);
+
+        assertEquals(2, sentencias.size()); // 5.000 ids por sentencia
+        assertTrue(sentencias.get(0).endsWith("WHERE id = ANY(?)"));
+        assertArrayEquals(LongStream.rangeClosed(1, 5_000).toArray(), (long[]) valores.get(0).get(1));
+        assertArrayEquals(new long[]{5_001}, (long[]) valores.get(1).get(1));
+    }
+
+    private List<Object> enlazados(int sentencia) {
+        return new ArrayList<>(valores.get(sentencia).values());
+    }
+
+    /**
+     * Conexiones falsas: anotan el SQL y los valores de cada ejecución; las consultas no devuelven filas.
+     */
+    private DataSource fuente() {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (p, m, a) -> "getConnection".equals(m.getName()) ? conexion() : null);
+    }
+
+    private Connection conexion() {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (p, m, a) -> {
+                    switch (m.getName()) {
+                        case "prepareStatement":
+                            return sentencia((String) a[0]);
+                        case "getAutoCommit":
+                        case "isValid":
+                            return true;
+                        case "isClosed":
+                        case "isReadOnly":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private PreparedStatement sentencia(String sql) {
+        Map<Integer, Object> enlazados = new TreeMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (p, m, a) -> {
+                    String nombre = m.getName();
+                    if (nombre.startsWith("set") && a != null && a.length == 2 && a[0] instanceof Integer) {
+                        enlazados.put((Integer) a[0], a[1]);
+                        return null;
+                    }
+                    switch (nombre) {
+                        case "executeQuery":
+                            anotar(sql, enlazados);
+                            return resultado();
+                        case "executeUpdate":
+                            anotar(sql, enlazados);
+                            return 0;
+                        case "isClosed":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private void anotar(String sql, Map<Integer, Object> enlazados) {
+        sentencias.add(sql);
+        valores.add(new TreeMap<>(enlazados));
+    }
+
+    private ResultSet resultado() {
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                (p, m, a) -> {
+                    switch (m.getName()) {
+                        case "next":
+                            return false;
+                        case "findColumn":
+                            return 1;
+                        case "getLong":
+                            return 0L;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
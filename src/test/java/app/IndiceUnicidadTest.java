@@ -0,0 +1,72 @@
+package app;
+
+import app.index.IndiceUnicidad;
+import app.index.LongLongHashMap;
+import app.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IndiceUnicidadTest {
+
+    @Test
+    void mapa_soportaRedimensionYClaveCero() {
+        LongLongHashMap mapa = new LongLongHashMap(4);
+        for (long k = 0; k < 10_000; k++) {
+            mapa.put(k * 31, k);
+        }
+
+        assertEquals(10_000, mapa.size());
+        assertEquals(0, mapa.get(0, -1));
+        assertEquals(9_999, mapa.get(9_999 * 31, -1));
+        assertEquals(-1, mapa.get(7, -1));
+    }
+
+    @Test
+    void sinCargar_siempreDerivaALaBd() {
+        IndiceUnicidad indice = new IndiceUnicidad(16);
+
+        assertTrue(indice.puedeExistirEmail("nadie@mail.com", null));
+    }
+
+    @Test
+    void cargado_respondeNegativosLocalmente() throws Exception {
+        IndiceUnicidad indice = new IndiceUnicidad(16);
+        indice.cargar(repositorioCon(1L, 12345678, "5", "juan@mail.com"));
+
+        assertFalse(indice.puedeExistirEmail("otro@mail.com", null));
+        assertFalse(indice.puedeExistirRutDv(12345678, "K", null));
+        assertTrue(indice.puedeExistirEmail("juan@mail.com", null));
+        assertTrue(indice.puedeExistirRutDv(12345678, "5", null));
+        assertEquals(2, indice.getConsultasLocales());
+    }
+
+    @Test
+    void edicion_ignoraElMismoId() throws Exception {
+        IndiceUnicidad indice = new IndiceUnicidad(16);
+        indice.cargar(repositorioCon(1L, 12345678, "5", "juan@mail.com"));
+
+        assertFalse(indice.puedeExistirEmail("juan@mail.com", 1L));
+        assertTrue(indice.puedeExistirEmail("juan@mail.com", 2L));
+
+        indice.registrar(2L, 23456789, "6", "maria@mail.com");
+        assertTrue(indice.puedeExistirRutDv(23456789, "6", 1L));
+    }
+
+    private static UsuarioRepository repositorioCon(long id, int rut, String dv, String email) {
+        return new UsuarioRepository(null) {
+            @Override
+            public long estimarTotalUsuarios() {
+                return 0;
+            }
+
+            @Override
+            public long recorrerClavesUnicidad(ClavesUnicidadConsumer consumidor) {
+                consumidor.aceptar(id, rut, dv, email);
+                return 1;
+            }
+        };
+    }
+}
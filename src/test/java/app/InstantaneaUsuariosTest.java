@@ -0,0 +1,110 @@
+package app;
+
+import app.index.InstantaneaUsuarios;
+import app.model.FiltroUsuarios;
+import app.model.Usuario;
+import app.model.UsuarioCompacto;
+import app.repository.UsuarioRepository;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InstantaneaUsuariosTest {
+
+    private static final Timestamp ENERO = Timestamp.valueOf(LocalDateTime.of(2024, 1, 10, 8, 0, 0, 250_000_000));
+    private static final Timestamp MARZO = Timestamp.valueOf(LocalDateTime.of(2024, 3, 1, 0, 0));
+
+    private static final List<Usuario> USUARIOS = List.of(
+            new Usuario(3L, 12345678, "5", "Juan Pérez", "juan@empresa.cl", true, ENERO, 4L),
+            new Usuario(7L, 9876543, "K", "ANA SOTO", "ana@otra.cl", false, MARZO, 1L),
+            new Usuario(9L, 1, "9", "José Núñez", "jose@empresa.cl", false, MARZO, 2L),
+            new Usuario(12L, 2, "7", "Sin fecha", "x@empresa.cl", true, null, null));
+
+    @Test
+    void cargaDesdeElCursor_yBuscaPorId() {
+        InstantaneaUsuarios inst = service().cargarInstantanea();
+
+        assertEquals(4, inst.getTamano());
+        assertEquals(UsuarioCompacto.desde(USUARIOS.get(0)), inst.buscar(3L));
+        assertEquals("José Núñez", inst.buscar(9L).getNombre());
+        assertEquals('K', inst.buscar(7L).getDv());
+        assertNull(inst.buscar(8L));
+        assertEquals(-1, inst.indiceDe(100L));
+    }
+
+    @Test
+    void compacto_idaYVueltaConservaNulos() {
+        Usuario u = UsuarioCompacto.desde(USUARIOS.get(3)).aUsuario();
+
+        assertNull(u.getFechaCreacion());
+        assertNull(u.getVersion());
+        assertEquals("7", u.getDv());
+        assertEquals(ENERO, UsuarioCompacto.desde(USUARIOS.get(0)).aUsuario().getFechaCreacion());
+    }
+
+    @Test
+    void contar_conLaSemanticaDeLaBd() {
+        InstantaneaUsuarios inst = service().cargarInstantanea();
+
+        assertEquals(4, inst.contar(FiltroUsuarios.todos()));
+        assertEquals(2, inst.contar(FiltroUsuarios.todos().conActivo(true)));
+        assertEquals(2, inst.contar(FiltroUsuarios.todos().conActivo(false)));
+        assertEquals(3, inst.contar(FiltroUsuarios.todos().conDominioEmail("@EMPRESA.cl")));
+        assertEquals(1, inst.contar(FiltroUsuarios.todos().conDominioEmail("empresa.cl").conActivo(false)));
+        assertEquals(1, inst.contar(FiltroUsuarios.todos().conNombreContiene("soto")));   // ASCII, sin mayúsculas
+        assertEquals(1, inst.contar(FiltroUsuarios.todos().conNombreContiene("PÉREZ")));  // con acento
+        assertEquals(1, inst.contar(FiltroUsuarios.todos().conNombreContiene("nú")));
+        assertEquals(2, inst.contar(FiltroUsuarios.todos().creadosEntre(MARZO, null)));    // sin fecha no entra
+        assertEquals(1, inst.contar(FiltroUsuarios.todos().creadosEntre(null, MARZO)));
+    }
+
+    @Test
+    void recorrer_filtradoEnOrdenDeId() {
+        List<Long> ids = new ArrayList<>();
+
+        int n = service().cargarInstantanea().recorrer(FiltroUsuarios.todos().conDominioEmail("empresa.cl"),
+                u -> ids.add(u.getId()));
+
+        assertEquals(3, n);
+        assertEquals(List.of(3L, 9L, 12L), ids);
+    }
+
+    @Test
+    void acumulador_creceYExigeOrden() {
+        InstantaneaUsuarios.Acumulador a = InstantaneaUsuarios.acumulador(0);
+        for (int i = 1; i <= 5000; i++) {
+            a.agregar(i, i, 'K', "Usuario " + i, "u" + i + "@mail.com", i % 3 == 0, 0L, 1L);
+        }
+        InstantaneaUsuarios inst = a.construir();
+
+        assertEquals(5000, inst.getTamano());
+        assertEquals(1666, inst.contarActivos());
+        assertEquals("u4999@mail.com", inst.getEmail(4998));
+        assertThrows(IllegalArgumentException.class, () -> a.agregar(10, 1, 'K', "x", "x@mail.com", true, 0L, 1L));
+    }
+
+    private static UsuarioService service() {
+        return new UsuarioService(new UsuarioRepository(null) {
+            @Override
+            public long estimarTotalUsuarios() {
+                return USUARIOS.size();
+            }
+
+            @Override
+            public long recorrerConMarca(Consumer<Usuario> consumidor) {
+                USUARIOS.forEach(consumidor);
+                return 100L;
+            }
+        }, ModoEscritura.VERIFICACION_PREVIA);
+    }
+}
@@ -0,0 +1,113 @@
+package app;
+
+import app.service.LectorCsv;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LectorCsvTest {
+
+    @Test
+    void comillas_escapadasYSaltosDentroDelCampo() throws Exception {
+        LectorCsv lector = new LectorCsv(new StringReader(
+                "1,\"Pérez, Juan\",\"dice \"\"hola\"\"\"\n"
+                        + "2,\"línea\nsiguiente\",\n"
+                        + "3,\"\",x"));
+
+        assertEquals(List.of("1", "Pérez, Juan", "dice \"hola\""), lector.siguiente());
+        assertEquals(List.of("2", "línea\nsiguiente", ""), lector.siguiente());
+        assertEquals(List.of("3", "", "x"), lector.siguiente());
+        assertNull(lector.siguiente());
+    }
+
+    @Test
+    void comillasSinCerrar_fallaConLaLineaDelRegistro() throws Exception {
+        LectorCsv lector = new LectorCsv(new StringReader("a,b\n\nc,\"sin cerrar\n"));
+
+        lector.siguiente();
+        IOException e = assertThrows(IOException.class, lector::siguiente);
+        assertEquals("Comillas sin cerrar en el registro de la línea 3", e.getMessage());
+    }
+
+    @Test
+    void numerosDeLinea_conLF() throws Exception {
+        assertEquals(List.of(1L, 3L, 7L), lineas("a\n\nb,\"x\ny\"\n\n\nc\n"));
+    }
+
+    @Test
+    void numerosDeLinea_conCRLF() throws Exception {
+        assertEquals(List.of(1L, 3L, 7L), lineas("a\r\n\r\nb,\"x\r\ny\"\r\n\r\n\r\nc\r\n"));
+    }
+
+    @Test
+    void numerosDeLinea_conCRSolo() throws Exception {
+        assertEquals(List.of(1L, 3L, 7L), lineas("a\r\rb,\"x\ry\"\r\r\rc\r"));
+    }
+
+    @Test
+    void crlfDentroDelCampo_seConserva() throws Exception {
+        LectorCsv lector = new LectorCsv(new StringReader("\"x\r\ny\",z\r\n"));
+
+        assertEquals(List.of("x\r\ny", "z"), lector.siguiente());
+        assertNull(lector.siguiente());
+    }
+
+    @Test
+    void crAlFinalDelBuffer_noSeCuentaDosVeces() throws Exception {
+        // El \r queda como último carácter de una lectura y el \n llega en la siguiente
+        StringBuilder sb = new StringBuilder();
+        sb.append("x".repeat(64 * 1024 - 1)).append("\r\n\r\nb\n");
+
+        assertEquals(List.of(1L, 3L), lineas(new TrozosReader(sb.toString(), 64 * 1024)));
+    }
+
+    private static List<Long> lineas(String texto) throws IOException {
+        return lineas(new StringReader(texto));
+    }
+
+    private static List<Long> lineas(Reader reader) throws IOException {
+        LectorCsv lector = new LectorCsv(reader);
+        List<Long> out = new ArrayList<>();
+        while (lector.siguiente() != null) {
+            out.add(lector.getLineaRegistro());
+        }
+        return out;
+    }
+
+    /**
+     * Entrega el texto en lecturas de a lo más {@code trozo} caracteres.
+     */
+    private static final class TrozosReader extends Reader {
+        private final String texto;
+        private final int trozo;
+        private int pos;
+
+        TrozosReader(String texto, int trozo) {
+            this.texto = texto;
+            this.trozo = trozo;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (pos == texto.length()) {
+                return -1;
+            }
+            int n = Math.min(Math.min(len, trozo), texto.length() - pos);
+            texto.getChars(pos, pos + n, cbuf, off);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
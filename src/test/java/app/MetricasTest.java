@@ -0,0 +1,121 @@
+package app;
+
+import app.metricas.ConsultaLenta;
+import app.metricas.Histograma;
+import app.metricas.MetricaOperacion;
+import app.metricas.Metricas;
+import app.metricas.RegistroMetricasMemoria;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricasTest {
+
+    @AfterEach
+    void deshabilitar() {
+        Metricas.configurar(null, 0, false);
+    }
+
+    @Test
+    void histograma_percentilesConErrorAcotado() {
+        Histograma h = new Histograma();
+        for (long v = 1; v <= 100_000; v++) {
+            h.registrar(v * 1_000); // 1 µs .. 100 ms
+        }
+
+        assertEquals(100_000, h.getTotal());
+        assertEquals(100_000_000L, h.getMaximo());
+        for (double p : new double[]{50, 90, 99, 99.9}) {
+            double esperado = p / 100 * 100_000_000L;
+            double error = Math.abs(h.percentil(p) - esperado) / esperado;
+            assertTrue(error < 0.04, "p" + p + " fuera de rango: " + h.percentil(p));
+        }
+        assertEquals(100_000_000L, h.percentil(100));
+    }
+
+    @Test
+    void deshabilitadas_noEnvuelveElDataSource() {
+        DataSource ds = fuente(new String[0]);
+        assertSame(ds, Metricas.instrumentar(ds));
+        assertEquals("ok", Metricas.medir("op", () -> "ok"));
+    }
+
+    @Test
+    void medir_registraErroresPorSqlStateOValidacion() {
+        RegistroMetricasMemoria registro = new RegistroMetricasMemoria();
+        Metricas.configurar(registro, 0, false);
+
+        Metricas.medir("op", () -> 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> Metricas.medir("op", () -> { throw new IllegalArgumentException("x"); }));
+        assertThrows(RuntimeException.class, () -> Metricas.medir("op", () -> {
+            throw new RuntimeException("Error", new SQLException("duplicado", "23505"));
+        }));
+
+        MetricaOperacion m = registro.operacion("op");
+        assertEquals(3, m.getLlamadas());
+        assertEquals(Map.of("23505", 1L, "VALIDACION", 1L), m.getErroresPorCodigo());
+    }
+
+    @Test
+    void sentenciaLenta_seRegistraConParametrosRedactados() throws SQLException {
+        RegistroMetricasMemoria registro = new RegistroMetricasMemoria();
+        Metricas.configurar(registro, 1, false); // toda sentencia > 1 ms es lenta
+
+        DataSource ds = Metricas.instrumentar(fuente(new String[]{"a", "b", "c"}));
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT * FROM usuarios WHERE email = ? AND rut = ?")) {
+            ps.setString(1, "secreto@correo.cl");
+            ps.setInt(2, 12_345_678);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    // recorrer
+                }
+            }
+        }
+
+        String operacion = "MetricasTest.sentenciaLenta_seRegistraConParametrosRedactados";
+        assertEquals(1, registro.operacion(Metricas.OBTENER_CONEXION).getLlamadas());
+        assertEquals(1, registro.operacion(operacion).getLlamadas());
+        assertEquals(3, registro.operacion(operacion).getFilas());
+
+        List<ConsultaLenta> lentas = registro.getUltimasConsultasLentas();
+        assertEquals(1, lentas.size());
+        assertEquals("[$1=String(17), $2=Integer]", lentas.get(0).getParametros());
+        assertFalse(lentas.get(0).toString().contains("secreto"));
+    }
+
+    /**
+     * DataSource falso: cada consulta tarda ~2 ms y devuelve {@code filas}.
+     */
+    private static DataSource fuente(String[] filas) {
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (p, m, args) -> {
+                    if ("executeQuery".equals(m.getName())) {
+                        Thread.sleep(2);
+                        int[] i = {0};
+                        return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                                (r, mr, ar) -> "next".equals(mr.getName()) ? i[0]++ < filas.length : null);
+                    }
+                    return null;
+                });
+        Connection conn = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (p, m, args) -> "prepareStatement".equals(m.getName()) ? ps : null);
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (p, m, args) -> "getConnection".equals(m.getName()) ? conn : null);
+    }
+}
@@ -0,0 +1,67 @@
+package app;
+
+import app.model.Rut;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RutTest {
+
+    @Test
+    void calcularDv_modulo11() {
+        assertEquals('5', Rut.calcularDv(12345678));
+        assertEquals('6', Rut.calcularDv(23456789));
+        assertEquals('K', Rut.calcularDv(6));
+        assertEquals('0', Rut.calcularDv(0));
+        assertTrue(Rut.dvValido(6, 'k'));
+        assertFalse(Rut.dvValido(12345678, '9'));
+    }
+
+    @Test
+    void parsear_formatosAceptados() {
+        long clave = Rut.clave(12345678, '5');
+        assertEquals(clave, Rut.parsear("12345678-5"));
+        assertEquals(clave, Rut.parsear("12.345.678-5"));
+        assertEquals(clave, Rut.parsear("  12345678 - 5  "));
+        assertEquals(Rut.clave(6, 'K'), Rut.parsear("6-k"));
+
+        assertEquals(12345678, Rut.numero(clave));
+        assertEquals('5', Rut.dv(clave));
+        assertEquals("5", Rut.dvTexto(clave));
+        assertEquals("K", Rut.dvTexto(Rut.parsear("6-k")));
+    }
+
+    @Test
+    void parsear_errores() {
+        assertEquals("Formato de RUT invalido. Use formato 12345678-9", mensaje("12345678"));
+        assertEquals("Formato de RUT invalido. Use formato 12345678-9", mensaje("1-2-3"));
+        assertEquals("RUT invalido.", mensaje("12a45678-5"));
+        assertEquals("RUT invalido.", mensaje("-5"));
+        assertEquals("RUT invalido.", mensaje("99999999999-1"));
+        assertEquals("DV invalido. Debe tener 1 caracter.", mensaje("12345678-55"));
+        assertEquals("DV invalido. Debe tener 1 caracter.", mensaje("12345678- "));
+        assertEquals("DV no corresponde al RUT.", mensaje("12345678-9"));
+        assertThrows(IllegalArgumentException.class, () -> Rut.parsear(null));
+
+        assertEquals(Rut.INVALIDO, Rut.intentarParsear("12345678-9"));
+        assertEquals(Rut.INVALIDO, Rut.intentarParsear(null));
+    }
+
+    @Test
+    void parsear_coincideConDvCalculado() {
+        StringBuilder sb = new StringBuilder();
+        for (int rut = 1; rut < 2_000_000; rut += 7) {
+            char dv = Rut.calcularDv(rut);
+            sb.setLength(0);
+            sb.append(rut).append('-').append(dv);
+            assertEquals(Rut.clave(rut, dv), Rut.intentarParsear(sb));
+        }
+    }
+
+    private static String mensaje(String entrada) {
+        return assertThrows(IllegalArgumentException.class, () -> Rut.parsear(entrada)).getMessage();
+    }
+}
@@ -0,0 +1,140 @@
+package app;
+
+import app.http.ServidorHttp;
+import app.model.Usuario;
+import app.repository.UsuarioRepository;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+import app.service.UsuarioServiceAsync;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ServidorHttpTest {
+
+    private final HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private ServidorHttp servidor;
+
+    @AfterEach
+    void cerrar() {
+        if (servidor != null) servidor.close();
+    }
+
+    @Test
+    void listar_paginaConSiguiente() throws Exception {
+        iniciar(new UsuarioRepository(null) {
+            @Override
+            public List<Usuario> listarDesde(long afterId, int pageSize) {
+                List<Usuario> out = new ArrayList<>();
+                for (long id = afterId + 1; id <= afterId + pageSize; id++) {
+                    out.add(new Usuario(id, 12345678, "5", "Nombre \"" + id + "\"", id + "@mail.com", true, null));
+                }
+                return out;
+            }
+        }, 4);
+
+        HttpResponse<String> r = get("/usuarios?desde=10&limite=2");
+
+        assertEquals(200, r.statusCode());
+        assertEquals("{\"usuarios\":["
+                + "{\"id\":11,\"rut\":12345678,\"dv\":\"5\",\"nombre\":\"Nombre \\\"11\\\"\",\"email\":\"11@mail.com\",\"activo\":true,\"fechaCreacion\":null,\"version\":null},"
+                + "{\"id\":12,\"rut\":12345678,\"dv\":\"5\",\"nombre\":\"Nombre \\\"12\\\"\",\"email\":\"12@mail.com\",\"activo\":true,\"fechaCreacion\":null,\"version\":null}"
+                + "],\"siguiente\":12}", r.body());
+    }
+
+    @Test
+    void errores_codigosHttp() throws Exception {
+        iniciar(new UsuarioRepository(null) {
+            @Override
+            public Usuario buscarPorId(Long id) {
+                return null;
+            }
+
+            @Override
+            public boolean existeEmail(String email) {
+                return "repetido@mail.com".equals(email);
+            }
+        }, 4);
+
+        assertEquals(404, get("/usuarios/99").statusCode());
+        assertEquals(400, get("/usuarios/abc").statusCode());
+        assertEquals(400, get("/usuarios?limite=4294967396").statusCode()); // no se trunca a 100
+        assertEquals(405, enviar("DELETE", "/usuarios/1", null).statusCode());
+        assertEquals(400, enviar("POST", "/usuarios", "{\"rut\": 12345678,").statusCode());
+
+        HttpResponse<String> invalido = enviar("POST", "/usuarios",
+                "{\"rut\":12345678,\"dv\":\"5\",\"nombre\":\"Juan\",\"email\":\"malo\"}");
+        assertEquals(400, invalido.statusCode());
+        assertTrue(invalido.body().startsWith("{\"error\":"));
+
+        HttpResponse<String> duplicado = enviar("POST", "/usuarios",
+                "{\"rut\":12345678,\"dv\":\"5\",\"nombre\":\"Juan\",\"email\":\"repetido@mail.com\"}");
+        assertEquals(409, duplicado.statusCode());
+        assertEquals("{\"error\":\"El email ya existe.\"}", duplicado.body());
+    }
+
+    @Test
+    void sobreElLimiteDeAdmision_responde503() throws Exception {
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        iniciar(new UsuarioRepository(null) {
+            @Override
+            public Usuario buscarPorId(Long id) throws java.sql.SQLException {
+                dentro.countDown();
+                try {
+                    liberar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Usuario(id, 12345678, "5", "Juan", "juan@mail.com", true, null);
+            }
+        }, 1);
+
+        CompletableFuture<HttpResponse<String>> lenta = cliente.sendAsync(
+                HttpRequest.newBuilder(uri("/usuarios/1")).build(), HttpResponse.BodyHandlers.ofString());
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+
+        HttpResponse<String> rechazada = get("/usuarios/2");
+        liberar.countDown();
+
+        assertEquals(503, rechazada.statusCode());
+        assertEquals("1", rechazada.headers().firstValue("Retry-After").orElse(null));
+        assertEquals(200, lenta.get(5, TimeUnit.SECONDS).statusCode());
+        assertEquals(1, servidor.getRechazadas());
+    }
+
+    private void iniciar(UsuarioRepository repository, int maxConcurrentes) throws Exception {
+        UsuarioService service = new UsuarioService(repository, ModoEscritura.VERIFICACION_PREVIA);
+        servidor = new ServidorHttp(service, new InetSocketAddress("127.0.0.1", 0),
+                UsuarioServiceAsync.ejecutorAcotado("http-test-", 4, 16), maxConcurrentes, 1024).iniciar();
+    }
+
+    private URI uri(String ruta) {
+        return URI.create("http://127.0.0.1:" + servidor.getPuerto() + ruta);
+    }
+
+    private HttpResponse<String> get(String ruta) throws Exception {
+        return cliente.send(HttpRequest.newBuilder(uri(ruta)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> enviar(String metodo, String ruta, String cuerpo) throws Exception {
+        HttpRequest.BodyPublisher publicador = cuerpo == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(cuerpo);
+        return cliente.send(HttpRequest.newBuilder(uri(ruta)).method(metodo, publicador).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,170 @@
+package app;
+
+import app.cache.UsuarioCache;
+import app.model.Usuario;
+import app.repository.UsuarioRepository;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UsuarioCacheTest {
+
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    @Test
+    void segundaLectura_seSirveDesdeCache() throws Exception {
+        UsuarioCache cache = new UsuarioCache(10, 60_000L);
+
+        cache.obtener(1L, this::cargar);
+        cache.obtener(1L, this::cargar);
+
+        assertEquals(1, cargas.get());
+        assertEquals(1, cache.getAciertos());
+        assertEquals(1, cache.getFallos());
+    }
+
+    @Test
+    void capacidadExcedida_desalojaMenosReciente() throws Exception {
+        UsuarioCache cache = new UsuarioCache(2, 60_000L);
+
+        cache.obtener(1L, this::cargar);
+        cache.obtener(2L, this::cargar);
+        cache.obtener(1L, this::cargar);
+        cache.obtener(3L, this::cargar); // desaloja el 2
+        cache.obtener(2L, this::cargar);
+
+        assertEquals(4, cargas.get());
+        assertEquals(2, cache.getDesalojos());
+    }
+
+    @Test
+    void entradaVencida_seRecarga() throws Exception {
+        AtomicLong reloj = new AtomicLong();
+        UsuarioCache cache = new UsuarioCache(10, 1_000L, reloj::get);
+
+        cache.obtener(1L, this::cargar);
+        reloj.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        cache.obtener(1L, this::cargar);
+
+        assertEquals(2, cargas.get());
+        assertEquals(1, cache.getExpirados());
+    }
+
+    @Test
+    void actualizarActivo_escribeEnCache() throws Exception {
+        UsuarioCache cache = new UsuarioCache(10, 60_000L);
+
+        cache.obtener(1L, this::cargar);
+        cache.actualizarActivo(1L, false);
+
+        assertFalse(cache.obtener(1L, this::cargar).getActivo());
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    void actualizarActivo_mismoEstado_noTocaLaEntrada() throws Exception {
+        UsuarioCache cache = new UsuarioCache(10, 60_000L);
+        cache.poner(new Usuario(1L, 12345678, "5", "Usuario 1", "u1@mail.com", true, null, 3L));
+
+        cache.actualizarActivo(1L, true);
+        assertEquals(3L, cache.obtener(1L, this::cargar).getVersion());
+
+        cache.actualizarActivo(1L, false);
+        assertEquals(4L, cache.obtener(1L, this::cargar).getVersion());
+    }
+
+    @Test
+    void activarUsuario_sinCambioEnLaBd_desalojaLaEntradaDesactualizada() {
+        UsuarioCache cache = new UsuarioCache(10, 60_000L);
+        cache.poner(new Usuario(1L, 12345678, "5", "Usuario 1", "u1@mail.com", false, null, 3L));
+        UsuarioService service = new UsuarioService(new UsuarioRepository(null) {
+            @Override
+            public Boolean actualizarActivo(Long id, boolean activo) {
+                return Boolean.FALSE; // otra escritura ya lo había activado
+            }
+        }, ModoEscritura.VERIFICACION_PREVIA, cache);
+
+        assertTrue(service.activarUsuario(1L));
+        assertFalse(cache.contiene(1L));
+    }
+
+    @Test
+    void fallosConcurrentes_seAgrupanEnUnaCarga() throws Exception {
+        UsuarioCache cache = new UsuarioCache(10, 60_000L);
+        CountDownLatch liberar = new CountDownLatch(1);
+        int hilos = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+
+        List<Future<Usuario>> resultados = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            resultados.add(executor.submit(() -> cache.obtener(7L, id -> {
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return cargar(id);
+            })));
+        }
+        while (cache.getFallos() < hilos) {
+            Thread.sleep(1);
+        }
+        liberar.countDown();
+
+        for (Future<Usuario> r : resultados) {
+            assertNotNull(r.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(1, cargas.get());
+        assertEquals(hilos - 1, cache.getCargasAgrupadas());
+    }
+
+    @Test
+    void obtenerTodos_cargaSoloFaltantesEnUnaLlamada() throws Exception {
+        UsuarioCache cache = new UsuarioCache(100, 60_000L);
+        cache.obtener(1L, this::cargar);
+        cache.obtener(2L, this::cargar);
+        List<Collection<Long>> llamadas = new ArrayList<>();
+
+        Map<Long, Usuario> encontrados = cache.obtenerTodos(Arrays.asList(1L, 2L, 3L, 4L, 3L, 99L), ids -> {
+            llamadas.add(new ArrayList<>(ids));
+            Map<Long, Usuario> out = new HashMap<>();
+            for (Long id : ids) {
+                if (id != 99L) out.put(id, cargar(id));
+            }
+            return out;
+        });
+
+        assertEquals(1, llamadas.size());
+        assertEquals(Arrays.asList(3L, 4L, 99L), llamadas.get(0));
+        assertEquals(4, encontrados.size());
+        assertFalse(encontrados.containsKey(99L));
+        assertTrue(cache.contiene(3L));
+        assertFalse(cache.contiene(99L));
+    }
+
+    private Usuario cargar(Long id) {
+        cargas.incrementAndGet();
+        return new Usuario(id, 12345678, "5", "Usuario " + id, "u" + id + "@mail.com", true, null);
+    }
+}
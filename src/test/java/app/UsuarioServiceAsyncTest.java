@@ -0,0 +1,127 @@
+package app;
+
+import app.model.Usuario;
+import app.repository.UsuarioRepository;
+import app.service.ModoEscritura;
+import app.service.UsuarioService;
+import app.service.UsuarioServiceAsync;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UsuarioServiceAsyncTest {
+
+    private UsuarioServiceAsync async;
+
+    @AfterEach
+    void cerrar() {
+        if (async != null) async.close();
+    }
+
+    @Test
+    void crearUsuario_chequeosEnParalelo() {
+        // Cada chequeo espera al otro: si corrieran en serie, ninguno terminaría a tiempo
+        CountDownLatch ambos = new CountDownLatch(2);
+        async = asyncCon(new UsuarioRepository(null) {
+            @Override
+            public boolean existeEmail(String email) throws SQLException {
+                return esperarAlOtro(ambos);
+            }
+
+            @Override
+            public boolean existeRutDv(Integer rut, String dv) throws SQLException {
+                return esperarAlOtro(ambos);
+            }
+
+            @Override
+            public Usuario crear(Integer rut, String dv, String nombre, String email) {
+                return new Usuario(1L, rut, dv, nombre, email, true, null);
+            }
+        });
+
+        Usuario creado = async.crearUsuario(12345678, "5", " Juan ", "Juan@Mail.com").join();
+
+        assertEquals("juan@mail.com", creado.getEmail());
+        assertEquals("Juan", creado.getNombre());
+    }
+
+    @Test
+    void crearUsuario_duplicadoFallaConMismoMensaje() {
+        async = asyncCon(new UsuarioRepository(null) {
+            @Override
+            public boolean existeEmail(String email) {
+                return true;
+            }
+
+            @Override
+            public boolean existeRutDv(Integer rut, String dv) {
+                return true;
+            }
+        });
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> async.crearUsuario(12345678, "5", "Juan", "juan@mail.com").join());
+
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+        assertEquals("El email ya existe.", e.getCause().getMessage());
+    }
+
+    @Test
+    void datosInvalidos_futuroFallidoSinDespachar() {
+        async = asyncCon(new UsuarioRepository(null));
+
+        CompletableFuture<Usuario> futuro = async.crearUsuario(12345678, "9", "Juan", "juan@mail.com");
+
+        assertTrue(futuro.isCompletedExceptionally());
+    }
+
+    @Test
+    void actualizarUsuario_inexistenteDevuelveFalse() {
+        async = asyncCon(new UsuarioRepository(null) {
+            @Override
+            public Usuario buscarPorId(Long id) {
+                return null;
+            }
+
+            @Override
+            public boolean existeEmailParaOtroId(Long id, String email) {
+                return false;
+            }
+
+            @Override
+            public boolean existeRutDvParaOtroId(Long id, Integer rut, String dv) {
+                return false;
+            }
+        });
+
+        assertFalse(async.actualizarUsuario(9L, 12345678, "5", "Juan", "juan@mail.com").join());
+    }
+
+    private static UsuarioServiceAsync asyncCon(UsuarioRepository repository) {
+        UsuarioService service = new UsuarioService(repository, ModoEscritura.VERIFICACION_PREVIA);
+        return new UsuarioServiceAsync(service, UsuarioServiceAsync.ejecutorAcotado(4, 16));
+    }
+
+    private static boolean esperarAlOtro(CountDownLatch ambos) throws SQLException {
+        ambos.countDown();
+        try {
+            if (!ambos.await(5, TimeUnit.SECONDS)) {
+                throw new SQLException("Los chequeos no corrieron en paralelo.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        }
+        return false;
+    }
+}
@@ -1,8 +1,12 @@
 package app;
 
+import app.model.FiltroUsuarios;
 import app.service.UsuarioService;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class UsuarioServiceValidationTest {
@@ -11,17 +15,66 @@ public class UsuarioServiceValidationTest {
     void crearUsuario_emailInvalido_debeFallar() {
         UsuarioService service = new UsuarioService();
 
-        assertThrows(IllegalArgumentException.class, () ->
-                service.crearUsuario(12345678, "9", "Nombre Prueba", "correo-invalido")
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                service.crearUsuario(12345678, "5", "Nombre Prueba", "correo-invalido")
         );
+        assertEquals("Formato de email inválido.", e.getMessage());
     }
 
     @Test
     void crearUsuario_nombreVacio_debeFallar() {
         UsuarioService service = new UsuarioService();
 
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                service.crearUsuario(12345678, "5", "   ", "test@mail.com")
+        );
+        assertEquals("Nombre es obligatorio.", e.getMessage());
+    }
+
+    @Test
+    void crearUsuario_dvIncorrecto_debeFallar() {
+        UsuarioService service = new UsuarioService();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                service.crearUsuario(12345678, "9", "Nombre Prueba", "test@mail.com")
+        );
+        assertEquals("DV no corresponde al RUT.", e.getMessage());
+    }
+
+    @Test
+    void cambiarEstadoUsuarios_idInvalido_debeFallar() {
+        UsuarioService service = new UsuarioService();
+
+        assertThrows(IllegalArgumentException.class, () ->
+                service.cambiarEstadoUsuarios(Arrays.asList(1L, null), false)
+        );
         assertThrows(IllegalArgumentException.class, () ->
-                service.crearUsuario(12345678, "9", "   ", "test@mail.com")
+                service.alternarEstadoUsuarios(Arrays.asList(1L, 0L))
         );
     }
+
+    @Test
+    void cambiarEstadoUsuarios_filtroSinCriterios_debeFallar() {
+        UsuarioService service = new UsuarioService();
+
+        assertThrows(IllegalArgumentException.class, () ->
+                service.cambiarEstadoUsuarios(FiltroUsuarios.todos().conDominioEmail("  "), false)
+        );
+    }
+
+    @Test
+    void parseIds_aceptaListasYRangos() {
+        assertEquals(Arrays.asList(1L, 5L, 10L, 11L, 12L), Main.parseIds(" 1, 5,10-12 ,"));
+        assertThrows(IllegalArgumentException.class, () -> Main.parseIds("3-1"));
+        assertThrows(IllegalArgumentException.class, () -> Main.parseIds("1,x"));
+        assertThrows(IllegalArgumentException.class, () -> Main.parseIds("1-2000000"));
+    }
+
+    @Test
+    void buscarUsuarios_textoVacio_debeFallar() {
+        UsuarioService service = new UsuarioService();
+
+        assertThrows(IllegalArgumentException.class, () -> service.buscarUsuarios("  ", 0, 20));
+        assertThrows(IllegalArgumentException.class, () -> service.buscarUsuarios("gonzalez", 0, 0));
+    }
 }